@@ -2,12 +2,15 @@ package test.serviceb;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * The ServiceBApplication class is the main application class for the Service-B.
+ * Scheduling is enabled for the periodic retry of failed compensations.
  */
 @SuppressWarnings("checkstyle:AbbreviationAsWordInName")
 @SpringBootApplication
+@EnableScheduling
 public class ServiceBApplication {
 
   /**
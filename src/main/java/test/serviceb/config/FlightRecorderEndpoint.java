@@ -0,0 +1,198 @@
+package test.serviceb.config;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * The FlightRecorderEndpoint class starts, stops and downloads a Java Flight Recorder recording of
+ * the running service on demand, so that allocation, locking and blocking can be profiled in
+ * production without attaching a profiler. It is served as {@code /actuator/jfr} once it is
+ * included in {@code management.endpoints.web.exposure.include}:
+ * {@code POST} starts a recording, {@code DELETE} stops it and {@code GET} downloads what was
+ * recorded so far as a {@code .jfr} file, also after the recording was stopped. Besides the events
+ * of the JDK, the recording contains the order lifecycle events of the order service.
+ * Only one recording is kept; starting another one discards the previous recording.
+ */
+@Component
+@WebEndpoint(id = "jfr")
+public class FlightRecorderEndpoint {
+
+  private static final String NAME = "order-service";
+  private static final String DEFAULT_SETTINGS = "default";
+  private static final Duration DEFAULT_MAX_AGE = Duration.ofMinutes(30);
+  private static final DataSize DEFAULT_MAX_SIZE = DataSize.ofMegabytes(64);
+
+  private final Object lock = new Object();
+  private Recording recording;
+
+  /**
+   * Starts a recording, unless one is running already.
+   *
+   * @param settings the name of the JDK settings to record with, {@code default} or {@code profile}
+   * @param maxAge   how long recorded data is kept, 30 minutes if not given
+   * @param maxSize  how much recorded data is kept, 64 MB if not given
+   * @return the started recording, {@code 409 Conflict} if one is running already or {@code 400 Bad Request}
+   *     if the settings are unknown
+   * @throws IOException if the settings cannot be read
+   */
+  @WriteOperation
+  public WebEndpointResponse<RecordingDescriptor> start(@Nullable String settings, @Nullable Duration maxAge,
+                                                        @Nullable DataSize maxSize) throws IOException {
+    synchronized (lock) {
+      if (recording != null && recording.getState() == RecordingState.RUNNING) {
+        return new WebEndpointResponse<>(RecordingDescriptor.describe(recording), HttpStatus.CONFLICT.value());
+      }
+      Configuration configuration;
+      try {
+        configuration = Configuration.getConfiguration(settings == null ? DEFAULT_SETTINGS : settings);
+      } catch (NoSuchFileException | ParseException e) {
+        return new WebEndpointResponse<>(WebEndpointResponse.STATUS_BAD_REQUEST);
+      }
+      Recording started = new Recording(configuration);
+      started.setName(NAME);
+      started.setToDisk(true);
+      started.setMaxAge(maxAge == null ? DEFAULT_MAX_AGE : maxAge);
+      started.setMaxSize((maxSize == null ? DEFAULT_MAX_SIZE : maxSize).toBytes());
+      started.start();
+      close();
+      recording = started;
+      return new WebEndpointResponse<>(RecordingDescriptor.describe(started));
+    }
+  }
+
+  /**
+   * Stops the running recording. Its data can still be downloaded until another recording is started.
+   *
+   * @return the stopped recording, or {@code 404 Not Found} if none is running
+   */
+  @DeleteOperation
+  public WebEndpointResponse<RecordingDescriptor> stop() {
+    synchronized (lock) {
+      if (recording == null || recording.getState() != RecordingState.RUNNING) {
+        return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+      }
+      recording.stop();
+      return new WebEndpointResponse<>(RecordingDescriptor.describe(recording));
+    }
+  }
+
+  /**
+   * Writes the data of the current recording to a temporary file, which is deleted once it was downloaded.
+   *
+   * @return the recording as a {@code .jfr} file, or {@code 404 Not Found} if no recording was started
+   * @throws IOException if the recording cannot be written
+   */
+  @ReadOperation(produces = "application/octet-stream")
+  public WebEndpointResponse<Resource> dump() throws IOException {
+    synchronized (lock) {
+      if (recording == null || recording.getState() == RecordingState.CLOSED) {
+        return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+      }
+      Path file = Files.createTempFile(NAME + "-", ".jfr");
+      try {
+        recording.dump(file);
+      } catch (IOException e) {
+        Files.deleteIfExists(file);
+        throw e;
+      }
+      return new WebEndpointResponse<>(new TemporaryFileResource(file));
+    }
+  }
+
+  /**
+   * Discards the current recording and its data.
+   */
+  @PreDestroy
+  public void close() {
+    synchronized (lock) {
+      if (recording != null) {
+        recording.close();
+      }
+    }
+  }
+
+  /**
+   * The state of a recording as reported by the endpoint.
+   *
+   * @param name    the name of the recording
+   * @param state   the state of the recording, e.g. {@code RUNNING} or {@code STOPPED}
+   * @param started when the recording was started
+   * @param stopped when the recording was stopped, or {@code null} if it is running
+   * @param maxAge  how long recorded data is kept
+   * @param maxSize how many bytes of recorded data are kept
+   * @param size    how many bytes were recorded so far
+   */
+  public record RecordingDescriptor(String name, RecordingState state, Instant started, Instant stopped,
+                                    Duration maxAge, long maxSize, long size) {
+
+    /**
+     * Describes a recording.
+     *
+     * @param recording the recording
+     * @return the state of the recording
+     */
+    private static RecordingDescriptor describe(Recording recording) {
+      return new RecordingDescriptor(recording.getName(), recording.getState(), recording.getStartTime(),
+          recording.getStopTime(), recording.getMaxAge(), recording.getMaxSize(), recording.getSize());
+    }
+  }
+
+  /**
+   * A file that is deleted once its content was read.
+   */
+  private static final class TemporaryFileResource extends FileSystemResource {
+
+    /**
+     * Constructs an instance of TemporaryFileResource.
+     *
+     * @param file the temporary file
+     */
+    private TemporaryFileResource(Path file) {
+      super(file);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+      Path file = getFile().toPath();
+      return new FilterInputStream(super.getInputStream()) {
+        @Override
+        public void close() throws IOException {
+          try {
+            super.close();
+          } finally {
+            Files.deleteIfExists(file);
+          }
+        }
+      };
+    }
+
+    @Override
+    public boolean isFile() {
+      // served through getInputStream, so that the file is deleted once it was sent
+      return false;
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package test.serviceb.config;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The MetricsConfig class is a configuration class that sets up the metrics the application
+ * records on top of those Spring Boot Actuator provides.
+ * The meters are published under {@code /actuator/metrics} and in the Prometheus text format
+ * under {@code /actuator/prometheus}.
+ */
+@Configuration
+public class MetricsConfig {
+
+  /**
+   * Provides the interceptor timing every call of the order service. It is declared static so that
+   * it can be created before the other beans, which it is applied to.
+   *
+   * @return the interceptor and pointcut timing the order service
+   */
+  @Bean
+  public static OrderServiceMetrics orderServiceMetrics() {
+    return new OrderServiceMetrics();
+  }
+
+  /**
+   * Applies {@link OrderServiceMetrics} to the methods of the order service bean.
+   *
+   * @param metrics the interceptor and pointcut timing the order service
+   * @return the advisor picked up by Spring's auto-proxying
+   */
+  @Bean
+  public static Advisor orderServiceMetricsAdvisor(OrderServiceMetrics metrics) {
+    return new DefaultPointcutAdvisor(metrics, metrics);
+  }
+}
@@ -0,0 +1,161 @@
+package test.serviceb.config;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.util.ClassUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import test.serviceb.service.OrderService;
+
+/**
+ * The OrderServiceMetrics class times every call of an {@link OrderService} method. It is applied
+ * to the order service bean as an interceptor, so the service itself records nothing.
+ * Every call is recorded by the timer {@code order.service}, with a percentile histogram so that
+ * the latency percentiles of several instances can be aggregated, and tagged with the method, its
+ * outcome ({@code success}, {@code error} or {@code cancelled}) and the simple name of the exception
+ * it failed with. While a call runs it is counted by
+ * the long task timer {@code order.service.active}, which publishes the calls in flight and how
+ * long they have been running. The reactive methods are measured from the subscription to their
+ * result until it completed, failed or was cancelled, not while the {@link Mono} or {@link Flux}
+ * is assembled; every subscription counts as a call of its own.
+ * Nothing is recorded until {@link #bindTo(MeterRegistry)} was called.
+ */
+public class OrderServiceMetrics extends StaticMethodMatcherPointcut implements MethodInterceptor, MeterBinder {
+
+  private static final String METHOD_TAG = "method";
+  private static final String NONE = "none";
+
+  private volatile MeterRegistry registry;
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  public boolean matches(Method method, Class<?> targetClass) {
+    return OrderService.class.isAssignableFrom(targetClass)
+        && ClassUtils.hasMethod(OrderService.class, method.getName(), method.getParameterTypes());
+  }
+
+  @Override
+  public Object invoke(MethodInvocation invocation) throws Throwable {
+    MeterRegistry meters = registry;
+    if (meters == null) {
+      return invocation.proceed();
+    }
+    String method = invocation.getMethod().getName();
+    Class<?> type = invocation.getMethod().getReturnType();
+    if (Mono.class.isAssignableFrom(type)) {
+      Mono<?> result = (Mono<?>) invocation.proceed();
+      return Mono.defer(() -> {
+        Call call = start(meters, method);
+        return result.doOnError(call::fail)
+            .doOnTerminate(() -> call.stop(false))
+            .doOnCancel(() -> call.stop(true));
+      });
+    }
+    if (Flux.class.isAssignableFrom(type)) {
+      Flux<?> result = (Flux<?>) invocation.proceed();
+      return Flux.defer(() -> {
+        Call call = start(meters, method);
+        return result.doOnError(call::fail)
+            .doOnTerminate(() -> call.stop(false))
+            .doOnCancel(() -> call.stop(true));
+      });
+    }
+    Call call = start(meters, method);
+    try {
+      return invocation.proceed();
+    } catch (RuntimeException | Error failure) {
+      call.fail(failure);
+      throw failure;
+    } finally {
+      call.stop(false);
+    }
+  }
+
+  /**
+   * Starts measuring a call.
+   *
+   * @param meters the registry to record the call in
+   * @param method the name of the called method
+   * @return the running call
+   */
+  private static Call start(MeterRegistry meters, String method) {
+    LongTaskTimer.Sample running = LongTaskTimer.builder("order.service.active")
+        .description("Calls of the order service method that are running")
+        .tag(METHOD_TAG, method)
+        .register(meters)
+        .start();
+    return new Call(meters, method, Timer.start(meters), running);
+  }
+
+  /**
+   * One running call of an order service method.
+   */
+  private static final class Call {
+    private final MeterRegistry meters;
+    private final String method;
+    private final Timer.Sample sample;
+    private final LongTaskTimer.Sample inFlight;
+    private final AtomicBoolean stopped = new AtomicBoolean();
+    private volatile String exception = NONE;
+
+    /**
+     * Constructs an instance of Call.
+     *
+     * @param meters   the registry to record the call in
+     * @param method   the name of the called method
+     * @param sample   the sample measuring the duration of the call
+     * @param inFlight the sample counting the call as running
+     */
+    private Call(MeterRegistry meters, String method, Timer.Sample sample, LongTaskTimer.Sample inFlight) {
+      this.meters = meters;
+      this.method = method;
+      this.sample = sample;
+      this.inFlight = inFlight;
+    }
+
+    /**
+     * Remembers that the call failed.
+     *
+     * @param failure the exception the call failed with
+     */
+    private void fail(Throwable failure) {
+      exception = failure.getClass().getSimpleName();
+    }
+
+    /**
+     * Records the call once it returned, failed or was cancelled. Only the first of these signals
+     * is recorded, as a subscriber may still cancel a result that already completed.
+     *
+     * @param cancelled whether the subscriber cancelled the result before it completed
+     */
+    private void stop(boolean cancelled) {
+      if (stopped.getAndSet(true)) {
+        return;
+      }
+      String outcome;
+      if (cancelled) {
+        outcome = "cancelled";
+      } else {
+        outcome = NONE.equals(exception) ? "success" : "error";
+      }
+      inFlight.stop();
+      sample.stop(Timer.builder("order.service")
+          .description("Latency of the calls of the order service method")
+          .tags(METHOD_TAG, method, "outcome", outcome, "exception", exception)
+          .publishPercentileHistogram()
+          .register(meters));
+    }
+  }
+}
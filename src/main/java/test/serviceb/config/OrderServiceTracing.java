@@ -0,0 +1,103 @@
+package test.serviceb.config;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.boot.actuate.autoconfigure.observation.ObservationRegistryCustomizer;
+import org.springframework.util.ClassUtils;
+import reactor.core.publisher.Mono;
+import test.serviceb.domain.Orders;
+import test.serviceb.domain.dto.OrderDto;
+import test.serviceb.service.OrderService;
+
+/**
+ * The OrderServiceTracing class observes every order created through the {@link OrderService} as
+ * the observation {@code order.create}, so that a span is opened per order when tracing is
+ * enabled. It is applied to the order service bean as an interceptor, like
+ * {@link OrderServiceMetrics}. The span is a child of the span of the HTTP request creating the
+ * order and the parent of the spans of the requests sent to the inventories while the order is
+ * reserved; it is tagged with the called method, the number of items and, once created, the
+ * identifier of the order. The reactive method is observed from the subscription to its result,
+ * which carries the observation in its Reactor context to the requests it sends.
+ * Nothing is observed until {@link #customize(ObservationRegistry)} was called.
+ */
+public class OrderServiceTracing extends StaticMethodMatcherPointcut
+    implements MethodInterceptor, ObservationRegistryCustomizer<ObservationRegistry> {
+
+  private static final Set<String> METHODS = Set.of("createOrder", "createOrderReactive");
+
+  private volatile ObservationRegistry registry = ObservationRegistry.NOOP;
+
+  @Override
+  public void customize(ObservationRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  public boolean matches(Method method, Class<?> targetClass) {
+    return OrderService.class.isAssignableFrom(targetClass) && METHODS.contains(method.getName())
+        && ClassUtils.hasMethod(OrderService.class, method.getName(), method.getParameterTypes());
+  }
+
+  @Override
+  public Object invoke(MethodInvocation invocation) throws Throwable {
+    ObservationRegistry observations = registry;
+    if (observations.isNoop()) {
+      return invocation.proceed();
+    }
+    String method = invocation.getMethod().getName();
+    OrderDto order = (OrderDto) invocation.getArguments()[0];
+    if (Mono.class.isAssignableFrom(invocation.getMethod().getReturnType())) {
+      Mono<?> result = (Mono<?>) invocation.proceed();
+      return Mono.defer(() -> {
+        Observation observation = observe(observations, method, order).start();
+        return result.doOnNext(created -> created(observation, created))
+            .doOnError(observation::error)
+            .doOnTerminate(observation::stop)
+            .doOnCancel(observation::stop)
+            .contextWrite(context -> context.put(ObservationThreadLocalAccessor.KEY, observation));
+      });
+    }
+    Observation observation = observe(observations, method, order);
+    return observation.observeChecked(() -> {
+      Object result = invocation.proceed();
+      created(observation, result);
+      return result;
+    });
+  }
+
+  /**
+   * Creates the observation of the creation of an order, a child of the observation current on the
+   * calling thread.
+   *
+   * @param observations the registry to create the observation in
+   * @param method       the name of the called method
+   * @param order        the order to create
+   * @return the observation, not started yet
+   */
+  private static Observation observe(ObservationRegistry observations, String method, OrderDto order) {
+    int items = order == null || order.getItems() == null ? 0 : order.getItems().size();
+    return Observation.createNotStarted("order.create", observations)
+        .contextualName("order create")
+        .lowCardinalityKeyValue("method", method)
+        .highCardinalityKeyValue("order.items", Integer.toString(items));
+  }
+
+  /**
+   * Tags the observation with the identifier of the created order.
+   *
+   * @param observation the observation of the creation
+   * @param result      the created order
+   */
+  private static void created(Observation observation, Object result) {
+    if (result instanceof Orders created) {
+      observation.highCardinalityKeyValue("order.id", Integer.toString(created.getId()));
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package test.serviceb.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+import test.serviceb.service.timing.ServerTiming;
+
+/**
+ * The ServerTimingAdvice class records the time spent writing a response body as the
+ * {@code serialization} phase of the request, from the moment its message converter is chosen
+ * until the {@link ServerTimingFilter} stops the timing.
+ */
+@ControllerAdvice
+@ConditionalOnProperty(name = "order.server-timing.enabled", havingValue = "true")
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+  @Override
+  public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+    return true;
+  }
+
+  @Override
+  public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType contentType,
+                                Class<? extends HttpMessageConverter<?>> converterType,
+                                ServerHttpRequest request, ServerHttpResponse response) {
+    ServerTiming timing = ServerTiming.current();
+    if (timing != null) {
+      timing.begin("serialization");
+    }
+    return body;
+  }
+}
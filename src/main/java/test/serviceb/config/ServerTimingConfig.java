@@ -0,0 +1,92 @@
+package test.serviceb.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.Errors;
+import org.springframework.validation.SmartValidator;
+import org.springframework.validation.Validator;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import test.serviceb.service.timing.ServerTiming;
+
+/**
+ * The ServerTimingConfig class answers the requests of the order API with a {@code Server-Timing}
+ * header when {@code order.server-timing.enabled} is set. It registers the
+ * {@link ServerTimingFilter} for the order API and records the validation of request bodies as
+ * the {@code validation} phase; the other phases are recorded by the order service, the requests
+ * to the inventories and {@link ServerTimingAdvice}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "order.server-timing.enabled", havingValue = "true")
+public class ServerTimingConfig implements WebMvcConfigurer {
+
+  private final jakarta.validation.Validator validator;
+
+  /**
+   * Constructs an instance of ServerTimingConfig.
+   *
+   * @param validator the bean validator validating the request bodies
+   */
+  public ServerTimingConfig(jakarta.validation.Validator validator) {
+    this.validator = validator;
+  }
+
+  /**
+   * Registers the filter measuring the requests of the order API.
+   *
+   * @return the registration of the {@link ServerTimingFilter}
+   */
+  @Bean
+  public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter() {
+    FilterRegistrationBean<ServerTimingFilter> registration = new FilterRegistrationBean<>(new ServerTimingFilter());
+    registration.addUrlPatterns("/api/order", "/api/order/*");
+    return registration;
+  }
+
+  @Override
+  public Validator getValidator() {
+    return new TimedValidator(new SpringValidatorAdapter(validator));
+  }
+
+  /**
+   * A validator recording the time it spends validating as the {@code validation} phase.
+   */
+  private static final class TimedValidator implements SmartValidator {
+
+    private static final String PHASE = "validation";
+
+    private final SmartValidator delegate;
+
+    /**
+     * Constructs an instance of TimedValidator.
+     *
+     * @param delegate the validator doing the validation
+     */
+    private TimedValidator(SmartValidator delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public boolean supports(Class<?> clazz) {
+      return delegate.supports(clazz);
+    }
+
+    @Override
+    public void validate(Object target, Errors errors) {
+      ServerTiming.time(PHASE, () -> {
+        delegate.validate(target, errors);
+        return errors;
+      });
+    }
+
+    @Override
+    public void validate(Object target, Errors errors, Object... validationHints) {
+      ServerTiming.time(PHASE, () -> {
+        delegate.validate(target, errors, validationHints);
+        return errors;
+      });
+    }
+  }
+}
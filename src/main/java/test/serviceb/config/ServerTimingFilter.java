@@ -0,0 +1,267 @@
+package test.serviceb.config;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+import test.serviceb.service.timing.ServerTiming;
+
+/**
+ * The ServerTimingFilter class measures the {@link ServerTiming} of every request it filters and
+ * answers it with a {@code Server-Timing} header breaking its latency into phases, which it also
+ * logs together with the method, path and status of the request.
+ * The response body is buffered until the request was handled, so that the time spent serializing
+ * it can be included in the header. A body growing beyond {@value #BUFFER_LIMIT} bytes, such as a
+ * long listing of orders, is sent as it is written from then on, with the phases recorded until
+ * then, if any. Streamed responses, i.e. bulk imports and orders requested as newline delimited JSON, are
+ * not filtered. Requests handled asynchronously, like those of the reactive API, are measured
+ * until the dispatch writing their result has completed. Responses sent as an error get the header
+ * with the phases recorded until the error was sent, while the log line always covers the whole request.
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+  /**
+   * The name of the header carrying the phases of a request.
+   */
+  public static final String HEADER = "Server-Timing";
+
+  /**
+   * The number of bytes of a response body buffered for the header.
+   */
+  public static final int BUFFER_LIMIT = 64 * 1024;
+
+  private static final Logger LOG = LoggerFactory.getLogger(ServerTimingFilter.class);
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    String accept = request.getHeader(HttpHeaders.ACCEPT);
+    return accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE)
+        || HttpMethod.POST.matches(request.getMethod()) && request.getRequestURI().endsWith("/bulk");
+  }
+
+  @Override
+  protected boolean shouldNotFilterAsyncDispatch() {
+    return false;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    TimedResponse timed = WebUtils.getNativeResponse(response, TimedResponse.class);
+    HttpServletResponse filtered = response;
+    if (timed == null) {
+      timed = new TimedResponse(response, ServerTiming.start());
+      filtered = timed;
+    } else {
+      timed.timing.resume();
+    }
+    try {
+      filterChain.doFilter(request, filtered);
+    } finally {
+      if (request.isAsyncStarted()) {
+        timed.timing.suspend();
+      } else {
+        finish(request, timed);
+      }
+    }
+  }
+
+  /**
+   * Stops the timing of a request whose handling has completed, adds the header and sends the
+   * buffered body.
+   *
+   * @param request the request
+   * @param timed   the response of the request
+   * @throws IOException if the body cannot be sent
+   */
+  private static void finish(HttpServletRequest request, TimedResponse timed) throws IOException {
+    ServerTiming timing = timed.timing;
+    timing.stop();
+    timed.writeHeader();
+    timed.copyBodyToResponse();
+    if (LOG.isInfoEnabled()) {
+      LOG.info("{} {} {} {}: {}", request.getMethod(), request.getRequestURI(), timed.getStatus(), HEADER,
+          timing.header());
+    }
+  }
+
+  /**
+   * A response buffering up to {@link #BUFFER_LIMIT} bytes of its body, written through its output
+   * stream or its writer, which adds the {@code Server-Timing} header before it is committed.
+   */
+  private static final class TimedResponse extends ContentCachingResponseWrapper {
+
+    private final ServerTiming timing;
+    private ServletOutputStream stream;
+    private PrintWriter writer;
+    private boolean written;
+    private boolean streaming;
+
+    /**
+     * Constructs an instance of TimedResponse.
+     *
+     * @param response the response to buffer
+     * @param timing   the timing of the request
+     */
+    private TimedResponse(HttpServletResponse response, ServerTiming timing) {
+      super(response);
+      this.timing = timing;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      if (stream == null) {
+        stream = new BoundedStream(super.getOutputStream());
+      }
+      return stream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      if (writer == null) {
+        writer = new FlushingWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+      }
+      return writer;
+    }
+
+    @Override
+    public void sendError(int status) throws IOException {
+      writeHeader();
+      super.sendError(status);
+    }
+
+    @Override
+    public void sendError(int status, String message) throws IOException {
+      writeHeader();
+      super.sendError(status, message);
+    }
+
+    /**
+     * Adds the {@code Server-Timing} header to the response, unless it was added before or no phase
+     * was recorded yet.
+     */
+    private void writeHeader() {
+      if (!written) {
+        written = true;
+        String header = timing.header();
+        if (!header.isEmpty()) {
+          setHeader(HEADER, header);
+        }
+      }
+    }
+
+    /**
+     * Picks the stream the next bytes of the body are written to. Once they would grow the buffer
+     * beyond {@link #BUFFER_LIMIT}, the header and the buffered body are sent and every further byte
+     * goes straight to the response.
+     *
+     * @param buffer the stream buffering the body
+     * @param length the number of bytes about to be written
+     * @return the stream to write the bytes to
+     * @throws IOException if the buffered body cannot be sent
+     */
+    private OutputStream target(OutputStream buffer, int length) throws IOException {
+      if (!streaming && getContentSize() + length > BUFFER_LIMIT) {
+        streaming = true;
+        writeHeader();
+        copyBodyToResponse(false);
+      }
+      return streaming ? getResponse().getOutputStream() : buffer;
+    }
+
+    /**
+     * The writer of a {@link TimedResponse}, which passes every character on to its output stream
+     * right away, so that text is bounded like bytes and none is left behind in the writer when the
+     * body is sent.
+     */
+    private static final class FlushingWriter extends PrintWriter {
+
+      /**
+       * Constructs an instance of FlushingWriter.
+       *
+       * @param out the writer encoding the characters into the output stream of the response
+       */
+      private FlushingWriter(OutputStreamWriter out) {
+        super(out);
+      }
+
+      @Override
+      public void write(int c) {
+        super.write(c);
+        flush();
+      }
+
+      @Override
+      public void write(char[] buf, int off, int len) {
+        super.write(buf, off, len);
+        flush();
+      }
+
+      @Override
+      public void write(String s, int off, int len) {
+        super.write(s, off, len);
+        flush();
+      }
+    }
+
+    /**
+     * The output stream of a {@link TimedResponse}, buffering the body until it grows too large.
+     */
+    private final class BoundedStream extends ServletOutputStream {
+
+      private final ServletOutputStream buffer;
+
+      /**
+       * Constructs an instance of BoundedStream.
+       *
+       * @param buffer the stream buffering the body
+       */
+      private BoundedStream(ServletOutputStream buffer) {
+        super();
+        this.buffer = buffer;
+      }
+
+      @Override
+      public void write(int b) throws IOException {
+        target(buffer, 1).write(b);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        target(buffer, len).write(b, off, len);
+      }
+
+      @Override
+      public void flush() throws IOException {
+        if (streaming) {
+          getResponse().getOutputStream().flush();
+        }
+      }
+
+      @Override
+      public boolean isReady() {
+        return buffer.isReady();
+      }
+
+      @Override
+      public void setWriteListener(WriteListener writeListener) {
+        buffer.setWriteListener(writeListener);
+      }
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package test.serviceb.config;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.ClientRequestObservationConvention;
+import test.serviceb.service.inventory.InventoryRequestObservationConvention;
+
+/**
+ * The TracingConfig class is a configuration class that sets up the spans the application
+ * records on top of those Spring Boot Actuator provides for the HTTP requests it serves and sends.
+ * A span is opened per created order and every request to an inventory is a child span of it,
+ * named and tagged after the inventory. The W3C {@code traceparent} header is sent with every
+ * request of a {@link org.springframework.web.reactive.function.client.WebClient}. The spans are
+ * handed to every {@link io.opentelemetry.sdk.trace.export.SpanExporter} bean, and to an OTLP
+ * exporter once {@code management.otlp.tracing.endpoint} is set.
+ */
+@Configuration
+public class TracingConfig {
+
+  /**
+   * Provides the interceptor observing the creation of orders. It is declared static so that it
+   * can be created before the other beans, which it is applied to.
+   *
+   * @return the interceptor and pointcut observing the order service
+   */
+  @Bean
+  public static OrderServiceTracing orderServiceTracing() {
+    return new OrderServiceTracing();
+  }
+
+  /**
+   * Applies {@link OrderServiceTracing} to the methods of the order service bean.
+   *
+   * @param tracing the interceptor and pointcut observing the order service
+   * @return the advisor picked up by Spring's auto-proxying
+   */
+  @Bean
+  public static Advisor orderServiceTracingAdvisor(OrderServiceTracing tracing) {
+    return new DefaultPointcutAdvisor(tracing, tracing);
+  }
+
+  /**
+   * Provides the convention naming the observations of the requests sent to the inventories,
+   * which Spring Boot applies to the {@link org.springframework.web.reactive.function.client.WebClient.Builder}.
+   *
+   * @return the convention for the observations of client requests
+   */
+  @Bean
+  public ClientRequestObservationConvention inventoryRequestObservationConvention() {
+    return new InventoryRequestObservationConvention();
+  }
+}
@@ -1,53 +1,87 @@
 package test.serviceb.controller;
 
+import java.io.InputStream;
 import java.util.List;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import test.serviceb.domain.Orders;
+import test.serviceb.domain.dto.BulkOrderResultDto;
 import test.serviceb.domain.dto.OrderDto;
+import test.serviceb.domain.dto.StatusUpdateDto;
 import test.serviceb.service.OrderService;
+import test.serviceb.service.idempotency.IdempotencyStore;
 
 /**
  * The OrderController class is a REST controller responsible for managing orders.
  * It provides endpoints for creating, retrieving, and updating orders.
+ * It is replaced by {@link ReactiveOrderController} when {@code order.api.reactive} is enabled.
  */
 @RestController()
+@ConditionalOnProperty(name = "order.api.reactive", havingValue = "false", matchIfMissing = true)
 @RequestMapping("/api/order")
 public class OrderController {
 
   private final OrderService orderService;
+  private final ObjectMapper mapper;
 
   /**
    * Constructs a new OrderController with the specified OrderService dependency.
    *
    * @param orderService the OrderService to be used by this controller, responsible for handling
    *                     business logic related to orders
+   * @param mapper       the object mapper used to stream orders as newline delimited JSON
    */
-  public OrderController(OrderService orderService) {
+  public OrderController(OrderService orderService, ObjectMapper mapper) {
     this.orderService = orderService;
+    this.mapper = mapper;
   }
 
   /**
-   * Creates a new order based on the provided order details.
+   * Creates a new order based on the provided order details. A request repeated with the same
+   * {@code Idempotency-Key} header is answered with the order created for the first one.
    *
-   * @param orderDto the data transfer object containing the details of the order to be created
+   * @param orderDto       the data transfer object containing the details of the order to be created
+   * @param idempotencyKey the optional key identifying the repetitions of the request
    * @return a {@link ResponseEntity} containing the created {@link Orders} object with a status of {@code HttpStatus.CREATED}
    */
   @PostMapping
-  public ResponseEntity<Orders> createOrder(@Valid @RequestBody OrderDto orderDto) {
-    Orders order = orderService.createOrder(orderDto);
+  public ResponseEntity<Orders> createOrder(@Valid @RequestBody OrderDto orderDto,
+                                            @RequestHeader(name = IdempotencyStore.HEADER, required = false)
+                                            String idempotencyKey) {
+    Orders order = orderService.createOrder(orderDto, idempotencyKey);
     return ResponseEntity.status(HttpStatus.CREATED).body(order);
   }
 
+  /**
+   * Creates many orders at once, e.g. when they are imported from a partner feed. The orders are
+   * sent as a JSON array or as newline delimited JSON, and the result of every order is streamed
+   * back as a line of JSON as soon as its chunk of orders is done. Every order is validated and
+   * created or rejected on its own, so the response status is always {@code 200 OK}.
+   *
+   * @param orders the request body containing the orders
+   * @return a ResponseEntity whose body writes one result per order, in the order of the request
+   */
+  @PostMapping(path = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+      produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> createOrders(InputStream orders) {
+    return OrderResponses.bulk(orderService, mapper, orders);
+  }
+
   /**
    * Retrieves a list of all orders.
    *
@@ -59,6 +93,30 @@ public class OrderController {
     return ResponseEntity.ok(orders);
   }
 
+  /**
+   * Retrieves one page of orders in ascending ID order. The response carries a {@code Link}
+   * header pointing at the next page as long as the page is full.
+   *
+   * @param limit the maximum number of orders on the page, between 1 and 1000
+   * @param after the ID of the last order of the previous page, or {@code 0} for the first page
+   * @return a ResponseEntity containing the orders of the page
+   */
+  @GetMapping(params = "limit")
+  public ResponseEntity<List<Orders>> getOrderPage(@RequestParam int limit,
+                                                   @RequestParam(defaultValue = "0") int after) {
+    return OrderResponses.page(orderService.getOrders(after, limit), limit);
+  }
+
+  /**
+   * Streams all orders as newline delimited JSON while they are read from the database.
+   *
+   * @return a ResponseEntity whose body writes one order per line
+   */
+  @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> streamOrders() {
+    return OrderResponses.ndjson(orderService, mapper);
+  }
+
   /**
    * Retrieves the details of an order based on the provided order ID.
    *
@@ -90,4 +148,17 @@ public class OrderController {
     }
     return ResponseEntity.ok(order);
   }
+
+  /**
+   * Moves a set of orders to a new status at once, e.g. all orders of a shipping run, with a single
+   * update instead of one request per order. Cancelled orders are not changed, and the stock of
+   * orders that are cancelled is returned to their inventories in the background.
+   *
+   * @param update the new status and the IDs of the orders
+   * @return a ResponseEntity containing one result per requested ID with a status of {@code HttpStatus.OK}
+   */
+  @PutMapping("/bulk/status")
+  public ResponseEntity<List<BulkOrderResultDto>> updateStatuses(@Valid @RequestBody StatusUpdateDto update) {
+    return ResponseEntity.ok(orderService.updateStatuses(update));
+  }
 }
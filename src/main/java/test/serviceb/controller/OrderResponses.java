@@ -0,0 +1,220 @@
+package test.serviceb.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
+import test.serviceb.domain.Orders;
+import test.serviceb.domain.dto.BulkOrderResultDto;
+import test.serviceb.domain.dto.OrderDto;
+import test.serviceb.service.OrderService;
+
+/**
+ * The OrderResponses class builds the order listing and bulk import responses shared by
+ * {@link OrderController} and {@link ReactiveOrderController}.
+ */
+public final class OrderResponses {
+
+  /**
+   * The base path of the order API, used to build pagination links.
+   */
+  public static final String BASE_PATH = "/api/order";
+
+  private static final int NEWLINE = '\n';
+
+  /**
+   * Prevents instantiation of this utility class.
+   */
+  private OrderResponses() {
+  }
+
+  /**
+   * Builds the response for one page of orders. If the page is full, a {@code Link} header with
+   * {@code rel="next"} points at the following page.
+   *
+   * @param orders the orders of the page
+   * @param limit  the requested page size
+   * @return a ResponseEntity containing the page with a status of {@code HttpStatus.OK}
+   */
+  public static ResponseEntity<List<Orders>> page(List<Orders> orders, int limit) {
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+    if (orders.size() == limit) {
+      String next = UriComponentsBuilder.fromPath(BASE_PATH)
+          .queryParam("after", orders.getLast().getId())
+          .queryParam("limit", limit)
+          .toUriString();
+      response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+    }
+    return response.body(orders);
+  }
+
+  /**
+   * Builds a response that streams all orders as newline delimited JSON while they are read from
+   * the database, one order per line.
+   *
+   * @param orderService the service reading the orders
+   * @param mapper       the object mapper serializing each order
+   * @return a ResponseEntity whose body writes the orders to the response
+   */
+  @SuppressWarnings("PMD.PreserveStackTrace")
+  public static ResponseEntity<StreamingResponseBody> ndjson(OrderService orderService, ObjectMapper mapper) {
+    StreamingResponseBody body = out -> {
+      try {
+        orderService.streamOrders(order -> writeLine(out, mapper, order));
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+    };
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+  }
+
+  /**
+   * Builds a response that creates the orders of a bulk import while they are read from the
+   * request and streams one result per order as newline delimited JSON. The orders are read
+   * either from a JSON array or from newline delimited JSON. If the request body is malformed, the
+   * orders read before are still created, and the last line reports the malformed order.
+   *
+   * @param orderService the service creating the orders
+   * @param mapper       the object mapper reading the orders and serializing their results
+   * @param orders       the request body containing the orders
+   * @return a ResponseEntity whose body writes the result of every order to the response
+   */
+  @SuppressWarnings("PMD.PreserveStackTrace")
+  public static ResponseEntity<StreamingResponseBody> bulk(OrderService orderService, ObjectMapper mapper,
+                                                           InputStream orders) {
+    StreamingResponseBody body = out -> {
+      OrderReader reader = new OrderReader(mapper.readerFor(OrderDto.class), orders);
+      try {
+        orderService.createOrders(reader, result -> writeLine(out, mapper, result));
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      if (reader.getFailure() != null) {
+        writeLine(out, mapper, BulkOrderResultDto.failed(reader.getRead(), HttpStatus.BAD_REQUEST.value(),
+            "Malformed order: " + reader.getFailure()));
+      }
+    };
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+  }
+
+  /**
+   * Writes one value as a line of JSON.
+   *
+   * @param out    the response stream
+   * @param mapper the object mapper serializing the value
+   * @param value  the order or result to write
+   */
+  private static void writeLine(OutputStream out, ObjectMapper mapper, Object value) {
+    try {
+      out.write(mapper.writeValueAsBytes(value));
+      out.write(NEWLINE);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * The OrderReader class reads the orders of a bulk import one at a time from a JSON array or
+   * newline delimited JSON. Instead of failing the import, a malformed order ends it, and the
+   * reason is kept for the response.
+   */
+  private static final class OrderReader implements Iterator<OrderDto> {
+
+    private final ObjectReader reader;
+    private final InputStream in;
+    private MappingIterator<OrderDto> values;
+    private OrderDto ahead;
+    private int read;
+    private String failure;
+
+    /**
+     * Constructs an instance of OrderReader.
+     *
+     * @param reader the reader binding each JSON value to an order
+     * @param in     the request body containing the orders
+     */
+    private OrderReader(ObjectReader reader, InputStream in) {
+      this.reader = reader;
+      this.in = in;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (ahead == null && failure == null) {
+        ahead = readNext();
+      }
+      return ahead != null;
+    }
+
+    @Override
+    @SuppressWarnings("PMD.NullAssignment")
+    public OrderDto next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      OrderDto order = ahead;
+      ahead = null;
+      read++;
+      return order;
+    }
+
+    /**
+     * Reads the next order from the request body, opening it on the first call.
+     *
+     * @return the next order, or {@code null} at the end of the orders or if the order is malformed
+     */
+    private OrderDto readNext() {
+      try {
+        if (values == null) {
+          values = reader.readValues(in);
+        }
+        if (!values.hasNextValue()) {
+          return null;
+        }
+        OrderDto order = values.nextValue();
+        if (order == null) {
+          failure = "an order must not be null";
+        }
+        return order;
+      } catch (JsonProcessingException e) {
+        failure = e.getOriginalMessage();
+        return null;
+      } catch (IOException e) {
+        failure = e.getMessage();
+        return null;
+      }
+    }
+
+    /**
+     * Retrieves the number of orders read so far.
+     *
+     * @return the number of orders read, which is the position of a malformed order
+     */
+    private int getRead() {
+      return read;
+    }
+
+    /**
+     * Retrieves the reason the orders ended early.
+     *
+     * @return the reason the last order is malformed, or {@code null} if all orders were read
+     */
+    private String getFailure() {
+      return failure;
+    }
+  }
+}
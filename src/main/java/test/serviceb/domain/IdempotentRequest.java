@@ -0,0 +1,87 @@
+package test.serviceb.domain;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Represents a request to create an order that was sent with an {@code Idempotency-Key} header.
+ * The key is stored before the inventory is reserved for the order and completed with the ID of
+ * the created order in the transaction storing the order, so that a repeated request is answered
+ * with that order instead of creating another one, by every instance of the service.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_idempotent_request_created", columnList = "createdAt"))
+public class IdempotentRequest {
+
+  /**
+   * The maximum length of an idempotency key.
+   */
+  public static final int MAX_KEY_LENGTH = 255;
+
+  private static final int HASH_LENGTH = 64;
+
+  /**
+   * The idempotency key chosen by the client.
+   */
+  @Id
+  @Column(length = MAX_KEY_LENGTH)
+  private String idempotencyKey;
+
+  /**
+   * The SHA-256 hash of the request, which a repeated request must match.
+   */
+  @Column(length = HASH_LENGTH, nullable = false)
+  private String fingerprint;
+
+  /**
+   * The ID of the order created for the request, or {@code null} while it is being created.
+   */
+  private Integer orderId;
+
+  /**
+   * When the key was claimed by the instance creating the order.
+   */
+  @Column(nullable = false)
+  private Instant createdAt;
+
+  /**
+   * Retrieves the idempotency key of the request.
+   *
+   * @return the idempotency key
+   */
+  public String getIdempotencyKey() {
+    return idempotencyKey;
+  }
+
+  /**
+   * Retrieves the hash of the request.
+   *
+   * @return the SHA-256 hash of the request as hexadecimal string
+   */
+  public String getFingerprint() {
+    return fingerprint;
+  }
+
+  /**
+   * Retrieves the ID of the order created for the request.
+   *
+   * @return the ID of the order, or {@code null} if it is still being created
+   */
+  public Integer getOrderId() {
+    return orderId;
+  }
+
+  /**
+   * Retrieves when the key was claimed.
+   *
+   * @return the time the key was claimed
+   */
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+}
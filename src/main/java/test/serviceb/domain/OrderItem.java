@@ -7,6 +7,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 
 /**
  * Represents an item entity within an order.
@@ -19,10 +20,14 @@ public class OrderItem {
 
   /**
    * The unique identifier for the "Item" entity.
-   * This field is autogenerated using the IDENTITY strategy.
+   * This field is autogenerated from the "order_item_seq" sequence. IDs are allocated in blocks of
+   * {@value Orders#ID_BLOCK_SIZE}, so inserts need not wait for the database to hand out an ID
+   * and can be batched.
    */
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_item_seq")
+  @SequenceGenerator(name = "order_item_seq", sequenceName = "order_item_seq",
+      allocationSize = Orders.ID_BLOCK_SIZE)
   private int id;
 
   /**
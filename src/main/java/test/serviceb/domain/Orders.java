@@ -11,6 +11,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 
 /**
  * Represents an order entity within the application.
@@ -18,12 +19,20 @@ import jakarta.persistence.OneToMany;
 @Entity
 public class Orders {
 
+  /**
+   * The number of IDs reserved with one sequence call, for orders as well as order items. It matches
+   * the JDBC batch size, so that a batch of inserts needs at most one sequence call per table.
+   */
+  public static final int ID_BLOCK_SIZE = 50;
+
   /**
    * The unique identifier for the "Item" entity.
-   * This field is autogenerated using the IDENTITY strategy.
+   * This field is autogenerated from the "orders_seq" sequence. IDs are allocated in blocks of
+   * {@value ID_BLOCK_SIZE}, so inserts need not wait for the database to hand out an ID and can be batched.
    */
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+  @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = ID_BLOCK_SIZE)
   private int id;
 
   /**
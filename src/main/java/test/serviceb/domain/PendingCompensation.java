@@ -0,0 +1,228 @@
+package test.serviceb.domain;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+/**
+ * Represents the stock of one item that still has to be returned to its external inventory,
+ * either because it was reserved for an order which could not be created or because its order
+ * was cancelled. The table serves as the outbox of the restocks: a pending compensation is stored
+ * before the item is restocked, together with the cancellation of its order if there is one, and
+ * deleted once the restock succeeded, so that a compensation interrupted by a failure or a restart
+ * is retried later.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_pending_compensation_due", columnList = "nextAttemptAt"))
+public class PendingCompensation {
+
+  /**
+   * The maximum length of the stored failure message.
+   */
+  public static final int MAX_ERROR_LENGTH = 1000;
+
+  private static final int KEY_LENGTH = 36;
+
+  /**
+   * The unique identifier of the pending compensation, autogenerated from the
+   * "pending_compensation_seq" sequence in blocks of {@value Orders#ID_BLOCK_SIZE}.
+   */
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pending_compensation_seq")
+  @SequenceGenerator(name = "pending_compensation_seq", sequenceName = "pending_compensation_seq",
+      allocationSize = Orders.ID_BLOCK_SIZE)
+  private long id;
+
+  /**
+   * The ID of the cancelled order the item belongs to, or {@code null} if the order could not be created.
+   */
+  private Integer orderId;
+
+  /**
+   * The key sent with every attempt to restock the item, so that the external inventory can
+   * recognize an attempt repeated after a failure or a restart and apply it only once.
+   */
+  @Column(length = KEY_LENGTH, unique = true, nullable = false)
+  private String idempotencyKey;
+
+  /**
+   * The ID of the item within its external inventory.
+   */
+  private int itemId;
+
+  /**
+   * The name of the item, which also selects its external inventory.
+   */
+  private String itemName;
+
+  /**
+   * The quantity to put back into the stock of the item.
+   */
+  private int quantity;
+
+  /**
+   * The number of failed attempts to restock the item.
+   */
+  private int attempts;
+
+  /**
+   * When the reserved item was recorded for compensation.
+   */
+  private Instant createdAt;
+
+  /**
+   * When the restock is due next. While an instance is restocking the item, this is the end of
+   * its lease, so that other instances leave the item alone until then.
+   */
+  private Instant nextAttemptAt;
+
+  /**
+   * The failure of the most recent attempt, or {@code null} if there was none.
+   */
+  @Column(length = MAX_ERROR_LENGTH)
+  private String lastError;
+
+  /**
+   * Default constructor for the PendingCompensation class, required by JPA.
+   */
+  public PendingCompensation() {
+  }
+
+  /**
+   * Constructs an instance of PendingCompensation returning the stock of a reserved order item.
+   *
+   * @param orderItem     the reserved order item
+   * @param orderId       the ID of the cancelled order, or {@code null} if the order could not be created
+   * @param createdAt     when the order item was recorded for compensation
+   * @param nextAttemptAt when the restock is due, usually the end of the lease of the recording instance
+   */
+  public PendingCompensation(OrderItem orderItem, Integer orderId, Instant createdAt, Instant nextAttemptAt) {
+    this.orderId = orderId;
+    this.idempotencyKey = UUID.randomUUID().toString();
+    this.itemId = orderItem.getItemId();
+    this.itemName = orderItem.getItemName();
+    this.quantity = orderItem.getQuantity();
+    this.createdAt = createdAt;
+    this.nextAttemptAt = nextAttemptAt;
+  }
+
+  /**
+   * Retrieves the unique identifier of the pending compensation.
+   *
+   * @return the unique identifier
+   */
+  public long getId() {
+    return id;
+  }
+
+  /**
+   * Retrieves the ID of the cancelled order the item belongs to.
+   *
+   * @return the ID of the order, or {@code null} if the order could not be created
+   */
+  public Integer getOrderId() {
+    return orderId;
+  }
+
+  /**
+   * Retrieves the key identifying every attempt to restock the item to the external inventory.
+   *
+   * @return the idempotency key
+   */
+  public String getIdempotencyKey() {
+    return idempotencyKey;
+  }
+
+  /**
+   * Retrieves the ID of the item within its external inventory.
+   *
+   * @return the ID of the item
+   */
+  public int getItemId() {
+    return itemId;
+  }
+
+  /**
+   * Retrieves the name of the item.
+   *
+   * @return the name of the item
+   */
+  public String getItemName() {
+    return itemName;
+  }
+
+  /**
+   * Retrieves the quantity to put back into the stock of the item.
+   *
+   * @return the quantity to restock
+   */
+  public int getQuantity() {
+    return quantity;
+  }
+
+  /**
+   * Retrieves the number of failed attempts to restock the item.
+   *
+   * @return the number of failed attempts
+   */
+  public int getAttempts() {
+    return attempts;
+  }
+
+  /**
+   * Retrieves when the reserved item was recorded for compensation.
+   *
+   * @return the time of recording
+   */
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  /**
+   * Retrieves when the restock is due next.
+   *
+   * @return the time of the next attempt
+   */
+  public Instant getNextAttemptAt() {
+    return nextAttemptAt;
+  }
+
+  /**
+   * Retrieves the failure of the most recent attempt.
+   *
+   * @return the failure message, or {@code null} if no attempt failed
+   */
+  public String getLastError() {
+    return lastError;
+  }
+
+  /**
+   * Records a failed attempt to restock the item and schedules the next one.
+   *
+   * @param failure       the failure of the attempt
+   * @param nextAttemptAt when the restock is due next
+   */
+  public void failed(Throwable failure, Instant nextAttemptAt) {
+    String message = String.valueOf(failure);
+    this.attempts++;
+    this.lastError = message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    this.nextAttemptAt = nextAttemptAt;
+  }
+
+  /**
+   * Creates the order item whose stock is returned by this compensation.
+   *
+   * @return an order item with the item and quantity to restock
+   */
+  public OrderItem toOrderItem() {
+    return new OrderItem(itemId, itemName, quantity, 0);
+  }
+}
@@ -0,0 +1,141 @@
+package test.serviceb.domain.dto;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Represents a Data Transfer Object (DTO) for the result of one order of a bulk order import or
+ * bulk status update.
+ * This class is used to report, for the order at a given position of the request, the HTTP status
+ * it would have received if it had been created or updated on its own, together with the ID of the
+ * order or the reason it was rejected.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class BulkOrderResultDto {
+  private final int index;
+  private final int status;
+  private final Integer orderId;
+  private final String error;
+  private final Map<String, String> errors;
+
+  /**
+   * Constructs an instance of BulkOrderResultDto.
+   *
+   * @param index   the zero-based position of the order within the import
+   * @param status  the HTTP status code of the order
+   * @param orderId the ID of the created order, or {@code null} if it was not created
+   * @param error   the reason the order was not created, or {@code null} if it was created
+   * @param errors  the validation messages per field, or {@code null} if the order was valid
+   */
+  private BulkOrderResultDto(int index, int status, Integer orderId, String error, Map<String, String> errors) {
+    this.index = index;
+    this.status = status;
+    this.orderId = orderId;
+    this.error = error;
+    this.errors = errors;
+  }
+
+  /**
+   * Creates the result of an order that was created.
+   *
+   * @param index   the zero-based position of the order within the import
+   * @param orderId the ID of the created order
+   * @return the result with a status of {@code 201 Created}
+   */
+  public static BulkOrderResultDto created(int index, int orderId) {
+    return new BulkOrderResultDto(index, 201, orderId, null, null);
+  }
+
+  /**
+   * Creates the result of an order whose status was updated.
+   *
+   * @param index   the zero-based position of the order ID within the request
+   * @param orderId the ID of the updated order
+   * @return the result with a status of {@code 200 OK}
+   */
+  public static BulkOrderResultDto updated(int index, int orderId) {
+    return new BulkOrderResultDto(index, 200, orderId, null, null);
+  }
+
+  /**
+   * Creates the result of an order that failed validation.
+   *
+   * @param index  the zero-based position of the order within the import
+   * @param errors the validation messages per field
+   * @return the result with a status of {@code 400 Bad Request}
+   */
+  public static BulkOrderResultDto invalid(int index, Map<String, String> errors) {
+    return new BulkOrderResultDto(index, 400, null, "Validation failed", Map.copyOf(errors));
+  }
+
+  /**
+   * Creates the result of an order that could not be created.
+   *
+   * @param index  the zero-based position of the order within the import
+   * @param status the HTTP status code describing the failure
+   * @param error  the reason the order was not created
+   * @return the result
+   */
+  public static BulkOrderResultDto failed(int index, int status, String error) {
+    return failed(index, status, null, error);
+  }
+
+  /**
+   * Creates the result of an existing order that could not be updated.
+   *
+   * @param index   the zero-based position of the order ID within the request
+   * @param status  the HTTP status code describing the failure
+   * @param orderId the ID of the order, or {@code null} if it is not known
+   * @param error   the reason the order was not updated
+   * @return the result
+   */
+  public static BulkOrderResultDto failed(int index, int status, Integer orderId, String error) {
+    return new BulkOrderResultDto(index, status, orderId, error, null);
+  }
+
+  /**
+   * Retrieves the position of the order within the request.
+   *
+   * @return the zero-based position of the order
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  /**
+   * Retrieves the HTTP status code of the order.
+   *
+   * @return {@code 201} if the order was created, {@code 200} if it was updated, otherwise the status of its failure
+   */
+  public int getStatus() {
+    return status;
+  }
+
+  /**
+   * Retrieves the ID of the order.
+   *
+   * @return the ID of the created or updated order, or {@code null} if no order was created
+   */
+  public Integer getOrderId() {
+    return orderId;
+  }
+
+  /**
+   * Retrieves the reason the order was not created or updated.
+   *
+   * @return the reason, or {@code null} if the order was created or updated
+   */
+  public String getError() {
+    return error;
+  }
+
+  /**
+   * Retrieves the validation messages of the order.
+   *
+   * @return the validation messages per field, or {@code null} if the order was valid
+   */
+  public Map<String, String> getErrors() {
+    return errors;
+  }
+}
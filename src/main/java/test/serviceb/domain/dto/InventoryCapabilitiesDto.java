@@ -0,0 +1,44 @@
+package test.serviceb.domain.dto;
+
+/**
+ * Represents a Data Transfer Object (DTO) describing the optional features an external
+ * inventory advertises on its capabilities endpoint.
+ * Backends that do not expose the endpoint are treated as supporting none of them.
+ */
+public class InventoryCapabilitiesDto {
+  private boolean bulkReservation;
+
+  /**
+   * Default constructor for the InventoryCapabilitiesDto class.
+   * Initializes an instance of InventoryCapabilitiesDto with all capabilities disabled.
+   */
+  public InventoryCapabilitiesDto() {
+  }
+
+  /**
+   * Constructs an instance of InventoryCapabilitiesDto with the specified capabilities.
+   *
+   * @param bulkReservation whether the inventory accepts bulk reservation requests
+   */
+  public InventoryCapabilitiesDto(boolean bulkReservation) {
+    this.bulkReservation = bulkReservation;
+  }
+
+  /**
+   * Indicates whether the inventory accepts bulk reservation requests.
+   *
+   * @return {@code true} if several items can be reserved with a single call
+   */
+  public boolean isBulkReservation() {
+    return bulkReservation;
+  }
+
+  /**
+   * Sets whether the inventory accepts bulk reservation requests.
+   *
+   * @param bulkReservation {@code true} if several items can be reserved with a single call
+   */
+  public void setBulkReservation(boolean bulkReservation) {
+    this.bulkReservation = bulkReservation;
+  }
+}
@@ -1,21 +1,27 @@
 package test.serviceb.domain.dto;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 /**
  * Represents a Data Transfer Object (DTO) for an inventory item.
  * This class is used to encapsulate details about an inventory item, including its name,
  * stock quantity, price, and description.
+ * Instances are immutable, so that the update of every item is a payload of its own that can be
+ * sent concurrently with the updates of other items and repeated as it is on a retry.
  */
-public class InventoryItemDto {
-  private String name;
-  private int stock;
-  private double price;
-  private String description;
+public final class InventoryItemDto {
+  private final String name;
+  private final int stock;
+  private final double price;
+  private final String description;
 
   /**
    * Default constructor for the InventoryItemDto class.
    * Initializes an instance of InventoryItemDto with default values for its properties.
    */
   public InventoryItemDto() {
+    this(null, 0, 0.0, null);
   }
 
   /**
@@ -26,7 +32,9 @@ public class InventoryItemDto {
    * @param price       the price of the inventory item
    * @param description the description of the inventory item
    */
-  public InventoryItemDto(String name, int stock, double price, String description) {
+  @JsonCreator
+  public InventoryItemDto(@JsonProperty("name") String name, @JsonProperty("stock") int stock,
+                          @JsonProperty("price") double price, @JsonProperty("description") String description) {
     this.name = name;
     this.stock = stock;
     this.price = price;
@@ -42,15 +50,6 @@ public class InventoryItemDto {
     return name;
   }
 
-  /**
-   * Updates the name of the inventory item.
-   *
-   * @param name the new name to set for the inventory item
-   */
-  public void setName(String name) {
-    this.name = name;
-  }
-
   /**
    * Retrieves the stock quantity of the inventory item.
    *
@@ -60,15 +59,6 @@ public class InventoryItemDto {
     return stock;
   }
 
-  /**
-   * Sets the stock level for the inventory item.
-   *
-   * @param stock the stock level to set; must be a non-negative integer
-   */
-  public void setStock(int stock) {
-    this.stock = stock;
-  }
-
   /**
    * Retrieves the price of the inventory item.
    *
@@ -78,15 +68,6 @@ public class InventoryItemDto {
     return price;
   }
 
-  /**
-   * Sets the price of the inventory item.
-   *
-   * @param price the price to set, represented as a double
-   */
-  public void setPrice(double price) {
-    this.price = price;
-  }
-
   /**
    * Retrieves the description of the inventory item.
    *
@@ -95,13 +76,4 @@ public class InventoryItemDto {
   public String getDescription() {
     return description;
   }
-
-  /**
-   * Sets the description of the inventory item.
-   *
-   * @param description the description of the inventory item
-   */
-  public void setDescription(String description) {
-    this.description = description;
-  }
 }
@@ -0,0 +1,87 @@
+package test.serviceb.domain.dto;
+
+/**
+ * Represents a Data Transfer Object (DTO) for a single line of a bulk reservation request
+ * sent to an external inventory.
+ * This class is used to encapsulate the item to reserve and the quantity that should be
+ * taken from its stock.
+ */
+public class ItemReservationDto {
+  private int itemId;
+  private String itemName;
+  private int quantity;
+
+  /**
+   * Default constructor for the ItemReservationDto class.
+   * Initializes an instance of ItemReservationDto with default values for its properties.
+   */
+  public ItemReservationDto() {
+  }
+
+  /**
+   * Constructs an instance of ItemReservationDto with the specified item ID, item name and quantity.
+   *
+   * @param itemId   the unique identifier of the item in the external inventory
+   * @param itemName the name of the item in the external inventory
+   * @param quantity the quantity to reserve; must be greater than zero
+   */
+  public ItemReservationDto(int itemId, String itemName, int quantity) {
+    this.itemId = itemId;
+    this.itemName = itemName;
+    this.quantity = quantity;
+  }
+
+  /**
+   * Retrieves the unique identifier of the item to reserve.
+   *
+   * @return the identifier of the item as an integer
+   */
+  public int getItemId() {
+    return itemId;
+  }
+
+  /**
+   * Sets the unique identifier of the item to reserve.
+   *
+   * @param itemId the identifier of the item
+   */
+  public void setItemId(int itemId) {
+    this.itemId = itemId;
+  }
+
+  /**
+   * Retrieves the name of the item to reserve.
+   *
+   * @return the name of the item as a String
+   */
+  public String getItemName() {
+    return itemName;
+  }
+
+  /**
+   * Sets the name of the item to reserve.
+   *
+   * @param itemName the name of the item
+   */
+  public void setItemName(String itemName) {
+    this.itemName = itemName;
+  }
+
+  /**
+   * Retrieves the quantity to reserve.
+   *
+   * @return the quantity as an integer
+   */
+  public int getQuantity() {
+    return quantity;
+  }
+
+  /**
+   * Sets the quantity to reserve.
+   *
+   * @param quantity the quantity to reserve; must be greater than zero
+   */
+  public void setQuantity(int quantity) {
+    this.quantity = quantity;
+  }
+}
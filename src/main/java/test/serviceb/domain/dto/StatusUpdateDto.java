@@ -0,0 +1,82 @@
+package test.serviceb.domain.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+/**
+ * Represents a Data Transfer Object (DTO) for a bulk status update.
+ * This class is used to encapsulate the status that a set of orders is moved to, e.g. when a
+ * shipping run marks all orders of a wave as shipped.
+ */
+public class StatusUpdateDto {
+
+  /**
+   * The maximum number of orders updated by a single request.
+   */
+  public static final int MAX_IDS = 1000;
+
+  @NotBlank(message = "Status must be provided")
+  private String status;
+  @NotEmpty(message = "At least one order ID is required")
+  @Size(max = MAX_IDS, message = "At most " + MAX_IDS + " order IDs are allowed")
+  private List<@NotNull(message = "Order IDs must not be null") Integer> ids = new ArrayList<>();
+
+  /**
+   * Default constructor for the StatusUpdateDto class.
+   * Initializes an instance of StatusUpdateDto with default values for its properties.
+   */
+  public StatusUpdateDto() {
+  }
+
+  /**
+   * Constructs an instance of StatusUpdateDto with the specified status and order IDs.
+   *
+   * @param status the new status of the orders; must not be blank
+   * @param ids    the IDs of the orders to update; must not be empty
+   */
+  public StatusUpdateDto(String status, List<Integer> ids) {
+    this.status = status;
+    this.ids = ids;
+  }
+
+  /**
+   * Retrieves the new status of the orders.
+   *
+   * @return the status as a non-blank string
+   */
+  public String getStatus() {
+    return status;
+  }
+
+  /**
+   * Sets the new status of the orders.
+   *
+   * @param status the status, must not be blank
+   */
+  public void setStatus(String status) {
+    this.status = status;
+  }
+
+  /**
+   * Retrieves the IDs of the orders to update.
+   *
+   * @return the order IDs, in the order of the request
+   */
+  public List<Integer> getIds() {
+    return ids;
+  }
+
+  /**
+   * Sets the IDs of the orders to update.
+   *
+   * @param ids the order IDs, must not be empty
+   */
+  public void setIds(List<Integer> ids) {
+    this.ids = ids;
+  }
+}
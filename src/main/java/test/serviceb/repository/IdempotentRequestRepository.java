@@ -0,0 +1,85 @@
+package test.serviceb.repository;
+
+import java.time.Instant;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import test.serviceb.domain.IdempotentRequest;
+
+/**
+ * The IdempotentRequestRepository class is a JPA repository responsible for managing the
+ * idempotency keys of the requests creating orders.
+ */
+@Repository
+public interface IdempotentRequestRepository extends JpaRepository<IdempotentRequest, String> {
+
+  /**
+   * Claims an idempotency key for the calling instance by inserting it. The insert fails with a
+   * {@link org.springframework.dao.DataIntegrityViolationException} if the key was claimed before,
+   * which Hibernate logs as an error, so callers look the key up first and rely on the insert only
+   * to decide a race between instances.
+   *
+   * @param key         the idempotency key
+   * @param fingerprint the hash of the request
+   * @param now         the current time
+   * @return the number of keys inserted
+   */
+  @Transactional
+  @Modifying
+  @Query("insert into IdempotentRequest (idempotencyKey, fingerprint, createdAt) values (:key, :fingerprint, :now)")
+  int claim(String key, String fingerprint, Instant now);
+
+  /**
+   * Takes over a key whose order was never created, because the instance that claimed it stopped
+   * or failed before releasing it. Only the first of several instances taking over the same key
+   * at the same time succeeds.
+   *
+   * @param key       the idempotency key
+   * @param claimedAt when the key was claimed by the previous instance
+   * @param now       the current time
+   * @return the number of keys taken over
+   */
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("update IdempotentRequest r set r.createdAt = :now"
+      + " where r.idempotencyKey = :key and r.orderId is null and r.createdAt = :claimedAt")
+  int takeOver(String key, Instant claimedAt, Instant now);
+
+  /**
+   * Records the order created for a claimed key. Runs in the transaction storing the order if
+   * there is one.
+   *
+   * @param key     the idempotency key
+   * @param orderId the ID of the created order
+   * @return the number of keys updated
+   */
+  @Transactional
+  @Modifying
+  @Query("update IdempotentRequest r set r.orderId = :orderId where r.idempotencyKey = :key")
+  int complete(String key, int orderId);
+
+  /**
+   * Releases a claimed key whose order could not be created, so that the request can be retried.
+   *
+   * @param key the idempotency key
+   * @return the number of keys released
+   */
+  @Transactional
+  @Modifying
+  @Query("delete from IdempotentRequest r where r.idempotencyKey = :key and r.orderId is null")
+  int release(String key);
+
+  /**
+   * Forgets the keys claimed before the given time.
+   *
+   * @param before the time before which keys are forgotten
+   * @return the number of keys deleted
+   */
+  @Transactional
+  @Modifying
+  @Query("delete from IdempotentRequest r where r.createdAt < :before")
+  int purge(Instant before);
+}
@@ -0,0 +1,13 @@
+package test.serviceb.repository;
+
+import test.serviceb.domain.Status;
+
+/**
+ * The status of an order, read by {@link OrdersRepository#findStatuses(java.util.Collection)}
+ * without loading the order and its order items.
+ *
+ * @param id     the unique identifier of the order
+ * @param status the current status of the order
+ */
+public record OrderStatus(int id, Status status) {
+}
@@ -1,12 +1,97 @@
 package test.serviceb.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import test.serviceb.domain.Orders;
+import test.serviceb.domain.Status;
 
 /**
  * The OrdersRepository class is a JPA repository responsible for managing orders.
  */
 @Repository
-public interface OrdersRepository extends JpaRepository<Orders, Integer> {
+public interface OrdersRepository extends JpaRepository<Orders, Integer>, OrdersStreamRepository {
+
+  /**
+   * Retrieves the IDs of the orders following the given ID in ascending order. Used for keyset
+   * pagination, which seeks directly to the next page through the primary key index instead of
+   * skipping rows.
+   *
+   * @param after the ID of the last order of the previous page, or {@code 0} for the first page
+   * @param limit the maximum number of IDs to return
+   * @return the IDs greater than {@code after}
+   */
+  @Query("select o.id from Orders o where o.id > :after order by o.id")
+  List<Integer> findIdsAfter(int after, Limit limit);
+
+  /**
+   * Retrieves the orders with the given IDs together with their order items in ascending ID order.
+   *
+   * @param ids the IDs of the orders
+   * @return the orders with their order items
+   */
+  @EntityGraph(attributePaths = "orderItems")
+  List<Orders> findByIdInOrderByIdAsc(Collection<Integer> ids);
+
+  /**
+   * Retrieves an order together with its order items, so that they can be read after the
+   * persistence context is closed.
+   *
+   * @param id the unique identifier of the order
+   * @return the order with its order items, or an empty {@link Optional} if it does not exist
+   */
+  @EntityGraph(attributePaths = "orderItems")
+  Optional<Orders> findWithItemsById(int id);
+
+  /**
+   * Retrieves all orders together with their order items, so that they can be read after the
+   * persistence context is closed.
+   *
+   * @return all orders with their order items
+   */
+  @EntityGraph(attributePaths = "orderItems")
+  @Query("select o from Orders o")
+  List<Orders> findAllWithItems();
+
+  /**
+   * Moves the given orders to a new status with a single statement. Cancelled orders are left
+   * unchanged, like {@code updateOrder} refuses to change them. Must be called within a transaction.
+   *
+   * @param ids    the unique identifiers of the orders
+   * @param status the new status of the orders
+   * @return the number of orders updated
+   */
+  @Modifying
+  @Query("update Orders o set o.status = :status"
+      + " where o.id in :ids and o.status <> test.serviceb.domain.Status.CANCELLED")
+  int updateStatus(Collection<Integer> ids, Status status);
+
+  /**
+   * Retrieves the current status of the given orders without loading them.
+   *
+   * @param ids the unique identifiers of the orders
+   * @return the status of every order that exists
+   */
+  @Query("select new test.serviceb.repository.OrderStatus(o.id, o.status) from Orders o where o.id in :ids")
+  List<OrderStatus> findStatuses(Collection<Integer> ids);
+
+  /**
+   * Retrieves the given orders that are not cancelled yet and locks them until the end of the
+   * transaction, so that no concurrent request cancels them as well. Must be called within a transaction.
+   *
+   * @param ids the unique identifiers of the orders
+   * @return the orders that can still be cancelled
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select o from Orders o where o.id in :ids and o.status <> test.serviceb.domain.Status.CANCELLED")
+  List<Orders> lockCancellable(Collection<Integer> ids);
 }
@@ -0,0 +1,23 @@
+package test.serviceb.repository;
+
+import java.util.function.Consumer;
+
+import test.serviceb.domain.Orders;
+
+/**
+ * The OrdersStreamRepository interface adds chunked reading of all orders to
+ * {@link OrdersRepository}.
+ */
+@SuppressWarnings("PMD.ImplicitFunctionalInterface")
+public interface OrdersStreamRepository {
+
+  /**
+   * Reads all orders in ascending ID order together with their order items and passes each of them
+   * to the given action. The orders are read in chunks of consecutive IDs, each loaded with a fixed
+   * number of queries, so only a bounded number of orders is held in memory at any time and the
+   * number of queries grows with the number of chunks rather than the number of orders.
+   *
+   * @param action the action applied to every order
+   */
+  void forEachOrder(Consumer<Orders> action);
+}
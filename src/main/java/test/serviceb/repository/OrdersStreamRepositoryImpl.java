@@ -0,0 +1,57 @@
+package test.serviceb.repository;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.transaction.annotation.Transactional;
+import test.serviceb.domain.Orders;
+
+/**
+ * The OrdersStreamRepositoryImpl class implements {@link OrdersStreamRepository} with keyset
+ * pagination: every chunk is located by the primary key index and then loaded with its order
+ * items in one fetch join. The persistence context is cleared after every chunk, so that orders
+ * already passed to the action can be garbage collected.
+ */
+public class OrdersStreamRepositoryImpl implements OrdersStreamRepository {
+
+  private static final int CHUNK_SIZE = 500;
+  private static final String IDS_QUERY = "select o.id from Orders o where o.id > :after order by o.id";
+  private static final String ORDERS_QUERY =
+      "select o from Orders o left join fetch o.orderItems where o.id in :ids order by o.id";
+
+  private final EntityManager entityManager;
+
+  /**
+   * Constructs an instance of OrdersStreamRepositoryImpl.
+   *
+   * @param entityManager the entity manager used to run the queries
+   */
+  public OrdersStreamRepositoryImpl(EntityManager entityManager) {
+    this.entityManager = entityManager;
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public void forEachOrder(Consumer<Orders> action) {
+    int after = 0;
+    List<Integer> ids;
+    do {
+      ids = entityManager.createQuery(IDS_QUERY, Integer.class)
+          .setParameter("after", after)
+          .setMaxResults(CHUNK_SIZE)
+          .getResultList();
+      if (ids.isEmpty()) {
+        return;
+      }
+      entityManager.createQuery(ORDERS_QUERY, Orders.class)
+          .setParameter("ids", ids)
+          .setHint(HibernateHints.HINT_READ_ONLY, true)
+          .getResultList()
+          .forEach(action);
+      entityManager.clear();
+      after = ids.getLast();
+    } while (ids.size() == CHUNK_SIZE);
+  }
+}
@@ -0,0 +1,56 @@
+package test.serviceb.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import test.serviceb.domain.PendingCompensation;
+
+/**
+ * The PendingCompensationRepository class is a JPA repository responsible for managing the
+ * stock still to be returned for orders that could not be created.
+ */
+@Repository
+public interface PendingCompensationRepository extends JpaRepository<PendingCompensation, Long> {
+
+  /**
+   * Retrieves the IDs of the pending compensations that are due, the longest overdue first.
+   *
+   * @param now   the current time
+   * @param limit the maximum number of IDs to return
+   * @return the IDs of the due compensations
+   */
+  @Query("select c.id from PendingCompensation c where c.nextAttemptAt <= :now order by c.nextAttemptAt")
+  List<Long> findDueIds(Instant now, Limit limit);
+
+  /**
+   * Takes a lease on due compensations, so that no other instance restocks the same items until
+   * the lease ends. A lease is only taken on compensations that are still due, which fails for all
+   * but the first of several instances claiming the same compensation at the same time.
+   *
+   * @param ids        the unique identifiers of the compensations
+   * @param now        the current time
+   * @param leaseUntil the end of the lease, which identifies the claimed compensations afterwards
+   * @return the number of compensations claimed
+   */
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("update PendingCompensation c set c.nextAttemptAt = :leaseUntil"
+      + " where c.id in :ids and c.nextAttemptAt <= :now")
+  int claim(Collection<Long> ids, Instant now, Instant leaseUntil);
+
+  /**
+   * Retrieves the compensations claimed by {@link #claim(Collection, Instant, Instant)}.
+   *
+   * @param ids        the unique identifiers of the compensations that were to be claimed
+   * @param leaseUntil the end of the lease that was taken
+   * @return the claimed compensations
+   */
+  List<PendingCompensation> findByIdInAndNextAttemptAt(Collection<Long> ids, Instant leaseUntil);
+}
@@ -1,12 +1,21 @@
 package test.serviceb.service;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import test.serviceb.domain.Orders;
+import test.serviceb.domain.dto.BulkOrderResultDto;
 import test.serviceb.domain.dto.OrderDto;
+import test.serviceb.domain.dto.StatusUpdateDto;
 
 /**
  * The OrderService interface defines the contract for managing orders.
+ * The operations used by the order API are offered in a blocking form and in a reactive form
+ * returning a {@link Mono} or {@link Flux}, which does not hold a thread while waiting for
+ * external inventories.
  */
 public interface OrderService {
 
@@ -21,6 +30,32 @@ public interface OrderService {
    */
   Orders createOrder(OrderDto order);
 
+  /**
+   * Creates a new order like {@link #createOrder(OrderDto)}, unless an order was created for an
+   * earlier request with the same idempotency key. In that case the earlier order is returned
+   * without reserving any inventory.
+   *
+   * @param order          the details of the order.
+   * @param idempotencyKey the key identifying the repetitions of the request, or {@code null} if
+   *                       the request is not to be deduplicated.
+   * @return the newly created order, or the order created for the earlier request.
+   * @throws org.springframework.web.server.ResponseStatusException if the key was used for a
+   *                                                                different order or the order of
+   *                                                                the earlier request is still being created.
+   */
+  Orders createOrder(OrderDto order, String idempotencyKey);
+
+  /**
+   * Creates many orders at once, e.g. when they are imported from a partner feed. The orders are
+   * read in chunks; the items of all orders of a chunk are reserved together and the orders of a
+   * chunk are persisted with batched inserts. Every order is validated and created or rejected on
+   * its own, and its result is passed on as soon as its chunk is done.
+   *
+   * @param orders  the orders to create, read one chunk at a time.
+   * @param results the action receiving one result per order, in the order of {@code orders}.
+   */
+  void createOrders(Iterator<OrderDto> orders, Consumer<BulkOrderResultDto> results);
+
   /**
    * Retrieves the order associated with the specified order ID.
    *
@@ -36,6 +71,24 @@ public interface OrderService {
    */
   List<Orders> getAllOrders();
 
+  /**
+   * Retrieves one page of orders in ascending ID order using keyset pagination.
+   *
+   * @param after the ID of the last order of the previous page, or {@code 0} for the first page.
+   * @param limit the maximum number of orders on the page.
+   * @return the orders with an ID greater than {@code after}, at most {@code limit} of them.
+   * @throws org.springframework.web.server.ResponseStatusException if {@code limit} is out of range.
+   */
+  List<Orders> getOrders(int after, int limit);
+
+  /**
+   * Passes every order in ascending ID order to the given action while the orders are read from
+   * a database cursor, so that memory use does not depend on the number of orders.
+   *
+   * @param action the action applied to every order, e.g. writing it to a response.
+   */
+  void streamOrders(Consumer<Orders> action);
+
   /**
    * Updates an existing order with the provided details.
    *
@@ -44,4 +97,78 @@ public interface OrderService {
    * @return the updated order entity as an Orders object.
    */
   Orders updateOrder(int orderId, OrderDto order);
+
+  /**
+   * Moves a set of orders to a new status at once, e.g. all orders of a shipping run, with a
+   * single statement instead of one update per order. Like {@link #updateOrder(int, OrderDto)},
+   * cancelled orders are not changed, and the stock of orders that are cancelled is returned to
+   * their inventories in the background, batched per inventory.
+   *
+   * @param update the new status and the IDs of the orders.
+   * @return one result per requested ID, in the order of the request, with the status
+   *     {@code 200} if the order was updated, {@code 404} if it does not exist and {@code 400} if it
+   *     is cancelled.
+   */
+  List<BulkOrderResultDto> updateStatuses(StatusUpdateDto update);
+
+  /**
+   * Reactive variant of {@link #createOrder(OrderDto)}. The inventory of all items is reserved
+   * without blocking, and the order is persisted once every reservation succeeded.
+   *
+   * @param order an instance of {@code OrderDto} containing the details of the order.
+   * @return a {@link Mono} emitting the newly created order.
+   */
+  Mono<Orders> createOrderReactive(OrderDto order);
+
+  /**
+   * Reactive variant of {@link #createOrder(OrderDto, String)}.
+   *
+   * @param order          the details of the order.
+   * @param idempotencyKey the key identifying the repetitions of the request, or {@code null} if
+   *                       the request is not to be deduplicated.
+   * @return a {@link Mono} emitting the newly created order, or the order created for the earlier request.
+   */
+  Mono<Orders> createOrderReactive(OrderDto order, String idempotencyKey);
+
+  /**
+   * Reactive variant of {@link #getOrder(int)}.
+   *
+   * @param orderId the unique identifier of the order to be retrieved.
+   * @return a {@link Mono} emitting the order, or an empty {@link Mono} if no order with the given ID is found.
+   */
+  Mono<Orders> getOrderReactive(int orderId);
+
+  /**
+   * Reactive variant of {@link #getAllOrders()}.
+   *
+   * @return a {@link Flux} emitting every order in the system.
+   */
+  Flux<Orders> getAllOrdersReactive();
+
+  /**
+   * Reactive variant of {@link #getOrders(int, int)}.
+   *
+   * @param after the ID of the last order of the previous page, or {@code 0} for the first page.
+   * @param limit the maximum number of orders on the page.
+   * @return a {@link Flux} emitting the orders of the page.
+   */
+  Flux<Orders> getOrdersReactive(int after, int limit);
+
+  /**
+   * Reactive variant of {@link #updateOrder(int, OrderDto)}. Restocking the items of a cancelled
+   * order does not block.
+   *
+   * @param orderId the unique identifier of the order to update.
+   * @param order   the new details for the order, encapsulated in an OrderDto object.
+   * @return a {@link Mono} emitting the updated order, or an empty {@link Mono} if no order with the given ID is found.
+   */
+  Mono<Orders> updateOrderReactive(int orderId, OrderDto order);
+
+  /**
+   * Reactive variant of {@link #updateStatuses(StatusUpdateDto)}.
+   *
+   * @param update the new status and the IDs of the orders.
+   * @return a {@link Mono} emitting one result per requested ID, in the order of the request.
+   */
+  Mono<List<BulkOrderResultDto>> updateStatusesReactive(StatusUpdateDto update);
 }
@@ -1,8 +1,15 @@
 package test.serviceb.service.converter;
 
+import java.beans.PropertyDescriptor;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 import test.serviceb.domain.dto.ExternalInventory;
@@ -31,6 +38,103 @@ public class ConversionProperties {
    */
   private Map<String, ExternalInventory> externalInventory = new HashMap<>();
 
+  /**
+   * The maximum number of line items of a single order whose inventory reservation
+   * may be in flight at the same time. A value of {@code 1} restores strictly
+   * sequential reservation.
+   */
+  private int maxPerOrder = 8;
+
+  /**
+   * The maximum number of concurrent reservation calls to any single external
+   * inventory backend, shared across all orders being processed by this instance.
+   */
+  private int maxPerBackend = 16;
+
+  /**
+   * The maximum number of calls to a single external inventory backend that may wait for one of
+   * its {@link #maxPerBackend} permits. Further calls fail immediately instead of tying up a thread
+   * of this instance while the backend is slow.
+   */
+  private int maxQueued = 64;
+
+  /**
+   * How long a call waits for a permit of its external inventory backend before it fails.
+   */
+  private Duration queueTimeout = Duration.ofSeconds(5);
+
+  /**
+   * How often a conditional stock update that was rejected because the item changed in the
+   * meantime is retried with a fresh copy of the item before the reservation is given up.
+   */
+  private int conflictRetries = 5;
+
+  /**
+   * The initial delay before retrying a rejected conditional stock update. The delay grows
+   * exponentially and is jittered for every further retry.
+   */
+  private Duration conflictBackoff = Duration.ofMillis(20);
+
+  /**
+   * Whether the concurrent item reservations of an order run on virtual threads instead of a
+   * pool of platform threads. Defaults to the value of {@code spring.threads.virtual.enabled},
+   * which moves request handling onto virtual threads as well.
+   */
+  private boolean virtualThreads;
+
+  /**
+   * The item cache settings applied to every external inventory, except for the
+   * properties set by its entry in {@link #itemCaches}.
+   */
+  private ItemCache itemCache = new ItemCache();
+
+  /**
+   * Item cache settings for individual external inventories, keyed by the name of the inventory.
+   * Only the properties set for an inventory replace the settings applied to every inventory.
+   */
+  private Map<String, ItemCache> itemCaches = new HashMap<>();
+
+  /**
+   * The connection pool settings applied to every external inventory, except for the
+   * properties set by its entry in {@link #connectionPools}.
+   */
+  private ConnectionPool connectionPool = new ConnectionPool();
+
+  /**
+   * Connection pool settings for individual external inventories, keyed by the name of the inventory.
+   * Only the properties set for an inventory replace the settings applied to every inventory.
+   */
+  private Map<String, ConnectionPool> connectionPools = new HashMap<>();
+
+  /**
+   * The circuit breaker settings applied to every external inventory, except for the
+   * properties set by its entry in {@link #circuitBreakers}.
+   */
+  private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+  /**
+   * Circuit breaker settings for individual external inventories, keyed by the name of the inventory.
+   * Only the properties set for an inventory replace the settings applied to every inventory.
+   */
+  private Map<String, CircuitBreaker> circuitBreakers = new HashMap<>();
+
+  /**
+   * The timeout and hedging settings applied to every external inventory, except for the
+   * properties set by its entry in {@link #timeouts}.
+   */
+  private Timeout timeout = new Timeout();
+
+  /**
+   * Timeout and hedging settings for individual external inventories, keyed by the name of the inventory.
+   * Only the properties set for an inventory replace the settings applied to every inventory.
+   */
+  private Map<String, Timeout> timeouts = new HashMap<>();
+
+  /**
+   * The settings of the compensation returning the stock of cancelled orders and the stock
+   * reserved for orders that could not be created.
+   */
+  private Compensation compensation = new Compensation();
 
   /**
    * Retrieves the map of external inventory configurations.
@@ -55,4 +159,1046 @@ public class ConversionProperties {
   public void setExternalInventory(Map<String, ExternalInventory> externalInventory) {
     this.externalInventory = externalInventory;
   }
+
+  /**
+   * Retrieves the maximum number of concurrent item reservations per order.
+   *
+   * @return the per-order concurrency cap
+   */
+  public int getMaxPerOrder() {
+    return maxPerOrder;
+  }
+
+  /**
+   * Sets the maximum number of concurrent item reservations per order.
+   *
+   * @param maxPerOrder the per-order concurrency cap; must be positive
+   */
+  public void setMaxPerOrder(int maxPerOrder) {
+    this.maxPerOrder = maxPerOrder;
+  }
+
+  /**
+   * Retrieves the maximum number of concurrent reservation calls per external inventory backend.
+   *
+   * @return the per-backend concurrency cap
+   */
+  public int getMaxPerBackend() {
+    return maxPerBackend;
+  }
+
+  /**
+   * Sets the maximum number of concurrent reservation calls per external inventory backend.
+   *
+   * @param maxPerBackend the per-backend concurrency cap; must be positive
+   */
+  public void setMaxPerBackend(int maxPerBackend) {
+    this.maxPerBackend = maxPerBackend;
+  }
+
+  /**
+   * Retrieves the maximum number of calls waiting for a permit of one backend.
+   *
+   * @return the maximum number of waiting calls per backend
+   */
+  public int getMaxQueued() {
+    return maxQueued;
+  }
+
+  /**
+   * Sets the maximum number of calls waiting for a permit of one backend.
+   *
+   * @param maxQueued the maximum number of waiting calls per backend; {@code 0} lets calls fail as soon as
+   *                  all permits are taken
+   */
+  public void setMaxQueued(int maxQueued) {
+    this.maxQueued = maxQueued;
+  }
+
+  /**
+   * Retrieves how long a call waits for a permit of its backend.
+   *
+   * @return the maximum time to wait for a permit
+   */
+  public Duration getQueueTimeout() {
+    return queueTimeout;
+  }
+
+  /**
+   * Sets how long a call waits for a permit of its backend.
+   *
+   * @param queueTimeout the maximum time to wait for a permit
+   */
+  public void setQueueTimeout(Duration queueTimeout) {
+    this.queueTimeout = queueTimeout;
+  }
+
+  /**
+   * Retrieves how often a rejected conditional stock update is retried.
+   *
+   * @return the number of retries after a conflicting update
+   */
+  public int getConflictRetries() {
+    return conflictRetries;
+  }
+
+  /**
+   * Sets how often a rejected conditional stock update is retried.
+   *
+   * @param conflictRetries the number of retries after a conflicting update; {@code 0} disables retries
+   */
+  public void setConflictRetries(int conflictRetries) {
+    this.conflictRetries = conflictRetries;
+  }
+
+  /**
+   * Retrieves the initial delay before retrying a rejected conditional stock update.
+   *
+   * @return the initial retry delay
+   */
+  public Duration getConflictBackoff() {
+    return conflictBackoff;
+  }
+
+  /**
+   * Sets the initial delay before retrying a rejected conditional stock update.
+   *
+   * @param conflictBackoff the initial retry delay
+   */
+  public void setConflictBackoff(Duration conflictBackoff) {
+    this.conflictBackoff = conflictBackoff;
+  }
+
+  /**
+   * Indicates whether item reservations run on virtual threads.
+   *
+   * @return {@code true} if every item reservation runs on its own virtual thread
+   */
+  public boolean isVirtualThreads() {
+    return virtualThreads;
+  }
+
+  /**
+   * Sets whether item reservations run on virtual threads.
+   *
+   * @param virtualThreads {@code true} to run every item reservation on its own virtual thread
+   */
+  public void setVirtualThreads(boolean virtualThreads) {
+    this.virtualThreads = virtualThreads;
+  }
+
+  /**
+   * Retrieves the item cache settings applied to every external inventory.
+   *
+   * @return the default item cache settings
+   */
+  public ItemCache getItemCache() {
+    return itemCache;
+  }
+
+  /**
+   * Sets the item cache settings applied to every external inventory.
+   *
+   * @param itemCache the default item cache settings
+   */
+  public void setItemCache(ItemCache itemCache) {
+    this.itemCache = itemCache;
+  }
+
+  /**
+   * Retrieves the item cache settings of individual external inventories.
+   *
+   * @return a map where keys are names of external inventories and values are their item cache settings
+   */
+  public Map<String, ItemCache> getItemCaches() {
+    return itemCaches;
+  }
+
+  /**
+   * Sets the item cache settings of individual external inventories.
+   *
+   * @param itemCaches a map where keys are names of external inventories and values are their item cache settings
+   */
+  public void setItemCaches(Map<String, ItemCache> itemCaches) {
+    this.itemCaches = itemCaches;
+  }
+
+  /**
+   * Resolves the item cache settings of an external inventory.
+   *
+   * @param inventoryName the name of the external inventory
+   * @return the default settings with the properties configured for the inventory replacing theirs
+   */
+  public ItemCache itemCacheFor(String inventoryName) {
+    return resolve(itemCaches, inventoryName, itemCache);
+  }
+
+  /**
+   * Retrieves the connection pool settings applied to every external inventory.
+   *
+   * @return the default connection pool settings
+   */
+  public ConnectionPool getConnectionPool() {
+    return connectionPool;
+  }
+
+  /**
+   * Sets the connection pool settings applied to every external inventory.
+   *
+   * @param connectionPool the default connection pool settings
+   */
+  public void setConnectionPool(ConnectionPool connectionPool) {
+    this.connectionPool = connectionPool;
+  }
+
+  /**
+   * Retrieves the connection pool settings of individual external inventories.
+   *
+   * @return a map where keys are names of external inventories and values are their connection pool settings
+   */
+  public Map<String, ConnectionPool> getConnectionPools() {
+    return connectionPools;
+  }
+
+  /**
+   * Sets the connection pool settings of individual external inventories.
+   *
+   * @param connectionPools a map where keys are names of external inventories and values are their connection
+   *                        pool settings
+   */
+  public void setConnectionPools(Map<String, ConnectionPool> connectionPools) {
+    this.connectionPools = connectionPools;
+  }
+
+  /**
+   * Resolves the connection pool settings of an external inventory.
+   *
+   * @param inventoryName the name of the external inventory
+   * @return the default settings with the properties configured for the inventory replacing theirs
+   */
+  public ConnectionPool connectionPoolFor(String inventoryName) {
+    return resolve(connectionPools, inventoryName, connectionPool);
+  }
+
+  /**
+   * Retrieves the circuit breaker settings applied to every external inventory.
+   *
+   * @return the default circuit breaker settings
+   */
+  public CircuitBreaker getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  /**
+   * Sets the circuit breaker settings applied to every external inventory.
+   *
+   * @param circuitBreaker the default circuit breaker settings
+   */
+  public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+    this.circuitBreaker = circuitBreaker;
+  }
+
+  /**
+   * Retrieves the circuit breaker settings of individual external inventories.
+   *
+   * @return a map where keys are names of external inventories and values are their circuit breaker settings
+   */
+  public Map<String, CircuitBreaker> getCircuitBreakers() {
+    return circuitBreakers;
+  }
+
+  /**
+   * Sets the circuit breaker settings of individual external inventories.
+   *
+   * @param circuitBreakers a map where keys are names of external inventories and values are their circuit
+   *                        breaker settings
+   */
+  public void setCircuitBreakers(Map<String, CircuitBreaker> circuitBreakers) {
+    this.circuitBreakers = circuitBreakers;
+  }
+
+  /**
+   * Resolves the circuit breaker settings of an external inventory.
+   *
+   * @param inventoryName the name of the external inventory
+   * @return the default settings with the properties configured for the inventory replacing theirs
+   */
+  public CircuitBreaker circuitBreakerFor(String inventoryName) {
+    return resolve(circuitBreakers, inventoryName, circuitBreaker);
+  }
+
+  /**
+   * Retrieves the timeout and hedging settings applied to every external inventory.
+   *
+   * @return the default timeout settings
+   */
+  public Timeout getTimeout() {
+    return timeout;
+  }
+
+  /**
+   * Sets the timeout and hedging settings applied to every external inventory.
+   *
+   * @param timeout the default timeout settings
+   */
+  public void setTimeout(Timeout timeout) {
+    this.timeout = timeout;
+  }
+
+  /**
+   * Retrieves the timeout and hedging settings of individual external inventories.
+   *
+   * @return a map where keys are names of external inventories and values are their timeout settings
+   */
+  public Map<String, Timeout> getTimeouts() {
+    return timeouts;
+  }
+
+  /**
+   * Sets the timeout and hedging settings of individual external inventories.
+   *
+   * @param timeouts a map where keys are names of external inventories and values are their timeout settings
+   */
+  public void setTimeouts(Map<String, Timeout> timeouts) {
+    this.timeouts = timeouts;
+  }
+
+  /**
+   * Resolves the timeout and hedging settings of an external inventory.
+   *
+   * @param inventoryName the name of the external inventory
+   * @return the default settings with the properties configured for the inventory replacing theirs
+   */
+  public Timeout timeoutFor(String inventoryName) {
+    return resolve(timeouts, inventoryName, timeout);
+  }
+
+  /**
+   * Resolves the settings of an external inventory by copying the settings applied to every inventory
+   * and replacing the properties that are set for the inventory itself. Overriding a single property
+   * of an inventory thus keeps the configured value of every other property, rather than falling back
+   * to its default.
+   *
+   * @param overrides     the settings of individual inventories, keyed by their names
+   * @param inventoryName the name of the external inventory
+   * @param defaults      the settings applied to every inventory
+   * @param <T>           the type of the settings
+   * @return the resolved settings; {@code defaults} itself if the inventory has no settings of its own
+   */
+  @SuppressWarnings("unchecked")
+  private static <T extends InventorySettings> T resolve(Map<String, T> overrides, String inventoryName,
+      T defaults) {
+    InventorySettings override = overrides.get(inventoryName);
+    if (override == null) {
+      return defaults;
+    }
+    BeanWrapper resolved = new BeanWrapperImpl(BeanUtils.instantiateClass(defaults.getClass()));
+    BeanWrapper inherited = new BeanWrapperImpl(defaults);
+    BeanWrapper own = new BeanWrapperImpl(override);
+    for (PropertyDescriptor property : resolved.getPropertyDescriptors()) {
+      String name = property.getName();
+      if (resolved.isWritableProperty(name)) {
+        BeanWrapper source = override.assigned.contains(name) ? own : inherited;
+        resolved.setPropertyValue(name, source.getPropertyValue(name));
+      }
+    }
+    return (T) resolved.getWrappedInstance();
+  }
+
+  /**
+   * Retrieves the settings of the compensation of failed orders.
+   *
+   * @return the compensation settings
+   */
+  public Compensation getCompensation() {
+    return compensation;
+  }
+
+  /**
+   * Sets the settings of the compensation of failed orders.
+   *
+   * @param compensation the compensation settings
+   */
+  public void setCompensation(Compensation compensation) {
+    this.compensation = compensation;
+  }
+
+  /**
+   * The base class of the settings that apply to every external inventory and can be overridden for
+   * individual inventories. It records which properties were set, so that the settings of an inventory
+   * only replace those properties and take every other one from the settings of all inventories.
+   */
+  public static class InventorySettings {
+
+    private final Set<String> assigned = new HashSet<>();
+
+    /**
+     * Records that a property was set, from its setter.
+     *
+     * @param property the name of the property
+     */
+    protected void overridden(String property) {
+      assigned.add(property);
+    }
+  }
+
+  /**
+   * The settings of the cache holding items read from one external inventory.
+   */
+  public static class ItemCache extends InventorySettings {
+
+    /**
+     * The maximum number of items kept in the cache. A value of {@code 0} disables the cache.
+     */
+    private long maxSize = 10_000;
+
+    /**
+     * How long an item stays in the cache after it was read or written.
+     */
+    private Duration ttl = Duration.ofSeconds(30);
+
+    /**
+     * Retrieves the maximum number of cached items.
+     *
+     * @return the maximum number of cached items
+     */
+    public long getMaxSize() {
+      return maxSize;
+    }
+
+    /**
+     * Sets the maximum number of cached items.
+     *
+     * @param maxSize the maximum number of cached items; {@code 0} disables the cache
+     */
+    public void setMaxSize(long maxSize) {
+      overridden("maxSize");
+      this.maxSize = maxSize;
+    }
+
+    /**
+     * Retrieves how long an item stays in the cache.
+     *
+     * @return the time to live of a cached item
+     */
+    public Duration getTtl() {
+      return ttl;
+    }
+
+    /**
+     * Sets how long an item stays in the cache.
+     *
+     * @param ttl the time to live of a cached item
+     */
+    public void setTtl(Duration ttl) {
+      overridden("ttl");
+      this.ttl = ttl;
+    }
+  }
+
+  /**
+   * The settings of the HTTP connection pool used to talk to one external inventory.
+   */
+  public static class ConnectionPool extends InventorySettings {
+
+    /**
+     * The maximum number of connections to the inventory.
+     */
+    private int maxConnections = 16;
+
+    /**
+     * The maximum number of requests waiting for a connection once all connections are in use.
+     * Further requests fail immediately. A value of {@code -1} removes the limit.
+     */
+    private int maxPending = 64;
+
+    /**
+     * How long a request waits for a connection before it fails.
+     */
+    private Duration acquireTimeout = Duration.ofSeconds(10);
+
+    /**
+     * How long a connection may stay idle before it is closed. Keep this below the keep-alive
+     * timeout of the inventory, so that no request is sent over a connection the inventory is closing.
+     */
+    private Duration maxIdleTime = Duration.ofSeconds(30);
+
+    /**
+     * How long a connection is used at most before it is closed.
+     */
+    private Duration maxLifeTime = Duration.ofMinutes(5);
+
+    /**
+     * How often idle and expired connections are closed in the background. {@link Duration#ZERO}
+     * closes them only when they are about to be reused.
+     */
+    private Duration evictionInterval = Duration.ofSeconds(30);
+
+    /**
+     * Whether HTTP/2 is offered to the inventory: negotiated through TLS for {@code https} and
+     * through an upgrade from HTTP/1.1 for {@code http} URLs. Inventories without HTTP/2 support keep
+     * being served over HTTP/1.1.
+     */
+    private boolean http2;
+
+    /**
+     * Retrieves the maximum number of connections.
+     *
+     * @return the maximum number of connections
+     */
+    public int getMaxConnections() {
+      return maxConnections;
+    }
+
+    /**
+     * Sets the maximum number of connections.
+     *
+     * @param maxConnections the maximum number of connections; must be positive
+     */
+    public void setMaxConnections(int maxConnections) {
+      overridden("maxConnections");
+      this.maxConnections = maxConnections;
+    }
+
+    /**
+     * Retrieves the maximum number of requests waiting for a connection.
+     *
+     * @return the maximum number of waiting requests, or {@code -1} for no limit
+     */
+    public int getMaxPending() {
+      return maxPending;
+    }
+
+    /**
+     * Sets the maximum number of requests waiting for a connection.
+     *
+     * @param maxPending the maximum number of waiting requests, or {@code -1} for no limit
+     */
+    public void setMaxPending(int maxPending) {
+      overridden("maxPending");
+      this.maxPending = maxPending;
+    }
+
+    /**
+     * Retrieves how long a request waits for a connection.
+     *
+     * @return the maximum time to wait for a connection
+     */
+    public Duration getAcquireTimeout() {
+      return acquireTimeout;
+    }
+
+    /**
+     * Sets how long a request waits for a connection.
+     *
+     * @param acquireTimeout the maximum time to wait for a connection
+     */
+    public void setAcquireTimeout(Duration acquireTimeout) {
+      overridden("acquireTimeout");
+      this.acquireTimeout = acquireTimeout;
+    }
+
+    /**
+     * Retrieves how long a connection may stay idle.
+     *
+     * @return the maximum idle time of a connection
+     */
+    public Duration getMaxIdleTime() {
+      return maxIdleTime;
+    }
+
+    /**
+     * Sets how long a connection may stay idle.
+     *
+     * @param maxIdleTime the maximum idle time of a connection
+     */
+    public void setMaxIdleTime(Duration maxIdleTime) {
+      overridden("maxIdleTime");
+      this.maxIdleTime = maxIdleTime;
+    }
+
+    /**
+     * Retrieves how long a connection is used at most.
+     *
+     * @return the maximum lifetime of a connection
+     */
+    public Duration getMaxLifeTime() {
+      return maxLifeTime;
+    }
+
+    /**
+     * Sets how long a connection is used at most.
+     *
+     * @param maxLifeTime the maximum lifetime of a connection
+     */
+    public void setMaxLifeTime(Duration maxLifeTime) {
+      overridden("maxLifeTime");
+      this.maxLifeTime = maxLifeTime;
+    }
+
+    /**
+     * Retrieves how often idle and expired connections are closed in the background.
+     *
+     * @return the background eviction interval
+     */
+    public Duration getEvictionInterval() {
+      return evictionInterval;
+    }
+
+    /**
+     * Sets how often idle and expired connections are closed in the background.
+     *
+     * @param evictionInterval the background eviction interval, or {@link Duration#ZERO} to disable
+     *                         background eviction
+     */
+    public void setEvictionInterval(Duration evictionInterval) {
+      overridden("evictionInterval");
+      this.evictionInterval = evictionInterval;
+    }
+
+    /**
+     * Indicates whether HTTP/2 is offered to the inventory.
+     *
+     * @return {@code true} if HTTP/2 is offered
+     */
+    public boolean isHttp2() {
+      return http2;
+    }
+
+    /**
+     * Sets whether HTTP/2 is offered to the inventory.
+     *
+     * @param http2 {@code true} to offer HTTP/2
+     */
+    public void setHttp2(boolean http2) {
+      overridden("http2");
+      this.http2 = http2;
+    }
+  }
+
+  /**
+   * The settings of the circuit breaker guarding the calls to one external inventory.
+   */
+  public static class CircuitBreaker extends InventorySettings {
+
+    /**
+     * The number of most recent calls the failure rate is computed from.
+     */
+    private int windowSize = 20;
+
+    /**
+     * The number of calls that must have been recorded before the circuit may open.
+     */
+    private int minimumCalls = 10;
+
+    /**
+     * The percentage of failed or slow calls within the window at which the circuit opens.
+     */
+    private int failureRate = 50;
+
+    /**
+     * How long a call may take before it counts as a failure, even if it succeeds.
+     */
+    private Duration slowCallDuration = Duration.ofSeconds(2);
+
+    /**
+     * How long an open circuit rejects all calls before it lets probe calls through.
+     */
+    private Duration openDuration = Duration.ofSeconds(10);
+
+    /**
+     * The number of probe calls that must succeed before a half-open circuit closes again.
+     */
+    private int probeCalls = 3;
+
+    /**
+     * Retrieves the number of calls the failure rate is computed from.
+     *
+     * @return the size of the sliding window
+     */
+    public int getWindowSize() {
+      return windowSize;
+    }
+
+    /**
+     * Sets the number of calls the failure rate is computed from.
+     *
+     * @param windowSize the size of the sliding window; must be positive
+     */
+    public void setWindowSize(int windowSize) {
+      overridden("windowSize");
+      this.windowSize = windowSize;
+    }
+
+    /**
+     * Retrieves the number of calls needed before the circuit may open.
+     *
+     * @return the minimum number of recorded calls
+     */
+    public int getMinimumCalls() {
+      return minimumCalls;
+    }
+
+    /**
+     * Sets the number of calls needed before the circuit may open.
+     *
+     * @param minimumCalls the minimum number of recorded calls
+     */
+    public void setMinimumCalls(int minimumCalls) {
+      overridden("minimumCalls");
+      this.minimumCalls = minimumCalls;
+    }
+
+    /**
+     * Retrieves the failure percentage at which the circuit opens.
+     *
+     * @return the failure rate threshold in percent
+     */
+    public int getFailureRate() {
+      return failureRate;
+    }
+
+    /**
+     * Sets the failure percentage at which the circuit opens.
+     *
+     * @param failureRate the failure rate threshold in percent, between 1 and 100
+     */
+    public void setFailureRate(int failureRate) {
+      overridden("failureRate");
+      this.failureRate = failureRate;
+    }
+
+    /**
+     * Retrieves how long a call may take before it counts as a failure.
+     *
+     * @return the slow call threshold
+     */
+    public Duration getSlowCallDuration() {
+      return slowCallDuration;
+    }
+
+    /**
+     * Sets how long a call may take before it counts as a failure.
+     *
+     * @param slowCallDuration the slow call threshold
+     */
+    public void setSlowCallDuration(Duration slowCallDuration) {
+      overridden("slowCallDuration");
+      this.slowCallDuration = slowCallDuration;
+    }
+
+    /**
+     * Retrieves how long an open circuit rejects all calls.
+     *
+     * @return the time the circuit stays open
+     */
+    public Duration getOpenDuration() {
+      return openDuration;
+    }
+
+    /**
+     * Sets how long an open circuit rejects all calls.
+     *
+     * @param openDuration the time the circuit stays open
+     */
+    public void setOpenDuration(Duration openDuration) {
+      overridden("openDuration");
+      this.openDuration = openDuration;
+    }
+
+    /**
+     * Retrieves the number of probe calls that close a half-open circuit.
+     *
+     * @return the number of probe calls
+     */
+    public int getProbeCalls() {
+      return probeCalls;
+    }
+
+    /**
+     * Sets the number of probe calls that close a half-open circuit.
+     *
+     * @param probeCalls the number of probe calls; must be positive
+     */
+    public void setProbeCalls(int probeCalls) {
+      overridden("probeCalls");
+      this.probeCalls = probeCalls;
+    }
+  }
+
+  /**
+   * The timeouts of the calls to one external inventory and the hedging of its item lookups.
+   * A hedged lookup sends a second, identical request if the first one has not been answered
+   * within the given percentile of the recent lookup latencies, and uses whichever answer comes first.
+   */
+  public static class Timeout extends InventorySettings {
+
+    /**
+     * How long establishing a connection to the inventory may take.
+     */
+    private Duration connect = Duration.ofSeconds(2);
+
+    /**
+     * How long the inventory may take to answer a request once it was sent.
+     */
+    private Duration response = Duration.ofSeconds(5);
+
+    /**
+     * Whether item lookups are hedged.
+     */
+    private boolean hedge;
+
+    /**
+     * The percentile of the recent lookup latencies after which the hedging request is sent.
+     */
+    private double hedgePercentile = 0.95;
+
+    /**
+     * The shortest delay before a hedging request is sent, however fast the recent lookups were.
+     */
+    private Duration hedgeMinDelay = Duration.ofMillis(10);
+
+    /**
+     * Retrieves how long establishing a connection may take.
+     *
+     * @return the connect timeout
+     */
+    public Duration getConnect() {
+      return connect;
+    }
+
+    /**
+     * Sets how long establishing a connection may take.
+     *
+     * @param connect the connect timeout
+     */
+    public void setConnect(Duration connect) {
+      overridden("connect");
+      this.connect = connect;
+    }
+
+    /**
+     * Retrieves how long the inventory may take to answer.
+     *
+     * @return the response timeout
+     */
+    public Duration getResponse() {
+      return response;
+    }
+
+    /**
+     * Sets how long the inventory may take to answer.
+     *
+     * @param response the response timeout, or {@link Duration#ZERO} to wait as long as it takes
+     */
+    public void setResponse(Duration response) {
+      overridden("response");
+      this.response = response;
+    }
+
+    /**
+     * Indicates whether item lookups are hedged.
+     *
+     * @return {@code true} if item lookups are hedged
+     */
+    public boolean isHedge() {
+      return hedge;
+    }
+
+    /**
+     * Sets whether item lookups are hedged.
+     *
+     * @param hedge {@code true} to hedge item lookups
+     */
+    public void setHedge(boolean hedge) {
+      overridden("hedge");
+      this.hedge = hedge;
+    }
+
+    /**
+     * Retrieves the percentile of the recent lookup latencies after which the hedging request is sent.
+     *
+     * @return the percentile, between 0 and 1
+     */
+    public double getHedgePercentile() {
+      return hedgePercentile;
+    }
+
+    /**
+     * Sets the percentile of the recent lookup latencies after which the hedging request is sent.
+     *
+     * @param hedgePercentile the percentile, between 0 and 1
+     */
+    public void setHedgePercentile(double hedgePercentile) {
+      overridden("hedgePercentile");
+      this.hedgePercentile = hedgePercentile;
+    }
+
+    /**
+     * Retrieves the shortest delay before a hedging request is sent.
+     *
+     * @return the minimum hedging delay
+     */
+    public Duration getHedgeMinDelay() {
+      return hedgeMinDelay;
+    }
+
+    /**
+     * Sets the shortest delay before a hedging request is sent.
+     *
+     * @param hedgeMinDelay the minimum hedging delay
+     */
+    public void setHedgeMinDelay(Duration hedgeMinDelay) {
+      overridden("hedgeMinDelay");
+      this.hedgeMinDelay = hedgeMinDelay;
+    }
+  }
+
+  /**
+   * The settings of the compensation returning the stock of a cancelled order or the stock
+   * reserved for an order that could not be created. Every item is recorded as a pending
+   * compensation in the outbox before it is restocked, so that a compensation that fails or is
+   * interrupted by a restart is retried later.
+   */
+  public static class Compensation {
+
+    /**
+     * How often a failed restock is retried right away before it is left to the periodic retry.
+     */
+    private int retries = 3;
+
+    /**
+     * The initial delay between the immediate retries, doubled on every retry.
+     */
+    private Duration backoff = Duration.ofMillis(100);
+
+    /**
+     * The maximum number of items restocked concurrently in one external inventory.
+     */
+    private int concurrency = 8;
+
+    /**
+     * How often pending compensations are retried, and the initial delay before a failed one is
+     * retried. The delay doubles with every failed attempt of the same compensation.
+     */
+    private Duration retryInterval = Duration.ofSeconds(30);
+
+    /**
+     * How long an instance may work on a compensation before other instances consider it abandoned.
+     */
+    private Duration lease = Duration.ofMinutes(1);
+
+    /**
+     * The maximum number of pending compensations retried at a time.
+     */
+    private int batchSize = 100;
+
+    /**
+     * Retrieves how often a failed restock is retried right away.
+     *
+     * @return the number of immediate retries
+     */
+    public int getRetries() {
+      return retries;
+    }
+
+    /**
+     * Sets how often a failed restock is retried right away.
+     *
+     * @param retries the number of immediate retries
+     */
+    public void setRetries(int retries) {
+      this.retries = retries;
+    }
+
+    /**
+     * Retrieves the initial delay between the immediate retries.
+     *
+     * @return the initial backoff
+     */
+    public Duration getBackoff() {
+      return backoff;
+    }
+
+    /**
+     * Sets the initial delay between the immediate retries.
+     *
+     * @param backoff the initial backoff
+     */
+    public void setBackoff(Duration backoff) {
+      this.backoff = backoff;
+    }
+
+    /**
+     * Retrieves the maximum number of items restocked concurrently in one external inventory.
+     *
+     * @return the maximum number of concurrent restocks per inventory
+     */
+    public int getConcurrency() {
+      return concurrency;
+    }
+
+    /**
+     * Sets the maximum number of items restocked concurrently in one external inventory.
+     *
+     * @param concurrency the maximum number of concurrent restocks per inventory
+     */
+    public void setConcurrency(int concurrency) {
+      this.concurrency = concurrency;
+    }
+
+    /**
+     * Retrieves how often pending compensations are retried.
+     *
+     * @return the retry interval
+     */
+    public Duration getRetryInterval() {
+      return retryInterval;
+    }
+
+    /**
+     * Sets how often pending compensations are retried.
+     *
+     * @param retryInterval the retry interval
+     */
+    public void setRetryInterval(Duration retryInterval) {
+      this.retryInterval = retryInterval;
+    }
+
+    /**
+     * Retrieves how long an instance may work on a compensation.
+     *
+     * @return the lease of a compensation
+     */
+    public Duration getLease() {
+      return lease;
+    }
+
+    /**
+     * Sets how long an instance may work on a compensation.
+     *
+     * @param lease the lease of a compensation
+     */
+    public void setLease(Duration lease) {
+      this.lease = lease;
+    }
+
+    /**
+     * Retrieves the maximum number of pending compensations retried at a time.
+     *
+     * @return the batch size
+     */
+    public int getBatchSize() {
+      return batchSize;
+    }
+
+    /**
+     * Sets the maximum number of pending compensations retried at a time.
+     *
+     * @param batchSize the batch size
+     */
+    public void setBatchSize(int batchSize) {
+      this.batchSize = batchSize;
+    }
+  }
 }
@@ -0,0 +1,109 @@
+package test.serviceb.service.idempotency;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * This class represents the configuration properties of the idempotency keys sent with requests
+ * creating orders, defined under the prefix "order.idempotency".
+ */
+@Component
+@ConfigurationProperties(prefix = "order.idempotency")
+public class IdempotencyProperties {
+
+  /**
+   * The maximum number of completed keys kept in memory. Keys beyond are looked up in the
+   * database. A value of {@code 0} disables the cache.
+   */
+  private long cacheSize = 10_000;
+
+  /**
+   * How long a key is remembered after it was claimed. A request repeated later creates another order.
+   */
+  private Duration retention = Duration.ofHours(24);
+
+  /**
+   * How long an instance may take to create the order of a claimed key before another instance
+   * receiving the same key takes it over. It must exceed the longest time an order takes to create.
+   */
+  private Duration lease = Duration.ofMinutes(1);
+
+  /**
+   * How often keys older than the retention are deleted from the database.
+   */
+  private Duration purgeInterval = Duration.ofHours(1);
+
+  /**
+   * Retrieves the maximum number of completed keys kept in memory.
+   *
+   * @return the maximum number of cached keys
+   */
+  public long getCacheSize() {
+    return cacheSize;
+  }
+
+  /**
+   * Sets the maximum number of completed keys kept in memory.
+   *
+   * @param cacheSize the maximum number of cached keys; {@code 0} disables the cache
+   */
+  public void setCacheSize(long cacheSize) {
+    this.cacheSize = cacheSize;
+  }
+
+  /**
+   * Retrieves how long a key is remembered.
+   *
+   * @return the retention of a key
+   */
+  public Duration getRetention() {
+    return retention;
+  }
+
+  /**
+   * Sets how long a key is remembered.
+   *
+   * @param retention the retention of a key
+   */
+  public void setRetention(Duration retention) {
+    this.retention = retention;
+  }
+
+  /**
+   * Retrieves how long an instance may take to create the order of a claimed key.
+   *
+   * @return the lease of a claimed key
+   */
+  public Duration getLease() {
+    return lease;
+  }
+
+  /**
+   * Sets how long an instance may take to create the order of a claimed key.
+   *
+   * @param lease the lease of a claimed key
+   */
+  public void setLease(Duration lease) {
+    this.lease = lease;
+  }
+
+  /**
+   * Retrieves how often expired keys are deleted.
+   *
+   * @return the interval between two purges
+   */
+  public Duration getPurgeInterval() {
+    return purgeInterval;
+  }
+
+  /**
+   * Sets how often expired keys are deleted.
+   *
+   * @param purgeInterval the interval between two purges
+   */
+  public void setPurgeInterval(Duration purgeInterval) {
+    this.purgeInterval = purgeInterval;
+  }
+}
@@ -0,0 +1,243 @@
+package test.serviceb.service.idempotency;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import test.serviceb.domain.IdempotentRequest;
+import test.serviceb.repository.IdempotentRequestRepository;
+
+/**
+ * The IdempotencyStore class remembers which order was created for a request carrying an
+ * {@code Idempotency-Key} header, so that a client or gateway retrying the request receives the
+ * same order instead of creating another one and reserving its items again.
+ * A key is claimed in the database before the order is created, which makes the first of several
+ * instances receiving the same key create the order while the others answer with
+ * {@code 409 Conflict} until it exists. A repeated key is looked up before it is claimed, so that
+ * only a race between instances ends in a rejected insert. Completed keys are also kept in a bounded in-memory cache,
+ * so that the repetitions of a retry storm are answered without a database round trip. The number
+ * of answered repetitions is published as {@code order.idempotency.replayed}, the cache statistics
+ * as {@code cache.*} metrics tagged with {@code cache=order.idempotency}.
+ */
+@Component
+public class IdempotencyStore implements MeterBinder {
+
+  /**
+   * The name of the header carrying the idempotency key.
+   */
+  public static final String HEADER = "Idempotency-Key";
+
+  private static final String CACHE_NAME = "order.idempotency";
+
+  private final IdempotentRequestRepository repository;
+  private final Cache<String, Completed> completed;
+  private final Duration retention;
+  private final Duration lease;
+  private final AtomicLong replays = new AtomicLong();
+
+  /**
+   * Constructs an instance of IdempotencyStore.
+   *
+   * @param repository the repository storing the idempotency keys
+   * @param properties the idempotency settings
+   */
+  public IdempotencyStore(IdempotentRequestRepository repository, IdempotencyProperties properties) {
+    this.repository = repository;
+    this.retention = properties.getRetention();
+    this.lease = properties.getLease();
+    this.completed = Caffeine.newBuilder()
+        .maximumSize(properties.getCacheSize())
+        .expireAfterWrite(retention)
+        .recordStats()
+        .build();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    CaffeineCacheMetrics.monitor(registry, completed, CACHE_NAME);
+    FunctionCounter.builder("order.idempotency.replayed", replays, AtomicLong::get)
+        .description("Repeated requests answered with the order created for the first one")
+        .register(registry);
+  }
+
+  /**
+   * Claims an idempotency key for a request, unless an order was created for the key before.
+   *
+   * @param key     the idempotency key sent with the request
+   * @param request a description of the request, which a repeated request must match
+   * @return the ID of the order created for an earlier request with the same key, or {@code null}
+   *     if the key was claimed and the order has to be created
+   * @throws ResponseStatusException {@code 400} if the key is blank or too long, {@code 422} if the
+   *                                 key was used for a different request and {@code 409} if the
+   *                                 order of an earlier request with the same key is still being created
+   */
+  public Integer claim(String key, String request) {
+    if (key.isBlank() || key.length() > IdempotentRequest.MAX_KEY_LENGTH) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          HEADER + " must have between 1 and " + IdempotentRequest.MAX_KEY_LENGTH + " characters");
+    }
+    String fingerprint = fingerprint(request);
+    Completed cached = completed.getIfPresent(key);
+    if (cached != null) {
+      return replay(cached, fingerprint);
+    }
+    // Truncated so that the claim can be taken over by its exact time after a round trip through the database
+    Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    Optional<IdempotentRequest> earlier = repository.findById(key);
+    if (earlier.isPresent()) {
+      return claimedBefore(earlier.get(), fingerprint, now);
+    }
+    try {
+      repository.claim(key, fingerprint, now);
+      return null;
+    } catch (DataIntegrityViolationException e) {
+      // Claimed by a concurrent request since it was looked up
+      return claimedBefore(repository.findById(key).orElseThrow(IdempotencyStore::inProgress), fingerprint, now);
+    }
+  }
+
+  /**
+   * Records the order created for a claimed key. If a transaction is active, the key is completed
+   * with it, so that it is completed exactly if the order is stored.
+   *
+   * @param key     the claimed idempotency key
+   * @param request the description of the request the key was claimed for
+   * @param orderId the ID of the created order
+   */
+  public void complete(String key, String request, int orderId) {
+    repository.complete(key, orderId);
+    completed.put(key, new Completed(fingerprint(request), orderId));
+  }
+
+  /**
+   * Releases a claimed key whose order could not be created, so that the client can retry the request.
+   *
+   * @param key the claimed idempotency key
+   * @return whether the key was released; a key that could not be released is taken over once its lease ended
+   */
+  public boolean release(String key) {
+    completed.invalidate(key);
+    try {
+      return repository.release(key) > 0;
+    } catch (DataAccessException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Deletes the keys that are older than the retention, every {@code order.idempotency.purgeInterval}.
+   *
+   * @return the number of keys deleted
+   */
+  @Scheduled(fixedDelayString = "#{@idempotencyProperties.purgeInterval.toMillis()}",
+      initialDelayString = "#{@idempotencyProperties.purgeInterval.toMillis()}")
+  public int purge() {
+    return repository.purge(Instant.now().minus(retention));
+  }
+
+  /**
+   * Handles a key that was claimed before, by this or another instance.
+   *
+   * @param earlier     the stored claim of the key
+   * @param fingerprint the hash of the request
+   * @param now         the current time
+   * @return the ID of the order created for the earlier request, or {@code null} if its claim was
+   *     abandoned and taken over for this request
+   * @throws ResponseStatusException {@code 422} if the key was used for a different request and
+   *                                 {@code 409} if the order of the earlier request is still being created
+   */
+  private Integer claimedBefore(IdempotentRequest earlier, String fingerprint, Instant now) {
+    String key = earlier.getIdempotencyKey();
+    if (earlier.getOrderId() != null) {
+      Completed done = new Completed(earlier.getFingerprint(), earlier.getOrderId());
+      completed.put(key, done);
+      return replay(done, fingerprint);
+    }
+    if (!earlier.getFingerprint().equals(fingerprint)) {
+      throw reused();
+    }
+    if (earlier.getCreatedAt().isBefore(now.minus(lease))
+        && repository.takeOver(key, earlier.getCreatedAt(), now) > 0) {
+      return null;
+    }
+    throw inProgress();
+  }
+
+  /**
+   * Answers a repeated request with the order created for the first one.
+   *
+   * @param done        the completed key
+   * @param fingerprint the hash of the repeated request
+   * @return the ID of the order created for the first request
+   * @throws ResponseStatusException {@code 422} if the key was used for a different request
+   */
+  private int replay(Completed done, String fingerprint) {
+    if (!done.fingerprint().equals(fingerprint)) {
+      throw reused();
+    }
+    replays.incrementAndGet();
+    return done.orderId();
+  }
+
+  /**
+   * Creates the failure for a key used for a different request.
+   *
+   * @return a {@link ResponseStatusException} with the status {@code 422 Unprocessable Entity}
+   */
+  private static ResponseStatusException reused() {
+    return new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+        HEADER + " was already used for a different order");
+  }
+
+  /**
+   * Creates the failure for a key whose order is still being created.
+   *
+   * @return a {@link ResponseStatusException} with the status {@code 409 Conflict}
+   */
+  private static ResponseStatusException inProgress() {
+    return new ResponseStatusException(HttpStatus.CONFLICT,
+        "An order with this " + HEADER + " is still being created, retry later");
+  }
+
+  /**
+   * Hashes the description of a request.
+   *
+   * @param request the description of the request
+   * @return the SHA-256 hash of the request as hexadecimal string
+   */
+  private static String fingerprint(String request) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+          .digest(request.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  /**
+   * A key whose order was created.
+   *
+   * @param fingerprint the hash of the request the key was claimed for
+   * @param orderId     the ID of the created order
+   */
+  private record Completed(String fingerprint, int orderId) {
+  }
+}
@@ -1,214 +1,1492 @@
 package test.serviceb.service.impl;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.resources.ConnectionProvider;
 import test.serviceb.domain.Item;
 import test.serviceb.domain.OrderItem;
 import test.serviceb.domain.Orders;
+import test.serviceb.domain.PendingCompensation;
 import test.serviceb.domain.Status;
+import test.serviceb.domain.dto.BulkOrderResultDto;
 import test.serviceb.domain.dto.ExternalInventory;
 import test.serviceb.domain.dto.InventoryItemDto;
+import test.serviceb.domain.dto.ItemReservationDto;
 import test.serviceb.domain.dto.OrderDto;
 import test.serviceb.domain.dto.OrderItemDto;
+import test.serviceb.domain.dto.StatusUpdateDto;
+import test.serviceb.repository.OrderStatus;
 import test.serviceb.repository.OrdersRepository;
+import test.serviceb.repository.PendingCompensationRepository;
 import test.serviceb.service.OrderService;
 import test.serviceb.service.converter.ConversionProperties;
+import test.serviceb.service.converter.ConversionProperties.ConnectionPool;
+import test.serviceb.service.idempotency.IdempotencyStore;
+import test.serviceb.service.inventory.Circuit;
+import test.serviceb.service.inventory.Compensator;
+import test.serviceb.service.inventory.InventoryBackend;
+import test.serviceb.service.inventory.InventoryConnections;
+import test.serviceb.service.inventory.InventoryUnavailableException;
+import test.serviceb.service.inventory.LatencyWindow;
+import test.serviceb.service.inventory.PermitQueue;
+import test.serviceb.service.inventory.ReservationScope;
+import test.serviceb.service.inventory.RoutingIndex;
+import test.serviceb.service.jfr.ItemReservationEvent;
+import test.serviceb.service.jfr.OrderCreationEvent;
+import test.serviceb.service.jfr.OrderPersistenceEvent;
+import test.serviceb.service.jfr.RestockEvent;
+import test.serviceb.service.timing.ServerTiming;
 
 /**
  * The OrderServiceImpl class implements the OrderService interface.
+ * It also publishes the statistics of the item cache of every external inventory as
+ * {@code cache.*} metrics tagged with {@code cache=inventory.items} and the name of the inventory,
+ * the state of its circuit breaker and bulkhead as {@code inventory.circuit.*} and
+ * {@code inventory.bulkhead.*} metrics and the hedging of its item lookups as
+ * {@code inventory.lookup.hedged} and {@code inventory.lookup.hedge.delay}, all tagged with the name of the inventory.
+ * Calls rejected by a circuit breaker or bulkhead fail the order with the
+ * {@link InventoryUnavailableException} itself, so that the client receives
+ * {@code 503 Service Unavailable} with a {@code Retry-After} header.
+ * If an order cannot be created, the stock already reserved for it is returned by a
+ * {@link Compensator}, which also returns the stock of cancelled orders in the background and
+ * publishes its progress per inventory as {@code inventory.compensation.restocked} and
+ * {@code inventory.compensation.failed}.
+ * When the {@link ServerTiming} of a request is measured, routing the items of an order and
+ * persisting it are recorded as its {@code routing} and {@code persistence} phases.
+ * Creating an order, every reservation, every restock and persisting new orders are also emitted
+ * as Java Flight Recorder events, see {@link test.serviceb.service.jfr.OrderServiceEvent}.
  */
 @Service
-public class OrderServiceImpl implements OrderService {
+public class OrderServiceImpl implements OrderService, MeterBinder {
 
-  private final Map<String, WebClient> webClientMap = new HashMap<>();
+  private final Map<String, InventoryBackend> backends = new HashMap<>();
+  private final RoutingIndex<InventoryBackend> routes;
+  private final List<ConnectionProvider> connectionPools = new ArrayList<>();
   private final OrdersRepository ordersRepo;
-  private static final String ITEM_PATH = "/{id}/itemname/{name}";
+  private final TransactionOperations transactions;
+  private final IdempotencyStore idempotency;
+  private final Validator validator;
+  private final ExecutorService executor;
+  private final Compensator compensator;
+  private final int maxPerOrder;
+  private final int maxPerChunk;
+  private static final int FAN_OUT_THRESHOLD = 2;
+  private static final int CHUNK_SIZE = 100;
+  private static final int MAX_PAGE_SIZE = 1000;
+  private static final String ITEM_CACHE = "inventory.items";
+  private static final String INVENTORY_TAG = "inventory";
+  private static final String PERSISTENCE = "persistence";
 
 
   /**
    * Constructs an instance of OrderServiceImpl.
    *
-   * @param ordersRepo the repository used for managing orders
-   * @param properties the configuration properties containing external inventory details
-   * @param builder    the WebClient.Builder for building web clients for external services
+   * @param ordersRepo       the repository used for managing orders
+   * @param compensationRepo the repository storing the stock still to be returned for failed and cancelled orders
+   * @param idempotency      the store remembering the orders created for requests with an idempotency key
+   * @param transactions     the transactions committing a change of an order together with its side effects
+   * @param validator        the validator checking every order of a bulk import on its own
+   * @param properties       the configuration properties containing external inventory details
+   * @param builder          the WebClient.Builder for building web clients for external services
    */
-  public OrderServiceImpl(OrdersRepository ordersRepo, ConversionProperties properties, WebClient.Builder builder) {
+  public OrderServiceImpl(OrdersRepository ordersRepo, PendingCompensationRepository compensationRepo,
+                          IdempotencyStore idempotency, TransactionOperations transactions, Validator validator,
+                          ConversionProperties properties, WebClient.Builder builder) {
     this.ordersRepo = ordersRepo;
-    for (Map.Entry<String, ExternalInventory> entry : properties.getExternalInventory().entrySet()) {
-      ExternalInventory externalService = entry.getValue();
-      webClientMap.put(externalService.getName(), builder.baseUrl(externalService.getUrl()).build());
+    this.idempotency = idempotency;
+    this.transactions = transactions;
+    this.validator = validator;
+    this.compensator = new Compensator(compensationRepo, properties.getCompensation(), this::inventoryOf,
+        this::restockItem);
+    this.maxPerOrder = properties.getMaxPerOrder();
+    this.executor = createExecutor(properties.isVirtualThreads());
+    for (ExternalInventory externalService : properties.getExternalInventory().values()) {
+      backends.put(externalService.getName(), createBackend(externalService, builder, properties));
     }
+    this.routes = new RoutingIndex<>(backends);
+    this.maxPerChunk = properties.getMaxPerBackend() * Math.max(1, backends.size());
+  }
+
+  /**
+   * Creates the {@link InventoryBackend} for one configured external inventory, with a web client
+   * sending its requests through a connection pool of its own.
+   *
+   * @param externalService the external inventory to connect to
+   * @param builder         the WebClient.Builder for building the web client of the backend
+   * @param properties      the configuration properties containing the per-backend limits
+   * @return the backend wrapping a web client for the external inventory
+   */
+  private InventoryBackend createBackend(ExternalInventory externalService, WebClient.Builder builder,
+                                         ConversionProperties properties) {
+    ConnectionPool settings = properties.connectionPoolFor(externalService.getName());
+    ConnectionProvider pool = InventoryConnections.pool(externalService, settings);
+    connectionPools.add(pool);
+    WebClient webClient = builder.baseUrl(externalService.getUrl())
+        .clientConnector(InventoryConnections.connector(externalService, pool, settings,
+            properties.timeoutFor(externalService.getName())))
+        .build();
+    return new InventoryBackend(externalService, webClient, properties);
+  }
+
+  /**
+   * Creates the executor running the concurrent item reservations of all orders. Every reservation
+   * runs with the thread-local context of the thread submitting it, such as the current observation,
+   * so that the spans of its inventory requests are children of the span of its order.
+   *
+   * @param virtualThreads whether every reservation runs on its own virtual thread instead of a pooled platform thread
+   * @return the executor for item reservations
+   */
+  private static ExecutorService createExecutor(boolean virtualThreads) {
+    ExecutorService executor;
+    if (virtualThreads) {
+      executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("inventory-reservation-", 0).factory());
+    } else {
+      executor = Executors.newCachedThreadPool(
+          Thread.ofPlatform().name("inventory-reservation-", 0).daemon().factory());
+    }
+    return ContextExecutorService.wrap(executor, ContextSnapshotFactory.builder().build());
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    backends.forEach((name, backend) -> {
+      CaffeineCacheMetrics.monitor(registry, backend.getItemCache(), ITEM_CACHE, INVENTORY_TAG, name);
+      bindCircuit(registry, name, backend.getCircuit());
+      bindBulkhead(registry, name, backend.getPermits());
+      backend.getRequests().bindTo(registry);
+      FunctionCounter.builder("inventory.lookup.hedged", backend, InventoryBackend::getHedges)
+          .description("Item lookups sent a second time because the first request was not answered in time")
+          .tag(INVENTORY_TAG, name)
+          .register(registry);
+      Gauge.builder("inventory.lookup.hedge.delay", backend.getLatencies(), OrderServiceImpl::hedgeDelaySeconds)
+          .description("How long an item lookup waits for an answer before it is sent a second time")
+          .baseUnit("seconds")
+          .tag(INVENTORY_TAG, name)
+          .register(registry);
+      FunctionCounter.builder("inventory.compensation.restocked", compensator, c -> c.getRestocked(name))
+          .description("Items of failed or cancelled orders returned to their inventory")
+          .tag(INVENTORY_TAG, name)
+          .register(registry);
+      FunctionCounter.builder("inventory.compensation.failed", compensator, c -> c.getFailures(name))
+          .description("Attempts to return items to their inventory that failed and were rescheduled")
+          .tag(INVENTORY_TAG, name)
+          .register(registry);
+    });
+  }
+
+  /**
+   * Reads the current hedging delay of an external inventory for publishing.
+   *
+   * @param latencies the lookup latencies of the inventory
+   * @return the hedging delay in seconds, or {@link Double#NaN} while too few lookups were made to hedge
+   */
+  private static double hedgeDelaySeconds(LatencyWindow latencies) {
+    Duration delay = latencies.hedgeDelay();
+    return delay == null ? Double.NaN : delay.toNanos() / 1e9;
+  }
+
+  /**
+   * Publishes the state of the circuit breaker of one external inventory. The state gauge has
+   * one time series per state, of which the current one has the value {@code 1}.
+   *
+   * @param registry the registry to publish to
+   * @param name     the name of the external inventory
+   * @param circuit  the circuit breaker of the inventory
+   */
+  private static void bindCircuit(MeterRegistry registry, String name, Circuit circuit) {
+    for (Circuit.State state : Circuit.State.values()) {
+      Gauge.builder("inventory.circuit.state", circuit, c -> c.getState() == state ? 1 : 0)
+          .description("Whether the circuit breaker of the inventory is in the given state")
+          .tags(INVENTORY_TAG, name, "state", state.name().toLowerCase(Locale.ROOT))
+          .register(registry);
+    }
+    Gauge.builder("inventory.circuit.failure.rate", circuit, Circuit::getFailureRate)
+        .description("Share of failed or slow calls among the recent calls to the inventory")
+        .baseUnit("percent")
+        .tag(INVENTORY_TAG, name)
+        .register(registry);
+    FunctionCounter.builder("inventory.circuit.rejected", circuit, Circuit::getRejected)
+        .description("Calls rejected because the circuit breaker of the inventory was open")
+        .tag(INVENTORY_TAG, name)
+        .register(registry);
+  }
+
+  /**
+   * Publishes the usage of the permits capping the concurrent calls to one external inventory.
+   *
+   * @param registry the registry to publish to
+   * @param name     the name of the external inventory
+   * @param permits  the permits of the inventory
+   */
+  private static void bindBulkhead(MeterRegistry registry, String name, PermitQueue permits) {
+    Gauge.builder("inventory.bulkhead.available", permits, PermitQueue::getAvailable)
+        .description("Permits for calls to the inventory nobody holds")
+        .tag(INVENTORY_TAG, name)
+        .register(registry);
+    Gauge.builder("inventory.bulkhead.queued", permits, PermitQueue::getQueued)
+        .description("Calls waiting for a permit of the inventory")
+        .tag(INVENTORY_TAG, name)
+        .register(registry);
+    FunctionCounter.builder("inventory.bulkhead.rejected", permits, PermitQueue::getRejected)
+        .description("Calls rejected because too many calls were waiting or the wait timed out")
+        .tag(INVENTORY_TAG, name)
+        .register(registry);
+  }
+
+  /**
+   * Stops the executor used for concurrent item reservations and closes the connections to the
+   * external inventories when the application context shuts down.
+   */
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+    connectionPools.forEach(ConnectionProvider::dispose);
+  }
+
+  /**
+   * Retries returning the stock of failed orders whose compensation failed before or was left
+   * behind by an instance that stopped, every {@code external.inventory.compensation.retryInterval}.
+   *
+   * @return the items restocked and the failures per inventory
+   */
+  @Scheduled(fixedDelayString = "#{@conversionProperties.compensation.retryInterval.toMillis()}",
+      initialDelayString = "#{@conversionProperties.compensation.retryInterval.toMillis()}")
+  public Compensator.Report retryCompensations() {
+    return compensator.retryDue();
   }
 
   @Override
   public Orders createOrder(OrderDto order) {
-    Orders newOrder = new Orders();
-    newOrder.setTotalPrice(order.getTotalPrice());
-    newOrder.setStatus(getStatusFromOrderDto(order));
-    for (OrderItemDto itemDto : order.getItems()) {
-      if (itemDto.getQuantity() > 0) {
-        OrderItem orderItem = createOrderItem(itemDto);
-        newOrder.addOrderItem(orderItem);
-      }
+    return create(order, null);
+  }
+
+  @Override
+  public Orders createOrder(OrderDto order, String idempotencyKey) {
+    if (idempotencyKey == null) {
+      return create(order, null);
+    }
+    Claim claim = new Claim(idempotencyKey, describe(order));
+    Integer created = idempotency.claim(claim.key(), claim.request());
+    if (created != null) {
+      return replay(created);
+    }
+    try {
+      return create(order, claim);
+    } catch (RuntimeException e) {
+      idempotency.release(claim.key());
+      throw e;
+    }
+  }
+
+  @Override
+  public void createOrders(Iterator<OrderDto> orders, Consumer<BulkOrderResultDto> results) {
+    int first = 0;
+    for (List<OrderDto> chunk = nextChunk(orders); !chunk.isEmpty(); chunk = nextChunk(orders)) {
+      createChunk(chunk, first).forEach(results);
+      first += chunk.size();
     }
-    return ordersRepo.save(newOrder);
   }
 
   @Override
   public Orders getOrder(int orderId) {
-    Optional<Orders> order = ordersRepo.findById(orderId);
+    Optional<Orders> order = ordersRepo.findWithItemsById(orderId);
     return order.orElse(null);
   }
 
   @Override
   public List<Orders> getAllOrders() {
-    List<Orders> orders = ordersRepo.findAll();
+    List<Orders> orders = ordersRepo.findAllWithItems();
     if (!orders.isEmpty()) {
       return orders;
     }
     return List.of();
   }
 
+  @Override
+  public List<Orders> getOrders(int after, int limit) {
+    if (limit < 1 || limit > MAX_PAGE_SIZE) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "Limit must be between 1 and " + MAX_PAGE_SIZE);
+    }
+    List<Integer> ids = ordersRepo.findIdsAfter(after, Limit.of(limit));
+    if (ids.isEmpty()) {
+      return List.of();
+    }
+    return ordersRepo.findByIdInOrderByIdAsc(ids);
+  }
+
+  @Override
+  public void streamOrders(Consumer<Orders> action) {
+    ordersRepo.forEachOrder(action);
+  }
+
   @Override
   public Orders updateOrder(int orderId, OrderDto order) {
-    Optional<Orders> orderOptional = ordersRepo.findById(orderId);
+    Optional<Orders> orderOptional = ordersRepo.findWithItemsById(orderId);
     if (orderOptional.isPresent()) {
       Orders orderToUpdate = orderOptional.get();
       if (orderToUpdate.getStatus() == Status.CANCELLED) {
-        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot update a cancelled order");
+        throw cancelledOrder();
       }
       Status status = getStatusFromOrderDto(order);
       if (status != orderToUpdate.getStatus() && status == Status.CANCELLED) {
-        restockOrderItems(orderToUpdate);
+        return cancel(orderToUpdate, order.getTotalPrice());
       }
-      orderToUpdate.setStatus(getStatusFromOrderDto(order));
+      orderToUpdate.setStatus(status);
       orderToUpdate.setTotalPrice(order.getTotalPrice());
-      return ordersRepo.save(orderToUpdate);
+      return ServerTiming.time(PERSISTENCE, () -> ordersRepo.save(orderToUpdate));
     }
     return null;
   }
 
+  @Override
+  public List<BulkOrderResultDto> updateStatuses(StatusUpdateDto update) {
+    Status status = statusOf(update.getStatus());
+    List<Integer> ids = update.getIds().stream().distinct().toList();
+    Map<Integer, ResponseStatusException> rejected = status == Status.CANCELLED
+        ? cancelAll(ids)
+        : moveAll(ids, status);
+    List<Integer> requested = update.getIds();
+    return IntStream.range(0, requested.size())
+        .mapToObj(index -> resultOf(index, requested.get(index), rejected.get(requested.get(index))))
+        .toList();
+  }
+
+  @Override
+  public Mono<Orders> createOrderReactive(OrderDto order) {
+    return createReactive(order, null);
+  }
+
+  @Override
+  public Mono<Orders> createOrderReactive(OrderDto order, String idempotencyKey) {
+    if (idempotencyKey == null) {
+      return createReactive(order, null);
+    }
+    Claim claim = new Claim(idempotencyKey, describe(order));
+    return Mono.fromCallable(() -> idempotency.claim(claim.key(), claim.request()))
+        .subscribeOn(Schedulers.boundedElastic())
+        .map(this::replay)
+        .switchIfEmpty(Mono.defer(() -> createReactive(order, claim)
+            .onErrorResume(RuntimeException.class, e -> Mono.fromRunnable(() -> idempotency.release(claim.key()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then(Mono.error(e)))));
+  }
+
+  /**
+   * Reactive variant of {@link #create(OrderDto, Claim)}, recording the creation of the order from
+   * the subscription until the order was persisted or rejected.
+   *
+   * @param order the order as received from the client
+   * @param claim the idempotency key claimed for the order, or {@code null} if it was sent without one
+   * @return a {@link Mono} emitting the newly created order
+   */
+  private Mono<Orders> createReactive(OrderDto order, Claim claim) {
+    List<OrderItemDto> itemDtos = orderedItems(order);
+    return Mono.defer(() -> {
+      OrderCreationEvent event = OrderCreationEvent.start(itemDtos.size(), claim != null);
+      Mono<Orders> creation = reserveAndPersistReactive(order, itemDtos, claim);
+      if (!event.isEnabled()) {
+        return creation;
+      }
+      return event.observe(creation.doOnNext(created -> event.created(created.getId())));
+    });
+  }
+
+  /**
+   * Reserves the order items of a new order without blocking and persists the order once every
+   * reservation succeeded. If a reservation fails, the items reserved for the order are restocked.
+   *
+   * @param order    the order as received from the client
+   * @param itemDtos the order items to reserve, all with a positive quantity
+   * @param claim    the idempotency key claimed for the order, or {@code null} if it was sent without one
+   * @return a {@link Mono} emitting the newly created order
+   */
+  private Mono<Orders> reserveAndPersistReactive(OrderDto order, List<OrderItemDto> itemDtos, Claim claim) {
+    AtomicBoolean failed = new AtomicBoolean();
+    return planReservationsReactive(itemDtos)
+        .flatMapMany(reservations -> Flux.fromIterable(reservations)
+            .flatMap(reservation -> Mono.defer(() -> failed.get()
+                ? Mono.just(Outcome.skipped(reservation))
+                : reserveReactive(reservation)
+                    .map(reserved -> Outcome.reserved(reservation, reserved))
+                    .onErrorResume(RuntimeException.class, e -> {
+                      failed.set(true);
+                      return Mono.just(Outcome.failed(reservation, e));
+                    })), maxPerOrder))
+        .collectList()
+        .flatMap(outcomes -> {
+          List<OrderItem> reserved = reservedItems(outcomes);
+          RuntimeException failure = firstFailure(outcomes);
+          if (failure != null) {
+            return compensator.compensateReactive(reserved).then(Mono.error(failure));
+          }
+          OrderItem[] orderItems = new OrderItem[itemDtos.size()];
+          outcomes.forEach(outcome -> outcome.reservation().fill(orderItems, outcome.items()));
+          return Mono.fromCallable(() -> persist(newOrder(order, Arrays.asList(orderItems)), claim))
+              .subscribeOn(Schedulers.boundedElastic())
+              .onErrorResume(RuntimeException.class,
+                  e -> compensator.compensateReactive(reserved).then(Mono.error(e)));
+        });
+  }
+
+  @Override
+  public Mono<List<BulkOrderResultDto>> updateStatusesReactive(StatusUpdateDto update) {
+    return Mono.fromCallable(() -> updateStatuses(update))
+        .subscribeOn(Schedulers.boundedElastic());
+  }
+
+  @Override
+  public Mono<Orders> getOrderReactive(int orderId) {
+    return Mono.fromCallable(() -> ordersRepo.findWithItemsById(orderId))
+        .subscribeOn(Schedulers.boundedElastic())
+        .flatMap(Mono::justOrEmpty);
+  }
+
+  @Override
+  public Flux<Orders> getAllOrdersReactive() {
+    return Mono.fromCallable(ordersRepo::findAllWithItems)
+        .subscribeOn(Schedulers.boundedElastic())
+        .flatMapIterable(Function.identity());
+  }
+
+  @Override
+  public Flux<Orders> getOrdersReactive(int after, int limit) {
+    return Mono.fromCallable(() -> getOrders(after, limit))
+        .subscribeOn(Schedulers.boundedElastic())
+        .flatMapIterable(Function.identity());
+  }
+
+  @Override
+  public Mono<Orders> updateOrderReactive(int orderId, OrderDto order) {
+    return getOrderReactive(orderId).flatMap(orderToUpdate -> {
+      if (orderToUpdate.getStatus() == Status.CANCELLED) {
+        return Mono.error(cancelledOrder());
+      }
+      Status status = getStatusFromOrderDto(order);
+      if (status != orderToUpdate.getStatus() && status == Status.CANCELLED) {
+        return Mono.fromCallable(() -> cancel(orderToUpdate, order.getTotalPrice()))
+            .subscribeOn(Schedulers.boundedElastic());
+      }
+      return Mono.fromCallable(() -> {
+        orderToUpdate.setStatus(status);
+        orderToUpdate.setTotalPrice(order.getTotalPrice());
+        return ordersRepo.save(orderToUpdate);
+      }).subscribeOn(Schedulers.boundedElastic());
+    });
+  }
+
+  /**
+   * Moves orders to a status other than {@link Status#CANCELLED} with a single statement and
+   * reads their statuses back in the same transaction. The statement holds the row locks until the
+   * transaction ends, so an order found cancelled afterwards was cancelled before and left unchanged.
+   *
+   * @param ids    the distinct IDs of the orders
+   * @param status the new status of the orders
+   * @return the rejection of every order that was not updated, by ID
+   */
+  private Map<Integer, ResponseStatusException> moveAll(List<Integer> ids, Status status) {
+    Map<Integer, Status> statuses = transactions.execute(tx -> {
+      ordersRepo.updateStatus(ids, status);
+      return statusesOf(ids);
+    });
+    return rejections(ids, statuses);
+  }
+
+  /**
+   * Cancels orders with a single statement and returns the stock of their items. The orders that
+   * are not cancelled yet are locked first, so that every order is restocked only once. The new
+   * status is committed together with one {@link PendingCompensation} per order item, and the
+   * {@link Compensator} restocks the items of all orders together in the background, batched per
+   * inventory, once the transaction committed.
+   * Like {@link #cancel(Orders, double)}, an order with an item that no external inventory is found
+   * for is not cancelled.
+   *
+   * @param ids the distinct IDs of the orders
+   * @return the rejection of every order that was not cancelled, by ID
+   */
+  private Map<Integer, ResponseStatusException> cancelAll(List<Integer> ids) {
+    Map<Integer, ResponseStatusException> rejected = new HashMap<>();
+    List<PendingCompensation> outbox = new ArrayList<>();
+    transactions.executeWithoutResult(tx -> {
+      List<Integer> locked = ordersRepo.lockCancellable(ids).stream().map(Orders::getId).toList();
+      rejected.putAll(rejections(ids, statusesOf(ids)));
+      List<Orders> cancellable = locked.isEmpty() ? List.of() : ordersRepo.findByIdInOrderByIdAsc(locked);
+      List<Orders> restockable = new ArrayList<>();
+      for (Orders order : cancellable) {
+        String unroutable = unroutableItem(order);
+        if (unroutable == null) {
+          restockable.add(order);
+        } else {
+          rejected.put(order.getId(), itemNotFound(unroutable));
+        }
+      }
+      if (!restockable.isEmpty()) {
+        ordersRepo.updateStatus(restockable.stream().map(Orders::getId).toList(), Status.CANCELLED);
+        restockable.forEach(order -> outbox.addAll(compensator.record(order.getId(), order.getOrderItems())));
+      }
+    });
+    compensator.dispatch(outbox);
+    return rejected;
+  }
+
+  /**
+   * Reads the current status of orders.
+   *
+   * @param ids the IDs of the orders
+   * @return the status of every order that exists, by ID
+   */
+  private Map<Integer, Status> statusesOf(List<Integer> ids) {
+    return ordersRepo.findStatuses(ids).stream()
+        .collect(Collectors.toMap(OrderStatus::id, OrderStatus::status));
+  }
+
+  /**
+   * Decides which orders of a bulk status update are rejected because they do not exist or are
+   * cancelled, with the status {@link #updateOrder(int, OrderDto)} rejects them with.
+   *
+   * @param ids      the distinct IDs of the orders
+   * @param statuses the status of every order that exists, by ID
+   * @return the rejection of every missing or cancelled order, by ID
+   */
+  private static Map<Integer, ResponseStatusException> rejections(List<Integer> ids,
+                                                                  Map<Integer, Status> statuses) {
+    Map<Integer, ResponseStatusException> rejected = new HashMap<>();
+    for (Integer id : ids) {
+      Status current = statuses.get(id);
+      if (current == null) {
+        rejected.put(id, orderNotFound(id));
+      } else if (current == Status.CANCELLED) {
+        rejected.put(id, cancelledOrder());
+      }
+    }
+    return rejected;
+  }
+
+  /**
+   * Creates the result of one order ID of a bulk status update.
+   *
+   * @param index     the position of the order ID within the request
+   * @param orderId   the ID of the order
+   * @param rejection the rejection of the order, or {@code null} if it was updated
+   * @return the result of the order
+   */
+  private static BulkOrderResultDto resultOf(int index, int orderId, ResponseStatusException rejection) {
+    if (rejection == null) {
+      return BulkOrderResultDto.updated(index, orderId);
+    }
+    return BulkOrderResultDto.failed(index, rejection.getStatusCode().value(), orderId, rejection.getReason());
+  }
+
+  /**
+   * Creates the rejection of an order that does not exist.
+   *
+   * @param id the ID of the order
+   * @return the rejection with a status of {@code 404 Not Found}
+   */
+  private static ResponseStatusException orderNotFound(int id) {
+    return new ResponseStatusException(HttpStatus.NOT_FOUND, "Order with ID %d not found".formatted(id));
+  }
+
+  /**
+   * Creates the rejection of a change to a cancelled order.
+   *
+   * @return the rejection with a status of {@code 400 Bad Request}
+   */
+  private static ResponseStatusException cancelledOrder() {
+    return new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot update a cancelled order");
+  }
+
+  /**
+   * Creates the rejection of an item that no external inventory is found for.
+   *
+   * @param itemName the name of the item
+   * @return the rejection with a status of {@code 404 Not Found}
+   */
+  private static ResponseStatusException itemNotFound(String itemName) {
+    return new ResponseStatusException(HttpStatus.NOT_FOUND, "Item with name " + itemName + " not found");
+  }
+
+  /**
+   * Finds an order item of an order that no external inventory is found for.
+   *
+   * @param order the order with its order items
+   * @return the name of the first such item, or {@code null} if every item resolves to an inventory
+   */
+  private String unroutableItem(Orders order) {
+    return order.getOrderItems().stream()
+        .map(OrderItem::getItemName)
+        .filter(itemName -> findBackend(itemName) == null)
+        .findFirst()
+        .orElse(null);
+  }
+
+  /**
+   * Selects the order items of an order that actually need to be reserved.
+   *
+   * @param order the order as received from the client
+   * @return the order items with a positive quantity, in the order of the request
+   */
+  private static List<OrderItemDto> orderedItems(OrderDto order) {
+    return order.getItems().stream()
+        .filter(itemDto -> itemDto.getQuantity() > 0)
+        .toList();
+  }
+
+  /**
+   * Creates a new order, recording its creation as an {@link OrderCreationEvent}.
+   *
+   * @param order the order as received from the client
+   * @param claim the idempotency key claimed for the order, or {@code null} if it was sent without one
+   * @return the newly created order
+   */
+  private Orders create(OrderDto order, Claim claim) {
+    List<OrderItemDto> itemDtos = orderedItems(order);
+    OrderCreationEvent event = OrderCreationEvent.start(itemDtos.size(), claim != null);
+    return event.observe(() -> {
+      Orders created = reserveAndPersist(order, itemDtos, claim);
+      event.created(created.getId());
+      return created;
+    });
+  }
+
+  /**
+   * Reserves the order items of a new order and persists the order. If the order cannot be
+   * persisted, the stock reserved for it is returned.
+   *
+   * @param order    the order as received from the client
+   * @param itemDtos the order items to reserve, all with a positive quantity
+   * @param claim    the idempotency key claimed for the order, or {@code null} if it was sent without one
+   * @return the newly created order
+   */
+  private Orders reserveAndPersist(OrderDto order, List<OrderItemDto> itemDtos, Claim claim) {
+    List<OrderItem> orderItems = reserveOrderItems(itemDtos);
+    try {
+      Orders created = newOrder(order, orderItems);
+      return ServerTiming.time(PERSISTENCE, () -> persist(created, claim));
+    } catch (RuntimeException e) {
+      compensator.compensate(orderItems);
+      throw e;
+    }
+  }
+
+  /**
+   * Persists a new order. If it was requested with an idempotency key, the key is completed with
+   * the ID of the order in the same transaction, so that a repeated request finds the order
+   * exactly if it was stored.
+   *
+   * @param order the new order with its reserved order items
+   * @param claim the idempotency key claimed for the order, or {@code null} if it was sent without one
+   * @return the persisted order
+   */
+  private Orders persist(Orders order, Claim claim) {
+    OrderPersistenceEvent event = OrderPersistenceEvent.start(1, order.getOrderItems().size());
+    return event.observe(() -> {
+      Orders saved = claim == null ? ordersRepo.save(order) : transactions.execute(status -> {
+        Orders inserted = ordersRepo.save(order);
+        idempotency.complete(claim.key(), claim.request(), inserted.getId());
+        return inserted;
+      });
+      event.persisted(saved.getId());
+      return saved;
+    });
+  }
+
+  /**
+   * Reads the next chunk of a bulk import.
+   *
+   * @param orders the orders of the import still to be read
+   * @return up to {@link #CHUNK_SIZE} orders, or an empty list once all orders were read
+   */
+  private static List<OrderDto> nextChunk(Iterator<OrderDto> orders) {
+    List<OrderDto> chunk = new ArrayList<>(CHUNK_SIZE);
+    while (chunk.size() < CHUNK_SIZE && orders.hasNext()) {
+      chunk.add(orders.next());
+    }
+    return chunk;
+  }
+
+  /**
+   * Creates the orders of one chunk of a bulk import. Invalid orders are rejected up front, the
+   * items of the valid ones are reserved together by {@link #reserveChunk(List)}, and the orders
+   * whose items were all reserved are persisted in one transaction, so that Hibernate sends their
+   * inserts in JDBC batches.
+   *
+   * @param chunk the orders of the chunk
+   * @param first the position of the first order of the chunk within the import
+   * @return the results of the orders, in the order of {@code chunk}
+   */
+  private List<BulkOrderResultDto> createChunk(List<OrderDto> chunk, int first) {
+    BulkOrderResultDto[] results = new BulkOrderResultDto[chunk.size()];
+    List<Integer> valid = validateChunk(results, chunk, first);
+    List<Reserved> reserved = reserveChunk(valid.stream().map(chunk::get).toList());
+    List<Integer> positions = new ArrayList<>();
+    List<Orders> created = new ArrayList<>();
+    for (int k = 0; k < valid.size(); k++) {
+      int position = valid.get(k);
+      Reserved order = reserved.get(k);
+      if (order.failure() == null) {
+        positions.add(position);
+        created.add(newOrder(chunk.get(position), order.items()));
+      } else {
+        results[position] = failedResult(first + position, order.failure());
+      }
+    }
+    persistChunk(results, created, positions, first);
+    return Arrays.asList(results);
+  }
+
+  /**
+   * Validates every order of a chunk of a bulk import on its own, with the constraints checked for
+   * a single order, and stores the result of every invalid order.
+   *
+   * @param results the results of the chunk, indexed by position within the chunk
+   * @param chunk   the orders of the chunk
+   * @param first   the position of the first order of the chunk within the import
+   * @return the positions of the valid orders within the chunk
+   */
+  private List<Integer> validateChunk(BulkOrderResultDto[] results, List<OrderDto> chunk, int first) {
+    List<Integer> valid = new ArrayList<>();
+    for (int position = 0; position < chunk.size(); position++) {
+      Map<String, String> violations = validator.validate(chunk.get(position)).stream()
+          .collect(Collectors.toMap(violation -> violation.getPropertyPath().toString(),
+              ConstraintViolation::getMessage, (a, b) -> a));
+      if (violations.isEmpty()) {
+        valid.add(position);
+      } else {
+        results[position] = BulkOrderResultDto.invalid(first + position, violations);
+      }
+    }
+    return valid;
+  }
+
+  /**
+   * Reserves the items of all valid orders of a chunk of a bulk import together. The order items
+   * of the same item are merged into one line with their total quantity, and the lines of all
+   * orders are planned by {@link #planReservations(List)} as if they belonged to a single order.
+   * So a backend offering bulk reservations is called once for the whole chunk, any other backend
+   * once per distinct item, and every reservation is attempted even if others fail.
+   * A failed reservation of an item of a single order fails that order. A failed reservation
+   * covering several orders is attempted again by each of them on its own, which keeps the orders
+   * that cannot be served from failing the rest of the chunk.
+   *
+   * @param orders the valid orders of the chunk
+   * @return the reserved order items or the failure of every order, in the order of {@code orders}
+   */
+  private List<Reserved> reserveChunk(List<OrderDto> orders) {
+    List<List<OrderItemDto>> itemsPerOrder = orders.stream().map(OrderServiceImpl::orderedItems).toList();
+    List<OrderItemDto> lines = itemsPerOrder.stream().flatMap(List::stream).toList();
+    List<List<Integer>> linesPerItem = List.copyOf(IntStream.range(0, lines.size()).boxed()
+        .collect(Collectors.groupingBy(line -> reservationKey(lines.get(line)), LinkedHashMap::new,
+            Collectors.toList()))
+        .values());
+    List<OrderItemDto> totals = linesPerItem.stream().map(item -> totalOf(lines, item)).toList();
+    OrderItem[] orderItems = new OrderItem[lines.size()];
+    RuntimeException[] failures = new RuntimeException[lines.size()];
+    for (Outcome outcome : attemptAll(planReservations(totals), maxPerChunk, false)) {
+      Reservation reservation = outcome.reservation();
+      if (outcome.failure() == null) {
+        IntStream.range(0, outcome.items().size()).forEach(i -> linesPerItem.get(reservation.lines().get(i))
+            .forEach(line -> orderItems[line] = shareOf(outcome.items().get(i), lines.get(line))));
+      } else if (reservation != null && !reservation.bulk()) {
+        reservation.lines().stream()
+            .map(linesPerItem::get)
+            .filter(item -> item.size() == 1)
+            .forEach(item -> failures[item.getFirst()] = outcome.failure());
+      }
+    }
+    List<Reserved> reserved = new ArrayList<>(orders.size());
+    int start = 0;
+    for (List<OrderItemDto> itemDtos : itemsPerOrder) {
+      int end = start + itemDtos.size();
+      reserved.add(completeReservation(Arrays.copyOfRange(orderItems, start, end),
+          Arrays.copyOfRange(failures, start, end), itemDtos));
+      start = end;
+    }
+    return reserved;
+  }
+
+  /**
+   * Merges the order items of the same item within a chunk of a bulk import into one line.
+   *
+   * @param lines the order items of all orders of the chunk
+   * @param item  the positions of the order items of the same item
+   * @return the order item with the total quantity of all of them
+   */
+  private static OrderItemDto totalOf(List<OrderItemDto> lines, List<Integer> item) {
+    OrderItemDto first = lines.get(item.getFirst());
+    return new OrderItemDto(first.getItemId(), first.getItemName(), first.getPrice(),
+        item.stream().mapToInt(line -> lines.get(line).getQuantity()).sum());
+  }
+
+  /**
+   * Creates the order item of one order from the reservation of the merged line of its item.
+   *
+   * @param reserved the order item reserved for the merged line
+   * @param itemDto  the order item of the order
+   * @return the order item with the quantity and price of the order
+   */
+  private static OrderItem shareOf(OrderItem reserved, OrderItemDto itemDto) {
+    return new OrderItem(reserved.getItemId(), reserved.getItemName(), itemDto.getQuantity(), itemDto.getPrice());
+  }
+
+  /**
+   * Completes the reservation of one order of a bulk import once the reservations of its chunk are
+   * done. If the order failed, the stock already reserved for it is returned by the
+   * {@link Compensator}.
+   *
+   * @param orderItems the order items reserved for the order, {@code null} where a reservation failed
+   * @param failures   the failures of the single-item reservations of the order, {@code null} where there was none
+   * @param itemDtos   the order items of the order
+   * @return the reserved order items of the order, or its failure
+   */
+  private Reserved completeReservation(OrderItem[] orderItems, RuntimeException[] failures,
+                                       List<OrderItemDto> itemDtos) {
+    List<OrderItem> reserved = Arrays.stream(orderItems).filter(Objects::nonNull).toList();
+    RuntimeException failure = Arrays.stream(failures).filter(Objects::nonNull).findFirst().orElse(null);
+    if (failure != null) {
+      compensator.compensate(reserved);
+      return Reserved.failed(failure);
+    }
+    List<Integer> missing = IntStream.range(0, orderItems.length)
+        .filter(line -> orderItems[line] == null)
+        .boxed()
+        .toList();
+    try {
+      if (!missing.isEmpty()) {
+        List<OrderItem> retried = reserveOrderItems(missing.stream().map(itemDtos::get).toList());
+        IntStream.range(0, missing.size()).forEach(i -> orderItems[missing.get(i)] = retried.get(i));
+      }
+      return Reserved.succeeded(Arrays.asList(orderItems));
+    } catch (RuntimeException e) {
+      compensator.compensate(reserved);
+      return Reserved.failed(e);
+    }
+  }
+
+  /**
+   * Persists the reserved orders of a chunk of a bulk import in one transaction and stores their
+   * results. If they cannot be persisted, the stock reserved for them is returned and all of them fail.
+   *
+   * @param results   the results of the chunk, indexed by position within the chunk
+   * @param created   the new orders with their reserved order items
+   * @param positions the positions of the new orders within the chunk
+   * @param first     the position of the first order of the chunk within the import
+   */
+  private void persistChunk(BulkOrderResultDto[] results, List<Orders> created, List<Integer> positions,
+                            int first) {
+    if (created.isEmpty()) {
+      return;
+    }
+    try {
+      OrderPersistenceEvent event = OrderPersistenceEvent.start(created.size(),
+          created.stream().mapToInt(order -> order.getOrderItems().size()).sum());
+      List<Orders> saved = event.observe(() -> {
+        List<Orders> inserted = transactions.execute(status -> ordersRepo.saveAll(created));
+        event.persisted(inserted.getFirst().getId());
+        return inserted;
+      });
+      for (int k = 0; k < positions.size(); k++) {
+        results[positions.get(k)] = BulkOrderResultDto.created(first + positions.get(k), saved.get(k).getId());
+      }
+    } catch (RuntimeException e) {
+      compensator.compensate(created.stream().flatMap(order -> order.getOrderItems().stream()).toList());
+      positions.forEach(position -> results[position] = failedResult(first + position, e));
+    }
+  }
+
+  /**
+   * Describes why an order of a bulk import could not be created, with the HTTP status the order
+   * would have been rejected with on its own.
+   *
+   * @param index   the position of the order within the import
+   * @param failure the failure of the order
+   * @return the result of the order
+   */
+  private static BulkOrderResultDto failedResult(int index, Throwable failure) {
+    for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+      if (cause instanceof ResponseStatusException rejection) {
+        return BulkOrderResultDto.failed(index, rejection.getStatusCode().value(),
+            Objects.requireNonNullElse(rejection.getReason(), failure.getMessage()));
+      }
+    }
+    return BulkOrderResultDto.failed(index, HttpStatus.INTERNAL_SERVER_ERROR.value(), failure.getMessage());
+  }
+
+  /**
+   * Answers a repeated request with the order created for the first one, without reserving anything.
+   *
+   * @param orderId the ID of the order created for the first request
+   * @return the order with its order items
+   * @throws ResponseStatusException if the order no longer exists
+   */
+  private Orders replay(int orderId) {
+    return ordersRepo.findWithItemsById(orderId)
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+            "Order with ID " + orderId + " created for this " + IdempotencyStore.HEADER + " not found"));
+  }
+
+  /**
+   * Describes the parts of a request creating an order that a repeated request must match.
+   *
+   * @param order the order as received from the client
+   * @return the description of the order
+   */
+  private static String describe(OrderDto order) {
+    return order.getTotalPrice() + "|" + order.getStatus()
+        + Objects.requireNonNullElse(order.getItems(), List.<OrderItemDto>of()).stream()
+        .map(item -> "|" + item.getItemId() + "," + item.getItemName() + "," + item.getPrice() + ","
+            + item.getQuantity())
+        .collect(Collectors.joining());
+  }
+
+  /**
+   * Creates a new, not yet persisted order with the given reserved order items.
+   *
+   * @param order      the order as received from the client
+   * @param orderItems the reserved order items
+   * @return the new order
+   */
+  private Orders newOrder(OrderDto order, List<OrderItem> orderItems) {
+    Orders newOrder = new Orders();
+    newOrder.setTotalPrice(order.getTotalPrice());
+    newOrder.setStatus(getStatusFromOrderDto(order));
+    orderItems.forEach(newOrder::addOrderItem);
+    return newOrder;
+  }
+
+
+  /**
+   * Reserves the inventory for all given order items concurrently and returns the resulting
+   * order items in the same order as the input.
+   * The items are first grouped into reservations by {@link #planReservations(List)}; at most
+   * {@code maxPerOrder} of them are in flight at any time, while the per-backend cap is enforced
+   * by {@link InventoryBackend#withPermit(Supplier)}.
+   * The reservations run as subtasks of a {@link ReservationScope}. As soon as one reservation
+   * fails, no further reservation is started, but those in flight are allowed to finish, so that
+   * it is known which items were reserved. Their stock is then returned by the
+   * {@link Compensator} and the first failure is rethrown to the caller.
+   *
+   * @param itemDtos the order items to reserve, all with a positive quantity
+   * @return the created order items, in the order of {@code itemDtos}
+   */
+  private List<OrderItem> reserveOrderItems(List<OrderItemDto> itemDtos) {
+    List<Reservation> reservations = ServerTiming.time("routing", () -> planReservations(itemDtos));
+    OrderItem[] orderItems = new OrderItem[itemDtos.size()];
+    if (reservations.size() < FAN_OUT_THRESHOLD) {
+      reservations.forEach(reservation -> reservation.fill(orderItems, reserve(reservation)));
+      return Arrays.asList(orderItems);
+    }
+    List<Outcome> outcomes = attemptAll(reservations, maxPerOrder, true);
+    RuntimeException failure = firstFailure(outcomes);
+    if (failure != null) {
+      compensator.compensate(reservedItems(outcomes));
+      throw failure;
+    }
+    outcomes.forEach(outcome -> outcome.reservation().fill(orderItems, outcome.items()));
+    return Arrays.asList(orderItems);
+  }
+
+  /**
+   * Executes reservations as subtasks of a {@link ReservationScope}, at most {@code concurrency}
+   * at a time. If {@code failFast} is set, no further reservation is started once a reservation
+   * failed, and the method returns when those in flight have finished.
+   * If the calling thread is interrupted, no further reservation is started either, and the
+   * reservations in flight are still waited for, so that the items they reserved are among the
+   * outcomes and get compensated by the caller. The interruption is reported as a failed outcome.
+   *
+   * @param reservations the reservations to execute
+   * @param concurrency  the maximum number of reservations in flight
+   * @param failFast     whether the first failure stops starting further reservations
+   * @return the outcomes of the reservations started, in order of completion
+   */
+  private List<Outcome> attemptAll(List<Reservation> reservations, int concurrency, boolean failFast) {
+    List<Outcome> outcomes = new ArrayList<>();
+    boolean failed = false;
+    try (ReservationScope<Outcome> scope = new ReservationScope<>(executor)) {
+      try {
+        int submitted = 0;
+        do {
+          while (!failed && submitted < reservations.size() && scope.unjoined() < concurrency) {
+            Reservation reservation = reservations.get(submitted++);
+            scope.fork(ServerTiming.propagate(() -> attempt(reservation)));
+          }
+          Outcome outcome = scope.join();
+          outcomes.add(outcome);
+          failed |= failFast && outcome.failure() != null;
+        } while ((!failed && submitted < reservations.size()) || scope.unjoined() > 0);
+      } catch (InterruptedException e) {
+        outcomes.addAll(scope.drain());
+        Thread.currentThread().interrupt();
+        outcomes.add(new Outcome(null, List.of(),
+            new IllegalStateException("Interrupted while reserving order items", e)));
+      }
+    }
+    return outcomes;
+  }
+
+  /**
+   * Executes a reservation as a subtask of {@link #attemptAll(List, int, boolean)}, reporting its failure
+   * as its outcome instead of throwing, so that it does not cancel its siblings.
+   *
+   * @param reservation the reservation to execute
+   * @return the outcome of the reservation
+   */
+  private Outcome attempt(Reservation reservation) {
+    try {
+      return Outcome.reserved(reservation, reserve(reservation));
+    } catch (RuntimeException e) {
+      return Outcome.failed(reservation, e);
+    }
+  }
+
+  /**
+   * Collects the order items reserved by the successful reservations of an order.
+   *
+   * @param outcomes the outcomes of the reservations
+   * @return the reserved order items
+   */
+  private static List<OrderItem> reservedItems(List<Outcome> outcomes) {
+    return outcomes.stream().flatMap(outcome -> outcome.items().stream()).toList();
+  }
+
+  /**
+   * Finds the first failure among the outcomes of the reservations of an order.
+   *
+   * @param outcomes the outcomes of the reservations
+   * @return the first failure, or {@code null} if no reservation failed
+   */
+  private static RuntimeException firstFailure(List<Outcome> outcomes) {
+    return outcomes.stream().map(Outcome::failure).filter(Objects::nonNull).findFirst().orElse(null);
+  }
+
+  /**
+   * Groups the order items by the external inventory they resolve to and decides how each group
+   * is reserved. Groups of several items whose backend advertises bulk reservations become a
+   * single bulk reservation; all other items, including those no backend is found for, are
+   * reserved one by one.
+   *
+   * @param itemDtos the order items to reserve
+   * @return the reservations covering every position of {@code itemDtos} exactly once
+   */
+  private List<Reservation> planReservations(List<OrderItemDto> itemDtos) {
+    List<Reservation> reservations = new ArrayList<>();
+    groupByBackend(itemDtos, reservations).forEach((backend, lines) -> reservations.addAll(
+        reservationsOf(backend, lines, itemDtos,
+            lines.size() >= FAN_OUT_THRESHOLD && backend.supportsBulkReservation())));
+    return reservations;
+  }
+
+  /**
+   * Reactive variant of {@link #planReservations(List)}, which does not block while the
+   * capabilities of a backend are probed.
+   *
+   * @param itemDtos the order items to reserve
+   * @return a {@link Mono} emitting the reservations covering every position of {@code itemDtos} exactly once
+   */
+  private Mono<List<Reservation>> planReservationsReactive(List<OrderItemDto> itemDtos) {
+    List<Reservation> unresolved = new ArrayList<>();
+    Map<InventoryBackend, List<Integer>> linesByBackend = groupByBackend(itemDtos, unresolved);
+    return Flux.fromIterable(linesByBackend.entrySet())
+        .concatMap(group -> {
+          Mono<Boolean> bulk = group.getValue().size() >= FAN_OUT_THRESHOLD
+              ? group.getKey().bulkReservationSupport()
+              : Mono.just(false);
+          return bulk.flatMapIterable(
+              supported -> reservationsOf(group.getKey(), group.getValue(), itemDtos, supported));
+        })
+        .startWith(unresolved)
+        .collectList();
+  }
+
+  /**
+   * Groups the positions of the order items by the external inventory their names resolve to.
+   * Order items no backend is found for are added to {@code reservations} as single reservations,
+   * so that they fail with the usual error once reserved.
+   *
+   * @param itemDtos     the order items to reserve
+   * @param reservations the list receiving the reservations of unresolvable order items
+   * @return the positions of the order items per backend, in order of first appearance
+   */
+  private Map<InventoryBackend, List<Integer>> groupByBackend(List<OrderItemDto> itemDtos,
+                                                              List<Reservation> reservations) {
+    List<InventoryBackend> lineBackends = itemDtos.stream()
+        .map(itemDto -> findBackend(itemDto.getItemName()))
+        .toList();
+    IntStream.range(0, itemDtos.size())
+        .filter(line -> lineBackends.get(line) == null)
+        .forEach(line -> reservations.add(singleReservation(itemDtos, line, null)));
+    return IntStream.range(0, itemDtos.size()).boxed()
+        .filter(line -> lineBackends.get(line) != null)
+        .collect(Collectors.groupingBy(lineBackends::get, LinkedHashMap::new, Collectors.toList()));
+  }
+
+  /**
+   * Creates the reservations for the order items of one backend.
+   *
+   * @param backend  the external inventory the order items resolve to
+   * @param lines    the positions of the order items within the order
+   * @param itemDtos all order items of the order
+   * @param bulk     whether the order items are reserved with a single bulk reservation
+   * @return one bulk reservation, or one reservation per order item
+   */
+  private List<Reservation> reservationsOf(InventoryBackend backend, List<Integer> lines,
+                                           List<OrderItemDto> itemDtos, boolean bulk) {
+    if (bulk) {
+      return List.of(new Reservation(lines, backend, lines.stream().map(itemDtos::get).toList(), true));
+    }
+    return lines.stream().map(line -> singleReservation(itemDtos, line, backend)).toList();
+  }
+
+  /**
+   * Creates a reservation covering a single order item.
+   *
+   * @param itemDtos all order items of the order
+   * @param line     the position of the order item to reserve
+   * @param backend  the external inventory the order item resolves to, or {@code null} if there is none
+   * @return the reservation of that order item
+   */
+  private Reservation singleReservation(List<OrderItemDto> itemDtos, int line, InventoryBackend backend) {
+    return new Reservation(List.of(line), backend, List.of(itemDtos.get(line)), false);
+  }
+
+  /**
+   * Executes a reservation, blocking until the external inventory answered, and records it as an
+   * {@link ItemReservationEvent}.
+   *
+   * @param reservation the reservation to execute
+   * @return the created order items, one per position covered by the reservation
+   */
+  private List<OrderItem> reserve(Reservation reservation) {
+    return reservation.startEvent().observe(() -> reservation.bulk()
+        ? createOrderItems(reservation.backend(), reservation.itemDtos())
+        : List.of(createOrderItem(reservation.itemDtos().getFirst())));
+  }
+
+  /**
+   * Reactive variant of {@link #reserve(Reservation)}. The permit of the backend is awaited
+   * without blocking a thread.
+   *
+   * @param reservation the reservation to execute
+   * @return a {@link Mono} emitting the created order items, one per position covered by the reservation
+   */
+  private Mono<List<OrderItem>> reserveReactive(Reservation reservation) {
+    return Mono.defer(() -> reservation.startEvent().observe(sendReservation(reservation)));
+  }
+
+  /**
+   * Sends a reservation to the external inventory without blocking.
+   *
+   * @param reservation the reservation to execute
+   * @return a {@link Mono} emitting the created order items, one per position covered by the reservation
+   */
+  private Mono<List<OrderItem>> sendReservation(Reservation reservation) {
+    if (reservation.bulk()) {
+      InventoryBackend backend = reservation.backend();
+      return backend.withPermit(bulkReservation(backend, reservation.itemDtos()))
+          .onErrorMap(OrderServiceImpl::isWrapped, e -> bulkFailure(reservation.itemDtos(), e));
+    }
+    OrderItemDto itemDto = reservation.itemDtos().getFirst();
+    return Mono.defer(() -> {
+      InventoryBackend backend = resolveBackend(itemDto.getItemName());
+      return backend.withPermit(reserveItem(backend, itemDto));
+    })
+        .onErrorMap(OrderServiceImpl::isWrapped,
+            e -> new RuntimeException("Failed to fetch item with ID: " + itemDto.getItemId(), e))
+        .map(List::of);
+  }
+
+  /**
+   * Creates the OrderItem instances for several order items served by the same external inventory
+   * with a single bulk reservation call. The external inventory reserves either all items or none.
+   *
+   * @param backend  the external inventory all items resolve to
+   * @param itemDtos the order items to reserve
+   * @return the newly created OrderItem objects, in the order of {@code itemDtos}
+   * @throws InventoryUnavailableException if the external inventory is not called because it is unavailable
+   * @throws RuntimeException              if the bulk reservation fails for any of the items
+   */
+  private List<OrderItem> createOrderItems(InventoryBackend backend, List<OrderItemDto> itemDtos) {
+    try {
+      return backend.withPermit(() -> ServerTiming.inherit(bulkReservation(backend, itemDtos))
+          .contextCapture()
+          .block());
+    } catch (InventoryUnavailableException e) {
+      throw e;
+    } catch (Exception e) {
+      throw bulkFailure(itemDtos, e);
+    }
+  }
+
+  /**
+   * Reserves several order items served by the same external inventory with a single call.
+   * Order items of the same item, e.g. of different orders of a bulk import, are sent as one line
+   * with their total quantity, so that the external inventory checks the stock for all of them.
+   *
+   * @param backend  the external inventory all items resolve to
+   * @param itemDtos the order items to reserve
+   * @return a {@link Mono} emitting the newly created OrderItem objects, in the order of {@code itemDtos}
+   */
+  private Mono<List<OrderItem>> bulkReservation(InventoryBackend backend, List<OrderItemDto> itemDtos) {
+    Map<String, ItemReservationDto> request = new LinkedHashMap<>();
+    itemDtos.forEach(itemDto -> request.merge(reservationKey(itemDto),
+        new ItemReservationDto(itemDto.getItemId(), itemDto.getItemName(), itemDto.getQuantity()),
+        (line, more) -> new ItemReservationDto(line.getItemId(), line.getItemName(),
+            line.getQuantity() + more.getQuantity())));
+    List<String> keys = List.copyOf(request.keySet());
+    return backend.reserveAll(List.copyOf(request.values())).map(items -> {
+      Map<String, Item> reserved = IntStream.range(0, keys.size()).boxed()
+          .collect(Collectors.toMap(keys::get, items::get));
+      return itemDtos.stream()
+          .map(itemDto -> {
+            Item item = reserved.get(reservationKey(itemDto));
+            return new OrderItem(item.getId(), item.getName(), itemDto.getQuantity(), itemDto.getPrice());
+          })
+          .toList();
+    });
+  }
+
+  /**
+   * Identifies the item an order item reserves within a bulk reservation.
+   *
+   * @param itemDto the order item
+   * @return the ID and name of the item
+   */
+  private static String reservationKey(OrderItemDto itemDto) {
+    return itemDto.getItemId() + ":" + itemDto.getItemName();
+  }
+
+  /**
+   * Checks whether the failure of a reservation is wrapped before it is reported to the caller.
+   * Rejections by a circuit breaker or bulkhead are passed on as they are.
+   *
+   * @param failure the failure of the reservation
+   * @return {@code true} if the failure is wrapped
+   */
+  private static boolean isWrapped(Throwable failure) {
+    return !(failure instanceof InventoryUnavailableException);
+  }
+
+  /**
+   * Wraps the failure of a bulk reservation.
+   *
+   * @param itemDtos the order items of the failed bulk reservation
+   * @param cause    the failure
+   * @return the exception reported to the caller
+   */
+  private static RuntimeException bulkFailure(List<OrderItemDto> itemDtos, Throwable cause) {
+    return new RuntimeException("Failed to reserve items with IDs: "
+        + itemDtos.stream().map(OrderItemDto::getItemId).toList(), cause);
+  }
 
   /**
    * Creates an OrderItem instance based on the provided OrderItemDto object.
-   * This method communicates with an external service to retrieve and update inventory details.
+   * This method communicates with an external service to retrieve and update inventory details,
+   * holding one of the permits of that backend for the duration of the calls.
    * If the item is not found or if the requested quantity is invalid, appropriate exceptions are thrown.
    *
    * @param itemDto the data transfer object containing details of the item to be ordered, such as ID, name, quantity, and price
    * @return a newly created OrderItem object containing the data for the ordered item
-   * @throws ResponseStatusException if the item is not found or insufficient stock is available
-   * @throws RuntimeException        if there is any failure during the fetching or updating process
+   * @throws ResponseStatusException       if the item is not found or insufficient stock is available
+   * @throws InventoryUnavailableException if the external inventory is not called because it is unavailable
+   * @throws RuntimeException              if there is any failure during the fetching or updating process
    */
   private OrderItem createOrderItem(OrderItemDto itemDto) {
     try {
-      WebClient webClient = getWebClient(itemDto.getItemName());
-      Item item = webClient.get().uri(ITEM_PATH, itemDto.getItemId(), itemDto.getItemName())
-          .retrieve().bodyToMono(Item.class).block();
-      if (item == null) {
-        throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Item with ID " + itemDto.getItemId() + " not found");
-      }
-      InventoryItemDto inventoryItemDto = new InventoryItemDto();
-      inventoryItemDto.setName(item.getName());
-      inventoryItemDto.setPrice(item.getPrice());
-      if (item.getStock() < itemDto.getQuantity()) {
-        throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
-            "Insufficient stock for item with ID " + itemDto.getItemId());
-      }
-      inventoryItemDto.setStock(item.getStock() - itemDto.getQuantity());
-      inventoryItemDto.setDescription(item.getDescription());
-      webClient.put().uri(ITEM_PATH, itemDto.getItemId(), itemDto.getItemName())
-          .bodyValue(inventoryItemDto)
-          .retrieve().bodyToMono(InventoryItemDto.class).block();
-      return new OrderItem(item.getId(), item.getName(), itemDto.getQuantity(), itemDto.getPrice());
+      InventoryBackend backend = resolveBackend(itemDto.getItemName());
+      return backend.withPermit(() -> ServerTiming.inherit(reserveItem(backend, itemDto)).contextCapture().block());
+    } catch (InventoryUnavailableException e) {
+      throw e;
     } catch (Exception e) {
       throw new RuntimeException("Failed to fetch item with ID: " + itemDto.getItemId(), e);
     }
   }
 
   /**
-   * Restocks the items in an order by updating their stock quantities in the inventory system.
-   * This method processes each order item using a reactive pipeline, ensures the item's stock
-   * is adjusted based on the quantity in the order, and handles concurrency to avoid overloading
-   * the inventory service.
+   * Takes the requested quantity of an item from the stock of an external inventory by reading
+   * the item and writing it back with the reduced stock. The write is conditional on the version
+   * that was read, so a concurrent change of the same item makes it fail and the whole
+   * read-modify-write is repeated instead of overwriting the other change.
+   * The returned {@link Mono} fails with a {@link ResponseStatusException} if the item is not
+   * found, insufficient stock is available or the item kept changing concurrently.
    *
-   * @param order the order containing items to be restocked with their respective quantities.
+   * @param backend the external inventory the item belongs to
+   * @param itemDto the order item to reserve
+   * @return a {@link Mono} emitting a newly created OrderItem object containing the data for the ordered item
    */
-  private void restockOrderItems(Orders order) {
-    InventoryItemDto inventoryItemDto = new InventoryItemDto();
-    for (OrderItem orderItem : order.getOrderItems()) {
-      WebClient webClient = getWebClient(orderItem.getItemName());
-      Item item = webClient.get().uri(ITEM_PATH, orderItem.getItemId(), orderItem.getItemName())
-          .retrieve().bodyToMono(Item.class).block();
-      assertItemFound(item, orderItem.getItemName());
-      inventoryItemDto.setName(item.getName());
-      inventoryItemDto.setPrice(item.getPrice());
-      inventoryItemDto.setStock(item.getStock() + orderItem.getQuantity());
-      inventoryItemDto.setDescription(item.getDescription());
-      Item updatedItem = webClient.put().uri(ITEM_PATH, orderItem.getItemId(), orderItem.getItemName())
-          .bodyValue(inventoryItemDto)
-          .retrieve().bodyToMono(Item.class).block();
-      assertItemUpdated(updatedItem, orderItem.getItemName());
-    }
+  private Mono<OrderItem> reserveItem(InventoryBackend backend, OrderItemDto itemDto) {
+    int quantity = itemDto.getQuantity();
+    return backend.withConflictRetry(backend.fetchItem(itemDto.getItemId(), itemDto.getItemName(), quantity)
+        .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+            "Item with ID " + itemDto.getItemId() + " not found")))
+        .flatMap(versioned -> {
+          Item current = versioned.item();
+          if (current.getStock() < quantity) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "Insufficient stock for item with ID " + itemDto.getItemId()));
+          }
+          return backend.updateItem(itemDto.getItemId(), itemDto.getItemName(),
+                  withStock(current, current.getStock() - quantity), versioned.etag(),
+                  InventoryItemDto.class)
+              .thenReturn(current);
+        }))
+        .map(item -> new OrderItem(item.getId(), item.getName(), quantity, itemDto.getPrice()));
   }
 
   /**
-   * Ensures that the specified item is found.
-   * If the item is null, throws a ResponseStatusException with a NOT_FOUND status.
+   * Cancels an order and returns the stock of its items. The new status is committed together
+   * with one {@link PendingCompensation} per order item, which the {@link Compensator} restocks in
+   * the background once the transaction committed, so that cancelling an order does not wait for
+   * the external inventories. Like {@link #cancelAll(List)}, the order is locked first unless it
+   * is cancelled already, so that of several concurrent cancellations only one restocks it.
    *
-   * @param item     the item to check for existence
-   * @param itemName the name of the item, used in the exception message if the item is not found
+   * @param order      the order to cancel, with its order items
+   * @param totalPrice the new total price of the order
+   * @return the cancelled order
+   * @throws ResponseStatusException if no external inventory is found for one of the order items,
+   *                                 or the order was cancelled concurrently
    */
-  private void assertItemFound(Item item, String itemName) {
-    if (item == null) {
-      throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Item " + itemName + " was not found!");
-    }
+  private Orders cancel(Orders order, double totalPrice) {
+    order.getOrderItems().forEach(orderItem -> resolveBackend(orderItem.getItemName()));
+    List<PendingCompensation> outbox = new ArrayList<>();
+    Orders cancelled = transactions.execute(status -> {
+      if (ordersRepo.lockCancellable(List.of(order.getId())).isEmpty()) {
+        throw cancelledOrder();
+      }
+      order.setStatus(Status.CANCELLED);
+      order.setTotalPrice(totalPrice);
+      outbox.addAll(compensator.record(order.getId(), order.getOrderItems()));
+      return ordersRepo.save(order);
+    });
+    compensator.dispatch(outbox);
+    return cancelled;
   }
 
   /**
-   * Verifies that the provided item has been updated. Throws a {@link ResponseStatusException}
-   * with a 404 status if the item is null.
+   * Puts the quantity of one order item back into the stock of its external inventory, holding
+   * one of the permits of that backend for the duration of the calls.
+   * The returned {@link Mono} fails with a {@link ResponseStatusException} if no backend or item
+   * is found, the item was not updated, it kept changing concurrently or the backend is unavailable.
    *
-   * @param updatedItem the item that is expected to be updated
-   * @param itemName    the name of the item being verified, used in the exception message
+   * @param orderItem      the order item to restock
+   * @param idempotencyKey the key identifying every attempt of this restock to the external inventory
+   * @return a {@link Mono} emitting the updated item
    */
-  private void assertItemUpdated(Item updatedItem, String itemName) {
-    if (updatedItem == null) {
-      throw new ResponseStatusException(HttpStatus.NOT_FOUND,
-          "Item " + itemName + " was not updated!");
-    }
+  private Mono<Item> restockItem(OrderItem orderItem, String idempotencyKey) {
+    return Mono.defer(() -> {
+      RestockEvent event = RestockEvent.start(orderItem.getItemId(), orderItem.getItemName(), orderItem.getQuantity());
+      return event.observe(Mono.defer(() -> restockVia(resolveBackend(orderItem.getItemName()), orderItem,
+          idempotencyKey, event)));
+    });
   }
 
+  /**
+   * Puts the quantity of one order item back into the stock of the external inventory it resolved to.
+   *
+   * @param backend        the external inventory of the order item
+   * @param orderItem      the order item to restock
+   * @param idempotencyKey the key identifying every attempt of this restock to the external inventory
+   * @param event          the event recording the restock
+   * @return a {@link Mono} emitting the updated item
+   */
+  private Mono<Item> restockVia(InventoryBackend backend, OrderItem orderItem, String idempotencyKey,
+                                RestockEvent event) {
+    event.resolved(backend.getName());
+    String itemName = orderItem.getItemName();
+    return backend.withPermit(backend.withConflictRetry(backend.fetchItem(orderItem.getItemId(), itemName, 0)
+        .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+            "Item " + itemName + " was not found!")))
+        .flatMap(versioned -> backend.updateItem(orderItem.getItemId(), itemName,
+            withStock(versioned.item(), versioned.item().getStock() + orderItem.getQuantity()), versioned.etag(),
+            idempotencyKey, Item.class))
+        .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+            "Item " + itemName + " was not updated!")))));
+  }
 
   /**
-   * Retrieves a {@link WebClient} instance based on the provided item name.
-   * The item name is matched against keys in the internal web client map to find the corresponding {@link WebClient}.
-   * If no match is found, a {@link ResponseStatusException} with a status of {@code HttpStatus.NOT_FOUND} is thrown.
+   * Creates the update writing an item back to its external inventory with a new stock level.
    *
-   * @param itemName the name of the item used to identify the corresponding {@link WebClient}.
-   * @return the {@link WebClient} instance associated with the matching key from the internal web client map.
-   * @throws ResponseStatusException if no {@link WebClient} is found for the provided item name.
+   * @param item  the item as read from the external inventory
+   * @param stock the new stock level of the item
+   * @return a new InventoryItemDto describing the updated item
    */
-  private WebClient getWebClient(String itemName) {
-    WebClient webClient = null;
-    for (String key : webClientMap.keySet()) {
-      if (itemName.contains(key)) {
-        webClient = webClientMap.get(key);
-        break;
-      }
-    }
-    if (webClient == null) {
-      throw new ResponseStatusException(HttpStatus.NOT_FOUND,
-          "Item with name " + itemName + " not found");
+  private static InventoryItemDto withStock(Item item, int stock) {
+    return new InventoryItemDto(item.getName(), stock, item.getPrice(), item.getDescription());
+  }
+
+  /**
+   * Resolves the external inventory backend responsible for the provided item name.
+   *
+   * @param itemName the name of the item used to identify the corresponding backend.
+   * @return the matching {@link InventoryBackend}.
+   * @throws ResponseStatusException if no backend is found for the provided item name.
+   */
+  private InventoryBackend resolveBackend(String itemName) {
+    InventoryBackend backend = findBackend(itemName);
+    if (backend == null) {
+      throw itemNotFound(itemName);
     }
-    return webClient;
+    return backend;
+  }
+
+  /**
+   * Resolves the name of the external inventory responsible for the provided item name.
+   *
+   * @param itemName the name of the item
+   * @return the name of the matching inventory, or an empty string if there is none
+   */
+  private String inventoryOf(String itemName) {
+    InventoryBackend backend = findBackend(itemName);
+    return backend == null ? "" : backend.getName();
+  }
+
+  /**
+   * Looks up the external inventory backend responsible for the provided item name.
+   * The item name is matched against the names of the configured backends; if several of them
+   * occur in the item name, the longest one wins.
+   *
+   * @param itemName the name of the item used to identify the corresponding backend, may be {@code null}.
+   * @return the matching {@link InventoryBackend}, or {@code null} if there is none.
+   */
+  private InventoryBackend findBackend(String itemName) {
+    return routes.find(itemName);
   }
 
   /**
@@ -219,11 +1497,135 @@ public class OrderServiceImpl implements OrderService {
    * @return the corresponding {@link Status} value based on the status string in the provided {@link OrderDto}.
    */
   private Status getStatusFromOrderDto(OrderDto order) {
-    String status = order.getStatus().toUpperCase(Locale.ROOT);
-    return switch (status) {
+    return statusOf(order.getStatus());
+  }
+
+  /**
+   * Maps a status string as sent by a client to the corresponding {@link Status} value, ignoring
+   * case. Unknown values are mapped to {@link Status#CONFIRMED}.
+   *
+   * @param status the status string
+   * @return the corresponding {@link Status} value
+   */
+  private static Status statusOf(String status) {
+    return switch (status.toUpperCase(Locale.ROOT)) {
       case "CANCELLED" -> Status.CANCELLED;
       case "SHIPPED" -> Status.SHIPPED;
       default -> Status.CONFIRMED;
     };
   }
+
+  /**
+   * A unit of work of {@link #reserveOrderItems(List)} or {@link #reserveChunk(List)}: the order
+   * items it covers, their positions within the order or chunk and how they are reserved.
+   *
+   * @param lines    the positions of the covered order items within the order
+   * @param backend  the external inventory the order items resolve to, or {@code null} if there is none
+   * @param itemDtos the covered order items
+   * @param bulk     whether the order items are reserved with a single bulk reservation
+   */
+  private record Reservation(List<Integer> lines, InventoryBackend backend, List<OrderItemDto> itemDtos,
+                             boolean bulk) {
+
+    /**
+     * Stores the reserved order items at their positions within the order.
+     *
+     * @param orderItems the order items of the whole order, indexed by position
+     * @param reserved   the order items created by the reservation
+     */
+    private void fill(OrderItem[] orderItems, List<OrderItem> reserved) {
+      for (int i = 0; i < lines.size(); i++) {
+        orderItems[lines.get(i)] = reserved.get(i);
+      }
+    }
+
+    /**
+     * Begins the event recording the execution of this reservation.
+     *
+     * @return the begun event
+     */
+    private ItemReservationEvent startEvent() {
+      return ItemReservationEvent.start(backend == null ? null : backend.getName(), itemDtos.size(), bulk);
+    }
+  }
+
+  /**
+   * An idempotency key claimed for a request creating an order.
+   *
+   * @param key     the idempotency key sent with the request
+   * @param request the description of the request, which a repeated request must match
+   */
+  private record Claim(String key, String request) {
+  }
+
+  /**
+   * The reservation of one order of a bulk import.
+   *
+   * @param items   the reserved order items, in the order of the request, empty if the reservation failed
+   * @param failure the failure of the reservation, or {@code null} if it succeeded
+   */
+  private record Reserved(List<OrderItem> items, RuntimeException failure) {
+
+    /**
+     * Creates the reservation of an order whose items were all reserved.
+     *
+     * @param items the reserved order items
+     * @return the reservation
+     */
+    private static Reserved succeeded(List<OrderItem> items) {
+      return new Reserved(items, null);
+    }
+
+    /**
+     * Creates the reservation of an order that failed.
+     *
+     * @param failure the failure of the reservation
+     * @return the reservation
+     */
+    private static Reserved failed(RuntimeException failure) {
+      return new Reserved(List.of(), failure);
+    }
+  }
+
+  /**
+   * The outcome of one {@link Reservation} of an order.
+   *
+   * @param reservation the executed reservation, or {@code null} if the reservations were interrupted
+   * @param items       the reserved order items, empty if the reservation failed or was skipped
+   * @param failure     the failure of the reservation, or {@code null} if it did not fail
+   */
+  private record Outcome(Reservation reservation, List<OrderItem> items, RuntimeException failure) {
+
+    /**
+     * Creates the outcome of a successful reservation.
+     *
+     * @param reservation the executed reservation
+     * @param items       the reserved order items
+     * @return the outcome
+     */
+    private static Outcome reserved(Reservation reservation, List<OrderItem> items) {
+      return new Outcome(reservation, items, null);
+    }
+
+    /**
+     * Creates the outcome of a failed reservation.
+     *
+     * @param reservation the executed reservation
+     * @param failure     the failure of the reservation
+     * @return the outcome
+     */
+    private static Outcome failed(Reservation reservation, RuntimeException failure) {
+      return new Outcome(reservation, List.of(), failure);
+    }
+
+    /**
+     * Creates the outcome of a reservation that was not started because another one failed.
+     *
+     * @param reservation the reservation not executed
+     * @return the outcome
+     */
+    private static Outcome skipped(Reservation reservation) {
+      return new Outcome(reservation, List.of(), null);
+    }
+  }
 }
@@ -0,0 +1,325 @@
+package test.serviceb.service.inventory;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import test.serviceb.service.converter.ConversionProperties.CircuitBreaker;
+
+/**
+ * The Circuit class is the circuit breaker of one external inventory. It records the outcome of
+ * the most recent calls in a sliding window and opens once the share of failed or slow calls
+ * reaches the configured rate. An open circuit rejects every call at once with an
+ * {@link InventoryUnavailableException} until the open duration has passed; then it is half open
+ * and lets a few probe calls through. If they all succeed the circuit closes, if one of them fails
+ * it opens again.
+ * Answers that prove the inventory is healthy, such as {@code 404 Not Found}, a rejected
+ * conditional update or insufficient stock, count as successes. Errors, {@code 5xx} answers and
+ * calls slower than the slow call threshold count as failures.
+ */
+public final class Circuit {
+
+  private static final Duration PROBE_RETRY = Duration.ofSeconds(1);
+
+  /**
+   * The states of a circuit.
+   */
+  public enum State {
+    /** Calls pass and their outcomes are recorded. */
+    CLOSED,
+    /** Calls are rejected. */
+    OPEN,
+    /** A limited number of probe calls pass to test whether the inventory recovered. */
+    HALF_OPEN
+  }
+
+  private final String name;
+  private final LongSupplier clock;
+  private final int minimumCalls;
+  private final int failureRate;
+  private final long slowNanos;
+  private final long openNanos;
+  private final int probeCalls;
+  private final AtomicLong rejected = new AtomicLong();
+  private final Object lock = new Object();
+
+  /**
+   * The outcomes of the most recent calls while closed, {@code true} for a failure, used as a ring buffer.
+   */
+  private final boolean[] window;
+  private int next;
+  private int recorded;
+  private int failures;
+  private State state = State.CLOSED;
+
+  /**
+   * Incremented on every change of state, so that calls admitted before the change do not count
+   * towards the new state.
+   */
+  private long generation;
+  private long openedAt;
+  private int probes;
+  private int succeededProbes;
+
+  /**
+   * Constructs an instance of Circuit.
+   *
+   * @param name     the name of the external inventory, used in exception messages
+   * @param settings the circuit breaker settings of the inventory
+   */
+  public Circuit(String name, CircuitBreaker settings) {
+    this(name, settings, System::nanoTime);
+  }
+
+  /**
+   * Constructs an instance of Circuit reading the time from the given clock.
+   *
+   * @param name     the name of the external inventory, used in exception messages
+   * @param settings the circuit breaker settings of the inventory
+   * @param clock    the source of the current time in nanoseconds
+   */
+  public Circuit(String name, CircuitBreaker settings, LongSupplier clock) {
+    this.name = name;
+    this.clock = clock;
+    this.window = new boolean[settings.getWindowSize()];
+    this.minimumCalls = Math.min(settings.getMinimumCalls(), settings.getWindowSize());
+    this.failureRate = settings.getFailureRate();
+    this.slowNanos = settings.getSlowCallDuration().toNanos();
+    this.openNanos = settings.getOpenDuration().toNanos();
+    this.probeCalls = settings.getProbeCalls();
+  }
+
+  /**
+   * Retrieves the current state of the circuit.
+   *
+   * @return the current state
+   */
+  public State getState() {
+    synchronized (lock) {
+      return state;
+    }
+  }
+
+  /**
+   * Retrieves the share of failed or slow calls among the calls recorded while closed.
+   *
+   * @return the failure rate in percent, or {@code 0} if no call was recorded yet
+   */
+  public double getFailureRate() {
+    synchronized (lock) {
+      return recorded == 0 ? 0 : 100.0 * failures / recorded;
+    }
+  }
+
+  /**
+   * Returns the number of calls rejected so far because the circuit was open or all probe calls were taken.
+   *
+   * @return the number of rejected calls
+   */
+  public long getRejected() {
+    return rejected.get();
+  }
+
+  /**
+   * Asks the circuit to let a call through. The returned attempt must either run the call or be
+   * abandoned, so that an admitted probe call is not held forever.
+   *
+   * @return the admitted attempt
+   * @throws InventoryUnavailableException if the circuit is open or all probe calls are taken
+   */
+  public Attempt admit() {
+    synchronized (lock) {
+      if (state == State.OPEN) {
+        long remaining = openNanos - (clock.getAsLong() - openedAt);
+        if (remaining > 0) {
+          throw reject(Duration.ofNanos(remaining));
+        }
+        transition(State.HALF_OPEN);
+      }
+      if (state == State.HALF_OPEN) {
+        if (probes >= probeCalls) {
+          throw reject(PROBE_RETRY);
+        }
+        probes++;
+      }
+      return new Attempt(generation);
+    }
+  }
+
+  /**
+   * Records the outcome of a call admitted during the current state.
+   *
+   * @param attempt the finished attempt
+   * @param failed  whether the call failed or was too slow
+   */
+  private void record(Attempt attempt, boolean failed) {
+    synchronized (lock) {
+      if (attempt.admittedIn != generation) {
+        return;
+      }
+      if (state == State.HALF_OPEN) {
+        if (failed) {
+          transition(State.OPEN);
+        } else {
+          succeededProbes++;
+          if (succeededProbes >= probeCalls) {
+            transition(State.CLOSED);
+          }
+        }
+        return;
+      }
+      if (recorded == window.length) {
+        failures -= window[next] ? 1 : 0;
+      } else {
+        recorded++;
+      }
+      window[next] = failed;
+      failures += failed ? 1 : 0;
+      next = (next + 1) % window.length;
+      if (recorded >= minimumCalls && failures * 100 >= failureRate * recorded) {
+        transition(State.OPEN);
+      }
+    }
+  }
+
+  /**
+   * Frees the probe slot of an attempt whose call was never made or was cancelled.
+   *
+   * @param attempt the abandoned attempt
+   */
+  private void release(Attempt attempt) {
+    synchronized (lock) {
+      if (attempt.admittedIn == generation && state == State.HALF_OPEN) {
+        probes--;
+      }
+    }
+  }
+
+  /**
+   * Moves the circuit into a new state and resets the bookkeeping of the previous one.
+   * Must be called while holding the lock.
+   *
+   * @param target the new state
+   */
+  private void transition(State target) {
+    state = target;
+    generation++;
+    probes = 0;
+    succeededProbes = 0;
+    if (target == State.OPEN) {
+      openedAt = clock.getAsLong();
+    } else if (target == State.CLOSED) {
+      next = 0;
+      recorded = 0;
+      failures = 0;
+    }
+  }
+
+  /**
+   * Creates the exception rejecting a call.
+   *
+   * @param retryAfter how long the client should wait before retrying
+   * @return the exception to fail the call with
+   */
+  private InventoryUnavailableException reject(Duration retryAfter) {
+    rejected.incrementAndGet();
+    return new InventoryUnavailableException("Inventory " + name + " is unavailable, its circuit is "
+        + state.name().toLowerCase(Locale.ROOT).replace('_', '-'), retryAfter);
+  }
+
+  /**
+   * Checks whether the outcome of a call shows that the inventory is unhealthy.
+   *
+   * @param failure the failure of the call, or {@code null} if it succeeded
+   * @return {@code true} if the call counts as a failure
+   */
+  private static boolean isFailure(Throwable failure) {
+    if (failure == null) {
+      return false;
+    }
+    if (failure instanceof WebClientResponseException response) {
+      return response.getStatusCode().is5xxServerError();
+    }
+    return !(failure instanceof ResponseStatusException);
+  }
+
+  /**
+   * A call admitted by the circuit. Its outcome is recorded at most once.
+   */
+  public final class Attempt {
+
+    private final long admittedIn;
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    /**
+     * Constructs an instance of Attempt.
+     *
+     * @param admittedIn the generation of the circuit state the attempt was admitted in
+     */
+    private Attempt(long admittedIn) {
+      this.admittedIn = admittedIn;
+    }
+
+    /**
+     * Makes the call on the current thread and records its outcome and duration.
+     *
+     * @param call the call to the external inventory
+     * @param <T>  the result type of the call
+     * @return the result of the call
+     */
+    public <T> T run(Supplier<T> call) {
+      long start = clock.getAsLong();
+      try {
+        T result = call.get();
+        finish(start, null);
+        return result;
+      } catch (RuntimeException e) {
+        finish(start, e);
+        throw e;
+      }
+    }
+
+    /**
+     * Makes the call once subscribed and records its outcome and duration. A cancelled call is
+     * not recorded.
+     *
+     * @param call the call to the external inventory
+     * @param <T>  the result type of the call
+     * @return a {@link Mono} making the call
+     */
+    public <T> Mono<T> run(Mono<T> call) {
+      return Mono.defer(() -> {
+        long start = clock.getAsLong();
+        return call.doOnSuccess(result -> finish(start, null))
+            .doOnError(e -> finish(start, e));
+      });
+    }
+
+    /**
+     * Gives up the attempt without recording an outcome. Has no effect once the outcome was recorded.
+     */
+    public void abandon() {
+      if (finished.compareAndSet(false, true)) {
+        release(this);
+      }
+    }
+
+    /**
+     * Records the outcome of the call unless it was recorded or abandoned before.
+     *
+     * @param start   the time the call started, in nanoseconds
+     * @param failure the failure of the call, or {@code null} if it succeeded
+     */
+    private void finish(long start, Throwable failure) {
+      if (finished.compareAndSet(false, true)) {
+        record(this, isFailure(failure) || clock.getAsLong() - start >= slowNanos);
+      }
+    }
+  }
+}
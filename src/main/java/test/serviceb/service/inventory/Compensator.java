@@ -0,0 +1,336 @@
+package test.serviceb.service.inventory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.GroupedFlux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+import reactor.util.retry.Retry;
+import test.serviceb.domain.OrderItem;
+import test.serviceb.domain.PendingCompensation;
+import test.serviceb.repository.PendingCompensationRepository;
+import test.serviceb.service.converter.ConversionProperties.Compensation;
+
+/**
+ * The Compensator class returns stock to the external inventories: the stock reserved for orders
+ * that could not be created, as the compensating step of the saga formed by the reservations of
+ * an order, and the stock of cancelled orders.
+ * Every item to restock is first recorded as a {@link PendingCompensation}, which serves as an
+ * outbox entry, then restocked in the background with a few immediate retries. The items of
+ * different inventories are restocked independently, each inventory with a limited number of
+ * concurrent restocks, so that a slow inventory does not hold up the others, and the items of
+ * one order are restocked in about one round trip unless they exceed that limit. Every item is
+ * attempted even if others fail; the failures are reported together per inventory in a
+ * {@link Report} rather than ending the restock of the remaining items. A compensation is
+ * deleted once its item was restocked; one that still fails is rescheduled with an exponential
+ * backoff and picked up again by {@link #retryDue()} in batches, like those left behind by an
+ * instance that stopped before it finished them.
+ * Compensations are delivered at least once: an instance stopping between the restock and the
+ * deletion of a compensation makes the item be restocked again later. Every attempt carries the
+ * idempotency key of the compensation, so that an inventory honouring it applies the restock only once.
+ */
+public final class Compensator {
+
+  private static final int MAX_DOUBLINGS = 10;
+
+  private final PendingCompensationRepository repository;
+  private final Function<String, String> inventoryOf;
+  private final BiFunction<OrderItem, String, Mono<?>> restock;
+  private final int concurrency;
+  private final int batchSize;
+  private final Duration retryInterval;
+  private final Duration lease;
+  private final Retry retry;
+  private final Map<String, AtomicLong> restocked = new ConcurrentHashMap<>();
+  private final Map<String, AtomicLong> failures = new ConcurrentHashMap<>();
+
+  /**
+   * Constructs an instance of Compensator.
+   *
+   * @param repository  the repository storing the pending compensations
+   * @param settings    the compensation settings
+   * @param inventoryOf resolves the name of an item to the name of its external inventory
+   * @param restock     puts the quantity of an order item back into the stock of its external
+   *                    inventory, sending the given idempotency key
+   */
+  public Compensator(PendingCompensationRepository repository, Compensation settings,
+                     Function<String, String> inventoryOf, BiFunction<OrderItem, String, Mono<?>> restock) {
+    this.repository = repository;
+    this.inventoryOf = inventoryOf;
+    this.restock = restock;
+    this.concurrency = settings.getConcurrency();
+    this.batchSize = settings.getBatchSize();
+    this.retryInterval = settings.getRetryInterval();
+    this.lease = settings.getLease();
+    this.retry = Retry.backoff(settings.getRetries(), settings.getBackoff())
+        .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+  }
+
+  /**
+   * Returns the number of items restocked so far into one external inventory.
+   *
+   * @param inventory the name of the external inventory
+   * @return the number of completed compensations of the inventory
+   */
+  public long getRestocked(String inventory) {
+    return tally(restocked, inventory).get();
+  }
+
+  /**
+   * Returns the number of attempts to restock an item into one external inventory that failed
+   * even after the immediate retries.
+   *
+   * @param inventory the name of the external inventory
+   * @return the number of failed attempts of the inventory
+   */
+  public long getFailures(String inventory) {
+    return tally(failures, inventory).get();
+  }
+
+  /**
+   * Stores a compensation for every given order item. If a transaction is active, the
+   * compensations are committed with it, so that they are stored exactly if the change requiring
+   * them is. They are leased to the calling instance and must be passed to {@link #dispatch(List)}
+   * once stored.
+   *
+   * @param orderId    the ID of the cancelled order, or {@code null} if the order could not be created
+   * @param orderItems the order items whose stock is returned
+   * @return the stored compensations
+   * @throws DataAccessException if the compensations cannot be stored
+   */
+  public List<PendingCompensation> record(Integer orderId, List<OrderItem> orderItems) {
+    if (orderItems.isEmpty()) {
+      return List.of();
+    }
+    Instant now = Instant.now();
+    Instant leaseUntil = now.plus(lease);
+    return repository.saveAll(orderItems.stream()
+        .map(orderItem -> new PendingCompensation(orderItem, orderId, now, leaseUntil))
+        .toList());
+  }
+
+  /**
+   * Restocks the items of stored compensations in the background.
+   *
+   * @param pending the compensations returned by {@link #record(Integer, List)}
+   */
+  public void dispatch(List<PendingCompensation> pending) {
+    if (!pending.isEmpty()) {
+      restockAll(pending, true).subscribe();
+    }
+  }
+
+  /**
+   * Records the given reserved order items for compensation and restocks them in the background.
+   * Returns as soon as the compensations are stored. If they cannot be stored, the items are
+   * still restocked, but a failure is not retried. This method does not throw, so that the
+   * failure of the order is reported to the caller instead of the failure of its compensation.
+   *
+   * @param reserved the order items reserved for an order that could not be created
+   */
+  public void compensate(List<OrderItem> reserved) {
+    if (reserved.isEmpty()) {
+      return;
+    }
+    try {
+      dispatch(record(null, reserved));
+    } catch (DataAccessException e) {
+      Instant now = Instant.now();
+      restockAll(reserved.stream()
+          .map(orderItem -> new PendingCompensation(orderItem, null, now, now))
+          .toList(), false).subscribe();
+    }
+  }
+
+  /**
+   * Reactive variant of {@link #compensate(List)}, which stores the compensations without
+   * blocking the calling thread.
+   *
+   * @param reserved the order items reserved for an order that could not be created
+   * @return a {@link Mono} completing once the compensations are stored
+   */
+  public Mono<Void> compensateReactive(List<OrderItem> reserved) {
+    if (reserved.isEmpty()) {
+      return Mono.empty();
+    }
+    return Mono.fromRunnable(() -> compensate(reserved))
+        .subscribeOn(Schedulers.boundedElastic())
+        .then();
+  }
+
+  /**
+   * Restocks the items of the compensations that are due, one batch after the other, blocking
+   * until all of them were attempted. Each batch is leased with a single update before it is
+   * attempted, so that several instances retrying at the same time do not restock the same item twice.
+   *
+   * @return the items restocked and the failures of all batches
+   */
+  public Report retryDue() {
+    Report report = Report.NONE;
+    List<Long> due;
+    do {
+      // The lease identifies the claimed rows afterwards, so it must survive the round trip unchanged
+      Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+      Instant leaseUntil = now.plus(lease);
+      due = repository.findDueIds(now, Limit.of(batchSize));
+      if (!due.isEmpty() && repository.claim(due, now, leaseUntil) > 0) {
+        report = report.merge(restockAll(repository.findByIdInAndNextAttemptAt(due, leaseUntil), true).block());
+      }
+    } while (due.size() == batchSize);
+    return report;
+  }
+
+  /**
+   * Restocks the items of the given compensations, concurrently per external inventory.
+   *
+   * @param pending the compensations to complete
+   * @param durable whether the compensations are stored and have to be deleted or rescheduled
+   * @return a {@link Mono} emitting the items restocked and the failures
+   */
+  private Mono<Report> restockAll(List<PendingCompensation> pending, boolean durable) {
+    return Flux.fromIterable(pending)
+        .groupBy(compensation -> inventoryOf.apply(compensation.getItemName()))
+        .flatMap(inventory -> restockInventory(inventory, durable), Queues.SMALL_BUFFER_SIZE)
+        .subscribeOn(Schedulers.boundedElastic())
+        .reduce(Report.NONE, Report::merge);
+  }
+
+  /**
+   * Restocks the items of the compensations of one external inventory, at most the configured
+   * number of them at a time.
+   *
+   * @param inventory the compensations of the inventory, keyed by its name
+   * @param durable   whether the compensations are stored and have to be deleted or rescheduled
+   * @return a {@link Mono} emitting the items restocked into the inventory and its failures
+   */
+  private Mono<Report> restockInventory(GroupedFlux<String, PendingCompensation> inventory, boolean durable) {
+    String name = inventory.key();
+    return inventory.flatMap(compensation -> restockOne(name, compensation, durable), concurrency)
+        .reduce(Report.NONE, (report, done) -> report.merge(Report.ofItem(name, done)));
+  }
+
+  /**
+   * Restocks the item of one compensation. A compensation that can be neither deleted nor
+   * rescheduled keeps its lease and is retried once the lease ended.
+   *
+   * @param inventory    the name of the external inventory of the item
+   * @param compensation the compensation to complete
+   * @param durable      whether the compensation is stored and has to be deleted or rescheduled
+   * @return a {@link Mono} emitting whether the item was restocked
+   */
+  private Mono<Boolean> restockOne(String inventory, PendingCompensation compensation, boolean durable) {
+    return restock.apply(compensation.toOrderItem(), compensation.getIdempotencyKey())
+        .retryWhen(retry)
+        .publishOn(Schedulers.boundedElastic())
+        .then(Mono.fromRunnable(() -> completed(inventory, compensation, durable)))
+        .thenReturn(Boolean.TRUE)
+        .onErrorResume(e -> Mono.fromCallable(() -> failed(inventory, compensation, e, durable)))
+        .onErrorReturn(DataAccessException.class, Boolean.FALSE);
+  }
+
+  /**
+   * Deletes a compensation whose item was restocked.
+   *
+   * @param inventory    the name of the external inventory of the item
+   * @param compensation the completed compensation
+   * @param durable      whether the compensation is stored
+   */
+  private void completed(String inventory, PendingCompensation compensation, boolean durable) {
+    tally(restocked, inventory).incrementAndGet();
+    if (durable) {
+      repository.deleteById(compensation.getId());
+    }
+  }
+
+  /**
+   * Reschedules a compensation whose item could not be restocked. Every further failure doubles
+   * the delay before the next attempt, starting at the retry interval.
+   *
+   * @param inventory    the name of the external inventory of the item
+   * @param compensation the failed compensation
+   * @param failure      the failure of the restock
+   * @param durable      whether the compensation is stored
+   * @return {@code false}, as the item was not restocked
+   */
+  private Boolean failed(String inventory, PendingCompensation compensation, Throwable failure, boolean durable) {
+    tally(failures, inventory).incrementAndGet();
+    if (durable) {
+      Duration delay = retryInterval.multipliedBy(1L << Math.min(compensation.getAttempts(), MAX_DOUBLINGS));
+      compensation.failed(failure, Instant.now().plus(delay));
+      repository.save(compensation);
+    }
+    return Boolean.FALSE;
+  }
+
+  /**
+   * Looks up the counter of one external inventory, creating it on first use.
+   *
+   * @param counters  the counters per inventory
+   * @param inventory the name of the external inventory
+   * @return the counter of the inventory
+   */
+  private static AtomicLong tally(Map<String, AtomicLong> counters, String inventory) {
+    return counters.computeIfAbsent(inventory, name -> new AtomicLong());
+  }
+
+  /**
+   * The outcome of restocking a set of compensations: how many items were restocked and, per
+   * external inventory, how many could not be, so that a single call reports every failure
+   * instead of the first one only.
+   *
+   * @param restocked the number of items restocked
+   * @param failures  the number of items that could not be restocked, per name of external inventory
+   */
+  public record Report(int restocked, Map<String, Integer> failures) {
+
+    /**
+     * The outcome of restocking no items at all.
+     */
+    public static final Report NONE = new Report(0, Map.of());
+
+    /**
+     * Returns the total number of items that could not be restocked.
+     *
+     * @return the number of failures over all inventories
+     */
+    public int failed() {
+      return failures.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    /**
+     * Creates the outcome of restocking a single item.
+     *
+     * @param inventory the name of the external inventory of the item
+     * @param done      whether the item was restocked
+     * @return the outcome of the item
+     */
+    private static Report ofItem(String inventory, boolean done) {
+      return done ? new Report(1, Map.of()) : new Report(0, Map.of(inventory, 1));
+    }
+
+    /**
+     * Adds up this outcome and another one.
+     *
+     * @param other the outcome to add
+     * @return the combined outcome
+     */
+    private Report merge(Report other) {
+      Map<String, Integer> merged = new HashMap<>(failures);
+      other.failures.forEach((inventory, count) -> merged.merge(inventory, count, Integer::sum));
+      return new Report(restocked + other.restocked, Map.copyOf(merged));
+    }
+  }
+}
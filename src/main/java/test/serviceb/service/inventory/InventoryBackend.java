@@ -0,0 +1,471 @@
+package test.serviceb.service.inventory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import test.serviceb.domain.Item;
+import test.serviceb.domain.dto.ExternalInventory;
+import test.serviceb.domain.dto.InventoryCapabilitiesDto;
+import test.serviceb.domain.dto.InventoryItemDto;
+import test.serviceb.domain.dto.ItemReservationDto;
+import test.serviceb.service.converter.ConversionProperties;
+import test.serviceb.service.converter.ConversionProperties.ItemCache;
+import test.serviceb.service.converter.ConversionProperties.Timeout;
+import test.serviceb.service.timing.ServerTiming;
+
+/**
+ * The InventoryBackend class bundles everything the order service needs to talk to one
+ * external inventory: the {@link WebClient} pointing at it, the permits that cap the number
+ * of concurrent calls to it, the circuit breaker guarding it and the optional features it advertises.
+ * Every call first asks the {@link Circuit} and then waits for a permit, so that a failing or
+ * slow inventory is answered with {@code 503 Service Unavailable} right away instead of tying up
+ * threads that orders for the other inventories need.
+ * Stock changes are written as conditional updates: the entity tag returned with an item is
+ * sent back in an {@code If-Match} header, and an update rejected with
+ * {@code 412 Precondition Failed} is retried with exponential backoff on a fresh copy of the item.
+ * Items are kept in a bounded cache together with their entity tag, so that reading an item
+ * that was read or written shortly before costs no network round-trip. A stale cached copy is
+ * harmless: its entity tag no longer matches, the conditional update is rejected and the item
+ * is read again. Items sent without an entity tag are therefore never cached.
+ * Item lookups can be hedged: if the inventory has not answered a lookup within a percentile of
+ * the recent lookup latencies, the same lookup is sent once more and the first answer is used.
+ * Lookups have no side effects, so the duplicate is harmless and a single slow replica behind the
+ * inventory no longer decides the latency of the order.
+ */
+public class InventoryBackend {
+
+  /**
+   * The header identifying repeated attempts of the same update, so that the inventory can apply it only once.
+   */
+  public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+  /**
+   * The request attribute holding the name of the inventory a request is sent to.
+   */
+  public static final String INVENTORY_NAME = InventoryBackend.class.getName() + ".inventory";
+
+  private static final String ITEM_PATH = "/{id}/itemname/{name}";
+  private static final String CAPABILITIES_PATH = "/capabilities";
+  private static final String RESERVATIONS_PATH = "/reservations";
+  private static final long PROBE_RETRY_NANOS = TimeUnit.MINUTES.toNanos(1);
+  private static final Duration MAX_BACKOFF = Duration.ofSeconds(1);
+  private static final int LATENCY_SAMPLES = 200;
+
+  private final String name;
+  private final WebClient webClient;
+  private final RequestMetrics requests;
+  private final PermitQueue permits;
+  private final Circuit circuit;
+  private final Retry conflictRetry;
+  private final Cache<ItemKey, VersionedItem> items;
+  private final boolean caching;
+  private final boolean hedging;
+  private final LatencyWindow latencies;
+  private final AtomicLong hedges = new AtomicLong();
+
+  /**
+   * Whether the backend accepts bulk reservations, or {@code null} while this is not known yet.
+   */
+  private volatile Boolean bulkReservation;
+
+  /**
+   * The {@link System#nanoTime()} of the last inconclusive capability probe, used to avoid
+   * probing an unreachable backend on every order.
+   */
+  private volatile long lastFailedProbe;
+
+  /**
+   * Constructs an instance of InventoryBackend.
+   *
+   * @param inventory  the configured external inventory
+   * @param webClient  the web client whose base URL points at the external inventory; its requests
+   *                   are measured by a {@link RequestMetrics} filter added to a copy of it, which also
+   *                   sets the {@link #INVENTORY_NAME} attribute of every request to the name of the inventory
+   * @param properties the configuration properties containing the limits applied to every backend and
+   *                   the item cache, circuit breaker and hedging settings of this backend
+   */
+  public InventoryBackend(ExternalInventory inventory, WebClient webClient, ConversionProperties properties) {
+    this.name = inventory.getName();
+    this.requests = new RequestMetrics(name);
+    this.webClient = webClient.mutate()
+        .defaultRequest(request -> request.attribute(INVENTORY_NAME, name))
+        .filter(requests)
+        .build();
+    this.permits = new PermitQueue(name, properties.getMaxPerBackend(), properties.getMaxQueued(),
+        properties.getQueueTimeout());
+    this.circuit = new Circuit(name, properties.circuitBreakerFor(name));
+    this.conflictRetry = Retry.backoff(properties.getConflictRetries(), properties.getConflictBackoff())
+        .maxBackoff(MAX_BACKOFF)
+        .filter(InventoryBackend::isConflict)
+        .onRetryExhaustedThrow((spec, signal) -> new ResponseStatusException(HttpStatus.CONFLICT,
+            "Item in inventory " + name + " kept changing, gave up after " + signal.totalRetries() + " retries",
+            signal.failure()));
+    ItemCache cache = properties.itemCacheFor(name);
+    this.caching = cache.getMaxSize() > 0 && cache.getTtl().isPositive();
+    this.items = Caffeine.newBuilder()
+        .maximumSize(cache.getMaxSize())
+        .expireAfterWrite(cache.getTtl())
+        .recordStats()
+        .build();
+    Timeout timeout = properties.timeoutFor(name);
+    this.hedging = timeout.isHedge();
+    this.latencies = new LatencyWindow(LATENCY_SAMPLES, timeout.getHedgePercentile(), timeout.getHedgeMinDelay());
+    this.lastFailedProbe = System.nanoTime() - PROBE_RETRY_NANOS;
+  }
+
+  /**
+   * Retrieves the name of the external inventory.
+   *
+   * @return the name of the external inventory
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Retrieves the web client pointing at the external inventory.
+   *
+   * @return the web client of this backend
+   */
+  public WebClient getWebClient() {
+    return webClient;
+  }
+
+  /**
+   * Retrieves the metrics of the requests sent to the external inventory, for example to publish them.
+   *
+   * @return the request metrics of this backend
+   */
+  public RequestMetrics getRequests() {
+    return requests;
+  }
+
+  /**
+   * Retrieves the cache of items read from the external inventory, for example to publish its statistics.
+   *
+   * @return the item cache of this backend
+   */
+  public Cache<?, ?> getItemCache() {
+    return items;
+  }
+
+  /**
+   * Retrieves the permits capping the number of concurrent calls, for example to publish their usage.
+   *
+   * @return the permits of this backend
+   */
+  public PermitQueue getPermits() {
+    return permits;
+  }
+
+  /**
+   * Retrieves the circuit breaker guarding the calls to the external inventory.
+   *
+   * @return the circuit breaker of this backend
+   */
+  public Circuit getCircuit() {
+    return circuit;
+  }
+
+  /**
+   * Retrieves the recent latencies of the item lookups, which decide when a lookup is hedged.
+   *
+   * @return the lookup latencies of this backend
+   */
+  public LatencyWindow getLatencies() {
+    return latencies;
+  }
+
+  /**
+   * Returns the number of hedging requests sent so far because a lookup was not answered in time.
+   *
+   * @return the number of hedging requests
+   */
+  public long getHedges() {
+    return hedges.get();
+  }
+
+  /**
+   * Executes the given call while holding one of the permits of this backend, waiting for a
+   * permit to become available if the backend is already at its concurrency cap. The outcome of
+   * the call is recorded by the circuit breaker.
+   *
+   * @param call the call to the external inventory
+   * @param <T>  the result type of the call
+   * @return the result of the call
+   * @throws IllegalStateException         if the thread is interrupted while waiting for a permit
+   * @throws InventoryUnavailableException if the circuit is open, too many calls are waiting or no
+   *                                       permit became available in time
+   */
+  public <T> T withPermit(Supplier<T> call) {
+    Circuit.Attempt attempt = circuit.admit();
+    try {
+      return permits.call(() -> attempt.run(call));
+    } finally {
+      attempt.abandon();
+    }
+  }
+
+  /**
+   * Subscribes to the given call once one of the permits of this backend is available, without
+   * blocking a thread while the backend is at its concurrency cap. Blocking and reactive callers
+   * share the same permits and circuit breaker.
+   *
+   * @param call the call to the external inventory
+   * @param <T>  the result type of the call
+   * @return a {@link Mono} executing the call while holding a permit, failing with an
+   *     {@link InventoryUnavailableException} if the circuit is open, too many calls are waiting or no
+   *     permit became available in time
+   */
+  public <T> Mono<T> withPermit(Mono<T> call) {
+    return Mono.defer(() -> {
+      Circuit.Attempt attempt = circuit.admit();
+      return permits.call(attempt.run(call)).doFinally(signal -> attempt.abandon());
+    });
+  }
+
+  /**
+   * Fetches an item together with the entity tag identifying its current version. A cached copy
+   * is returned instead if there is one with at least the given stock, as a copy with less stock
+   * may be outdated and must not make a reservation fail.
+   *
+   * @param itemId   the unique identifier of the item
+   * @param itemName the name of the item
+   * @param minStock the stock a cached copy must have to be used
+   * @return the item and its entity tag, or an empty {@link Mono} if the inventory returned no item
+   */
+  public Mono<VersionedItem> fetchItem(int itemId, String itemName, int minStock) {
+    return Mono.defer(() -> {
+      ItemKey key = new ItemKey(itemId, itemName);
+      VersionedItem cached = caching ? items.getIfPresent(key) : null;
+      if (cached != null && cached.item().getStock() >= minStock) {
+        return Mono.just(cached);
+      }
+      return hedged(webClient.get().uri(ITEM_PATH, itemId, itemName).retrieve().toEntity(Item.class))
+          .flatMap(entity -> Mono.justOrEmpty(entity.getBody())
+              .map(item -> new VersionedItem(item, entity.getHeaders().getETag())))
+          .doOnNext(versioned -> remember(key, versioned));
+    });
+  }
+
+  /**
+   * Writes an item back to the external inventory. If an entity tag is given, the update is
+   * conditional and is rejected by the inventory when the item changed since it was read.
+   * The cached copy of the item is dropped when the update is sent or fails, and replaced by the
+   * written version once the inventory confirms it with a new entity tag.
+   *
+   * @param itemId       the unique identifier of the item
+   * @param itemName     the name of the item
+   * @param update       the new state of the item
+   * @param etag         the entity tag of the version the update is based on, or {@code null} for an
+   *                     unconditional update
+   * @param responseType the type the response body is read as
+   * @param <T>          the type of the response body
+   * @return the response body, or an empty {@link Mono} if the inventory returned none
+   */
+  public <T> Mono<T> updateItem(int itemId, String itemName, InventoryItemDto update, String etag,
+                                Class<T> responseType) {
+    return updateItem(itemId, itemName, update, etag, null, responseType);
+  }
+
+  /**
+   * Writes an item back to the external inventory like
+   * {@link #updateItem(int, String, InventoryItemDto, String, Class)}, sending an
+   * {@value #IDEMPOTENCY_KEY} header that is the same for every attempt of the same logical change.
+   *
+   * @param itemId         the unique identifier of the item
+   * @param itemName       the name of the item
+   * @param update         the new state of the item
+   * @param etag           the entity tag of the version the update is based on, or {@code null} for an
+   *                       unconditional update
+   * @param idempotencyKey the key of the logical change, or {@code null} to send none
+   * @param responseType   the type the response body is read as
+   * @param <T>            the type of the response body
+   * @return the response body, or an empty {@link Mono} if the inventory returned none
+   */
+  public <T> Mono<T> updateItem(int itemId, String itemName, InventoryItemDto update, String etag,
+                                String idempotencyKey, Class<T> responseType) {
+    return Mono.defer(() -> {
+      ItemKey key = new ItemKey(itemId, itemName);
+      items.invalidate(key);
+      WebClient.RequestBodySpec request = webClient.put().uri(ITEM_PATH, itemId, itemName);
+      if (etag != null) {
+        request = request.header(HttpHeaders.IF_MATCH, etag);
+      }
+      if (idempotencyKey != null) {
+        request = request.header(IDEMPOTENCY_KEY, idempotencyKey);
+      }
+      return request.bodyValue(update).retrieve().toEntity(responseType)
+          .doOnNext(entity -> remember(key, new VersionedItem(new Item(itemId, update.getName(), update.getStock(),
+              update.getPrice(), update.getDescription()), entity.getHeaders().getETag())))
+          .doOnError(e -> items.invalidate(key))
+          .flatMap(entity -> Mono.justOrEmpty(entity.getBody()));
+    });
+  }
+
+  /**
+   * Retries a read-modify-write of an item whenever its conditional update is rejected because
+   * the item changed concurrently. The given publisher must re-read the item on every subscription.
+   *
+   * @param readModifyWrite the publisher fetching the item and writing the modified item back
+   * @param <T>             the result type of the publisher
+   * @return the publisher with conflict retries applied
+   */
+  public <T> Mono<T> withConflictRetry(Mono<T> readModifyWrite) {
+    return readModifyWrite.retryWhen(conflictRetry);
+  }
+
+  /**
+   * Indicates whether the external inventory advertises support for bulk reservations.
+   * The capabilities endpoint is probed on first use and the answer is remembered. A backend
+   * without the endpoint is treated as not supporting bulk reservations, while a failed probe
+   * is retried at most once per minute.
+   *
+   * @return {@code true} if several items can be reserved with a single call
+   */
+  public boolean supportsBulkReservation() {
+    return Boolean.TRUE.equals(ServerTiming.inherit(bulkReservationSupport()).contextCapture().block());
+  }
+
+  /**
+   * Reactive variant of {@link #supportsBulkReservation()}.
+   *
+   * @return a {@link Mono} emitting whether several items can be reserved with a single call
+   */
+  public Mono<Boolean> bulkReservationSupport() {
+    Boolean supported = bulkReservation;
+    if (supported != null) {
+      return Mono.just(supported);
+    }
+    if (System.nanoTime() - lastFailedProbe < PROBE_RETRY_NANOS) {
+      return Mono.just(false);
+    }
+    return probeCapabilities();
+  }
+
+  /**
+   * Reserves all given items with a single call to the bulk reservation endpoint. The external
+   * inventory either reserves every line or none of them.
+   *
+   * @param reservations the items and quantities to reserve
+   * @return a {@link Mono} emitting the reserved items as reported by the external inventory, in the
+   *     order of {@code reservations}, or failing with an {@link IllegalStateException} if the external
+   *     inventory does not answer with one item per reservation
+   */
+  public Mono<List<Item>> reserveAll(List<ItemReservationDto> reservations) {
+    reservations.forEach(reservation -> items.invalidate(new ItemKey(reservation.getItemId(),
+        reservation.getItemName())));
+    return webClient.post().uri(RESERVATIONS_PATH)
+        .bodyValue(reservations)
+        .retrieve().bodyToFlux(Item.class).collectList()
+        .filter(items -> items.size() == reservations.size())
+        .switchIfEmpty(Mono.error(() -> new IllegalStateException(
+            "Inventory " + name + " returned an incomplete bulk reservation")));
+  }
+
+  /**
+   * Sends an idempotent request and, if hedging is enabled and the request is not answered
+   * within the hedging delay, the same request once more. Whichever request answers or fails
+   * first decides the result, and the other one is cancelled.
+   *
+   * @param request the request, sent anew on every subscription
+   * @param <T>     the type of the answer
+   * @return a {@link Mono} emitting the first answer
+   */
+  private <T> Mono<T> hedged(Mono<T> request) {
+    if (!hedging) {
+      return request;
+    }
+    Mono<T> timed = Mono.defer(() -> {
+      long start = System.nanoTime();
+      return request.doOnSuccess(answer -> latencies.record(System.nanoTime() - start));
+    });
+    return Mono.defer(() -> {
+      Duration delay = latencies.hedgeDelay();
+      if (delay == null) {
+        return timed;
+      }
+      return Mono.firstWithSignal(timed, Mono.delay(delay)
+          .doOnNext(tick -> hedges.incrementAndGet())
+          .then(timed));
+    });
+  }
+
+  /**
+   * Caches an item read from or written to the external inventory, provided that its version is
+   * known. Otherwise any cached copy is dropped.
+   *
+   * @param key       the cache key of the item
+   * @param versioned the item and its entity tag
+   */
+  private void remember(ItemKey key, VersionedItem versioned) {
+    if (caching && versioned.etag() != null) {
+      items.put(key, versioned);
+    } else {
+      items.invalidate(key);
+    }
+  }
+
+  /**
+   * Checks whether a failure is a rejected conditional update.
+   *
+   * @param failure the failure of an update
+   * @return {@code true} if the inventory answered {@code 412 Precondition Failed}
+   */
+  private static boolean isConflict(Throwable failure) {
+    return failure instanceof WebClientResponseException response
+        && response.getStatusCode() == HttpStatus.PRECONDITION_FAILED;
+  }
+
+  /**
+   * Fetches the capabilities document of the external inventory and records whether bulk
+   * reservations are supported.
+   *
+   * @return a {@link Mono} emitting {@code true} if the external inventory advertises bulk reservations
+   */
+  private Mono<Boolean> probeCapabilities() {
+    return webClient.get().uri(CAPABILITIES_PATH)
+        .retrieve().bodyToMono(InventoryCapabilitiesDto.class)
+        .map(InventoryCapabilitiesDto::isBulkReservation)
+        .defaultIfEmpty(false)
+        .doOnNext(supported -> bulkReservation = supported)
+        .onErrorResume(e -> {
+          if (e instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError()) {
+            bulkReservation = false;
+          } else {
+            lastFailedProbe = System.nanoTime();
+          }
+          return Mono.just(false);
+        });
+  }
+
+  /**
+   * An item as read from the external inventory, together with the entity tag of that version.
+   *
+   * @param item the item
+   * @param etag the entity tag sent with the item, or {@code null} if the inventory does not version its items
+   */
+  public record VersionedItem(Item item, String etag) {
+  }
+
+  /**
+   * The key of an item in the item cache, made up of the two path segments addressing the item.
+   *
+   * @param id   the unique identifier of the item
+   * @param name the name of the item
+   */
+  private record ItemKey(int id, String name) {
+  }
+}
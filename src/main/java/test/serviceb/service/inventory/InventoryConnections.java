@@ -0,0 +1,79 @@
+package test.serviceb.service.inventory;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import test.serviceb.domain.dto.ExternalInventory;
+import test.serviceb.service.converter.ConversionProperties.ConnectionPool;
+import test.serviceb.service.converter.ConversionProperties.Timeout;
+
+/**
+ * The InventoryConnections class creates the HTTP connection pool of one external inventory.
+ * Every inventory gets a pool of its own, sized by its {@link ConnectionPool} settings instead of
+ * the Reactor Netty defaults, so that a burst of calls to one inventory neither queues behind the
+ * defaults nor takes connections away from the other inventories.
+ * The pools publish their state as {@code reactor.netty.connection.provider.*} metrics tagged with
+ * {@code name=inventory-<name>}, e.g. the number of active, idle and pending connections.
+ * Connecting and waiting for an answer are bounded by the {@link Timeout} settings of the
+ * inventory, so that no call waits for an unresponsive inventory forever.
+ */
+public final class InventoryConnections {
+
+  private static final String POOL_PREFIX = "inventory-";
+  private static final String HTTPS = "https:";
+
+  /**
+   * Prevents instantiation of this utility class.
+   */
+  private InventoryConnections() {
+  }
+
+  /**
+   * Creates the connection pool of an external inventory. The pool opens no connection before it
+   * is used and must be disposed when the application shuts down.
+   *
+   * @param inventory the external inventory
+   * @param settings  the connection pool settings of the inventory
+   * @return the connection pool
+   */
+  public static ConnectionProvider pool(ExternalInventory inventory, ConnectionPool settings) {
+    ConnectionProvider.Builder pool = ConnectionProvider.builder(POOL_PREFIX + inventory.getName())
+        .maxConnections(settings.getMaxConnections())
+        .pendingAcquireMaxCount(settings.getMaxPending())
+        .pendingAcquireTimeout(settings.getAcquireTimeout())
+        .maxIdleTime(settings.getMaxIdleTime())
+        .maxLifeTime(settings.getMaxLifeTime())
+        .metrics(true);
+    if (settings.getEvictionInterval().isPositive()) {
+      pool = pool.evictInBackground(settings.getEvictionInterval());
+    }
+    return pool.build();
+  }
+
+  /**
+   * Creates the connector sending the requests of a web client through the given pool.
+   *
+   * @param inventory the external inventory
+   * @param pool      the connection pool of the inventory
+   * @param settings  the connection pool settings of the inventory
+   * @param timeout   the timeout settings of the inventory
+   * @return the connector for the web client of the inventory
+   */
+  public static ClientHttpConnector connector(ExternalInventory inventory, ConnectionProvider pool,
+                                              ConnectionPool settings, Timeout timeout) {
+    HttpClient client = HttpClient.create(pool)
+        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Math.toIntExact(timeout.getConnect().toMillis()));
+    if (timeout.getResponse().isPositive()) {
+      client = client.responseTimeout(timeout.getResponse());
+    }
+    if (settings.isHttp2()) {
+      client = inventory.getUrl().regionMatches(true, 0, HTTPS, 0, HTTPS.length())
+          ? client.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure()
+          : client.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+    }
+    return new ReactorClientHttpConnector(client);
+  }
+}
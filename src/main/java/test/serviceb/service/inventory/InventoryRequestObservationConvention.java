@@ -0,0 +1,47 @@
+package test.serviceb.service.inventory;
+
+import io.micrometer.common.KeyValues;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientRequestObservationContext;
+import org.springframework.web.reactive.function.client.DefaultClientRequestObservationConvention;
+
+/**
+ * The InventoryRequestObservationConvention class names the observations of the requests sent
+ * with a {@link org.springframework.web.reactive.function.client.WebClient} after the external
+ * inventory they are sent to. The span of a request to an inventory is named like
+ * {@code inventory alpha GET} instead of {@code http get}, and the span as well as the
+ * {@code http.client.requests} timer are tagged with the configured name of the inventory,
+ * {@code none} for requests that are not sent by an {@link InventoryBackend}.
+ */
+public class InventoryRequestObservationConvention extends DefaultClientRequestObservationConvention {
+
+  private static final String INVENTORY_TAG = "inventory";
+  private static final String NONE = "none";
+
+  @Override
+  public String getContextualName(ClientRequestObservationContext context) {
+    String inventory = inventoryOf(context);
+    ClientRequest request = context.getRequest();
+    if (inventory == null || request == null) {
+      return super.getContextualName(context);
+    }
+    return INVENTORY_TAG + " " + inventory + " " + request.method().name();
+  }
+
+  @Override
+  public KeyValues getLowCardinalityKeyValues(ClientRequestObservationContext context) {
+    String inventory = inventoryOf(context);
+    return super.getLowCardinalityKeyValues(context).and(INVENTORY_TAG, inventory == null ? NONE : inventory);
+  }
+
+  /**
+   * Retrieves the name of the inventory a request is sent to.
+   *
+   * @param context the observation of the request
+   * @return the name of the inventory, or {@code null} if the request is not sent to one
+   */
+  private static String inventoryOf(ClientRequestObservationContext context) {
+    ClientRequest request = context.getRequest();
+    return request == null ? null : (String) request.attributes().get(InventoryBackend.INVENTORY_NAME);
+  }
+}
@@ -0,0 +1,49 @@
+package test.serviceb.service.inventory;
+
+import java.time.Duration;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * The InventoryUnavailableException signals that a call to an external inventory was rejected
+ * without being sent, because the circuit breaker of the inventory is open or too many calls are
+ * already waiting for it. It is answered with {@code 503 Service Unavailable} and a
+ * {@code Retry-After} header telling the client when the inventory is worth trying again.
+ */
+public class InventoryUnavailableException extends ResponseStatusException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final Duration retryAfter;
+
+  /**
+   * Constructs an instance of InventoryUnavailableException.
+   *
+   * @param reason     the reason the call was rejected
+   * @param retryAfter how long the client should wait before retrying
+   */
+  public InventoryUnavailableException(String reason, Duration retryAfter) {
+    super(HttpStatus.SERVICE_UNAVAILABLE, reason);
+    this.retryAfter = retryAfter;
+  }
+
+  /**
+   * Retrieves how long the client should wait before retrying.
+   *
+   * @return the suggested delay before a retry
+   */
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+
+  @Override
+  @SuppressWarnings("PMD.LooseCoupling")
+  public HttpHeaders getHeaders() {
+    HttpHeaders headers = new HttpHeaders();
+    long seconds = Math.max(1, retryAfter.plusMillis(999).toSeconds());
+    headers.set(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+    return headers;
+  }
+}
@@ -0,0 +1,84 @@
+package test.serviceb.service.inventory;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * The LatencyWindow class keeps the latencies of the most recent requests to one external
+ * inventory and derives from them how long to wait before a request is hedged.
+ * The percentile is recomputed every few samples rather than on every request, so reading the
+ * current delay costs a volatile read only.
+ */
+public final class LatencyWindow {
+
+  private static final int MIN_SAMPLES = 20;
+  private static final int RECOMPUTE_EVERY = 16;
+
+  private final long[] samples;
+  private final double percentile;
+  private final long minNanos;
+  private final Object lock = new Object();
+  private int next;
+  private int count;
+  private long sinceRecompute;
+
+  /**
+   * The current hedging delay in nanoseconds, or {@link Long#MAX_VALUE} while too few latencies are known.
+   */
+  private volatile long delayNanos = Long.MAX_VALUE;
+
+  /**
+   * Constructs an instance of LatencyWindow.
+   *
+   * @param size       the number of most recent latencies kept
+   * @param percentile the percentile of the latencies used as hedging delay, between 0 and 1
+   * @param minDelay   the shortest hedging delay
+   */
+  public LatencyWindow(int size, double percentile, Duration minDelay) {
+    this.samples = new long[size];
+    this.percentile = percentile;
+    this.minNanos = minDelay.toNanos();
+  }
+
+  /**
+   * Records the latency of a completed request.
+   *
+   * @param nanos the latency in nanoseconds
+   */
+  public void record(long nanos) {
+    synchronized (lock) {
+      samples[next] = nanos;
+      next = (next + 1) % samples.length;
+      count = Math.min(count + 1, samples.length);
+      sinceRecompute++;
+      if (count >= Math.min(MIN_SAMPLES, samples.length)
+          && (sinceRecompute >= RECOMPUTE_EVERY || delayNanos == Long.MAX_VALUE)) {
+        sinceRecompute = 0;
+        delayNanos = Math.max(minNanos, currentPercentile());
+      }
+    }
+  }
+
+  /**
+   * Returns how long to wait for an answer before a request is hedged.
+   *
+   * @return the hedging delay, or {@code null} if too few latencies are known to hedge yet
+   */
+  public Duration hedgeDelay() {
+    long nanos = delayNanos;
+    return nanos == Long.MAX_VALUE ? null : Duration.ofNanos(nanos);
+  }
+
+  /**
+   * Computes the configured percentile of the recorded latencies with the nearest-rank method.
+   * Must be called while holding the lock.
+   *
+   * @return the latency at the percentile
+   */
+  private long currentPercentile() {
+    long[] latencies = Arrays.copyOf(samples, count);
+    Arrays.sort(latencies);
+    int rank = (int) Math.ceil(percentile * latencies.length);
+    return latencies[Math.clamp(rank - 1, 0, latencies.length - 1)];
+  }
+}
@@ -0,0 +1,300 @@
+package test.serviceb.service.inventory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * The PermitQueue class caps the number of concurrent calls to one external inventory.
+ * Unlike a {@link java.util.concurrent.Semaphore}, callers can wait for a permit either by
+ * blocking their thread or by subscribing to a {@link Mono}, so blocking and reactive callers
+ * share one limit. Permits are handed out in the order they were requested.
+ * The queue acts as a bulkhead: it can bound both the number of callers waiting for a permit and
+ * how long they wait, so that a slow inventory fails calls fast with an
+ * {@link InventoryUnavailableException} instead of holding on to the threads of its callers.
+ */
+public final class PermitQueue {
+
+  private static final int WAITING = 0;
+  private static final int GRANTED = 1;
+  private static final int CANCELLED = 2;
+  private static final int RELEASED = 3;
+  private static final Duration RETRY_AFTER = Duration.ofSeconds(1);
+
+  private final Object lock = new Object();
+  private final Deque<Permit> waiters = new ArrayDeque<>();
+  private final AtomicLong rejected = new AtomicLong();
+  private final String name;
+  private final int maxQueued;
+  private final long timeoutNanos;
+  private int available;
+
+  /**
+   * Constructs an instance of PermitQueue whose callers wait as long as it takes.
+   *
+   * @param permits the maximum number of concurrent calls
+   */
+  public PermitQueue(int permits) {
+    this("", permits, Integer.MAX_VALUE, Duration.ZERO);
+  }
+
+  /**
+   * Constructs an instance of PermitQueue that rejects callers it cannot serve in time.
+   *
+   * @param name      the name of the guarded inventory, used in exception messages
+   * @param permits   the maximum number of concurrent calls
+   * @param maxQueued the maximum number of callers waiting for a permit
+   * @param timeout   how long a caller waits for a permit, or {@link Duration#ZERO} to wait as long as it takes
+   */
+  public PermitQueue(String name, int permits, int maxQueued, Duration timeout) {
+    this.name = name;
+    this.available = permits;
+    this.maxQueued = maxQueued;
+    this.timeoutNanos = timeout.isPositive() ? timeout.toNanos() : Long.MAX_VALUE;
+  }
+
+  /**
+   * Returns the number of permits nobody holds at the moment.
+   *
+   * @return the number of available permits
+   */
+  public int getAvailable() {
+    synchronized (lock) {
+      return available;
+    }
+  }
+
+  /**
+   * Returns the number of callers waiting for a permit at the moment.
+   *
+   * @return the number of waiting callers
+   */
+  public int getQueued() {
+    synchronized (lock) {
+      return waiters.size();
+    }
+  }
+
+  /**
+   * Returns the number of callers turned away so far because the queue was full or their wait timed out.
+   *
+   * @return the number of rejected callers
+   */
+  public long getRejected() {
+    return rejected.get();
+  }
+
+  /**
+   * Executes the given call while holding a permit, blocking the current thread until a permit
+   * becomes available.
+   *
+   * @param call the call to execute
+   * @param <T>  the result type of the call
+   * @return the result of the call
+   * @throws IllegalStateException         if the thread is interrupted while waiting for a permit
+   * @throws InventoryUnavailableException if too many callers are waiting or the wait timed out
+   */
+  @SuppressWarnings("PMD.PreserveStackTrace")
+  public <T> T call(Supplier<T> call) {
+    CompletableFuture<Void> granted = new CompletableFuture<>();
+    Permit permit = new Permit(() -> granted.complete(null));
+    if (!enqueue(permit)) {
+      throw queueFull();
+    }
+    try {
+      granted.get(timeoutNanos, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      permit.cancel();
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for inventory " + name, e);
+    } catch (TimeoutException e) {
+      if (permit.withdraw()) {
+        throw timedOut();
+      }
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e);
+    }
+    try {
+      return call.get();
+    } finally {
+      permit.close();
+    }
+  }
+
+  /**
+   * Subscribes to the given call once a permit is available, without blocking a thread while
+   * waiting. The permit is returned when the call terminates or is cancelled. The returned
+   * {@link Mono} fails with an {@link InventoryUnavailableException} if too many callers are
+   * waiting or the wait timed out.
+   *
+   * @param call the call to execute
+   * @param <T>  the result type of the call
+   * @return a {@link Mono} executing the call while holding a permit
+   */
+  public <T> Mono<T> call(Mono<T> call) {
+    return Mono.usingWhen(acquire(), permit -> call, Permit::closed,
+        (permit, error) -> permit.closed(), Permit::closed);
+  }
+
+  /**
+   * Creates a {@link Mono} that emits a permit as soon as one is available.
+   *
+   * @return the pending permit
+   */
+  private Mono<Permit> acquire() {
+    Mono<Permit> pending = Mono.create(sink -> {
+      Permit[] permit = new Permit[1];
+      permit[0] = new Permit(() -> sink.success(permit[0]));
+      sink.onCancel(permit[0]::cancel);
+      // Mono.create passes an exception thrown here on to the subscriber
+      if (!enqueue(permit[0])) {
+        throw queueFull();
+      }
+    });
+    if (timeoutNanos == Long.MAX_VALUE) {
+      return pending;
+    }
+    return pending.timeout(Duration.ofNanos(timeoutNanos), Mono.error(this::timedOut));
+  }
+
+  /**
+   * Grants the permit right away if one is available and nobody is waiting, or queues it otherwise.
+   *
+   * @param permit the requested permit
+   * @return {@code false} if the permit was neither granted nor queued because the queue is full
+   */
+  private boolean enqueue(Permit permit) {
+    synchronized (lock) {
+      if (available == 0 || !waiters.isEmpty()) {
+        if (waiters.size() >= maxQueued) {
+          return false;
+        }
+        waiters.addLast(permit);
+        return true;
+      }
+      available--;
+    }
+    permit.grant();
+    return true;
+  }
+
+  /**
+   * Creates the exception rejecting a caller because too many callers are waiting already.
+   *
+   * @return the exception to fail the caller with
+   */
+  private InventoryUnavailableException queueFull() {
+    rejected.incrementAndGet();
+    return new InventoryUnavailableException("Inventory " + name + " is busy, " + maxQueued
+        + " calls are waiting for it already", RETRY_AFTER);
+  }
+
+  /**
+   * Creates the exception rejecting a caller whose wait for a permit timed out.
+   *
+   * @return the exception to fail the caller with
+   */
+  private InventoryUnavailableException timedOut() {
+    rejected.incrementAndGet();
+    return new InventoryUnavailableException("Inventory " + name + " is busy, no permit became available within "
+        + Duration.ofNanos(timeoutNanos).toMillis() + " ms", RETRY_AFTER);
+  }
+
+  /**
+   * Passes a returned permit on to the longest waiting caller, or makes it available again.
+   */
+  private void release() {
+    Permit next;
+    synchronized (lock) {
+      do {
+        next = waiters.pollFirst();
+      } while (next != null && !next.state.compareAndSet(WAITING, GRANTED));
+      if (next == null) {
+        available++;
+        return;
+      }
+    }
+    next.onGrant.run();
+  }
+
+  /**
+   * A request for one permit. Its state moves from waiting to either granted and finally
+   * released, or to cancelled if the caller gives up before the permit is granted.
+   */
+  private final class Permit {
+
+    private final AtomicInteger state = new AtomicInteger(WAITING);
+    private final Runnable onGrant;
+
+    /**
+     * Constructs an instance of Permit.
+     *
+     * @param onGrant the callback notifying the caller that the permit was granted
+     */
+    private Permit(Runnable onGrant) {
+      this.onGrant = onGrant;
+    }
+
+    /**
+     * Grants a permit that was not queued, or passes it on if the request was already withdrawn.
+     */
+    private void grant() {
+      if (state.compareAndSet(WAITING, GRANTED)) {
+        onGrant.run();
+      } else {
+        release();
+      }
+    }
+
+    /**
+     * Withdraws the request. A permit that has already been granted is returned instead.
+     */
+    private void cancel() {
+      if (!withdraw()) {
+        close();
+      }
+    }
+
+    /**
+     * Withdraws the request unless the permit has already been granted.
+     *
+     * @return {@code true} if the request was withdrawn, {@code false} if the caller holds the permit
+     */
+    private boolean withdraw() {
+      if (!state.compareAndSet(WAITING, CANCELLED)) {
+        return false;
+      }
+      synchronized (lock) {
+        waiters.remove(this);
+      }
+      return true;
+    }
+
+    /**
+     * Returns the permit. Calling this more than once has no further effect.
+     */
+    private void close() {
+      if (state.compareAndSet(GRANTED, RELEASED)) {
+        release();
+      }
+    }
+
+    /**
+     * Returns the permit as part of a reactive pipeline.
+     *
+     * @return an empty {@link Mono} completing once the permit is returned
+     */
+    private Mono<Void> closed() {
+      return Mono.fromRunnable(this::close);
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package test.serviceb.service.inventory;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.http.Outcome;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import test.serviceb.service.timing.ServerTiming;
+
+/**
+ * The RequestMetrics class measures every HTTP request the order service sends to one external
+ * inventory, as a filter of the {@link org.springframework.web.reactive.function.client.WebClient}
+ * of its {@link InventoryBackend}. The lookups, stock updates, bulk reservations, restocks and
+ * capability probes are therefore all measured, including the duplicates of hedged lookups, and
+ * every request is tagged with the configured name of the inventory rather than its host.
+ * A request is timed from the moment it is sent until the status line and headers of the answer
+ * arrived; reading the body is not included. Requests that failed without an answer are tagged
+ * with the simple name of the exception, requests abandoned by the caller, such as the losing
+ * request of a hedged lookup, with {@code CANCELLED}.
+ * Nothing is recorded until {@link #bindTo(MeterRegistry)} was called, except that every request
+ * sent on behalf of a request whose {@link ServerTiming} is measured is added to it as a phase
+ * named {@code inventory}, described by the inventory, method and status.
+ */
+public class RequestMetrics implements ExchangeFilterFunction, MeterBinder {
+
+  private static final String INVENTORY_TAG = "inventory";
+  private static final String CANCELLED = "CANCELLED";
+
+  private final String name;
+  private final AtomicInteger active = new AtomicInteger();
+  private volatile MeterRegistry registry;
+
+  /**
+   * Constructs an instance of RequestMetrics.
+   *
+   * @param name the name of the external inventory the requests are sent to
+   */
+  public RequestMetrics(String name) {
+    this.name = name;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("inventory.requests.active", active, AtomicInteger::get)
+        .description("Requests sent to the inventory that were not answered yet")
+        .tag(INVENTORY_TAG, name)
+        .register(registry);
+    this.registry = registry;
+  }
+
+  @Override
+  public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+    return Mono.deferContextual(context -> {
+      Exchange exchange = new Exchange(request.method().name(), System.nanoTime(), ServerTiming.from(context));
+      active.incrementAndGet();
+      return next.exchange(request)
+          .doOnNext(response -> exchange.status = response.statusCode().value())
+          .doOnError(failure -> exchange.failure = failure.getClass().getSimpleName())
+          .doFinally(signal -> finish(exchange, signal));
+    });
+  }
+
+  /**
+   * Retrieves the number of requests sent to the inventory that were not answered yet.
+   *
+   * @return the number of requests in flight
+   */
+  public int getActive() {
+    return active.get();
+  }
+
+  /**
+   * Records a request once it was answered, failed or was cancelled.
+   *
+   * @param exchange the request and what is known about its answer
+   * @param signal   the signal that ended the request
+   */
+  private void finish(Exchange exchange, SignalType signal) {
+    active.decrementAndGet();
+    long duration = System.nanoTime() - exchange.started;
+    String status;
+    String outcome;
+    if (exchange.status > 0) {
+      status = Integer.toString(exchange.status);
+      outcome = Outcome.forStatus(exchange.status).name();
+    } else if (signal == SignalType.CANCEL) {
+      status = CANCELLED;
+      outcome = CANCELLED;
+    } else {
+      status = exchange.failure == null ? "NONE" : exchange.failure;
+      outcome = Outcome.UNKNOWN.name();
+    }
+    if (exchange.timing != null) {
+      exchange.timing.record(INVENTORY_TAG, name + " " + exchange.method + " " + status, duration);
+    }
+    MeterRegistry meters = registry;
+    if (meters == null) {
+      return;
+    }
+    Timer.builder("inventory.requests")
+        .description("Latency of the requests sent to the inventory until their answer arrived")
+        .tags(INVENTORY_TAG, name, "method", exchange.method, "status", status, "outcome", outcome)
+        .publishPercentileHistogram()
+        .register(meters)
+        .record(duration, TimeUnit.NANOSECONDS);
+    if (!Outcome.SUCCESS.name().equals(outcome) && !CANCELLED.equals(outcome)) {
+      Counter.builder("inventory.requests.errors")
+          .description("Requests to the inventory answered with an error status or failed without an answer")
+          .tags(INVENTORY_TAG, name, "method", exchange.method, "error", status.toLowerCase(Locale.ROOT))
+          .register(meters)
+          .increment();
+    }
+  }
+
+  /**
+   * The state of one request while it is in flight.
+   */
+  private static final class Exchange {
+    private final String method;
+    private final long started;
+    private final ServerTiming timing;
+    private int status;
+    private String failure;
+
+    /**
+     * Constructs an instance of Exchange.
+     *
+     * @param method  the HTTP method of the request
+     * @param started the {@link System#nanoTime()} the request was sent at
+     * @param timing  the timing of the request it is sent for, or {@code null} if none is measured
+     */
+    private Exchange(String method, long started, ServerTiming timing) {
+      this.method = method;
+      this.started = started;
+      this.timing = timing;
+    }
+  }
+}
@@ -0,0 +1,185 @@
+package test.serviceb.service.inventory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The ReservationScope class runs the reservations of one order as subtasks, in the style of a
+ * structured concurrency scope that shuts down on failure: subtasks are forked into the scope,
+ * the first failing subtask cancels all of its siblings, and closing the scope waits until no
+ * subtask is running anymore, so no reservation outlives the order that started it.
+ *
+ * @param <T> the result type of the subtasks
+ */
+public final class ReservationScope<T> implements AutoCloseable {
+
+  private final Executor executor;
+  private final BlockingQueue<Subtask> completed = new LinkedBlockingQueue<>();
+  private final List<Subtask> subtasks = new ArrayList<>();
+  private final Phaser running = new Phaser(1);
+  private int pendingJoins;
+
+  /**
+   * Constructs an instance of ReservationScope.
+   *
+   * @param executor the executor running the subtasks, typically one thread per subtask
+   */
+  public ReservationScope(Executor executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * Starts a subtask in this scope.
+   *
+   * @param call the subtask
+   * @throws RejectedExecutionException if the executor does not accept the subtask
+   */
+  public void fork(Callable<T> call) {
+    Subtask subtask = new Subtask(call);
+    running.register();
+    subtasks.add(subtask);
+    pendingJoins++;
+    try {
+      executor.execute(subtask);
+    } catch (RejectedExecutionException e) {
+      subtask.cancel(false);
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the number of forked subtasks whose result has not been joined yet.
+   *
+   * @return the number of subtasks still to join
+   */
+  public int unjoined() {
+    return pendingJoins;
+  }
+
+  /**
+   * Waits for the next subtask to complete and returns its result. If the subtask failed,
+   * all other subtasks are cancelled and its failure is rethrown.
+   *
+   * @return the result of the subtask that completed next
+   * @throws InterruptedException if the thread is interrupted while waiting
+   */
+  @SuppressWarnings("PMD.PreserveStackTrace")
+  public T join() throws InterruptedException {
+    Subtask subtask = completed.take();
+    pendingJoins--;
+    try {
+      return subtask.get();
+    } catch (ExecutionException e) {
+      shutdown();
+      throw propagate(e.getCause());
+    }
+  }
+
+  /**
+   * Waits for every subtask that has not been joined yet and returns the results of those that
+   * succeeded. Unlike {@link #close()}, draining the scope does not cancel its subtasks, so that the
+   * result of work already under way, such as stock taken from an inventory, is not lost. The wait
+   * cannot be interrupted; an interruption is kept and restored once all subtasks were joined.
+   *
+   * @return the results of the subtasks that succeeded, in order of completion
+   */
+  public List<T> drain() {
+    List<T> results = new ArrayList<>();
+    boolean interrupted = Thread.interrupted();
+    while (pendingJoins > 0) {
+      try {
+        Subtask subtask = completed.take();
+        pendingJoins--;
+        if (subtask.state() == Future.State.SUCCESS) {
+          results.add(subtask.resultNow());
+        }
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    return results;
+  }
+
+  /**
+   * Cancels all subtasks that have not completed yet, interrupting those already running.
+   */
+  public void shutdown() {
+    subtasks.forEach(subtask -> subtask.cancel(true));
+  }
+
+  /**
+   * Cancels all unfinished subtasks and waits until none of them is running anymore.
+   */
+  @Override
+  public void close() {
+    shutdown();
+    running.arriveAndAwaitAdvance();
+  }
+
+  /**
+   * Converts the failure of a subtask back into an unchecked exception so that callers observe
+   * the same exception as if the subtask had run on their own thread.
+   *
+   * @param cause the failure raised by the subtask
+   * @return the cause itself if it is a {@link RuntimeException}, otherwise a wrapping {@link IllegalStateException}
+   */
+  private static RuntimeException propagate(Throwable cause) {
+    if (cause instanceof RuntimeException runtimeException) {
+      return runtimeException;
+    }
+    if (cause instanceof Error error) {
+      throw error;
+    }
+    return new IllegalStateException(cause);
+  }
+
+  /**
+   * A forked subtask. It leaves the {@link #running} phaser exactly once: when it finishes
+   * running, or when it is cancelled before it started.
+   */
+  private final class Subtask extends FutureTask<T> {
+
+    private final AtomicBoolean claimed = new AtomicBoolean();
+
+    /**
+     * Constructs an instance of Subtask.
+     *
+     * @param call the work of the subtask
+     */
+    private Subtask(Callable<T> call) {
+      super(call);
+    }
+
+    @Override
+    public void run() {
+      if (claimed.compareAndSet(false, true)) {
+        try {
+          super.run();
+        } finally {
+          running.arriveAndDeregister();
+        }
+      }
+    }
+
+    @Override
+    protected void done() {
+      if (isCancelled() && claimed.compareAndSet(false, true)) {
+        running.arriveAndDeregister();
+      }
+      completed.add(this);
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package test.serviceb.service.inventory;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The RoutingIndex class resolves an item name to the route whose key occurs in it, using an
+ * Aho–Corasick automaton built once from all keys. An item name is resolved in a single pass over
+ * its characters, however many routes there are.
+ * If several keys occur in the same item name, the longest one wins, and of equally long keys the
+ * one occurring first. The result therefore does not depend on the order in which the routes were
+ * configured.
+ *
+ * @param <T> the type of the route targets
+ */
+public final class RoutingIndex<T> {
+
+  private final State<T> root;
+
+  /**
+   * Constructs an instance of RoutingIndex.
+   *
+   * @param routes the route targets keyed by the text that must occur in an item name to select them
+   */
+  public RoutingIndex(Map<String, T> routes) {
+    Builder<T> start = new Builder<>();
+    routes.forEach(start::add);
+    this.root = start.build();
+  }
+
+  /**
+   * Finds the route for an item name.
+   *
+   * @param itemName the name of the item, may be {@code null}
+   * @return the target of the longest key occurring in the item name, or {@code null} if no key occurs in it
+   */
+  public T find(String itemName) {
+    if (itemName == null) {
+      return null;
+    }
+    State<T> state = root;
+    State<T> best = root.match;
+    for (int i = 0; i < itemName.length(); i++) {
+      state = state.next(itemName.charAt(i));
+      State<T> match = state.match;
+      if (match != null && (best == null || match.depth > best.depth)) {
+        best = match;
+      }
+    }
+    return best == null ? null : best.target;
+  }
+
+  /**
+   * A state of the automaton, standing for the key prefix spelled by the path from the root.
+   * Its transitions are kept in two parallel arrays sorted by character.
+   *
+   * @param <T> the type of the route targets
+   */
+  private static final class State<T> {
+
+    private final int depth;
+    private final T target;
+    private char[] labels;
+    private State<T>[] targets;
+    private State<T> fail;
+
+    /**
+     * The state of the longest key that is a suffix of this state's prefix, or {@code null} if
+     * there is none.
+     */
+    private State<T> match;
+
+    /**
+     * Constructs an instance of State.
+     *
+     * @param depth  the length of the prefix the state stands for
+     * @param target the target of the route whose key equals the prefix, or {@code null}
+     */
+    private State(int depth, T target) {
+      this.depth = depth;
+      this.target = target;
+    }
+
+    /**
+     * Follows the transition for a character, falling back along the failure links until a
+     * state with a matching transition or the root is reached.
+     *
+     * @param c the next character of the item name
+     * @return the state after reading the character
+     */
+    private State<T> next(char c) {
+      State<T> state = this;
+      while (true) {
+        int index = Arrays.binarySearch(state.labels, c);
+        if (index >= 0) {
+          return state.targets[index];
+        }
+        if (state.fail == null) {
+          return state;
+        }
+        state = state.fail;
+      }
+    }
+  }
+
+  /**
+   * A trie node used while the index is built, turned into a {@link State} afterwards.
+   *
+   * @param <T> the type of the route targets
+   */
+  private static final class Builder<T> {
+
+    private final Map<Character, Builder<T>> children = new TreeMap<>();
+    private T target;
+
+    /**
+     * Adds a key below this node.
+     *
+     * @param key    the key
+     * @param target the target of the route
+     */
+    private void add(String key, T target) {
+      Builder<T> node = this;
+      for (int i = 0; i < key.length(); i++) {
+        node = node.child(key.charAt(i));
+      }
+      node.target = target;
+    }
+
+    /**
+     * Retrieves the child node for a character, creating it if necessary.
+     *
+     * @param c the character labelling the edge to the child
+     * @return the child node
+     */
+    private Builder<T> child(char c) {
+      return children.computeIfAbsent(c, label -> new Builder<>());
+    }
+
+    /**
+     * Turns the trie below this node into an automaton, linking every state to the state of its
+     * longest proper suffix that is also a key prefix.
+     *
+     * @return the root state of the automaton
+     */
+    private State<T> build() {
+      State<T> start = freeze(0);
+      if (start.target != null) {
+        start.match = start;
+      }
+      Deque<State<T>> queue = new ArrayDeque<>();
+      for (State<T> child : start.targets) {
+        child.fail = start;
+        child.match = child.target == null ? start.match : child;
+        queue.add(child);
+      }
+      while (!queue.isEmpty()) {
+        State<T> state = queue.poll();
+        for (int i = 0; i < state.labels.length; i++) {
+          State<T> child = state.targets[i];
+          child.fail = state.fail.next(state.labels[i]);
+          child.match = child.target == null ? child.fail.match : child;
+          queue.add(child);
+        }
+      }
+      return start;
+    }
+
+    /**
+     * Copies the trie below this node into states with sorted transition arrays.
+     *
+     * @param depth the depth of this node
+     * @return the state for this node
+     */
+    @SuppressWarnings("unchecked")
+    private State<T> freeze(int depth) {
+      State<T> state = new State<>(depth, target);
+      state.labels = new char[children.size()];
+      state.targets = new State[children.size()];
+      int i = 0;
+      for (Map.Entry<Character, Builder<T>> child : children.entrySet()) {
+        state.labels[i] = child.getKey();
+        state.targets[i] = child.getValue().freeze(depth + 1);
+        i++;
+      }
+      return state;
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package test.serviceb.service.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The ItemReservationEvent class records one reservation of order items at an external inventory,
+ * either of a single item or of several items with one bulk reservation, including the time spent
+ * waiting for a permit of the inventory.
+ */
+@Name("test.serviceb.ItemReservation")
+@Label("Item Reservation")
+@Description("Reservation of order items at an external inventory")
+public class ItemReservationEvent extends OrderServiceEvent {
+
+  @Label("Backend")
+  @Description("Name of the external inventory, or null if the item resolves to none")
+  private String backend;
+
+  @Label("Item Count")
+  @Description("Number of order items reserved")
+  private int itemCount;
+
+  @Label("Bulk")
+  @Description("Whether the items were reserved with a single bulk reservation")
+  private boolean bulk;
+
+  /**
+   * Begins the event of a reservation about to be executed.
+   *
+   * @param backend   the name of the external inventory, or {@code null} if the item resolves to none
+   * @param itemCount the number of order items reserved
+   * @param bulk      whether the items are reserved with a single bulk reservation
+   * @return the event, begun if a recording enables it
+   */
+  public static ItemReservationEvent start(String backend, int itemCount, boolean bulk) {
+    ItemReservationEvent event = new ItemReservationEvent();
+    if (event.isEnabled()) {
+      event.backend = backend;
+      event.itemCount = itemCount;
+      event.bulk = bulk;
+      event.begin();
+    }
+    return event;
+  }
+}
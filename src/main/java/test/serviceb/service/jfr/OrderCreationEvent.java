@@ -0,0 +1,53 @@
+package test.serviceb.service.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The OrderCreationEvent class records the creation of one order, from receiving it until it was
+ * persisted or rejected, including the reservations of its items.
+ */
+@Name("test.serviceb.OrderCreation")
+@Label("Order Creation")
+@Description("Creation of an order, from receiving it until it was persisted or rejected")
+public class OrderCreationEvent extends OrderServiceEvent {
+
+  @Label("Order ID")
+  @Description("ID of the created order, or 0 if it was not created")
+  private int orderId;
+
+  @Label("Item Count")
+  @Description("Number of order items to reserve")
+  private int itemCount;
+
+  @Label("Idempotent")
+  @Description("Whether the order was sent with an Idempotency-Key")
+  private boolean idempotent;
+
+  /**
+   * Begins the event of an order about to be created.
+   *
+   * @param itemCount  the number of order items to reserve
+   * @param idempotent whether the order was sent with an idempotency key
+   * @return the event, begun if a recording enables it
+   */
+  public static OrderCreationEvent start(int itemCount, boolean idempotent) {
+    OrderCreationEvent event = new OrderCreationEvent();
+    if (event.isEnabled()) {
+      event.itemCount = itemCount;
+      event.idempotent = idempotent;
+      event.begin();
+    }
+    return event;
+  }
+
+  /**
+   * Remembers the ID of the created order.
+   *
+   * @param orderId the ID of the order
+   */
+  public void created(int orderId) {
+    this.orderId = orderId;
+  }
+}
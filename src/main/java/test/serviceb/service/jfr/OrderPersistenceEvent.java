@@ -0,0 +1,53 @@
+package test.serviceb.service.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The OrderPersistenceEvent class records writing new orders and their order items to the
+ * database, either one order or a chunk of a bulk import in a single transaction.
+ */
+@Name("test.serviceb.OrderPersistence")
+@Label("Order Persistence")
+@Description("Insertion of new orders and their order items into the database")
+public class OrderPersistenceEvent extends OrderServiceEvent {
+
+  @Label("Order ID")
+  @Description("ID of the first persisted order, or 0 if none was persisted")
+  private int orderId;
+
+  @Label("Order Count")
+  @Description("Number of orders persisted in the transaction")
+  private int orderCount;
+
+  @Label("Item Count")
+  @Description("Number of order items persisted with the orders")
+  private int itemCount;
+
+  /**
+   * Begins the event of orders about to be persisted.
+   *
+   * @param orderCount the number of orders
+   * @param itemCount  the number of their order items
+   * @return the event, begun if a recording enables it
+   */
+  public static OrderPersistenceEvent start(int orderCount, int itemCount) {
+    OrderPersistenceEvent event = new OrderPersistenceEvent();
+    if (event.isEnabled()) {
+      event.orderCount = orderCount;
+      event.itemCount = itemCount;
+      event.begin();
+    }
+    return event;
+  }
+
+  /**
+   * Remembers the ID of the first persisted order.
+   *
+   * @param orderId the ID of the order
+   */
+  public void persisted(int orderId) {
+    this.orderId = orderId;
+  }
+}
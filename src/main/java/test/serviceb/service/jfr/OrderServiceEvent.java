@@ -0,0 +1,73 @@
+package test.serviceb.service.jfr;
+
+import java.util.function.Supplier;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import reactor.core.publisher.Mono;
+
+/**
+ * The OrderServiceEvent class is the base of the Java Flight Recorder events emitted by the order
+ * service. Each event covers one step of the lifecycle of an order, from {@link #begin()} until it
+ * is committed, and records the exception the step failed with, if any. An event is only filled
+ * in, begun and committed while a recording enables it; otherwise {@link #isEnabled()} is checked
+ * once and the step runs unobserved, so the events cost next to nothing in production until a
+ * recording is started, e.g. through {@code /actuator/jfr}.
+ * Stack traces are not recorded, as every event is emitted from a single place.
+ */
+@Category({"Service B", "Orders"})
+@StackTrace(false)
+public abstract class OrderServiceEvent extends Event {
+
+  // not private, as Flight Recorder only records the fields of an event superclass visible to its subclasses
+  @Label("Failure")
+  @Description("Simple name of the exception the step failed with, or null if it succeeded")
+  protected String failure;
+
+  /**
+   * Remembers that the step failed.
+   *
+   * @param cause the exception the step failed with
+   */
+  public void failed(Throwable cause) {
+    failure = cause.getClass().getSimpleName();
+  }
+
+  /**
+   * Executes a step and commits the event once it returned or failed, unless the event is disabled.
+   *
+   * @param step the step, executed after the event began
+   * @param <T>  the type of the result of the step
+   * @return the result of the step
+   */
+  public <T> T observe(Supplier<T> step) {
+    if (!isEnabled()) {
+      return step.get();
+    }
+    try {
+      return step.get();
+    } catch (RuntimeException e) {
+      failed(e);
+      throw e;
+    } finally {
+      commit();
+    }
+  }
+
+  /**
+   * Commits the event once a reactive step completed, failed or was cancelled, unless the event is disabled.
+   *
+   * @param step the step, subscribed to after the event began
+   * @param <T>  the type of the result of the step
+   * @return a {@link Mono} emitting the result of the step
+   */
+  public <T> Mono<T> observe(Mono<T> step) {
+    if (!isEnabled()) {
+      return step;
+    }
+    return step.doOnError(this::failed).doFinally(signal -> commit());
+  }
+}
@@ -0,0 +1,57 @@
+package test.serviceb.service.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The RestockEvent class records one attempt to put the quantity of an order item back into the
+ * stock of its external inventory, when an order is cancelled or could not be created.
+ */
+@Name("test.serviceb.Restock")
+@Label("Restock")
+@Description("Return of the quantity of an order item to its external inventory")
+public class RestockEvent extends OrderServiceEvent {
+
+  @Label("Backend")
+  @Description("Name of the external inventory, or null if the item resolves to none")
+  private String backend;
+
+  @Label("Item ID")
+  private int itemId;
+
+  @Label("Item Name")
+  private String itemName;
+
+  @Label("Quantity")
+  @Description("Quantity returned to the stock")
+  private int quantity;
+
+  /**
+   * Begins the event of a restock about to be sent.
+   *
+   * @param itemId   the ID of the item
+   * @param itemName the name of the item
+   * @param quantity the quantity returned to the stock
+   * @return the event, begun if a recording enables it
+   */
+  public static RestockEvent start(int itemId, String itemName, int quantity) {
+    RestockEvent event = new RestockEvent();
+    if (event.isEnabled()) {
+      event.itemId = itemId;
+      event.itemName = itemName;
+      event.quantity = quantity;
+      event.begin();
+    }
+    return event;
+  }
+
+  /**
+   * Remembers the external inventory the item was resolved to.
+   *
+   * @param backend the name of the external inventory
+   */
+  public void resolved(String backend) {
+    this.backend = backend;
+  }
+}
@@ -0,0 +1,251 @@
+package test.serviceb.service.timing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+/**
+ * The ServerTiming class breaks the latency of one request into the phases it spent its time in,
+ * such as validating the order, routing its items, every request sent to an inventory, persisting
+ * the order and serializing the response. The phases are rendered as the value of a
+ * {@code Server-Timing} header, so that the breakdown of a slow request can be read from the
+ * response itself.
+ * A timing is bound to the thread handling the request while it is measured; the phases recorded
+ * without a bound timing, such as those of the reactive API or of background work, cost a single
+ * thread local lookup. Work continued on other threads is measured as well when it is started
+ * with {@link #propagate(Callable)}, and requests sent to an inventory when their {@link Mono} is
+ * subscribed to with {@link #inherit(Mono)}. All durations are taken from {@link System#nanoTime()}.
+ */
+public final class ServerTiming {
+
+  private static final ThreadLocal<ServerTiming> BOUND = new ThreadLocal<>();
+  private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+  private final long started = System.nanoTime();
+  private final List<Phase> phases = new ArrayList<>();
+  private final Map<String, Long> running = new ConcurrentHashMap<>();
+  private long elapsed = -1;
+
+  /**
+   * Constructs an instance of ServerTiming.
+   */
+  private ServerTiming() {
+    // created by start()
+  }
+
+  /**
+   * Starts measuring a request and binds the new timing to the current thread.
+   *
+   * @return the timing of the request
+   */
+  public static ServerTiming start() {
+    ServerTiming timing = new ServerTiming();
+    BOUND.set(timing);
+    return timing;
+  }
+
+  /**
+   * Retrieves the timing bound to the current thread.
+   *
+   * @return the timing of the request handled by the current thread, or {@code null} if none is measured
+   */
+  public static ServerTiming current() {
+    return BOUND.get();
+  }
+
+  /**
+   * Retrieves the timing a {@link Mono} was subscribed to with by {@link #inherit(Mono)}.
+   *
+   * @param context the context of the subscription
+   * @return the timing of the request the subscription belongs to, or {@code null} if none is measured
+   */
+  public static ServerTiming from(ContextView context) {
+    return context.getOrDefault(ServerTiming.class, null);
+  }
+
+  /**
+   * Measures an action as a phase of the timing bound to the current thread, if any.
+   *
+   * @param name   the name of the phase
+   * @param action the action to measure
+   * @param <T>    the result type of the action
+   * @return the result of the action
+   */
+  public static <T> T time(String name, Supplier<T> action) {
+    ServerTiming timing = BOUND.get();
+    if (timing == null) {
+      return action.get();
+    }
+    long begin = System.nanoTime();
+    try {
+      return action.get();
+    } finally {
+      timing.record(name, null, System.nanoTime() - begin);
+    }
+  }
+
+  /**
+   * Wraps a task so that it records its phases in the timing bound to the current thread, when it
+   * runs on another thread.
+   *
+   * @param task the task to run on another thread
+   * @param <T>  the result type of the task
+   * @return the task itself if no timing is bound to the current thread, otherwise a task binding it while it runs
+   */
+  public static <T> Callable<T> propagate(Callable<T> task) {
+    ServerTiming timing = BOUND.get();
+    if (timing == null) {
+      return task;
+    }
+    return () -> {
+      ServerTiming previous = BOUND.get();
+      BOUND.set(timing);
+      try {
+        return task.call();
+      } finally {
+        restore(previous);
+      }
+    };
+  }
+
+  /**
+   * Makes the timing bound to the current thread available to the requests a {@link Mono} sends,
+   * including those resubscribed on other threads when they are retried or hedged.
+   *
+   * @param request the requests to an inventory, typically about to be blocked on
+   * @param <T>     the type of the result
+   * @return a {@link Mono} carrying the timing in its context
+   */
+  public static <T> Mono<T> inherit(Mono<T> request) {
+    ServerTiming timing = BOUND.get();
+    return timing == null ? request : request.contextWrite(context -> context.put(ServerTiming.class, timing));
+  }
+
+  /**
+   * Records a phase that has completed.
+   *
+   * @param name        the name of the phase, a token as defined by the HTTP specification
+   * @param description a description telling apart several phases of the same name, or {@code null}
+   * @param nanos       the duration of the phase in nanoseconds
+   */
+  public void record(String name, String description, long nanos) {
+    Phase phase = new Phase(name, description, nanos);
+    synchronized (phases) {
+      phases.add(phase);
+    }
+  }
+
+  /**
+   * Begins a phase that lasts until the timing is stopped, such as writing the response.
+   *
+   * @param name the name of the phase
+   */
+  public void begin(String name) {
+    running.putIfAbsent(name, System.nanoTime());
+  }
+
+  /**
+   * Unbinds the timing from the current thread without stopping it, while its request waits for an
+   * asynchronous result.
+   */
+  public void suspend() {
+    restore(null);
+  }
+
+  /**
+   * Binds the timing to the current thread again, once the asynchronous result of its request is
+   * written on that thread.
+   */
+  public void resume() {
+    BOUND.set(this);
+  }
+
+  /**
+   * Stops measuring the request, ends the phases begun and unbinds the timing from the current thread.
+   * Stopping the timing again has no effect.
+   */
+  public void stop() {
+    restore(null);
+    if (elapsed >= 0) {
+      return;
+    }
+    long now = System.nanoTime();
+    running.forEach((name, begin) -> record(name, null, now - begin));
+    running.clear();
+    elapsed = now - started;
+  }
+
+  /**
+   * Retrieves the phases recorded so far, in the order they completed.
+   *
+   * @return a snapshot of the phases
+   */
+  public List<Phase> getPhases() {
+    synchronized (phases) {
+      return List.copyOf(phases);
+    }
+  }
+
+  /**
+   * Renders the phases recorded so far as the value of a {@code Server-Timing} header, followed by
+   * the total time of the request once the timing was stopped. Durations are given in milliseconds.
+   *
+   * @return the header value, e.g. {@code validation;dur=0.412, inventory;desc="alpha GET 200";dur=4.870}
+   */
+  public String header() {
+    StringBuilder header = new StringBuilder();
+    for (Phase phase : getPhases()) {
+      phase.appendTo(header);
+    }
+    if (elapsed >= 0) {
+      new Phase("total", null, elapsed).appendTo(header);
+    }
+    return header.toString();
+  }
+
+  /**
+   * Rebinds the timing that was bound to the current thread before.
+   *
+   * @param previous the timing to bind, or {@code null} to unbind any
+   */
+  private static void restore(ServerTiming previous) {
+    if (previous == null) {
+      BOUND.remove();
+    } else {
+      BOUND.set(previous);
+    }
+  }
+
+  /**
+   * A completed phase of a request.
+   *
+   * @param name        the name of the phase
+   * @param description the description telling apart several phases of the same name, or {@code null}
+   * @param nanos       the duration of the phase in nanoseconds
+   */
+  public record Phase(String name, String description, long nanos) {
+
+    /**
+     * Appends the phase as one metric of a {@code Server-Timing} header.
+     *
+     * @param header the header rendered so far
+     */
+    private void appendTo(StringBuilder header) {
+      if (!header.isEmpty()) {
+        header.append(", ");
+      }
+      header.append(name);
+      if (description != null) {
+        header.append(";desc=\"").append(description.replace("\"", "'")).append('"');
+      }
+      header.append(";dur=").append(String.format(Locale.ROOT, "%.3f", nanos / NANOS_PER_MILLI));
+    }
+  }
+}
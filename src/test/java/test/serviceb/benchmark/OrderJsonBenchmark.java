@@ -0,0 +1,90 @@
+package test.serviceb.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import test.serviceb.domain.OrderItem;
+import test.serviceb.domain.Orders;
+import test.serviceb.domain.Status;
+import test.serviceb.domain.dto.OrderDto;
+import test.serviceb.domain.dto.OrderItemDto;
+
+/**
+ * Measures the JSON mapping of every order request and response: reading an {@link OrderDto}
+ * request body and writing a created {@link Orders}, as well as reading an {@link Orders}, as the
+ * clients of the API do. The {@link ObjectMapper} is built with the defaults Spring Boot applies.
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=OrderJsonBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderJsonBenchmark {
+
+  @Param({"1", "10"})
+  private int items;
+
+  private ObjectWriter ordersWriter;
+  private ObjectReader ordersReader;
+  private ObjectReader orderDtoReader;
+  private Orders order;
+  private byte[] orderJson;
+  private byte[] orderDtoJson;
+
+  @Setup
+  public void setUp() throws IOException {
+    ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+    ordersWriter = mapper.writerFor(Orders.class);
+    ordersReader = mapper.readerFor(Orders.class);
+    orderDtoReader = mapper.readerFor(OrderDto.class);
+
+    List<OrderItemDto> itemDtos = new ArrayList<>();
+    order = new Orders();
+    order.setTotalPrice(10.0 * items);
+    order.setStatus(Status.CONFIRMED);
+    ReflectionTestUtils.setField(order, "id", 42);
+    for (int i = 0; i < items; i++) {
+      itemDtos.add(new OrderItemDto(i, "item-" + i + "-inventory-alpha", 2.5 + i, 1 + i));
+      OrderItem orderItem = new OrderItem(i, "item-" + i + "-inventory-alpha", 1 + i, 2.5 + i);
+      ReflectionTestUtils.setField(orderItem, "id", 100 + i);
+      order.addOrderItem(orderItem);
+    }
+    orderJson = ordersWriter.writeValueAsBytes(order);
+    orderDtoJson = mapper.writeValueAsBytes(new OrderDto(10.0 * items, "CONFIRMED", itemDtos));
+  }
+
+  @Benchmark
+  public OrderDto readOrderDto() throws IOException {
+    return orderDtoReader.readValue(orderDtoJson);
+  }
+
+  @Benchmark
+  public byte[] writeOrders() throws IOException {
+    return ordersWriter.writeValueAsBytes(order);
+  }
+
+  @Benchmark
+  public Orders readOrders() throws IOException {
+    return ordersReader.readValue(orderJson);
+  }
+}
@@ -0,0 +1,172 @@
+package test.serviceb.benchmark;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.reactive.function.client.WebClient;
+import test.serviceb.domain.OrderItem;
+import test.serviceb.domain.Orders;
+import test.serviceb.domain.Status;
+import test.serviceb.domain.dto.ExternalInventory;
+import test.serviceb.domain.dto.OrderDto;
+import test.serviceb.domain.dto.OrderItemDto;
+import test.serviceb.service.converter.ConversionProperties;
+import test.serviceb.service.converter.ExternalInventoryConverter;
+import test.serviceb.service.impl.OrderServiceImpl;
+import test.serviceb.service.inventory.InventoryBackend;
+
+/**
+ * Measures the per-request work of {@link OrderServiceImpl} that does not leave the JVM: resolving
+ * the inventory of an item, parsing the status of an {@link OrderDto} and mapping a reserved
+ * {@link OrderDto} to a new {@link Orders}, plus parsing an inventory with
+ * {@link ExternalInventoryConverter}. The private steps of the service are called through method
+ * handles on a service built without repositories, so the measured code is the production code.
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=OrderMappingBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderMappingBenchmark {
+
+  private static final int ITEM_NAMES = 1024;
+  private static final String[] STATUSES = {"CONFIRMED", "shipped", "Cancelled", "unknown"};
+  private static final MethodHandle FIND_BACKEND;
+  private static final MethodHandle STATUS_OF;
+  private static final MethodHandle SHARE_OF;
+  private static final MethodHandle NEW_ORDER;
+
+  static {
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(OrderServiceImpl.class, MethodHandles.lookup());
+      FIND_BACKEND = lookup.findVirtual(OrderServiceImpl.class, "findBackend",
+          MethodType.methodType(InventoryBackend.class, String.class));
+      STATUS_OF = lookup.findVirtual(OrderServiceImpl.class, "getStatusFromOrderDto",
+          MethodType.methodType(Status.class, OrderDto.class));
+      SHARE_OF = lookup.findStatic(OrderServiceImpl.class, "shareOf",
+          MethodType.methodType(OrderItem.class, OrderItem.class, OrderItemDto.class));
+      NEW_ORDER = lookup.findVirtual(OrderServiceImpl.class, "newOrder",
+          MethodType.methodType(Orders.class, OrderDto.class, List.class));
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  @Param({"100"})
+  private int backends;
+
+  private final String[] itemNames = new String[ITEM_NAMES];
+  private final OrderDto[] orders = new OrderDto[STATUSES.length];
+  private final ExternalInventoryConverter converter = new ExternalInventoryConverter();
+  private OrderServiceImpl orderService;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    ConversionProperties properties = new ConversionProperties();
+    while (properties.getExternalInventory().size() < backends) {
+      String name = "inventory-" + randomWord(random);
+      properties.getExternalInventory().put(name, new ExternalInventory(name, "http://localhost:1"));
+    }
+    String[] names = properties.getExternalInventory().keySet().toArray(String[]::new);
+    for (int i = 0; i < ITEM_NAMES; i++) {
+      itemNames[i] = "item-" + i + "-" + names[random.nextInt(names.length)] + "-" + randomWord(random);
+    }
+    orderService = new OrderServiceImpl(null, null, null, null, null, properties, WebClient.builder());
+    List<OrderItemDto> itemDtos = List.of(new OrderItemDto(1, itemNames[1], 2.5, 1));
+    for (int i = 0; i < STATUSES.length; i++) {
+      orders[i] = new OrderDto(10.0, STATUSES[i], itemDtos);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    orderService.shutdown();
+  }
+
+  @Benchmark
+  public InventoryBackend findBackend() throws Throwable {
+    return (InventoryBackend) FIND_BACKEND.invokeExact(orderService, nextItemName());
+  }
+
+  @Benchmark
+  public Status statusOf() throws Throwable {
+    return (Status) STATUS_OF.invokeExact(orderService, nextOrder());
+  }
+
+  @Benchmark
+  public Orders newOrder(Reservation reservation) throws Throwable {
+    List<OrderItemDto> itemDtos = reservation.order.getItems();
+    List<OrderItem> orderItems = new ArrayList<>(itemDtos.size());
+    for (int i = 0; i < itemDtos.size(); i++) {
+      orderItems.add((OrderItem) SHARE_OF.invokeExact(reservation.reserved.get(i), itemDtos.get(i)));
+    }
+    return (Orders) NEW_ORDER.invokeExact(orderService, reservation.order, (List<?>) orderItems);
+  }
+
+  @Benchmark
+  public ExternalInventory convertExternalInventory() {
+    return converter.convert(nextItemName() + ",http://localhost:8082");
+  }
+
+  private String nextItemName() {
+    next = (next + 1) & (ITEM_NAMES - 1);
+    return itemNames[next];
+  }
+
+  private OrderDto nextOrder() {
+    next = (next + 1) & (ITEM_NAMES - 1);
+    return orders[next & (STATUSES.length - 1)];
+  }
+
+  private static String randomWord(Random random) {
+    StringBuilder word = new StringBuilder();
+    for (int i = 0; i < 6; i++) {
+      word.append((char) ('a' + random.nextInt(26)));
+    }
+    return word.toString();
+  }
+
+  /**
+   * An order whose items were reserved, to be mapped to a new {@link Orders}.
+   */
+  @State(Scope.Benchmark)
+  public static class Reservation {
+
+    @Param({"1", "10"})
+    private int items;
+
+    private final List<OrderItem> reserved = new ArrayList<>();
+    private OrderDto order;
+
+    @Setup
+    public void setUp() {
+      List<OrderItemDto> itemDtos = new ArrayList<>();
+      for (int i = 0; i < items; i++) {
+        itemDtos.add(new OrderItemDto(i, "item-" + i + "-inventory-alpha", 2.5 + i, 1 + i));
+        reserved.add(new OrderItem(i, "item-" + i + "-inventory-alpha", 1000, 2.5 + i));
+      }
+      order = new OrderDto(10.0 * items, "CONFIRMED", itemDtos);
+    }
+  }
+}
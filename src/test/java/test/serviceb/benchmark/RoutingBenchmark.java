@@ -0,0 +1,86 @@
+package test.serviceb.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import test.serviceb.service.inventory.RoutingIndex;
+
+/**
+ * Compares resolving item names to backends with {@link RoutingIndex} against the linear
+ * {@code contains} scan over all backend names that the order service used before.
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=RoutingBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoutingBenchmark {
+
+  private static final int ITEM_NAMES = 1024;
+
+  @Param({"100"})
+  private int backends;
+
+  private final Map<String, String> routes = new HashMap<>();
+  private final String[] itemNames = new String[ITEM_NAMES];
+  private RoutingIndex<String> index;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    while (routes.size() < backends) {
+      String name = "inventory-" + randomWord(random);
+      routes.put(name, name);
+    }
+    String[] names = routes.keySet().toArray(String[]::new);
+    for (int i = 0; i < ITEM_NAMES; i++) {
+      itemNames[i] = "item-" + i + "-" + names[random.nextInt(names.length)] + "-" + randomWord(random);
+    }
+    index = new RoutingIndex<>(routes);
+  }
+
+  @Benchmark
+  public String linearScan() {
+    String itemName = nextItemName();
+    for (Map.Entry<String, String> entry : routes.entrySet()) {
+      if (itemName.contains(entry.getKey())) {
+        return entry.getValue();
+      }
+    }
+    return null;
+  }
+
+  @Benchmark
+  public String routingIndex() {
+    return index.find(nextItemName());
+  }
+
+  private String nextItemName() {
+    next = (next + 1) & (ITEM_NAMES - 1);
+    return itemNames[next];
+  }
+
+  private static String randomWord(Random random) {
+    StringBuilder word = new StringBuilder();
+    for (int i = 0; i < 6; i++) {
+      word.append((char) ('a' + random.nextInt(26)));
+    }
+    return word.toString();
+  }
+}
@@ -0,0 +1,135 @@
+package test.serviceb.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import test.serviceb.domain.Item;
+import test.serviceb.repository.OrdersRepository;
+import test.serviceb.support.StubInventoryServer;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb-controller-bulk-create-order-integration",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "external.inventory.itemCache.maxSize=0"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BulkCreateOrderIntegrationTest {
+
+  private static final StubInventoryServer ALPHA = StubInventoryServer.start(true);
+  private static final String ORDER = """
+      {"totalPrice": 10.0, "status": "CONFIRMED", "items": [
+        {"itemId": 1, "itemName": "alpha-widget", "price": 2.5, "quantity": %d},
+        {"itemId": 2, "itemName": "alpha-gizmo", "price": 4.0, "quantity": 1}]}""";
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private OrdersRepository ordersRepository;
+
+  @DynamicPropertySource
+  static void externalInventories(DynamicPropertyRegistry registry) {
+    registry.add("external.inventory.externalInventory.alpha", () -> "alpha," + ALPHA.url());
+  }
+
+  @AfterAll
+  static void stopInventories() {
+    ALPHA.close();
+  }
+
+  @BeforeEach
+  void setUp() {
+    ordersRepository.deleteAll();
+    ALPHA.reset();
+    ALPHA.addItem(new Item(1, "alpha-widget", 100, 2.5, "widget"));
+    ALPHA.addItem(new Item(2, "alpha-gizmo", 100, 4.0, "gizmo"));
+  }
+
+  @Test
+  @DisplayName("POST /api/order/bulk with a JSON array should stream one result per order")
+  void createOrders_jsonArray_streamsResults() throws Exception {
+    String invalid = """
+        {"totalPrice": 10.0, "status": "", "items": []}""";
+    String payload = "[" + ORDER.formatted(1) + "," + invalid + "," + ORDER.formatted(3) + "]";
+
+    List<JsonNode> results = bulk(MediaType.APPLICATION_JSON, payload);
+
+    assertThat(results).extracting(result -> result.get("index").asInt()).containsExactly(0, 1, 2);
+    assertThat(results).extracting(result -> result.get("status").asInt()).containsExactly(201, 400, 201);
+    assertThat(results.get(1).get("errors").has("status")).isTrue();
+    assertThat(results.get(1).get("errors").has("items")).isTrue();
+    assertThat(results.get(1).has("orderId")).isFalse();
+    assertThat(ordersRepository.findAll()).extracting(order -> order.getId())
+        .containsExactlyInAnyOrder(results.get(0).get("orderId").asInt(), results.get(2).get("orderId").asInt());
+    assertThat(ALPHA.item(1).getStock()).isEqualTo(96);
+    assertThat(ALPHA.item(2).getStock()).isEqualTo(98);
+  }
+
+  @Test
+  @DisplayName("POST /api/order/bulk with NDJSON should create the orders before a malformed line and report it")
+  void createOrders_ndjsonWithMalformedLine_reportsIt() throws Exception {
+    String payload = ORDER.formatted(1).replace("\n", "") + "\n"
+        + ORDER.formatted(2).replace("\n", "") + "\n"
+        + "{\"totalPrice\": \"expensive\"}\n"
+        + ORDER.formatted(4).replace("\n", "") + "\n";
+
+    List<JsonNode> results = bulk(MediaType.APPLICATION_NDJSON, payload);
+
+    assertThat(results).extracting(result -> result.get("status").asInt()).containsExactly(201, 201, 400);
+    assertThat(results.get(2).get("index").asInt()).isEqualTo(2);
+    assertThat(results.get(2).get("error").asText()).startsWith("Malformed order");
+    assertThat(ordersRepository.count()).isEqualTo(2);
+    assertThat(ALPHA.item(1).getStock()).isEqualTo(97);
+  }
+
+  @Test
+  @DisplayName("POST /api/order/bulk with an empty array should answer with an empty stream")
+  void createOrders_emptyArray_noResults() throws Exception {
+    assertThat(bulk(MediaType.APPLICATION_JSON, "[]")).isEmpty();
+    assertThat(ordersRepository.count()).isZero();
+  }
+
+  private List<JsonNode> bulk(MediaType contentType, String payload) throws Exception {
+    MvcResult started = mockMvc.perform(post("/api/order/bulk").contentType(contentType).content(payload))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    String body = mockMvc.perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+        .andReturn().getResponse().getContentAsString();
+    return body.lines().map(this::parse).toList();
+  }
+
+  private JsonNode parse(String line) {
+    try {
+      return objectMapper.readTree(line);
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -22,6 +22,7 @@ import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -63,7 +64,7 @@ class CreateOrderIntegrationTest {
     OrderItem oi = new OrderItem(1, "alpha-widget", 3, 9.99);
     saved.addOrderItem(oi);
     // mock service
-    given(orderService.createOrder(any(OrderDto.class))).willReturn(saved);
+    given(orderService.createOrder(any(OrderDto.class), isNull())).willReturn(saved);
 
     // When & Then
     mockMvc.perform(post("/api/order")
@@ -93,7 +94,7 @@ class CreateOrderIntegrationTest {
     saved.setTotalPrice(42.5);
     saved.setStatus(Status.SHIPPED);
     saved.addOrderItem(new OrderItem(7, "beta-gadget", 10, 4.25));
-    given(orderService.createOrder(any(OrderDto.class))).willReturn(saved);
+    given(orderService.createOrder(any(OrderDto.class), isNull())).willReturn(saved);
 
     // When
     mockMvc.perform(post("/api/order")
@@ -103,7 +104,7 @@ class CreateOrderIntegrationTest {
 
     // Then capture and assert the DTO passed into the service
     ArgumentCaptor<OrderDto> captor = ArgumentCaptor.forClass(OrderDto.class);
-    verify(orderService).createOrder(captor.capture());
+    verify(orderService).createOrder(captor.capture(), isNull());
     OrderDto captured = captor.getValue();
     assertThat(captured.getTotalPrice()).isEqualTo(42.5);
     assertThat(captured.getStatus()).isEqualTo("SHIPPED");
@@ -154,7 +155,7 @@ class CreateOrderIntegrationTest {
     String json = objectMapper.writeValueAsString(dto);
 
     // Service throws a ResponseStatusException
-    given(orderService.createOrder(any(OrderDto.class)))
+    given(orderService.createOrder(any(OrderDto.class), isNull()))
         .willThrow(new org.springframework.web.server.ResponseStatusException(
             org.springframework.http.HttpStatus.NOT_FOUND,
             "Item with ID 1 not found"));
@@ -178,7 +179,7 @@ class CreateOrderIntegrationTest {
     saved.setTotalPrice(15.0);
     saved.setStatus(Status.CONFIRMED);
     saved.addOrderItem(new OrderItem(3, "gamma-widget", 3, 0.0));
-    given(orderService.createOrder(any(OrderDto.class))).willReturn(saved);
+    given(orderService.createOrder(any(OrderDto.class), isNull())).willReturn(saved);
 
     mockMvc.perform(post("/api/order")
             .contentType(MediaType.APPLICATION_JSON)
@@ -204,7 +205,7 @@ class CreateOrderIntegrationTest {
     saved.setStatus(Status.CONFIRMED);
     saved.addOrderItem(new OrderItem(11, "alpha-widget", 2, 5.0));
     saved.addOrderItem(new OrderItem(22, "beta-gadget", 1, 10.0));
-    given(orderService.createOrder(any(OrderDto.class))).willReturn(saved);
+    given(orderService.createOrder(any(OrderDto.class), isNull())).willReturn(saved);
 
     mockMvc.perform(post("/api/order")
             .contentType(MediaType.APPLICATION_JSON)
@@ -0,0 +1,110 @@
+package test.serviceb.controller;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import test.serviceb.ServiceBApplication;
+import test.serviceb.domain.Item;
+import test.serviceb.support.StubInventoryServer;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the throughput of POST /api/order with request handling and item reservations on
+ * virtual threads against the default Tomcat pool of 200 platform threads.
+ * Every inventory call takes {@link #LATENCY}, so the platform thread pool is the bottleneck.
+ * Run with {@code mvn -Pload-test test}.
+ */
+@Tag("load")
+class CreateOrderLoadTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CreateOrderLoadTest.class);
+  private static final int REQUESTS = 1000;
+  private static final Duration LATENCY = Duration.ofMillis(50);
+
+  @Test
+  @DisplayName("1k concurrent POST /api/order should complete faster on virtual threads than on the Tomcat pool")
+  void createOrder_virtualThreadsVersusTomcatPool() throws Exception {
+    try (StubInventoryServer inventory = StubInventoryServer.start(false)) {
+      double platform = ordersPerSecond(inventory, false);
+      double virtual = ordersPerSecond(inventory, true);
+
+      if (LOG.isInfoEnabled()) {
+        LOG.info("POST /api/order x {}: Tomcat pool {} orders/s, virtual threads {} orders/s",
+            REQUESTS, Math.round(platform), Math.round(virtual));
+      }
+      assertThat(virtual).isGreaterThan(platform);
+    }
+  }
+
+  /**
+   * Starts the application in the given execution mode and measures the throughput of
+   * {@link #REQUESTS} concurrent order creations.
+   */
+  private double ordersPerSecond(StubInventoryServer inventory, boolean virtualThreads) throws Exception {
+    inventory.reset();
+    inventory.setLatency(LATENCY);
+    for (int id = 1; id <= REQUESTS; id++) {
+      inventory.addItem(new Item(id, "shop-item-" + id, 10, 1.0, "load test item"));
+    }
+    try (ConfigurableApplicationContext app = new SpringApplicationBuilder(ServiceBApplication.class)
+        .profiles("test")
+        .properties(
+            "server.port=0",
+            "spring.datasource.url=jdbc:h2:mem:testdb-load-" + virtualThreads,
+            "spring.jpa.hibernate.ddl-auto=create-drop",
+            "spring.threads.virtual.enabled=" + virtualThreads,
+            // Only the thread model should limit the throughput, not the per-backend cap
+            "external.inventory.maxPerBackend=" + REQUESTS,
+            "external.inventory.externalInventory.shop=shop," + inventory.url())
+        .run();
+         ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+         HttpClient http = HttpClient.newBuilder()
+             .version(HttpClient.Version.HTTP_1_1)
+             .executor(clients)
+             .build()) {
+      URI uri = URI.create("http://localhost:" + app.getEnvironment().getProperty("local.server.port") + "/api/order");
+      // Warm up the application before measuring
+      assertThat(send(http, uri, REQUESTS)).isEqualTo(201);
+
+      long start = System.nanoTime();
+      List<Future<Integer>> statuses = new ArrayList<>(REQUESTS);
+      for (int id = 1; id < REQUESTS; id++) {
+        int itemId = id;
+        statuses.add(clients.submit(() -> send(http, uri, itemId)));
+      }
+      for (Future<Integer> status : statuses) {
+        assertThat(status.get()).isEqualTo(201);
+      }
+      double seconds = (System.nanoTime() - start) / 1e9;
+      return (REQUESTS - 1) / seconds;
+    }
+  }
+
+  private int send(HttpClient http, URI uri, int itemId) throws Exception {
+    String payload = """
+        {"totalPrice": 1.0, "status": "CONFIRMED",
+         "items": [{"itemId": %d, "itemName": "shop-item-%d", "price": 1.0, "quantity": 1}]}
+        """.formatted(itemId, itemId);
+    HttpRequest request = HttpRequest.newBuilder(uri)
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(payload))
+        .build();
+    return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+  }
+}
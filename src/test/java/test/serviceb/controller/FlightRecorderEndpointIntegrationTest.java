@@ -0,0 +1,109 @@
+package test.serviceb.controller;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import test.serviceb.config.FlightRecorderEndpoint;
+import test.serviceb.domain.Item;
+import test.serviceb.support.StubInventoryServer;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb-controller-flight-recorder-endpoint-integration",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "management.endpoints.web.exposure.include=health,jfr"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class FlightRecorderEndpointIntegrationTest {
+
+  private static final String ENDPOINT = "/actuator/jfr";
+  private static final StubInventoryServer ALPHA = StubInventoryServer.start(false);
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private FlightRecorderEndpoint endpoint;
+
+  @TempDir
+  private Path tempDir;
+
+  @DynamicPropertySource
+  static void externalInventories(DynamicPropertyRegistry registry) {
+    registry.add("external.inventory.externalInventory.alpha", () -> "alpha," + ALPHA.url());
+  }
+
+  @AfterAll
+  static void stopInventories() {
+    ALPHA.close();
+  }
+
+  @AfterEach
+  void tearDown() {
+    endpoint.close();
+  }
+
+  @Test
+  @DisplayName("A recording started through the endpoint should be downloadable with the order events")
+  void startStopDump_recordsOrderEvents() throws Exception {
+    ALPHA.reset();
+    ALPHA.addItem(new Item(1, "alpha-widget", 10, 2.5, "widget"));
+    mockMvc.perform(get(ENDPOINT)).andExpect(status().isNotFound());
+
+    mockMvc.perform(post(ENDPOINT).contentType(MediaType.APPLICATION_JSON).content("{\"maxAge\": \"5m\"}"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.name").value("order-service"))
+        .andExpect(jsonPath("$.state").value("RUNNING"));
+    mockMvc.perform(post(ENDPOINT).contentType(MediaType.APPLICATION_JSON).content("{}"))
+        .andExpect(status().isConflict());
+    mockMvc.perform(post("/api/order").contentType(MediaType.APPLICATION_JSON).content("""
+            {"totalPrice": 5.0, "status": "CONFIRMED", "items": [
+              {"itemId": 1, "itemName": "alpha-widget", "price": 2.5, "quantity": 2}]}"""))
+        .andExpect(status().isCreated());
+    mockMvc.perform(delete(ENDPOINT))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.state").value("STOPPED"));
+    mockMvc.perform(delete(ENDPOINT)).andExpect(status().isNotFound());
+
+    byte[] dump = mockMvc.perform(get(ENDPOINT))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray();
+
+    Path file = Files.write(tempDir.resolve("dump.jfr"), dump);
+    List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+    assertThat(events).extracting(event -> event.getEventType().getName())
+        .contains("test.serviceb.OrderCreation", "test.serviceb.ItemReservation", "test.serviceb.OrderPersistence",
+            "jdk.JVMInformation");
+  }
+
+  @Test
+  @DisplayName("Starting a recording with unknown settings should be rejected")
+  void start_unknownSettings_badRequest() throws Exception {
+    mockMvc.perform(post(ENDPOINT).contentType(MediaType.APPLICATION_JSON).content("{\"settings\": \"bogus\"}"))
+        .andExpect(status().isBadRequest());
+    mockMvc.perform(get(ENDPOINT)).andExpect(status().isNotFound());
+  }
+}
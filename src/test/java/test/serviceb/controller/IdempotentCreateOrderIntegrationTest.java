@@ -0,0 +1,170 @@
+package test.serviceb.controller;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import test.serviceb.domain.Item;
+import test.serviceb.repository.IdempotentRequestRepository;
+import test.serviceb.repository.OrdersRepository;
+import test.serviceb.support.StubInventoryServer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The in-memory cache is disabled, so that every repeated request is answered from the table as
+ * it would be by another instance.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb-controller-idempotent-create-order-integration-test",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "external.inventory.itemCache.maxSize=0",
+    "order.idempotency.cacheSize=0"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class IdempotentCreateOrderIntegrationTest {
+
+  private static final StubInventoryServer INVENTORY = StubInventoryServer.start(false);
+  private static final String PAYLOAD = """
+      {
+        "totalPrice": 15.0,
+        "status": "CONFIRMED",
+        "items": [
+          {"itemId": 1, "itemName": "shop-mug", "price": 7.5, "quantity": 2}
+        ]
+      }
+      """;
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private OrdersRepository ordersRepository;
+
+  @Autowired
+  private IdempotentRequestRepository idempotentRequestRepository;
+
+  @DynamicPropertySource
+  static void externalInventories(DynamicPropertyRegistry registry) {
+    registry.add("external.inventory.externalInventory.shop", () -> "shop," + INVENTORY.url());
+  }
+
+  @AfterAll
+  static void stopInventory() {
+    INVENTORY.close();
+  }
+
+  @BeforeEach
+  void setUp() {
+    ordersRepository.deleteAll();
+    idempotentRequestRepository.deleteAll();
+    INVENTORY.reset();
+    INVENTORY.addItem(new Item(1, "shop-mug", 10, 7.5, "mug"));
+  }
+
+  @Test
+  @DisplayName("POST /api/order repeated with the same Idempotency-Key should return the first order only")
+  void createOrder_repeatedKey_returnsSameOrder() throws Exception {
+    String first = mockMvc.perform(create("key-1", PAYLOAD))
+        .andExpect(status().isCreated())
+        .andReturn().getResponse().getContentAsString();
+    int requests = INVENTORY.requests("PUT", StubInventoryServer.ITEM);
+
+    mockMvc.perform(create("key-1", PAYLOAD))
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$.orderItems[0].quantity").value(2))
+        .andExpect(result -> assertThat(result.getResponse().getContentAsString()).isEqualTo(first));
+
+    assertThat(ordersRepository.count()).isEqualTo(1);
+    assertThat(INVENTORY.item(1).getStock()).isEqualTo(8);
+    assertThat(INVENTORY.requests("PUT", StubInventoryServer.ITEM)).isEqualTo(requests);
+  }
+
+  @Test
+  @DisplayName("POST /api/order with different keys or without a key should create separate orders")
+  void createOrder_differentKeys_createSeparateOrders() throws Exception {
+    mockMvc.perform(create("key-1", PAYLOAD)).andExpect(status().isCreated());
+    mockMvc.perform(create("key-2", PAYLOAD)).andExpect(status().isCreated());
+    mockMvc.perform(post("/api/order").contentType(MediaType.APPLICATION_JSON).content(PAYLOAD))
+        .andExpect(status().isCreated());
+
+    assertThat(ordersRepository.count()).isEqualTo(3);
+    assertThat(INVENTORY.item(1).getStock()).isEqualTo(4);
+  }
+
+  @Test
+  @DisplayName("POST /api/order reusing an Idempotency-Key for another order should return 422")
+  void createOrder_keyReusedForOtherOrder_returnsUnprocessableEntity() throws Exception {
+    mockMvc.perform(create("key-1", PAYLOAD)).andExpect(status().isCreated());
+
+    mockMvc.perform(create("key-1", PAYLOAD.replace("\"quantity\": 2", "\"quantity\": 3")))
+        .andExpect(status().isUnprocessableEntity());
+
+    assertThat(ordersRepository.count()).isEqualTo(1);
+    assertThat(INVENTORY.item(1).getStock()).isEqualTo(8);
+  }
+
+  @Test
+  @DisplayName("POST /api/order should release the Idempotency-Key of a failed order so that it can be retried")
+  void createOrder_failedOrder_keyCanBeRetried() throws Exception {
+    INVENTORY.addItem(new Item(1, "shop-mug", 1, 7.5, "mug"));
+
+    mockMvc.perform(create("key-1", PAYLOAD)).andExpect(status().isBadRequest());
+    INVENTORY.addItem(new Item(1, "shop-mug", 10, 7.5, "mug"));
+
+    mockMvc.perform(create("key-1", PAYLOAD)).andExpect(status().isCreated());
+    assertThat(INVENTORY.item(1).getStock()).isEqualTo(8);
+    assertThat(ordersRepository.count()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("POST /api/order sent twice at the same time with one key should create one order and reject the other")
+  void createOrder_concurrentRepeat_rejectsSecond() throws Exception {
+    INVENTORY.setLatency(Duration.ofMillis(300));
+
+    CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> statusOf(create("key-1", PAYLOAD)));
+    Thread.sleep(Duration.ofMillis(100));
+    int second = statusOf(create("key-1", PAYLOAD));
+
+    assertThat(List.of(first.get(), second)).containsExactly(201, 409);
+    assertThat(ordersRepository.count()).isEqualTo(1);
+    assertThat(INVENTORY.item(1).getStock()).isEqualTo(8);
+  }
+
+  @Test
+  @DisplayName("POST /api/order with a blank Idempotency-Key should return 400")
+  void createOrder_blankKey_returnsBadRequest() throws Exception {
+    mockMvc.perform(create(" ", PAYLOAD)).andExpect(status().isBadRequest());
+
+    assertThat(ordersRepository.count()).isZero();
+  }
+
+  private static MockHttpServletRequestBuilder create(String key, String payload) {
+    return post("/api/order").contentType(MediaType.APPLICATION_JSON).header("Idempotency-Key", key).content(payload);
+  }
+
+  private int statusOf(MockHttpServletRequestBuilder request) {
+    try {
+      return mockMvc.perform(request).andReturn().getResponse().getStatus();
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
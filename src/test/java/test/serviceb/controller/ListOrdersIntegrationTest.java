@@ -0,0 +1,107 @@
+package test.serviceb.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import test.serviceb.domain.OrderItem;
+import test.serviceb.domain.Orders;
+import test.serviceb.domain.Status;
+import test.serviceb.repository.OrdersRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb-controller-list-orders-integration-test",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ListOrdersIntegrationTest {
+
+  private static final int ORDERS = 5;
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private OrdersRepository ordersRepository;
+
+  private final List<Integer> ids = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    ordersRepository.deleteAll();
+    ids.clear();
+    for (int i = 1; i <= ORDERS; i++) {
+      Orders order = new Orders();
+      order.setTotalPrice(i * 10.0);
+      order.setStatus(Status.CONFIRMED);
+      order.addOrderItem(new OrderItem(i, "alpha-widget-" + i, i, 10.0));
+      ids.add(ordersRepository.save(order).getId());
+    }
+  }
+
+  @Test
+  @DisplayName("GET /api/order?limit should page through the orders by ID and link the next page")
+  void getOrderPage_keysetPagination() throws Exception {
+    mockMvc.perform(get("/api/order").param("limit", "2"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(2))
+        .andExpect(jsonPath("$[0].id").value(ids.get(0)))
+        .andExpect(jsonPath("$[1].id").value(ids.get(1)))
+        .andExpect(jsonPath("$[1].orderItems[0].itemName").value("alpha-widget-2"))
+        .andExpect(header().string(HttpHeaders.LINK, "</api/order?after=" + ids.get(1) + "&limit=2>; rel=\"next\""));
+
+    mockMvc.perform(get("/api/order").param("limit", "2").param("after", String.valueOf(ids.get(3))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(1))
+        .andExpect(jsonPath("$[0].id").value(ids.get(4)))
+        .andExpect(header().string(HttpHeaders.LINK, nullValue()));
+  }
+
+  @Test
+  @DisplayName("GET /api/order?limit should reject page sizes out of range")
+  void getOrderPage_invalidLimit() throws Exception {
+    mockMvc.perform(get("/api/order").param("limit", "0"))
+        .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/api/order").param("limit", "1001"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  @DisplayName("GET /api/order with Accept application/x-ndjson should stream one order per line")
+  void streamOrders_ndjson() throws Exception {
+    MvcResult started = mockMvc.perform(get("/api/order").accept(MediaType.APPLICATION_NDJSON))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    String body = mockMvc.perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+        .andReturn().getResponse().getContentAsString();
+
+    List<String> lines = body.lines().toList();
+    assertThat(lines).hasSize(ORDERS);
+    assertThat(lines.getFirst()).contains("\"id\":" + ids.getFirst()).contains("alpha-widget-1");
+    assertThat(lines.getLast()).contains("\"id\":" + ids.getLast()).contains("alpha-widget-5");
+  }
+}
@@ -0,0 +1,193 @@
+package test.serviceb.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import test.serviceb.domain.Item;
+import test.serviceb.domain.OrderItem;
+import test.serviceb.domain.Orders;
+import test.serviceb.domain.Status;
+import test.serviceb.repository.OrdersRepository;
+import test.serviceb.support.StatementBudget;
+import test.serviceb.support.StubInventoryServer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb-controller-order-query-count-integration-test",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OrderQueryCountIntegrationTest {
+
+  private static final int FEW_ORDERS = 10;
+  private static final int MANY_ORDERS = 1000;
+  private static final int CREATE_BUDGET = 4;
+  private static final int UPDATE_BUDGET = 2;
+  private static final StubInventoryServer ALPHA = StubInventoryServer.start(false);
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private OrdersRepository ordersRepository;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private StatementBudget budget;
+
+  @DynamicPropertySource
+  static void externalInventories(DynamicPropertyRegistry registry) {
+    registry.add("external.inventory.externalInventory.alpha", () -> "alpha," + ALPHA.url());
+  }
+
+  @AfterAll
+  static void stopInventories() {
+    ALPHA.close();
+  }
+
+  @BeforeEach
+  void setUp() {
+    ordersRepository.deleteAll();
+    ALPHA.reset();
+    budget = StatementBudget.of(entityManagerFactory);
+  }
+
+  @Test
+  @DisplayName("GET /api/order should run the same number of statements for 10 and 1,000 orders")
+  void getAllOrders_constantStatementCount() throws Exception {
+    insertOrders(FEW_ORDERS);
+    long few = statementsFor(get("/api/order"), FEW_ORDERS);
+
+    insertOrders(MANY_ORDERS - FEW_ORDERS);
+    long many = statementsFor(get("/api/order"), MANY_ORDERS);
+
+    assertThat(few).isEqualTo(1);
+    assertThat(many).isEqualTo(few);
+  }
+
+  @Test
+  @DisplayName("GET /api/order?limit should load a page of 1,000 orders with two statements")
+  void getOrderPage_twoStatements() throws Exception {
+    insertOrders(MANY_ORDERS);
+
+    assertThat(statementsFor(get("/api/order").param("limit", String.valueOf(MANY_ORDERS)), MANY_ORDERS))
+        .isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("GET /api/order/{id} should load the order and its items with one statement")
+  void getOrder_singleStatement() throws Exception {
+    List<Integer> ids = insertOrders(FEW_ORDERS);
+
+    budget.exactly(1, () -> mockMvc.perform(get("/api/order/" + ids.getFirst()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.orderItems.length()").value(2)));
+  }
+
+  @Test
+  @DisplayName("GET /api/order as NDJSON should run two statements per chunk of orders")
+  void streamOrders_statementsPerChunk() throws Exception {
+    insertOrders(MANY_ORDERS);
+
+    String body = budget.exactly(5, () -> {
+      MvcResult started = mockMvc.perform(get("/api/order").accept(MediaType.APPLICATION_NDJSON)).andReturn();
+      return mockMvc.perform(asyncDispatch(started))
+          .andExpect(status().isOk())
+          .andReturn().getResponse().getContentAsString();
+    });
+
+    assertThat(body.lines()).hasSize(MANY_ORDERS);
+  }
+
+  @Test
+  @DisplayName("POST /api/order should persist an order independent of its number of items")
+  void createOrder_statementBudget() throws Exception {
+    ALPHA.addItem(new Item(1, "alpha-widget", 10, 2.5, "widget"));
+    ALPHA.addItem(new Item(2, "alpha-gizmo", 10, 4.0, "gizmo"));
+    ALPHA.addItem(new Item(3, "alpha-gadget", 10, 1.0, "gadget"));
+
+    budget.atMost(CREATE_BUDGET, () -> mockMvc.perform(post("/api/order")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("""
+                {"totalPrice": 2.5, "status": "CONFIRMED", "items": [
+                  {"itemId": 1, "itemName": "alpha-widget", "price": 2.5, "quantity": 1}]}"""))
+        .andExpect(status().isCreated()));
+    budget.atMost(CREATE_BUDGET, () -> mockMvc.perform(post("/api/order")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("""
+                {"totalPrice": 7.5, "status": "CONFIRMED", "items": [
+                  {"itemId": 1, "itemName": "alpha-widget", "price": 2.5, "quantity": 1},
+                  {"itemId": 2, "itemName": "alpha-gizmo", "price": 4.0, "quantity": 1},
+                  {"itemId": 3, "itemName": "alpha-gadget", "price": 1.0, "quantity": 1}]}"""))
+        .andExpect(status().isCreated()));
+  }
+
+  @Test
+  @DisplayName("PUT /api/order/{id} should update an order with its items within its statement budget")
+  void updateOrder_statementBudget() throws Exception {
+    List<Integer> ids = insertOrders(FEW_ORDERS);
+
+    budget.atMost(UPDATE_BUDGET, () -> mockMvc.perform(put("/api/order/" + ids.getFirst())
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("""
+                {"totalPrice": 20.0, "status": "SHIPPED", "items": [
+                  {"itemId": 1, "itemName": "alpha-widget-1", "price": 10.0, "quantity": 1}]}"""))
+        .andExpect(status().isOk()));
+  }
+
+  @Test
+  @DisplayName("A budget should fail with the statistics of the statements that exceeded it")
+  void statementBudget_exceeded_failsWithStatistics() {
+    List<Integer> ids = insertOrders(FEW_ORDERS);
+
+    assertThatThrownBy(() -> budget.atMost(1, () -> ids.stream().map(ordersRepository::findById).toList()))
+        .isInstanceOf(AssertionError.class)
+        .hasMessageStartingWith("Expected at most 1 SQL statements but " + FEW_ORDERS + " were prepared")
+        .hasMessageContaining(FEW_ORDERS + " entity loads");
+  }
+
+  private long statementsFor(RequestBuilder request, int expectedOrders) throws Exception {
+    return budget.count(() -> mockMvc.perform(request)
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(expectedOrders))
+        .andExpect(jsonPath("$[0].orderItems.length()").value(2)));
+  }
+
+  private List<Integer> insertOrders(int count) {
+    List<Orders> orders = new ArrayList<>();
+    for (int i = 1; i <= count; i++) {
+      Orders order = new Orders();
+      order.setTotalPrice(20.0);
+      order.setStatus(Status.CONFIRMED);
+      order.addOrderItem(new OrderItem(i, "alpha-widget-" + i, 1, 10.0));
+      order.addOrderItem(new OrderItem(i + 1, "beta-widget-" + i, 1, 10.0));
+      orders.add(order);
+    }
+    return ordersRepository.saveAll(orders).stream().map(Orders::getId).toList();
+  }
+}
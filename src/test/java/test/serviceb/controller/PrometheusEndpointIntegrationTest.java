@@ -0,0 +1,64 @@
+package test.serviceb.controller;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import test.serviceb.support.StubInventoryServer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb-controller-prometheus-endpoint-integration",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "management.endpoints.web.exposure.include=health,metrics,prometheus",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+class PrometheusEndpointIntegrationTest {
+
+  private static final StubInventoryServer ALPHA = StubInventoryServer.start(false);
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @DynamicPropertySource
+  static void externalInventories(DynamicPropertyRegistry registry) {
+    registry.add("external.inventory.externalInventory.alpha", () -> "alpha," + ALPHA.url());
+  }
+
+  @AfterAll
+  static void stopInventories() {
+    ALPHA.close();
+  }
+
+  @Test
+  @DisplayName("GET /actuator/prometheus should publish the order service histograms and in-flight meters")
+  void scrape_publishesOrderServiceMeters() throws Exception {
+    mockMvc.perform(get("/api/order")).andExpect(status().isOk());
+
+    String scrape = mockMvc.perform(get("/actuator/prometheus"))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+
+    assertThat(scrape)
+        .contains("order_service_seconds_bucket{exception=\"none\",method=\"getAllOrders\",outcome=\"success\"")
+        .contains("order_service_active_seconds_count{method=\"getAllOrders\"} 0")
+        .contains("inventory_requests_active{inventory=\"alpha\"} 0.0")
+        .contains("inventory_circuit_state{inventory=\"alpha\",state=\"closed\"} 1.0")
+        .contains("hibernate_statements_total{entityManagerFactory=\"entityManagerFactory\",status=\"prepared\"}")
+        .contains("hibernate_entities_loads_total{entityManagerFactory=\"entityManagerFactory\"}")
+        .contains("hibernate_flushes_total{entityManagerFactory=\"entityManagerFactory\"}");
+  }
+}
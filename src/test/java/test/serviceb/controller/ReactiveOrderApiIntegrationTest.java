@@ -0,0 +1,200 @@
+package test.serviceb.controller;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import test.serviceb.domain.Item;
+import test.serviceb.repository.OrdersRepository;
+import test.serviceb.support.Await;
+import test.serviceb.support.StubInventoryServer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb-controller-reactive-order-api-integration-test",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "order.api.reactive=true"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReactiveOrderApiIntegrationTest {
+
+  private static final StubInventoryServer INVENTORY = StubInventoryServer.start(false);
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private OrdersRepository ordersRepository;
+
+  @DynamicPropertySource
+  static void externalInventories(DynamicPropertyRegistry registry) {
+    registry.add("external.inventory.externalInventory.shop", () -> "shop," + INVENTORY.url());
+  }
+
+  @AfterAll
+  static void stopInventory() {
+    INVENTORY.close();
+  }
+
+  @BeforeEach
+  void setUp() {
+    ordersRepository.deleteAll();
+    INVENTORY.reset();
+    INVENTORY.addItem(new Item(1, "shop-mug", 10, 7.5, "mug"));
+    INVENTORY.addItem(new Item(2, "shop-cap", 5, 12.0, "cap"));
+  }
+
+  /**
+   * Performs a request answered asynchronously and dispatches its result.
+   */
+  private ResultActions performAsync(RequestBuilder request) throws Exception {
+    MvcResult started = mockMvc.perform(request)
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    return mockMvc.perform(asyncDispatch(started));
+  }
+
+  @Test
+  @DisplayName("POST /api/order in reactive mode should reserve the items and return 201 Created asynchronously")
+  void createOrder_reactive_returnsCreated() throws Exception {
+    String payload = """
+        {
+          "totalPrice": 39.0,
+          "status": "CONFIRMED",
+          "items": [
+            {"itemId": 1, "itemName": "shop-mug", "price": 7.5, "quantity": 2},
+            {"itemId": 2, "itemName": "shop-cap", "price": 12.0, "quantity": 2}
+          ]
+        }
+        """;
+
+    performAsync(post("/api/order").contentType(MediaType.APPLICATION_JSON).content(payload))
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$.status").value("CONFIRMED"))
+        .andExpect(jsonPath("$.orderItems[0].itemName").value("shop-mug"))
+        .andExpect(jsonPath("$.orderItems[1].itemName").value("shop-cap"));
+
+    assertThat(INVENTORY.item(1).getStock()).isEqualTo(8);
+    assertThat(INVENTORY.item(2).getStock()).isEqualTo(3);
+    assertThat(ordersRepository.count()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("POST /api/order/bulk in reactive mode should stream one result per order")
+  void createOrders_reactive_streamsResults() throws Exception {
+    String payload = "{\"totalPrice\": 7.5, \"status\": \"CONFIRMED\", \"items\": "
+        + "[{\"itemId\": 1, \"itemName\": \"shop-mug\", \"price\": 7.5, \"quantity\": 1}]}\n"
+        + "{\"totalPrice\": 72.0, \"status\": \"CONFIRMED\", \"items\": "
+        + "[{\"itemId\": 2, \"itemName\": \"shop-cap\", \"price\": 12.0, \"quantity\": 6}]}\n";
+
+    String body = performAsync(post("/api/order/bulk").contentType(MediaType.APPLICATION_NDJSON).content(payload))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString();
+
+    assertThat(body.lines()).hasSize(2);
+    assertThat(body.lines().toList().get(0)).contains("\"index\":0", "\"status\":201", "\"orderId\"");
+    assertThat(body.lines().toList().get(1)).contains("\"index\":1", "\"status\":400", "Insufficient stock");
+    assertThat(INVENTORY.item(1).getStock()).isEqualTo(9);
+    assertThat(INVENTORY.item(2).getStock()).isEqualTo(5);
+  }
+
+  @Test
+  @DisplayName("POST /api/order in reactive mode repeated with the same Idempotency-Key should return the first order")
+  void createOrder_reactive_repeatedKey_returnsSameOrder() throws Exception {
+    String payload = """
+        {
+          "totalPrice": 15.0,
+          "status": "CONFIRMED",
+          "items": [
+            {"itemId": 1, "itemName": "shop-mug", "price": 7.5, "quantity": 2}
+          ]
+        }
+        """;
+
+    String first = performAsync(post("/api/order").contentType(MediaType.APPLICATION_JSON)
+            .header("Idempotency-Key", "reactive-key").content(payload))
+        .andExpect(status().isCreated())
+        .andReturn().getResponse().getContentAsString();
+    String second = performAsync(post("/api/order").contentType(MediaType.APPLICATION_JSON)
+            .header("Idempotency-Key", "reactive-key").content(payload))
+        .andExpect(status().isCreated())
+        .andReturn().getResponse().getContentAsString();
+
+    assertThat(second).isEqualTo(first);
+    assertThat(INVENTORY.item(1).getStock()).isEqualTo(8);
+    assertThat(ordersRepository.count()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("POST /api/order in reactive mode should report insufficient stock and persist nothing")
+  void createOrder_reactive_insufficientStock() throws Exception {
+    String payload = """
+        {
+          "totalPrice": 120.0,
+          "status": "CONFIRMED",
+          "items": [
+            {"itemId": 2, "itemName": "shop-cap", "price": 12.0, "quantity": 10}
+          ]
+        }
+        """;
+
+    performAsync(post("/api/order").contentType(MediaType.APPLICATION_JSON).content(payload))
+        .andExpect(status().isBadRequest());
+
+    assertThat(INVENTORY.item(2).getStock()).isEqualTo(5);
+    assertThat(ordersRepository.count()).isZero();
+  }
+
+  @Test
+  @DisplayName("GET and PUT /api/order in reactive mode should read orders and restock cancelled ones")
+  void getAndCancelOrder_reactive() throws Exception {
+    String payload = """
+        {
+          "totalPrice": 7.5,
+          "status": "CONFIRMED",
+          "items": [
+            {"itemId": 1, "itemName": "shop-mug", "price": 7.5, "quantity": 3}
+          ]
+        }
+        """;
+    performAsync(post("/api/order").contentType(MediaType.APPLICATION_JSON).content(payload))
+        .andExpect(status().isCreated());
+    int id = ordersRepository.findAll().getFirst().getId();
+
+    performAsync(get("/api/order/" + id))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.orderItems[0].quantity").value(3));
+    performAsync(get("/api/order"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(1));
+    performAsync(get("/api/order/" + (id + 1000)))
+        .andExpect(status().isNotFound());
+
+    performAsync(put("/api/order/" + id).contentType(MediaType.APPLICATION_JSON)
+            .content(payload.replace("CONFIRMED", "CANCELLED")))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.status").value("CANCELLED"));
+    // Cancelled orders are restocked in the background
+    Await.until(() -> INVENTORY.item(1).getStock() == 10);
+  }
+}
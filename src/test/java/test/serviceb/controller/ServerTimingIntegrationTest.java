@@ -0,0 +1,209 @@
+package test.serviceb.controller;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import test.serviceb.config.ServerTimingFilter;
+import test.serviceb.domain.Item;
+import test.serviceb.domain.OrderItem;
+import test.serviceb.domain.Orders;
+import test.serviceb.domain.Status;
+import test.serviceb.repository.OrdersRepository;
+import test.serviceb.support.StubInventoryServer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb-controller-server-timing-integration",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "external.inventory.itemCache.maxSize=0",
+    "order.server-timing.enabled=true"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ServerTimingIntegrationTest {
+
+  private static final StubInventoryServer ALPHA = StubInventoryServer.start(false);
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private OrdersRepository ordersRepository;
+
+  @DynamicPropertySource
+  static void externalInventories(DynamicPropertyRegistry registry) {
+    registry.add("external.inventory.externalInventory.alpha", () -> "alpha," + ALPHA.url());
+  }
+
+  @AfterAll
+  static void stopInventories() {
+    ALPHA.close();
+  }
+
+  @BeforeEach
+  void setUp() {
+    ordersRepository.deleteAll();
+    ALPHA.reset();
+    ALPHA.addItem(new Item(1, "alpha-widget", 10, 2.5, "widget"));
+    ALPHA.addItem(new Item(2, "alpha-gizmo", 10, 4.0, "gizmo"));
+  }
+
+  @Test
+  @DisplayName("POST /api/order should break the request into its phases in the Server-Timing header")
+  void createOrder_returnsServerTiming() throws Exception {
+    String payload = """
+        {"totalPrice": 5.0, "status": "CONFIRMED", "items": [
+          {"itemId": 1, "itemName": "alpha-widget", "price": 2.5, "quantity": 2}]}""";
+
+    String timing = mockMvc.perform(post("/api/order").contentType(MediaType.APPLICATION_JSON).content(payload))
+        .andExpect(status().isCreated())
+        .andReturn().getResponse().getHeader(ServerTimingFilter.HEADER);
+
+    assertThat(metrics(timing)).containsExactly(
+        "validation",
+        "routing",
+        "inventory;desc=\"alpha GET 200\"",
+        "inventory;desc=\"alpha PUT 200\"",
+        "persistence",
+        "serialization",
+        "total");
+  }
+
+  @Test
+  @DisplayName("The capabilities probe and the requests of items reserved concurrently should all be recorded")
+  void createOrder_concurrentReservations_recordsEveryInventoryRequest() throws Exception {
+    String payload = """
+        {"totalPrice": 6.5, "status": "CONFIRMED", "items": [
+          {"itemId": 1, "itemName": "alpha-widget", "price": 2.5, "quantity": 1},
+          {"itemId": 2, "itemName": "alpha-gizmo", "price": 4.0, "quantity": 1}]}""";
+
+    String timing = mockMvc.perform(post("/api/order").contentType(MediaType.APPLICATION_JSON).content(payload))
+        .andExpect(status().isCreated())
+        .andReturn().getResponse().getHeader(ServerTimingFilter.HEADER);
+
+    assertThat(metrics(timing))
+        .filteredOn(metric -> metric.startsWith("inventory;"))
+        .containsExactlyInAnyOrder(
+            "inventory;desc=\"alpha GET 404\"",
+            "inventory;desc=\"alpha GET 200\"",
+            "inventory;desc=\"alpha GET 200\"",
+            "inventory;desc=\"alpha PUT 200\"",
+            "inventory;desc=\"alpha PUT 200\"");
+  }
+
+  @Test
+  @DisplayName("A rejected order should still carry the phases it went through")
+  void createOrder_invalidOrder_returnsServerTiming() throws Exception {
+    String payload = """
+        {"totalPrice": 5.0, "status": "", "items": []}""";
+
+    String timing = mockMvc.perform(post("/api/order").contentType(MediaType.APPLICATION_JSON).content(payload))
+        .andExpect(status().isBadRequest())
+        .andReturn().getResponse().getHeader(ServerTimingFilter.HEADER);
+
+    assertThat(metrics(timing)).containsExactly(
+        "validation",
+        "serialization",
+        "total");
+    assertThat(ALPHA.requests("GET", StubInventoryServer.ITEM)).isZero();
+  }
+
+  @Test
+  @DisplayName("Streamed responses should not be buffered for the Server-Timing header")
+  void streamOrders_noServerTiming() throws Exception {
+    mockMvc.perform(get("/api/order").accept(MediaType.APPLICATION_NDJSON))
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist(ServerTimingFilter.HEADER));
+  }
+
+  @Test
+  @DisplayName("A listing larger than the buffer should be sent in full without waiting for the Server-Timing header")
+  void getAllOrders_largeListing_sentUnbuffered() throws Exception {
+    List<Orders> orders = new ArrayList<>();
+    for (int i = 1; i <= 500; i++) {
+      Orders order = new Orders();
+      order.setTotalPrice(i * 10.0);
+      order.setStatus(Status.CONFIRMED);
+      order.addOrderItem(new OrderItem(i, "alpha-widget-" + i, i, 10.0));
+      orders.add(order);
+    }
+    ordersRepository.saveAll(orders);
+
+    MockHttpServletResponse response = mockMvc.perform(get("/api/order"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(500))
+        .andReturn().getResponse();
+
+    assertThat(response.getContentAsByteArray()).hasSizeGreaterThan(ServerTimingFilter.BUFFER_LIMIT);
+    assertThat(response.getHeader(ServerTimingFilter.HEADER)).isNull();
+  }
+
+  @Nested
+  @TestPropertySource(properties = {
+      "spring.datasource.url=jdbc:h2:mem:testdb-controller-server-timing-reactive-integration",
+      "order.api.reactive=true"
+  })
+  class Reactive {
+
+    @Autowired
+    private MockMvc reactiveMockMvc;
+
+    @Autowired
+    private OrdersRepository reactiveOrdersRepository;
+
+    @Test
+    @DisplayName("POST /api/order in reactive mode should send the body and time the request until it was written")
+    void createOrder_reactive_returnsBodyAndServerTiming() throws Exception {
+      String payload = """
+          {"totalPrice": 5.0, "status": "CONFIRMED", "items": [
+            {"itemId": 1, "itemName": "alpha-widget", "price": 2.5, "quantity": 2}]}""";
+
+      MvcResult started = reactiveMockMvc.perform(post("/api/order").contentType(MediaType.APPLICATION_JSON).content(payload))
+          .andExpect(request().asyncStarted())
+          .andExpect(header().doesNotExist(ServerTimingFilter.HEADER))
+          .andReturn();
+      String timing = reactiveMockMvc.perform(asyncDispatch(started))
+          .andExpect(status().isCreated())
+          .andExpect(jsonPath("$.orderItems[0].itemName").value("alpha-widget"))
+          .andReturn().getResponse().getHeader(ServerTimingFilter.HEADER);
+
+      assertThat(metrics(timing)).containsExactly(
+          "validation",
+          "serialization",
+          "total");
+      assertThat(reactiveOrdersRepository.count()).isEqualTo(1);
+    }
+  }
+
+  private static List<String> metrics(String header) {
+    assertThat(header).isNotNull();
+    List<String> metrics = Arrays.asList(header.split(", "));
+    assertThat(metrics).allMatch(metric -> metric.matches(".+;dur=\\d+\\.\\d{3}"));
+    return metrics.stream().map(metric -> metric.substring(0, metric.lastIndexOf(";dur="))).toList();
+  }
+}
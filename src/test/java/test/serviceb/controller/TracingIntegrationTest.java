@@ -0,0 +1,175 @@
+package test.serviceb.controller;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import test.serviceb.domain.Item;
+import test.serviceb.domain.Orders;
+import test.serviceb.domain.dto.OrderDto;
+import test.serviceb.domain.dto.OrderItemDto;
+import test.serviceb.service.OrderService;
+import test.serviceb.support.StubInventoryServer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb-controller-tracing-integration",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "management.tracing.sampling.probability=1.0"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability(metrics = false)
+@ActiveProfiles("test")
+class TracingIntegrationTest {
+
+  private static final String TRACE_ID = "0af7651916cd43dd8448eb211c80319c";
+  private static final String CALLER_SPAN_ID = "b7ad6b7169203331";
+  private static final AttributeKey<String> INVENTORY = AttributeKey.stringKey("inventory");
+  private static final StubInventoryServer ALPHA = StubInventoryServer.start(false);
+  private static final StubInventoryServer BETA = StubInventoryServer.start(false);
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private OrderService orderService;
+
+  @Autowired
+  private InMemorySpanExporter exporter;
+
+  @Autowired
+  private SdkTracerProvider tracerProvider;
+
+  @TestConfiguration
+  static class InMemoryExport {
+
+    @Bean
+    InMemorySpanExporter inMemorySpanExporter() {
+      return InMemorySpanExporter.create();
+    }
+  }
+
+  @DynamicPropertySource
+  static void externalInventories(DynamicPropertyRegistry registry) {
+    registry.add("external.inventory.externalInventory.alpha", () -> "alpha," + ALPHA.url());
+    registry.add("external.inventory.externalInventory.beta", () -> "beta," + BETA.url());
+  }
+
+  @AfterAll
+  static void stopInventories() {
+    ALPHA.close();
+    BETA.close();
+  }
+
+  @BeforeEach
+  void setUp() {
+    ALPHA.reset();
+    BETA.reset();
+    ALPHA.addItem(new Item(1, "alpha-widget", 10, 2.5, "widget"));
+    BETA.addItem(new Item(2, "beta-gizmo", 10, 4.0, "gizmo"));
+    tracerProvider.forceFlush().join(10, TimeUnit.SECONDS);
+    exporter.reset();
+  }
+
+  @Test
+  @DisplayName("POST /api/order should trace the order as a child of the caller and every inventory request below it")
+  void createOrder_tracesInventoryRequestsBelowOrder() throws Exception {
+    mockMvc.perform(post("/api/order")
+            .header("traceparent", "00-" + TRACE_ID + "-" + CALLER_SPAN_ID + "-01")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("""
+                {"totalPrice": 6.5, "status": "CONFIRMED", "items": [
+                  {"itemId": 1, "itemName": "alpha-widget", "price": 2.5, "quantity": 1},
+                  {"itemId": 2, "itemName": "beta-gizmo", "price": 4.0, "quantity": 1}]}"""))
+        .andExpect(status().isCreated());
+
+    List<SpanData> spans = exportedSpans();
+    assertThat(spans).extracting(SpanData::getTraceId).containsOnly(TRACE_ID);
+    SpanData server = single(spans, "http post /api/order");
+    assertThat(server.getParentSpanId()).isEqualTo(CALLER_SPAN_ID);
+    SpanData order = single(spans, "order create");
+    assertThat(ancestors(spans, order)).contains(server.getSpanId());
+    assertThat(order.getAttributes().get(AttributeKey.stringKey("order.items"))).isEqualTo("2");
+    assertThat(order.getAttributes().get(AttributeKey.stringKey("order.id"))).isNotBlank();
+
+    List<SpanData> inventory = inventorySpans(spans);
+    assertThat(inventory).extracting(SpanData::getName)
+        .contains("inventory alpha GET", "inventory alpha PUT", "inventory beta GET", "inventory beta PUT");
+    assertThat(inventory).allSatisfy(span -> {
+      assertThat(span.getParentSpanId()).isEqualTo(order.getSpanId());
+      assertThat(span.getName()).startsWith("inventory " + span.getAttributes().get(INVENTORY) + " ");
+    });
+    List<String> sent = inventory.stream().map(span -> "00-" + TRACE_ID + "-" + span.getSpanId() + "-01").toList();
+    assertThat(ALPHA.traceParents()).isNotEmpty().allMatch(sent::contains);
+    assertThat(BETA.traceParents()).isNotEmpty().allMatch(sent::contains);
+  }
+
+  @Test
+  @DisplayName("createOrderReactive should trace every inventory request below the span of the order")
+  void createOrderReactive_tracesInventoryRequestsBelowOrder() {
+    Orders created = orderService.createOrderReactive(new OrderDto(6.5, "CONFIRMED", List.of(
+        new OrderItemDto(1, "alpha-widget", 2.5, 1), new OrderItemDto(2, "beta-gizmo", 4.0, 1)))).block();
+
+    List<SpanData> spans = exportedSpans();
+    SpanData order = single(spans, "order create");
+    assertThat(order.getParentSpanContext().isValid()).isFalse();
+    assertThat(order.getAttributes().get(AttributeKey.stringKey("method"))).isEqualTo("createOrderReactive");
+    assertThat(order.getAttributes().get(AttributeKey.stringKey("order.id")))
+        .isEqualTo(Integer.toString(created.getId()));
+    assertThat(inventorySpans(spans)).isNotEmpty().allSatisfy(span -> {
+      assertThat(span.getTraceId()).isEqualTo(order.getTraceId());
+      assertThat(span.getParentSpanId()).isEqualTo(order.getSpanId());
+    });
+    assertThat(inventorySpans(spans)).extracting(span -> span.getAttributes().get(INVENTORY))
+        .contains("alpha", "beta");
+  }
+
+  private List<SpanData> exportedSpans() {
+    assertThat(tracerProvider.forceFlush().join(10, TimeUnit.SECONDS).isSuccess()).isTrue();
+    return exporter.getFinishedSpanItems();
+  }
+
+  private static List<String> ancestors(List<SpanData> spans, SpanData span) {
+    Map<String, String> parents = spans.stream()
+        .collect(Collectors.toMap(SpanData::getSpanId, SpanData::getParentSpanId));
+    List<String> ancestors = new ArrayList<>();
+    for (String parent = span.getParentSpanId(); parent != null; parent = parents.get(parent)) {
+      ancestors.add(parent);
+    }
+    return ancestors;
+  }
+
+  private static List<SpanData> inventorySpans(List<SpanData> spans) {
+    return spans.stream().filter(span -> span.getAttributes().get(INVENTORY) != null).toList();
+  }
+
+  private static SpanData single(List<SpanData> spans, String name) {
+    List<SpanData> matching = spans.stream().filter(span -> name.equals(span.getName())).toList();
+    assertThat(matching).hasSize(1);
+    return matching.getFirst();
+  }
+}
@@ -14,8 +14,10 @@ import org.springframework.test.web.servlet.MockMvc;
 import test.serviceb.domain.OrderItem;
 import test.serviceb.domain.Orders;
 import test.serviceb.domain.Status;
+import test.serviceb.domain.dto.BulkOrderResultDto;
 import test.serviceb.domain.dto.OrderDto;
 import test.serviceb.domain.dto.OrderItemDto;
+import test.serviceb.domain.dto.StatusUpdateDto;
 import test.serviceb.service.OrderService;
 
 import java.util.List;
@@ -233,4 +235,44 @@ class UpdateOrderIntegrationTest {
 
     verify(orderService).updateOrder(eq(negativeId), any(OrderDto.class));
   }
+
+  @Test
+  @DisplayName("PUT /api/order/bulk/status should return one result per order ID")
+  void shouldUpdateStatuses_ReturnResultPerId() throws Exception {
+    String json = """
+        {"status": "SHIPPED", "ids": [4, 8]}""";
+    given(orderService.updateStatuses(any(StatusUpdateDto.class))).willReturn(List.of(
+        BulkOrderResultDto.updated(0, 4),
+        BulkOrderResultDto.failed(1, 404, 8, "Order with ID 8 not found")));
+
+    mockMvc.perform(put("/api/order/bulk/status")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(json))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].status").value(200))
+        .andExpect(jsonPath("$[0].orderId").value(4))
+        .andExpect(jsonPath("$[0].error").doesNotExist())
+        .andExpect(jsonPath("$[1].index").value(1))
+        .andExpect(jsonPath("$[1].status").value(404))
+        .andExpect(jsonPath("$[1].error").value("Order with ID 8 not found"));
+
+    ArgumentCaptor<StatusUpdateDto> captor = ArgumentCaptor.forClass(StatusUpdateDto.class);
+    verify(orderService).updateStatuses(captor.capture());
+    assertThat(captor.getValue().getStatus()).isEqualTo("SHIPPED");
+    assertThat(captor.getValue().getIds()).containsExactly(4, 8);
+  }
+
+  @Test
+  @DisplayName("PUT /api/order/bulk/status without order IDs should NOT call service and return 400")
+  void shouldNotUpdateStatuses_WhenIdsEmpty() throws Exception {
+    String json = """
+        {"status": "SHIPPED", "ids": []}""";
+
+    mockMvc.perform(put("/api/order/bulk/status")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(json))
+        .andExpect(status().isBadRequest());
+
+    verify(orderService, never()).updateStatuses(any(StatusUpdateDto.class));
+  }
 }
@@ -5,12 +5,14 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Collections;
 import java.util.List;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -37,7 +39,7 @@ public class OrderControllerEdgeCaseUnitTest {
   @BeforeEach
   void setUp() {
     MockitoAnnotations.openMocks(this);
-    controller = new OrderController(orderService);
+    controller = new OrderController(orderService, new ObjectMapper());
   }
 
   @Test
@@ -86,14 +88,14 @@ public class OrderControllerEdgeCaseUnitTest {
     dto.setStatus("CONFIRMED");
     dto.setItems(Collections.emptyList());
 
-    when(orderService.createOrder(any(OrderDto.class))).thenReturn(null);
+    when(orderService.createOrder(any(OrderDto.class), isNull())).thenReturn(null);
 
-    ResponseEntity<Orders> response = controller.createOrder(dto);
+    ResponseEntity<Orders> response = controller.createOrder(dto, null);
 
     assertEquals(HttpStatus.CREATED, response.getStatusCode());
     // Body is null because service returned null; this test documents current controller behavior
     assertEquals(null, response.getBody());
-    verify(orderService).createOrder(dto);
+    verify(orderService).createOrder(dto, null);
   }
 
   @Test
@@ -2,6 +2,7 @@ package test.serviceb.controller.unittest;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
@@ -11,14 +12,17 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import test.serviceb.controller.OrderController;
 import test.serviceb.domain.Orders;
@@ -40,25 +44,25 @@ public class OrderControllerUnitTest {
   @BeforeEach
   void setUp() {
     MockitoAnnotations.openMocks(this);
-    controller = new OrderController(orderService);
+    controller = new OrderController(orderService, new ObjectMapper());
   }
 
   @Test
-  @DisplayName("createOrder should return 201 Created with body from service and pass through the DTO")
+  @DisplayName("createOrder should return 201 Created with body from service and pass through the DTO and key")
   void createOrder_shouldReturnCreatedAndPassDto() {
     OrderDto dto = new OrderDto();
     Orders saved = new Orders(100.0, Status.CONFIRMED, Collections.emptyList());
 
-    when(orderService.createOrder(any(OrderDto.class))).thenReturn(saved);
+    when(orderService.createOrder(any(OrderDto.class), eq("key-1"))).thenReturn(saved);
 
-    ResponseEntity<Orders> response = controller.createOrder(dto);
+    ResponseEntity<Orders> response = controller.createOrder(dto, "key-1");
 
     assertNotNull(response);
     assertEquals(HttpStatus.CREATED, response.getStatusCode());
     assertEquals(saved, response.getBody());
 
     ArgumentCaptor<OrderDto> captor = ArgumentCaptor.forClass(OrderDto.class);
-    verify(orderService).createOrder(captor.capture());
+    verify(orderService).createOrder(captor.capture(), eq("key-1"));
     assertEquals(dto, captor.getValue());
   }
 
@@ -134,4 +138,33 @@ public class OrderControllerUnitTest {
     assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     verify(orderService).updateOrder(eq(id), any(OrderDto.class));
   }
+
+  @Test
+  @DisplayName("getOrderPage should link the next page when the page is full")
+  void getOrderPage_fullPage_shouldLinkNextPage() {
+    Orders o1 = new Orders(10.0, Status.CONFIRMED, Collections.emptyList());
+    ReflectionTestUtils.setField(o1, "id", 11);
+    Orders o2 = new Orders(20.0, Status.SHIPPED, Collections.emptyList());
+    ReflectionTestUtils.setField(o2, "id", 12);
+    when(orderService.getOrders(10, 2)).thenReturn(List.of(o1, o2));
+
+    ResponseEntity<List<Orders>> response = controller.getOrderPage(2, 10);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(List.of(o1, o2), response.getBody());
+    assertEquals("</api/order?after=12&limit=2>; rel=\"next\"", response.getHeaders().getFirst(HttpHeaders.LINK));
+  }
+
+  @Test
+  @DisplayName("getOrderPage should not link a next page after the last page")
+  void getOrderPage_lastPage_shouldNotLinkNextPage() {
+    Orders o1 = new Orders(10.0, Status.CONFIRMED, Collections.emptyList());
+    ReflectionTestUtils.setField(o1, "id", 13);
+    when(orderService.getOrders(12, 2)).thenReturn(List.of(o1));
+
+    ResponseEntity<List<Orders>> response = controller.getOrderPage(2, 12);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertNull(response.getHeaders().getFirst(HttpHeaders.LINK));
+  }
 }
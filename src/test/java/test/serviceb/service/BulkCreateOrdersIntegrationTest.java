@@ -0,0 +1,150 @@
+package test.serviceb.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import test.serviceb.domain.Item;
+import test.serviceb.domain.OrderItem;
+import test.serviceb.domain.Orders;
+import test.serviceb.domain.dto.BulkOrderResultDto;
+import test.serviceb.domain.dto.OrderDto;
+import test.serviceb.domain.dto.OrderItemDto;
+import test.serviceb.repository.OrdersRepository;
+import test.serviceb.repository.PendingCompensationRepository;
+import test.serviceb.support.Await;
+import test.serviceb.support.StubInventoryServer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static test.serviceb.support.StubInventoryServer.ITEM;
+import static test.serviceb.support.StubInventoryServer.RESERVATIONS;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb-service-bulk-create-orders-integration",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "external.inventory.itemCache.maxSize=0",
+    "external.inventory.compensation.backoff=10ms",
+    "external.inventory.compensation.retryInterval=1h"
+})
+@ActiveProfiles("test")
+class BulkCreateOrdersIntegrationTest {
+
+  // alpha advertises bulk reservations, beta only offers the per-item endpoints
+  private static final StubInventoryServer ALPHA = StubInventoryServer.start(true);
+  private static final StubInventoryServer BETA = StubInventoryServer.start(false);
+
+  @Autowired
+  private OrderService orderService;
+
+  @Autowired
+  private OrdersRepository ordersRepository;
+
+  @Autowired
+  private PendingCompensationRepository compensationRepository;
+
+  @DynamicPropertySource
+  static void externalInventories(DynamicPropertyRegistry registry) {
+    registry.add("external.inventory.externalInventory.alpha", () -> "alpha," + ALPHA.url());
+    registry.add("external.inventory.externalInventory.beta", () -> "beta," + BETA.url());
+  }
+
+  @AfterAll
+  static void stopInventories() {
+    ALPHA.close();
+    BETA.close();
+  }
+
+  @BeforeEach
+  void setUp() {
+    ordersRepository.deleteAll();
+    compensationRepository.deleteAll();
+    ALPHA.reset();
+    BETA.reset();
+    ALPHA.addItem(new Item(1, "alpha-widget", 1000, 2.5, "widget"));
+    ALPHA.addItem(new Item(2, "alpha-gizmo", 1000, 4.0, "gizmo"));
+    BETA.addItem(new Item(3, "beta-gadget", 1000, 3.0, "gadget"));
+  }
+
+  @Test
+  @DisplayName("createOrders should reserve a whole chunk with one bulk call or one reservation per item")
+  void createOrders_reservesChunkWithOneBulkCall() {
+    List<OrderDto> orders = IntStream.range(0, 3)
+        .mapToObj(i -> order(new OrderItemDto(1, "alpha-widget", 2.5, i + 1),
+            new OrderItemDto(2, "alpha-gizmo", 4.0, 1), new OrderItemDto(3, "beta-gadget", 3.0, 2)))
+        .toList();
+
+    List<BulkOrderResultDto> results = createOrders(orders);
+
+    assertThat(results).extracting(BulkOrderResultDto::getIndex).containsExactly(0, 1, 2);
+    assertThat(results).extracting(BulkOrderResultDto::getStatus).containsOnly(201);
+    assertThat(ALPHA.requests("POST", RESERVATIONS)).isEqualTo(1);
+    assertThat(ALPHA.requests("PUT", ITEM)).isZero();
+    assertThat(ALPHA.item(1).getStock()).isEqualTo(994);
+    assertThat(ALPHA.item(2).getStock()).isEqualTo(997);
+    assertThat(BETA.requests("PUT", ITEM)).isEqualTo(1);
+    assertThat(BETA.item(3).getStock()).isEqualTo(994);
+    Orders second = ordersRepository.findWithItemsById(results.get(1).getOrderId()).orElseThrow();
+    assertThat(second.getOrderItems()).extracting(OrderItem::getItemId).containsExactly(1, 2, 3);
+    assertThat(second.getOrderItems()).extracting(OrderItem::getQuantity).containsExactly(2, 1, 2);
+  }
+
+  @Test
+  @DisplayName("createOrders should fail only the orders that cannot be served and return their stock")
+  void createOrders_failingOrders_doNotFailTheChunk() throws InterruptedException {
+    List<OrderDto> orders = List.of(
+        order(new OrderItemDto(1, "alpha-widget", 2.5, 5), new OrderItemDto(3, "beta-gadget", 3.0, 1)),
+        order(new OrderItemDto(1, "alpha-widget", 2.5, 2000), new OrderItemDto(3, "beta-gadget", 3.0, 1)),
+        order(new OrderItemDto(2, "alpha-gizmo", 4.0, 1), new OrderItemDto(9, "gamma-sprocket", 6.0, 1)),
+        new OrderDto(1.0, "CONFIRMED", List.of()),
+        order(new OrderItemDto(2, "alpha-gizmo", 4.0, 3)));
+
+    List<BulkOrderResultDto> results = createOrders(orders);
+
+    assertThat(results).extracting(BulkOrderResultDto::getStatus).containsExactly(201, 400, 404, 400, 201);
+    assertThat(results.get(1).getError()).contains("Insufficient stock");
+    assertThat(results.get(3).getErrors()).containsKey("items");
+    assertThat(ordersRepository.count()).isEqualTo(2);
+    Await.until(() -> compensationRepository.count() == 0 && BETA.item(3).getStock() == 999
+        && ALPHA.item(2).getStock() == 997);
+    assertThat(ALPHA.item(1).getStock()).isEqualTo(995);
+  }
+
+  @Test
+  @DisplayName("createOrders should create an import larger than a chunk one chunk at a time")
+  void createOrders_manyOrders_processedInChunks() {
+    List<OrderDto> orders = IntStream.range(0, 250)
+        .mapToObj(i -> order(new OrderItemDto(1, "alpha-widget", 2.5, 1),
+            new OrderItemDto(2, "alpha-gizmo", 4.0, 2)))
+        .toList();
+
+    List<BulkOrderResultDto> results = createOrders(orders);
+
+    assertThat(results).extracting(BulkOrderResultDto::getIndex)
+        .containsExactlyElementsOf(IntStream.range(0, 250).boxed().toList());
+    assertThat(results).extracting(BulkOrderResultDto::getStatus).containsOnly(201);
+    assertThat(results).extracting(BulkOrderResultDto::getOrderId).doesNotHaveDuplicates();
+    assertThat(ordersRepository.count()).isEqualTo(250);
+    assertThat(ALPHA.requests("POST", RESERVATIONS)).isEqualTo(3);
+    assertThat(ALPHA.item(1).getStock()).isEqualTo(750);
+    assertThat(ALPHA.item(2).getStock()).isEqualTo(500);
+  }
+
+  private List<BulkOrderResultDto> createOrders(List<OrderDto> orders) {
+    List<BulkOrderResultDto> results = new ArrayList<>();
+    orderService.createOrders(orders.iterator(), results::add);
+    return results;
+  }
+
+  private static OrderDto order(OrderItemDto... items) {
+    return new OrderDto(10.0, "CONFIRMED", List.of(items));
+  }
+}
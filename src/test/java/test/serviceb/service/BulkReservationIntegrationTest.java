@@ -0,0 +1,140 @@
+package test.serviceb.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import test.serviceb.domain.Item;
+import test.serviceb.domain.OrderItem;
+import test.serviceb.domain.Orders;
+import test.serviceb.domain.dto.OrderDto;
+import test.serviceb.domain.dto.OrderItemDto;
+import test.serviceb.repository.OrdersRepository;
+import test.serviceb.support.StubInventoryServer;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static test.serviceb.support.StubInventoryServer.CAPABILITIES;
+import static test.serviceb.support.StubInventoryServer.ITEM;
+import static test.serviceb.support.StubInventoryServer.RESERVATIONS;
+
+@SpringBootTest(properties = {
+    // Isolate datasource per test class
+    "spring.datasource.url=jdbc:h2:mem:testdb-service-bulk-reservation-integration",
+    // Count every item request; the item cache is covered by ItemCacheIntegrationTest
+    "external.inventory.itemCache.maxSize=0"
+})
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+    // Ensure hibernate creates schema in tests
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class BulkReservationIntegrationTest {
+
+  // alpha advertises bulk reservations, beta only offers the per-item endpoints
+  private static final StubInventoryServer ALPHA = StubInventoryServer.start(true);
+  private static final StubInventoryServer BETA = StubInventoryServer.start(false);
+
+  @Autowired
+  private OrderService orderService;
+
+  @Autowired
+  private OrdersRepository ordersRepository;
+
+  @DynamicPropertySource
+  static void externalInventories(DynamicPropertyRegistry registry) {
+    registry.add("external.inventory.externalInventory.alpha", () -> "alpha," + ALPHA.url());
+    registry.add("external.inventory.externalInventory.beta", () -> "beta," + BETA.url());
+  }
+
+  @AfterAll
+  static void stopInventories() {
+    ALPHA.close();
+    BETA.close();
+  }
+
+  @BeforeEach
+  void setUp() {
+    ordersRepository.deleteAll();
+    ALPHA.reset();
+    BETA.reset();
+    ALPHA.addItem(new Item(1, "alpha-widget", 10, 2.5, "widget"));
+    ALPHA.addItem(new Item(2, "alpha-gizmo", 10, 4.0, "gizmo"));
+    ALPHA.addItem(new Item(3, "alpha-doohickey", 10, 1.0, "doohickey"));
+    BETA.addItem(new Item(4, "beta-gadget", 10, 3.0, "gadget"));
+    BETA.addItem(new Item(5, "beta-sprocket", 10, 6.0, "sprocket"));
+  }
+
+  @Test
+  @DisplayName("createOrder should reserve all lines of a bulk-capable backend with one call and fall back per item otherwise")
+  void createOrder_bulkCapableBackend_singleCall() {
+    OrderDto dto = new OrderDto(30.0, "CONFIRMED", List.of(
+        new OrderItemDto(1, "alpha-widget", 2.5, 1),
+        new OrderItemDto(4, "beta-gadget", 3.0, 2),
+        new OrderItemDto(2, "alpha-gizmo", 4.0, 3),
+        new OrderItemDto(5, "beta-sprocket", 6.0, 4),
+        new OrderItemDto(3, "alpha-doohickey", 1.0, 5)));
+
+    Orders saved = orderService.createOrder(dto);
+
+    // Order items keep the order of the request
+    assertThat(saved.getOrderItems()).extracting(OrderItem::getItemId).containsExactly(1, 4, 2, 5, 3);
+    assertThat(saved.getOrderItems()).extracting(OrderItem::getQuantity).containsExactly(1, 2, 3, 4, 5);
+
+    // alpha: one bulk call instead of three GET/PUT pairs
+    assertThat(ALPHA.requests("POST", RESERVATIONS)).isEqualTo(1);
+    assertThat(ALPHA.requests("GET", ITEM)).isZero();
+    assertThat(ALPHA.requests("PUT", ITEM)).isZero();
+    assertThat(ALPHA.item(1).getStock()).isEqualTo(9);
+    assertThat(ALPHA.item(2).getStock()).isEqualTo(7);
+    assertThat(ALPHA.item(3).getStock()).isEqualTo(5);
+
+    // beta does not advertise the capability and is served item by item
+    assertThat(BETA.requests("POST", RESERVATIONS)).isZero();
+    assertThat(BETA.requests("GET", ITEM)).isEqualTo(2);
+    assertThat(BETA.requests("PUT", ITEM)).isEqualTo(2);
+    assertThat(BETA.item(4).getStock()).isEqualTo(8);
+    assertThat(BETA.item(5).getStock()).isEqualTo(6);
+  }
+
+  @Test
+  @DisplayName("createOrder should probe the capabilities of a backend only once")
+  void createOrder_capabilitiesAreCached() {
+    OrderDto dto = new OrderDto(10.0, "CONFIRMED", List.of(
+        new OrderItemDto(1, "alpha-widget", 2.5, 1),
+        new OrderItemDto(2, "alpha-gizmo", 4.0, 1),
+        new OrderItemDto(4, "beta-gadget", 3.0, 1),
+        new OrderItemDto(5, "beta-sprocket", 6.0, 1)));
+
+    orderService.createOrder(dto);
+    orderService.createOrder(dto);
+
+    assertThat(ALPHA.requests("POST", RESERVATIONS)).isEqualTo(2);
+    assertThat(ALPHA.requests("GET", CAPABILITIES) + BETA.requests("GET", CAPABILITIES)).isLessThanOrEqualTo(2);
+    assertThat(BETA.requests("GET", ITEM)).isEqualTo(4);
+  }
+
+  @Test
+  @DisplayName("createOrder should fail without touching the stock when a bulk reservation lacks stock")
+  void createOrder_bulkInsufficientStock_reservesNothing() {
+    OrderDto dto = new OrderDto(10.0, "CONFIRMED", List.of(
+        new OrderItemDto(1, "alpha-widget", 2.5, 1),
+        new OrderItemDto(2, "alpha-gizmo", 4.0, 11)));
+
+    assertThatThrownBy(() -> orderService.createOrder(dto))
+        .isInstanceOf(RuntimeException.class)
+        .hasMessageContaining("Failed to reserve items with IDs: [1, 2]");
+
+    assertThat(ALPHA.item(1).getStock()).isEqualTo(10);
+    assertThat(ALPHA.item(2).getStock()).isEqualTo(10);
+    assertThat(ordersRepository.count()).isZero();
+  }
+}
@@ -0,0 +1,170 @@
+package test.serviceb.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import test.serviceb.domain.Item;
+import test.serviceb.domain.OrderItem;
+import test.serviceb.domain.Orders;
+import test.serviceb.domain.Status;
+import test.serviceb.domain.dto.BulkOrderResultDto;
+import test.serviceb.domain.dto.StatusUpdateDto;
+import test.serviceb.repository.OrdersRepository;
+import test.serviceb.repository.PendingCompensationRepository;
+import test.serviceb.support.Await;
+import test.serviceb.support.StubInventoryServer;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb-service-bulk-status-update-integration",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "external.inventory.itemCache.maxSize=0",
+    "external.inventory.compensation.backoff=10ms",
+    "external.inventory.compensation.retryInterval=1h"
+})
+@ActiveProfiles("test")
+class BulkStatusUpdateIntegrationTest {
+
+  private static final int MISSING = 999_999;
+  private static final StubInventoryServer ALPHA = StubInventoryServer.start(true);
+  private static final StubInventoryServer BETA = StubInventoryServer.start(false);
+
+  @Autowired
+  private OrderService orderService;
+
+  @Autowired
+  private OrdersRepository ordersRepository;
+
+  @Autowired
+  private PendingCompensationRepository compensationRepository;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @DynamicPropertySource
+  static void externalInventories(DynamicPropertyRegistry registry) {
+    registry.add("external.inventory.externalInventory.alpha", () -> "alpha," + ALPHA.url());
+    registry.add("external.inventory.externalInventory.beta", () -> "beta," + BETA.url());
+  }
+
+  @AfterAll
+  static void stopInventories() {
+    ALPHA.close();
+    BETA.close();
+  }
+
+  @BeforeEach
+  void setUp() {
+    ordersRepository.deleteAll();
+    compensationRepository.deleteAll();
+    ALPHA.reset();
+    BETA.reset();
+    ALPHA.addItem(new Item(1, "alpha-widget", 100, 2.5, "widget"));
+    ALPHA.addItem(new Item(2, "alpha-gizmo", 100, 4.0, "gizmo"));
+    BETA.addItem(new Item(3, "beta-gadget", 100, 3.0, "gadget"));
+  }
+
+  @Test
+  @DisplayName("updateStatuses should update the orders that exist and are not cancelled and report the others")
+  void updateStatuses_mixedIds_reportsPerId() {
+    Orders first = order(Status.CONFIRMED, new OrderItem(1, "alpha-widget", 1, 2.5));
+    Orders second = order(Status.CONFIRMED, new OrderItem(2, "alpha-gizmo", 1, 4.0));
+    Orders cancelled = order(Status.CANCELLED, new OrderItem(1, "alpha-widget", 1, 2.5));
+
+    List<BulkOrderResultDto> results = orderService.updateStatuses(new StatusUpdateDto("SHIPPED",
+        List.of(first.getId(), cancelled.getId(), MISSING, second.getId(), first.getId())));
+
+    assertThat(results).extracting(BulkOrderResultDto::getIndex).containsExactly(0, 1, 2, 3, 4);
+    assertThat(results).extracting(BulkOrderResultDto::getStatus).containsExactly(200, 400, 404, 200, 200);
+    assertThat(results).extracting(BulkOrderResultDto::getOrderId)
+        .containsExactly(first.getId(), cancelled.getId(), MISSING, second.getId(), first.getId());
+    assertThat(results.get(1).getError()).isEqualTo("Cannot update a cancelled order");
+    assertThat(results.get(2).getError()).isEqualTo("Order with ID " + MISSING + " not found");
+    assertThat(statusOf(first)).isEqualTo(Status.SHIPPED);
+    assertThat(statusOf(second)).isEqualTo(Status.SHIPPED);
+    assertThat(statusOf(cancelled)).isEqualTo(Status.CANCELLED);
+    assertThat(ALPHA.item(1).getStock()).isEqualTo(100);
+  }
+
+  @Test
+  @DisplayName("updateStatuses should update any number of orders with the same two statements")
+  void updateStatuses_manyOrders_constantStatementCount() {
+    List<Integer> ids = IntStream.range(0, 200)
+        .mapToObj(i -> order(Status.CONFIRMED, new OrderItem(1, "alpha-widget", 1, 2.5)).getId())
+        .toList();
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    List<BulkOrderResultDto> results = orderService.updateStatuses(new StatusUpdateDto("SHIPPED", ids));
+
+    assertThat(results).extracting(BulkOrderResultDto::getStatus).containsOnly(200);
+    assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    assertThat(ordersRepository.findAll()).extracting(Orders::getStatus).containsOnly(Status.SHIPPED);
+  }
+
+  @Test
+  @DisplayName("updateStatuses should cancel the orders and restock all their items in the background")
+  void updateStatuses_cancel_restocksInBackground() throws InterruptedException {
+    Orders first = order(Status.CONFIRMED, new OrderItem(1, "alpha-widget", 2, 2.5),
+        new OrderItem(3, "beta-gadget", 1, 3.0));
+    Orders second = order(Status.SHIPPED, new OrderItem(1, "alpha-widget", 3, 2.5),
+        new OrderItem(2, "alpha-gizmo", 4, 4.0));
+    Orders cancelled = order(Status.CANCELLED, new OrderItem(2, "alpha-gizmo", 5, 4.0));
+    Orders unroutable = order(Status.CONFIRMED, new OrderItem(9, "gamma-sprocket", 1, 6.0));
+
+    List<BulkOrderResultDto> results = orderService.updateStatuses(new StatusUpdateDto("CANCELLED",
+        List.of(first.getId(), second.getId(), cancelled.getId(), unroutable.getId())));
+
+    assertThat(results).extracting(BulkOrderResultDto::getStatus).containsExactly(200, 200, 400, 404);
+    assertThat(results.get(3).getError()).isEqualTo("Item with name gamma-sprocket not found");
+    assertThat(statusOf(first)).isEqualTo(Status.CANCELLED);
+    assertThat(statusOf(second)).isEqualTo(Status.CANCELLED);
+    assertThat(statusOf(unroutable)).isEqualTo(Status.CONFIRMED);
+    Await.until(() -> compensationRepository.count() == 0 && BETA.item(3).getStock() == 101);
+    assertThat(ALPHA.item(1).getStock()).isEqualTo(105);
+    assertThat(ALPHA.item(2).getStock()).isEqualTo(104);
+  }
+
+  @Test
+  @DisplayName("updateStatuses should restock an order only once when it is cancelled twice")
+  void updateStatuses_cancelTwice_restocksOnce() throws InterruptedException {
+    Orders order = order(Status.CONFIRMED, new OrderItem(1, "alpha-widget", 2, 2.5));
+    StatusUpdateDto cancellation = new StatusUpdateDto("CANCELLED", List.of(order.getId(), order.getId()));
+
+    List<BulkOrderResultDto> first = orderService.updateStatuses(cancellation);
+    List<BulkOrderResultDto> second = orderService.updateStatusesReactive(cancellation).block();
+
+    assertThat(first).extracting(BulkOrderResultDto::getStatus).containsExactly(200, 200);
+    assertThat(second).extracting(BulkOrderResultDto::getStatus).containsExactly(400, 400);
+    Await.until(() -> compensationRepository.count() == 0 && ALPHA.item(1).getStock() == 102);
+    assertThat(ALPHA.idempotencyKeys()).hasSize(1);
+  }
+
+  private Orders order(Status status, OrderItem... orderItems) {
+    Orders order = new Orders();
+    order.setStatus(status);
+    order.setTotalPrice(10.0);
+    for (OrderItem orderItem : orderItems) {
+      order.addOrderItem(orderItem);
+    }
+    return ordersRepository.save(order);
+  }
+
+  private Status statusOf(Orders order) {
+    return ordersRepository.findById(order.getId()).orElseThrow().getStatus();
+  }
+}
@@ -0,0 +1,201 @@
+package test.serviceb.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.server.ResponseStatusException;
+import test.serviceb.domain.Item;
+import test.serviceb.domain.OrderItem;
+import test.serviceb.domain.Orders;
+import test.serviceb.domain.PendingCompensation;
+import test.serviceb.domain.Status;
+import test.serviceb.domain.dto.OrderDto;
+import test.serviceb.repository.OrdersRepository;
+import test.serviceb.repository.PendingCompensationRepository;
+import test.serviceb.service.impl.OrderServiceImpl;
+import test.serviceb.service.inventory.Compensator;
+import test.serviceb.support.Await;
+import test.serviceb.support.StubInventoryServer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb-service-cancel-order-outbox-integration",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "external.inventory.itemCache.maxSize=0",
+    "external.inventory.compensation.backoff=10ms",
+    "external.inventory.compensation.retryInterval=1h",
+    "external.inventory.compensation.batchSize=2"
+})
+@ActiveProfiles("test")
+class CancelOrderOutboxIntegrationTest {
+
+  private static final Duration SLOW = Duration.ofMillis(500);
+  private static final StubInventoryServer ALPHA = StubInventoryServer.start(false);
+  private static final StubInventoryServer BETA = StubInventoryServer.start(false);
+
+  @Autowired
+  private OrderServiceImpl orderService;
+
+  @Autowired
+  private OrdersRepository ordersRepository;
+
+  @Autowired
+  private PendingCompensationRepository compensationRepository;
+
+  @DynamicPropertySource
+  static void externalInventories(DynamicPropertyRegistry registry) {
+    registry.add("external.inventory.externalInventory.alpha", () -> "alpha," + ALPHA.url());
+    registry.add("external.inventory.externalInventory.beta", () -> "beta," + BETA.url());
+  }
+
+  @AfterAll
+  static void stopInventories() {
+    ALPHA.close();
+    BETA.close();
+  }
+
+  @BeforeEach
+  void setUp() {
+    ordersRepository.deleteAll();
+    compensationRepository.deleteAll();
+    ALPHA.reset();
+    BETA.reset();
+    for (int id = 1; id <= 3; id++) {
+      ALPHA.addItem(new Item(id, "alpha-widget-" + id, 10, 1.0, "widget"));
+    }
+    BETA.addItem(new Item(1, "beta-gadget-1", 10, 1.0, "gadget"));
+  }
+
+  @Test
+  @DisplayName("updateOrder should cancel without waiting for the inventories and restock in the background")
+  void updateOrder_cancel_returnsBeforeRestock() throws InterruptedException {
+    BETA.setLatency(SLOW);
+    Orders order = confirmedOrder(new OrderItem(1, "alpha-widget-1", 2, 1.0),
+        new OrderItem(2, "alpha-widget-2", 3, 1.0), new OrderItem(1, "beta-gadget-1", 4, 1.0));
+
+    long began = System.nanoTime();
+    Orders cancelled = orderService.updateOrder(order.getId(), cancellation());
+
+    assertThat(Duration.ofNanos(System.nanoTime() - began)).isLessThan(SLOW);
+    assertThat(cancelled.getStatus()).isEqualTo(Status.CANCELLED);
+    assertThat(ordersRepository.findById(order.getId())).get()
+        .extracting(Orders::getStatus).isEqualTo(Status.CANCELLED);
+
+    Await.until(() -> compensationRepository.count() == 0 && BETA.item(1).getStock() == 14);
+    assertThat(ALPHA.item(1).getStock()).isEqualTo(12);
+    assertThat(ALPHA.item(2).getStock()).isEqualTo(13);
+    assertThat(ALPHA.idempotencyKeys()).hasSize(2).doesNotContainAnyElementsOf(BETA.idempotencyKeys());
+    assertThat(BETA.idempotencyKeys()).hasSize(1);
+  }
+
+  @Test
+  @DisplayName("updateOrderReactive should cancel and restock in the background as well")
+  void updateOrderReactive_cancel_restocksInBackground() throws InterruptedException {
+    Orders order = confirmedOrder(new OrderItem(3, "alpha-widget-3", 5, 1.0));
+
+    Orders cancelled = orderService.updateOrderReactive(order.getId(), cancellation()).block();
+
+    assertThat(cancelled).extracting(Orders::getStatus).isEqualTo(Status.CANCELLED);
+    Await.until(() -> compensationRepository.count() == 0);
+    assertThat(ALPHA.item(3).getStock()).isEqualTo(15);
+  }
+
+  @Test
+  @DisplayName("A restock repeated after its answer was lost should be applied only once")
+  void updateOrder_cancel_lostAnswer_restocksOnce() throws InterruptedException {
+    ALPHA.loseNextUpdateResponse();
+    Orders order = confirmedOrder(new OrderItem(1, "alpha-widget-1", 2, 1.0));
+
+    orderService.updateOrder(order.getId(), cancellation());
+
+    Await.until(() -> compensationRepository.count() == 0);
+    assertThat(ALPHA.item(1).getStock()).isEqualTo(12);
+    assertThat(ALPHA.replayedUpdates()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("Concurrent cancellations of the same order should record and restock its items only once")
+  void updateOrder_concurrentCancel_restocksOnce() throws Exception {
+    Orders order = confirmedOrder(new OrderItem(1, "alpha-widget-1", 2, 1.0),
+        new OrderItem(1, "beta-gadget-1", 4, 1.0));
+    int callers = 8;
+    CyclicBarrier start = new CyclicBarrier(callers);
+    ExecutorService executor = Executors.newFixedThreadPool(callers);
+    List<Future<Orders>> results = new ArrayList<>();
+    try {
+      for (int i = 0; i < callers; i++) {
+        results.add(executor.submit(() -> {
+          start.await();
+          return orderService.updateOrder(order.getId(), cancellation());
+        }));
+      }
+      int cancelled = 0;
+      for (Future<Orders> result : results) {
+        try {
+          assertThat(result.get()).extracting(Orders::getStatus).isEqualTo(Status.CANCELLED);
+          cancelled++;
+        } catch (ExecutionException e) {
+          assertThat(e.getCause()).isInstanceOf(ResponseStatusException.class)
+              .hasMessageContaining("Cannot update a cancelled order");
+        }
+      }
+      assertThat(cancelled).isEqualTo(1);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Await.until(() -> compensationRepository.count() == 0 && BETA.item(1).getStock() == 14);
+    assertThat(ALPHA.item(1).getStock()).isEqualTo(12);
+    assertThat(ALPHA.idempotencyKeys()).hasSize(1);
+    assertThat(BETA.idempotencyKeys()).hasSize(1);
+  }
+
+  @Test
+  @DisplayName("retryCompensations should drain all due outbox entries batch by batch")
+  void retryCompensations_drainsOutboxInBatches() {
+    Instant now = Instant.now();
+    compensationRepository.saveAll(IntStream.range(0, 5)
+        .mapToObj(i -> new PendingCompensation(new OrderItem(3, "alpha-widget-3", 1, 0), null, now, now))
+        .toList());
+
+    Compensator.Report report = orderService.retryCompensations();
+
+    assertThat(report.restocked()).isEqualTo(5);
+    assertThat(report.failed()).isZero();
+    assertThat(compensationRepository.count()).isZero();
+    assertThat(ALPHA.item(3).getStock()).isEqualTo(15);
+    assertThat(ALPHA.idempotencyKeys()).hasSize(5);
+  }
+
+  private Orders confirmedOrder(OrderItem... orderItems) {
+    Orders order = new Orders();
+    order.setStatus(Status.CONFIRMED);
+    order.setTotalPrice(10.0);
+    for (OrderItem orderItem : orderItems) {
+      order.addOrderItem(orderItem);
+    }
+    return ordersRepository.save(order);
+  }
+
+  private static OrderDto cancellation() {
+    return new OrderDto(0.0, "CANCELLED", List.of());
+  }
+}
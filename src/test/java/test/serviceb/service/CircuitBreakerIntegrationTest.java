@@ -0,0 +1,156 @@
+package test.serviceb.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import test.serviceb.domain.Item;
+import test.serviceb.domain.dto.OrderDto;
+import test.serviceb.domain.dto.OrderItemDto;
+import test.serviceb.repository.OrdersRepository;
+import test.serviceb.service.inventory.InventoryUnavailableException;
+import test.serviceb.support.StubInventoryServer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb-service-circuit-breaker-integration",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "external.inventory.itemCache.maxSize=0",
+    "external.inventory.maxPerBackend=2",
+    "external.inventory.maxQueued=1",
+    "external.inventory.circuitBreakers.alpha.windowSize=4",
+    "external.inventory.circuitBreakers.alpha.minimumCalls=4",
+    "external.inventory.circuitBreakers.alpha.openDuration=500ms",
+    "external.inventory.circuitBreakers.alpha.probeCalls=1"
+})
+@ActiveProfiles("test")
+class CircuitBreakerIntegrationTest {
+
+  private static final int ORDERS = 6;
+  private static final StubInventoryServer ALPHA = StubInventoryServer.start(false);
+  private static final StubInventoryServer BETA = StubInventoryServer.start(false);
+
+  @Autowired
+  private OrderService orderService;
+
+  @Autowired
+  private OrdersRepository ordersRepository;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @DynamicPropertySource
+  static void externalInventories(DynamicPropertyRegistry registry) {
+    registry.add("external.inventory.externalInventory.alpha", () -> "alpha," + ALPHA.url());
+    registry.add("external.inventory.externalInventory.beta", () -> "beta," + BETA.url());
+  }
+
+  @AfterAll
+  static void stopInventories() {
+    ALPHA.close();
+    BETA.close();
+  }
+
+  @BeforeEach
+  void setUp() {
+    ordersRepository.deleteAll();
+    ALPHA.reset();
+    BETA.reset();
+    for (int id = 1; id <= ORDERS; id++) {
+      ALPHA.addItem(new Item(id, "alpha-widget-" + id, 10, 1.0, "widget"));
+      BETA.addItem(new Item(id, "beta-gadget-" + id, 10, 1.0, "gadget"));
+    }
+  }
+
+  @Test
+  @DisplayName("createOrder should fail fast with 503 while the circuit of a failing inventory is open")
+  void createOrder_failingInventory_opensCircuitAndRecovers() throws Exception {
+    ALPHA.setFailureStatus(500);
+    for (int i = 0; i < 4; i++) {
+      assertThatThrownBy(() -> orderService.createOrder(order("alpha-widget-1")))
+          .isNotInstanceOf(InventoryUnavailableException.class);
+    }
+    int calls = ALPHA.requests("GET", StubInventoryServer.ITEM);
+
+    assertThatThrownBy(() -> orderService.createOrder(order("alpha-widget-1")))
+        .isInstanceOfSatisfying(InventoryUnavailableException.class, e -> {
+          assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+          assertThat(e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        });
+    assertThat(ALPHA.requests("GET", StubInventoryServer.ITEM)).isEqualTo(calls);
+    assertThat(circuitState("alpha", "open")).isEqualTo(1);
+    assertThat(orderService.createOrder(order("beta-gadget-1")).getOrderItems()).hasSize(1);
+
+    ALPHA.setFailureStatus(0);
+    Thread.sleep(Duration.ofMillis(600));
+
+    assertThat(orderService.createOrder(order("alpha-widget-1")).getOrderItems()).hasSize(1);
+    assertThat(circuitState("alpha", "closed")).isEqualTo(1);
+    assertThat(meterRegistry.get("inventory.circuit.rejected").tag("inventory", "alpha").functionCounter().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("createOrder should reject calls to a slow inventory beyond its bulkhead without delaying others")
+  void createOrder_slowInventory_bulkheadRejectsExcessCalls() throws Exception {
+    BETA.setLatency(Duration.ofMillis(300));
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> orders = new ArrayList<>();
+    try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int id = 1; id <= ORDERS; id++) {
+        OrderDto dto = order("beta-gadget-" + id);
+        orders.add(clients.submit(() -> {
+          start.await();
+          return orderService.createOrder(dto);
+        }));
+      }
+      start.countDown();
+      Thread.sleep(Duration.ofMillis(100));
+      long began = System.nanoTime();
+      assertThat(orderService.createOrder(order("alpha-widget-2")).getOrderItems()).hasSize(1);
+      assertThat(Duration.ofNanos(System.nanoTime() - began)).isLessThan(Duration.ofMillis(300));
+    }
+
+    int rejected = 0;
+    for (Future<?> order : orders) {
+      try {
+        order.get();
+      } catch (ExecutionException e) {
+        assertThat(e.getCause()).isInstanceOf(InventoryUnavailableException.class);
+        rejected++;
+      }
+    }
+    assertThat(rejected).isBetween(1, ORDERS - 3);
+    assertThat(meterRegistry.get("inventory.bulkhead.rejected").tag("inventory", "beta").functionCounter().count())
+        .isEqualTo(rejected);
+  }
+
+  private double circuitState(String inventory, String state) {
+    return meterRegistry.get("inventory.circuit.state").tag("inventory", inventory).tag("state", state)
+        .gauge().value();
+  }
+
+  private static OrderDto order(String itemName) {
+    int itemId = Integer.parseInt(itemName.substring(itemName.lastIndexOf('-') + 1));
+    return new OrderDto(1.0, "CONFIRMED", List.of(new OrderItemDto(itemId, itemName, 1.0, 1)));
+  }
+}
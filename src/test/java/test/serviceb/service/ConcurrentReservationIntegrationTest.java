@@ -0,0 +1,114 @@
+package test.serviceb.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import test.serviceb.domain.Item;
+import test.serviceb.domain.dto.OrderDto;
+import test.serviceb.domain.dto.OrderItemDto;
+import test.serviceb.repository.OrdersRepository;
+import test.serviceb.support.StubInventoryServer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+    // Isolate datasource per test class
+    "spring.datasource.url=jdbc:h2:mem:testdb-service-concurrent-reservation-integration"
+})
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+    // Ensure hibernate creates schema in tests
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    // Enough retries for every order to get through a queue of contenders for the same item
+    "external.inventory.conflictRetries=50",
+    "external.inventory.conflictBackoff=5ms",
+    // Let every order wait for the backend instead of being turned away by its bulkhead or circuit breaker
+    "external.inventory.maxQueued=200",
+    "external.inventory.queueTimeout=2m",
+    "external.inventory.circuitBreaker.slowCallDuration=2m"
+})
+class ConcurrentReservationIntegrationTest {
+
+  private static final int ORDERS = 200;
+  private static final int STOCK = 150;
+
+  private static final StubInventoryServer HOT = StubInventoryServer.start(false);
+
+  @Autowired
+  private OrderService orderService;
+
+  @Autowired
+  private OrdersRepository ordersRepository;
+
+  @DynamicPropertySource
+  static void externalInventories(DynamicPropertyRegistry registry) {
+    registry.add("external.inventory.externalInventory.hot", () -> "hot," + HOT.url());
+  }
+
+  @AfterAll
+  static void stopInventory() {
+    HOT.close();
+  }
+
+  @BeforeEach
+  void setUp() {
+    ordersRepository.deleteAll();
+    HOT.reset();
+    HOT.addItem(new Item(1, "hot-seller", STOCK, 9.99, "limited edition"));
+  }
+
+  @Test
+  @DisplayName("createOrder should neither oversell nor lose stock updates when many orders race for one item")
+  void createOrder_concurrentOrdersForOneItem_stockStaysConsistent() throws Exception {
+    ExecutorService clients = Executors.newFixedThreadPool(ORDERS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<Boolean>> results = new ArrayList<>(ORDERS);
+    try {
+      for (int i = 0; i < ORDERS; i++) {
+        results.add(clients.submit(() -> {
+          start.await();
+          try {
+            orderService.createOrder(new OrderDto(9.99, "CONFIRMED",
+                List.of(new OrderItemDto(1, "hot-seller", 9.99, 1))));
+            return true;
+          } catch (RuntimeException e) {
+            return false;
+          }
+        }));
+      }
+      start.countDown();
+      int succeeded = 0;
+      for (Future<Boolean> result : results) {
+        if (result.get(2, TimeUnit.MINUTES)) {
+          succeeded++;
+        }
+      }
+
+      int remaining = HOT.item(1).getStock();
+      assertThat(remaining).isGreaterThanOrEqualTo(0);
+      // Every successful order took exactly one unit, and no unit was taken without an order
+      assertThat(succeeded).isEqualTo(STOCK);
+      assertThat(STOCK - remaining).isEqualTo(succeeded);
+      assertThat(ordersRepository.count()).isEqualTo(succeeded);
+      // The races actually happened and were resolved by retrying the conditional update
+      assertThat(HOT.rejectedUpdates()).isPositive();
+    } finally {
+      clients.shutdownNow();
+    }
+  }
+}
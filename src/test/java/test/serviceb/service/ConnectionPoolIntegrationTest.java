@@ -0,0 +1,136 @@
+package test.serviceb.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import test.serviceb.domain.Item;
+import test.serviceb.domain.dto.OrderDto;
+import test.serviceb.domain.dto.OrderItemDto;
+import test.serviceb.repository.OrdersRepository;
+import test.serviceb.support.StubInventoryServer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb-service-connection-pool-integration",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "external.inventory.itemCache.maxSize=0",
+    "external.inventory.connectionPools.pooled.maxConnections=2",
+    "external.inventory.connectionPools.queued.maxConnections=1",
+    "external.inventory.connectionPools.queued.maxPending=1"
+})
+@ActiveProfiles("test")
+class ConnectionPoolIntegrationTest {
+
+  private static final int ORDERS = 6;
+  private static final StubInventoryServer POOLED = StubInventoryServer.start(false);
+  private static final StubInventoryServer QUEUED = StubInventoryServer.start(false);
+
+  @Autowired
+  private OrderService orderService;
+
+  @Autowired
+  private OrdersRepository ordersRepository;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @DynamicPropertySource
+  static void externalInventories(DynamicPropertyRegistry registry) {
+    registry.add("external.inventory.externalInventory.pooled", () -> "pooled," + POOLED.url());
+    registry.add("external.inventory.externalInventory.queued", () -> "queued," + QUEUED.url());
+  }
+
+  @AfterAll
+  static void stopInventories() {
+    POOLED.close();
+    QUEUED.close();
+  }
+
+  @BeforeEach
+  void setUp() {
+    ordersRepository.deleteAll();
+    POOLED.reset();
+    QUEUED.reset();
+    for (int id = 1; id <= ORDERS; id++) {
+      POOLED.addItem(new Item(id, "pooled-widget-" + id, 10, 1.0, "widget"));
+      QUEUED.addItem(new Item(id, "queued-gadget-" + id, 10, 1.0, "gadget"));
+    }
+  }
+
+  @Test
+  @DisplayName("createOrder should share the configured number of connections to an inventory")
+  void createOrder_concurrentOrders_limitedToPoolSize() throws Exception {
+    POOLED.setLatency(Duration.ofMillis(100));
+
+    assertThat(placeConcurrently("pooled-widget-")).isZero();
+
+    assertThat(poolGauge("max.connections", "pooled")).isEqualTo(2);
+    assertThat(poolGauge("total.connections", "pooled")).isBetween(1.0, 2.0);
+  }
+
+  @Test
+  @DisplayName("createOrder should fail fast once the pending-acquire queue of an inventory is full")
+  void createOrder_pendingQueueFull_rejectsExcessCalls() throws Exception {
+    QUEUED.setLatency(Duration.ofMillis(300));
+
+    int failed = placeConcurrently("queued-gadget-");
+
+    // One call holds the only connection and one waits for it, so at least the others are rejected
+    assertThat(failed).isGreaterThanOrEqualTo(1);
+    assertThat(failed).isLessThan(ORDERS);
+    assertThat(poolGauge("max.pending.connections", "queued")).isEqualTo(1);
+  }
+
+  /**
+   * Places {@link #ORDERS} single-item orders at the same time and returns how many of them failed.
+   */
+  private int placeConcurrently(String itemPrefix) throws InterruptedException {
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> orders = new ArrayList<>();
+    try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int id = 1; id <= ORDERS; id++) {
+        OrderDto dto = new OrderDto(1.0, "CONFIRMED", List.of(new OrderItemDto(id, itemPrefix + id, 1.0, 1)));
+        orders.add(clients.submit(() -> {
+          start.await();
+          return orderService.createOrder(dto);
+        }));
+      }
+      start.countDown();
+    }
+    int failed = 0;
+    for (Future<?> order : orders) {
+      try {
+        order.get();
+      } catch (ExecutionException e) {
+        failed++;
+      }
+    }
+    return failed;
+  }
+
+  private double poolGauge(String name, String inventory) {
+    Gauge gauge = meterRegistry.find("reactor.netty.connection.provider." + name)
+        .tag("name", "inventory-" + inventory)
+        .gauge();
+    assertThat(gauge).as("gauge %s of %s", name, inventory).isNotNull();
+    return gauge.value();
+  }
+}
@@ -0,0 +1,112 @@
+package test.serviceb.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+import test.serviceb.domain.IdempotentRequest;
+import test.serviceb.repository.IdempotentRequestRepository;
+import test.serviceb.service.idempotency.IdempotencyStore;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb-service-idempotency-store-integration",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@ActiveProfiles("test")
+class IdempotencyStoreIntegrationTest {
+
+  @Autowired
+  private IdempotencyStore store;
+
+  @Autowired
+  private IdempotentRequestRepository repository;
+
+  @BeforeEach
+  void setUp() {
+    repository.deleteAll();
+  }
+
+  @Test
+  @DisplayName("claim should return the order of a completed key and reject it for a different request")
+  void claim_completedKey_returnsOrder() {
+    assertThat(store.claim("key-1", "order-a")).isNull();
+    store.complete("key-1", "order-a", 42);
+
+    assertThat(store.claim("key-1", "order-a")).isEqualTo(42);
+    assertThat(repository.findById("key-1")).get().extracting(IdempotentRequest::getOrderId).isEqualTo(42);
+    assertThatThrownBy(() -> store.claim("key-1", "order-b"))
+        .isInstanceOfSatisfying(ResponseStatusException.class,
+            e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY));
+  }
+
+  @Test
+  @DisplayName("claim should reject a key whose order is still being created until it is released")
+  void claim_keyInProgress_conflictsUntilReleased() {
+    assertThat(store.claim("key-2", "order-a")).isNull();
+
+    assertThatThrownBy(() -> store.claim("key-2", "order-a"))
+        .isInstanceOfSatisfying(ResponseStatusException.class,
+            e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+
+    assertThat(store.release("key-2")).isTrue();
+    assertThat(store.claim("key-2", "order-a")).isNull();
+  }
+
+  @Test
+  @DisplayName("claim should take over a key whose lease ended without an order")
+  void claim_abandonedKey_takenOver() throws Exception {
+    Instant abandoned = Instant.now().minus(Duration.ofMinutes(2)).truncatedTo(ChronoUnit.MILLIS);
+    repository.claim("key-3", sha256("order-a"), abandoned);
+
+    assertThat(store.claim("key-3", "order-a")).isNull();
+    assertThatThrownBy(() -> store.claim("key-3", "order-a")).isInstanceOf(ResponseStatusException.class);
+  }
+
+  @Test
+  @ExtendWith(OutputCaptureExtension.class)
+  @DisplayName("claim should look up a repeated key instead of provoking a logged constraint violation")
+  void claim_repeatedKey_noConstraintViolation(CapturedOutput output) throws Exception {
+    repository.claim("key-5", sha256("order-a"), Instant.now().truncatedTo(ChronoUnit.MILLIS));
+    repository.complete("key-5", 7);
+
+    assertThat(store.claim("key-5", "order-a")).isEqualTo(7);
+    assertThat(store.claim("key-6", "order-a")).isNull();
+    assertThatThrownBy(() -> store.claim("key-6", "order-a"))
+        .isInstanceOfSatisfying(ResponseStatusException.class,
+            e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+    assertThat(output).doesNotContain("SqlExceptionHelper");
+  }
+
+  @Test
+  @DisplayName("purge should forget the keys older than the retention only")
+  void purge_deletesExpiredKeys() {
+    repository.claim("old", "order-a", Instant.now().minus(Duration.ofDays(2)).truncatedTo(ChronoUnit.MILLIS));
+    assertThat(store.claim("new", "order-a")).isNull();
+
+    assertThat(store.purge()).isEqualTo(1);
+    assertThat(repository.findAll()).extracting(IdempotentRequest::getIdempotencyKey).containsExactly("new");
+  }
+
+  private static String sha256(String request) throws NoSuchAlgorithmException {
+    byte[] hash = MessageDigest.getInstance("SHA-256").digest(request.getBytes(StandardCharsets.UTF_8));
+    return HexFormat.of().formatHex(hash);
+  }
+}
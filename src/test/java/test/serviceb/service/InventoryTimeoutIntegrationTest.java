@@ -0,0 +1,110 @@
+package test.serviceb.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import test.serviceb.domain.Item;
+import test.serviceb.domain.dto.OrderDto;
+import test.serviceb.domain.dto.OrderItemDto;
+import test.serviceb.repository.OrdersRepository;
+import test.serviceb.support.StubInventoryServer;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb-service-inventory-timeout-integration",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "external.inventory.itemCache.maxSize=0",
+    "external.inventory.timeouts.alpha.hedge=true",
+    "external.inventory.timeouts.alpha.hedgeMinDelay=20ms",
+    "external.inventory.timeouts.beta.response=200ms"
+})
+@ActiveProfiles("test")
+class InventoryTimeoutIntegrationTest {
+
+  private static final int WARM_UP = 30;
+  private static final StubInventoryServer ALPHA = StubInventoryServer.start(false);
+  private static final StubInventoryServer BETA = StubInventoryServer.start(false);
+
+  @Autowired
+  private OrderService orderService;
+
+  @Autowired
+  private OrdersRepository ordersRepository;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @DynamicPropertySource
+  static void externalInventories(DynamicPropertyRegistry registry) {
+    registry.add("external.inventory.externalInventory.alpha", () -> "alpha," + ALPHA.url());
+    registry.add("external.inventory.externalInventory.beta", () -> "beta," + BETA.url());
+  }
+
+  @AfterAll
+  static void stopInventories() {
+    ALPHA.close();
+    BETA.close();
+  }
+
+  @BeforeEach
+  void setUp() {
+    ordersRepository.deleteAll();
+    ALPHA.reset();
+    BETA.reset();
+    ALPHA.addItem(new Item(1, "alpha-widget", 1000, 1.0, "widget"));
+    BETA.addItem(new Item(1, "beta-gadget", 1000, 1.0, "gadget"));
+  }
+
+  @Test
+  @DisplayName("createOrder should hedge an item lookup that takes longer than usual and use the first answer")
+  void createOrder_slowLookup_hedged() {
+    for (int i = 0; i < WARM_UP; i++) {
+      orderService.createOrder(order("alpha-widget"));
+    }
+    int lookups = ALPHA.requests("GET", StubInventoryServer.ITEM);
+    double hedges = hedgeCount();
+    ALPHA.delayNext(Duration.ofSeconds(3));
+
+    long start = System.nanoTime();
+    orderService.createOrder(order("alpha-widget"));
+
+    assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+    assertThat(ALPHA.requests("GET", StubInventoryServer.ITEM)).isEqualTo(lookups + 2);
+    assertThat(ALPHA.item(1).getStock()).isEqualTo(1000 - WARM_UP - 1);
+    // A warm-up lookup may have been hedged as well on a busy machine
+    assertThat(hedgeCount()).isEqualTo(hedges + 1);
+  }
+
+  private double hedgeCount() {
+    return meterRegistry.get("inventory.lookup.hedged").tag("inventory", "alpha").functionCounter().count();
+  }
+
+  @Test
+  @DisplayName("createOrder should give up on an inventory that does not answer within its response timeout")
+  void createOrder_unresponsiveInventory_timesOut() {
+    BETA.setLatency(Duration.ofSeconds(2));
+
+    long start = System.nanoTime();
+    assertThatThrownBy(() -> orderService.createOrder(order("beta-gadget")))
+        .hasRootCauseInstanceOf(ReadTimeoutException.class);
+
+    assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+  }
+
+  private static OrderDto order(String itemName) {
+    return new OrderDto(1.0, "CONFIRMED", List.of(new OrderItemDto(1, itemName, 1.0, 1)));
+  }
+}
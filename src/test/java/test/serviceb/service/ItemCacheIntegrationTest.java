@@ -0,0 +1,128 @@
+package test.serviceb.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import test.serviceb.domain.Item;
+import test.serviceb.domain.Orders;
+import test.serviceb.domain.dto.OrderDto;
+import test.serviceb.domain.dto.OrderItemDto;
+import test.serviceb.repository.OrdersRepository;
+import test.serviceb.support.StubInventoryServer;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static test.serviceb.support.StubInventoryServer.ITEM;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb-service-item-cache-integration",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    // beta opts out of the item cache
+    "external.inventory.itemCaches.beta.maxSize=0"
+})
+@ActiveProfiles("test")
+class ItemCacheIntegrationTest {
+
+  private static final StubInventoryServer ALPHA = StubInventoryServer.start(false);
+  private static final StubInventoryServer BETA = StubInventoryServer.start(false);
+
+  @Autowired
+  private OrderService orderService;
+
+  @Autowired
+  private OrdersRepository ordersRepository;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @DynamicPropertySource
+  static void externalInventories(DynamicPropertyRegistry registry) {
+    registry.add("external.inventory.externalInventory.alpha", () -> "alpha," + ALPHA.url());
+    registry.add("external.inventory.externalInventory.beta", () -> "beta," + BETA.url());
+  }
+
+  @AfterAll
+  static void stopInventories() {
+    ALPHA.close();
+    BETA.close();
+  }
+
+  @BeforeEach
+  void setUp() {
+    ordersRepository.deleteAll();
+    ALPHA.reset();
+    BETA.reset();
+    // Every test uses its own item, as the item cache outlives the test that filled it
+    ALPHA.addItem(new Item(1, "alpha-widget", 10, 2.5, "widget"));
+    ALPHA.addItem(new Item(3, "alpha-gizmo", 10, 2.5, "gizmo"));
+    ALPHA.addItem(new Item(4, "alpha-doohickey", 10, 2.5, "doohickey"));
+    BETA.addItem(new Item(2, "beta-gadget", 10, 3.0, "gadget"));
+  }
+
+  @Test
+  @DisplayName("createOrder should read an item written shortly before from the cache")
+  void createOrder_repeatedItem_servedFromCache() {
+    double hits = cacheGets("alpha", "hit");
+
+    orderService.createOrder(order(1, "alpha-widget", 1));
+    orderService.createOrder(order(1, "alpha-widget", 2));
+    orderService.createOrder(order(2, "beta-gadget", 1));
+    orderService.createOrder(order(2, "beta-gadget", 2));
+
+    assertThat(ALPHA.requests("GET", ITEM)).isEqualTo(1);
+    assertThat(ALPHA.requests("PUT", ITEM)).isEqualTo(2);
+    assertThat(ALPHA.item(1).getStock()).isEqualTo(7);
+    assertThat(cacheGets("alpha", "hit")).isEqualTo(hits + 1);
+    // The cache of beta is disabled
+    assertThat(BETA.requests("GET", ITEM)).isEqualTo(2);
+    assertThat(BETA.item(2).getStock()).isEqualTo(7);
+  }
+
+  @Test
+  @DisplayName("createOrder should re-read an item that changed behind the cache instead of overwriting it")
+  void createOrder_staleCachedItem_rereadAfterConflict() {
+    orderService.createOrder(order(3, "alpha-gizmo", 1));
+    // Someone else sells four gizmos
+    ALPHA.addItem(new Item(3, "alpha-gizmo", 5, 2.5, "gizmo"));
+
+    orderService.createOrder(order(3, "alpha-gizmo", 2));
+
+    assertThat(ALPHA.rejectedUpdates()).isEqualTo(1);
+    assertThat(ALPHA.requests("GET", ITEM)).isEqualTo(2);
+    assertThat(ALPHA.item(3).getStock()).isEqualTo(3);
+  }
+
+  @Test
+  @DisplayName("createOrder should not reject an order because of a cached item with too little stock")
+  void createOrder_cachedItemLacksStock_rereadBeforeRejecting() {
+    orderService.createOrder(order(4, "alpha-doohickey", 10));
+    // The doohickey is restocked behind the cache
+    ALPHA.addItem(new Item(4, "alpha-doohickey", 4, 2.5, "doohickey"));
+
+    Orders saved = orderService.createOrder(order(4, "alpha-doohickey", 3));
+
+    assertThat(saved.getOrderItems()).hasSize(1);
+    assertThat(ALPHA.rejectedUpdates()).isZero();
+    assertThat(ALPHA.item(4).getStock()).isEqualTo(1);
+  }
+
+  private double cacheGets(String inventory, String result) {
+    return meterRegistry.get("cache.gets")
+        .tag("cache", "inventory.items")
+        .tag("inventory", inventory)
+        .tag("result", result)
+        .functionCounter().count();
+  }
+
+  private static OrderDto order(int itemId, String itemName, int quantity) {
+    return new OrderDto(quantity * 2.5, "CONFIRMED", List.of(new OrderItemDto(itemId, itemName, 2.5, quantity)));
+  }
+}
@@ -0,0 +1,137 @@
+package test.serviceb.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import test.serviceb.domain.Item;
+import test.serviceb.domain.PendingCompensation;
+import test.serviceb.domain.dto.OrderDto;
+import test.serviceb.domain.dto.OrderItemDto;
+import test.serviceb.repository.OrdersRepository;
+import test.serviceb.repository.PendingCompensationRepository;
+import test.serviceb.support.Await;
+import test.serviceb.support.StubInventoryServer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb-service-order-compensation-integration",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "external.inventory.itemCache.maxSize=0",
+    "external.inventory.circuitBreaker.windowSize=1000",
+    "external.inventory.circuitBreaker.minimumCalls=1000",
+    "external.inventory.compensation.backoff=10ms",
+    "external.inventory.compensation.retryInterval=200ms"
+})
+@ActiveProfiles("test")
+class OrderCompensationIntegrationTest {
+
+  private static final StubInventoryServer ALPHA = StubInventoryServer.start(false);
+  private static final StubInventoryServer BETA = StubInventoryServer.start(false);
+
+  @Autowired
+  private OrderService orderService;
+
+  @Autowired
+  private OrdersRepository ordersRepository;
+
+  @Autowired
+  private PendingCompensationRepository compensationRepository;
+
+  @DynamicPropertySource
+  static void externalInventories(DynamicPropertyRegistry registry) {
+    registry.add("external.inventory.externalInventory.alpha", () -> "alpha," + ALPHA.url());
+    registry.add("external.inventory.externalInventory.beta", () -> "beta," + BETA.url());
+  }
+
+  @AfterAll
+  static void stopInventories() {
+    ALPHA.close();
+    BETA.close();
+  }
+
+  @BeforeEach
+  void setUp() {
+    ordersRepository.deleteAll();
+    compensationRepository.deleteAll();
+    ALPHA.reset();
+    BETA.reset();
+    ALPHA.addItem(new Item(1, "alpha-widget-1", 10, 1.0, "widget"));
+    ALPHA.addItem(new Item(2, "alpha-widget-2", 10, 1.0, "widget"));
+    BETA.addItem(new Item(1, "beta-gadget-1", 10, 1.0, "gadget"));
+  }
+
+  @Test
+  @DisplayName("createOrder should return the stock of the reserved items if a later item fails")
+  void createOrder_failingItem_restocksReservedItems() throws Exception {
+    BETA.setLatency(Duration.ofMillis(200));
+
+    assertThatThrownBy(() -> orderService.createOrder(failingOrder()))
+        .hasMessageContaining("ID: 9");
+
+    awaitCompensated();
+    assertThat(ALPHA.item(1).getStock()).isEqualTo(10);
+    assertThat(ALPHA.item(2).getStock()).isEqualTo(10);
+    assertThat(ordersRepository.count()).isZero();
+  }
+
+  @Test
+  @DisplayName("createOrderReactive should return the stock of the reserved items if a later item fails")
+  void createOrderReactive_failingItem_restocksReservedItems() throws Exception {
+    BETA.setLatency(Duration.ofMillis(200));
+
+    assertThatThrownBy(() -> orderService.createOrderReactive(failingOrder()).block())
+        .hasMessageContaining("ID: 9");
+
+    awaitCompensated();
+    assertThat(ALPHA.item(1).getStock()).isEqualTo(10);
+    assertThat(ALPHA.item(2).getStock()).isEqualTo(10);
+  }
+
+  @Test
+  @DisplayName("A compensation failing because the inventory is down should be stored and retried later")
+  void createOrder_inventoryDown_retriesStoredCompensation() throws Exception {
+    BETA.setLatency(Duration.ofMillis(500));
+    CompletableFuture<?> order = CompletableFuture.runAsync(() -> orderService.createOrder(failingOrder()));
+    Thread.sleep(Duration.ofMillis(250));
+    ALPHA.setFailureStatus(500);
+
+    assertThatThrownBy(order::get).isInstanceOf(ExecutionException.class);
+    Await.until(() -> compensationRepository.findAll().stream().filter(c -> c.getAttempts() > 0).count() == 2);
+    List<PendingCompensation> pending = compensationRepository.findAll();
+    assertThat(pending).extracting(PendingCompensation::getItemName)
+        .containsExactlyInAnyOrder("alpha-widget-1", "alpha-widget-2");
+    assertThat(pending).allSatisfy(c -> assertThat(c.getLastError()).contains("500"));
+    assertThat(ALPHA.item(1).getStock()).isEqualTo(8);
+
+    ALPHA.setFailureStatus(0);
+
+    awaitCompensated();
+    assertThat(ALPHA.item(1).getStock()).isEqualTo(10);
+    assertThat(ALPHA.item(2).getStock()).isEqualTo(10);
+  }
+
+  private void awaitCompensated() throws InterruptedException {
+    Await.until(() -> compensationRepository.count() == 0
+        && ALPHA.item(1).getStock() == 10 && ALPHA.item(2).getStock() == 10);
+  }
+
+  private static OrderDto failingOrder() {
+    return new OrderDto(6.0, "CONFIRMED", List.of(
+        new OrderItemDto(1, "alpha-widget-1", 1.0, 2),
+        new OrderItemDto(2, "alpha-widget-2", 1.0, 3),
+        new OrderItemDto(9, "beta-gadget-9", 1.0, 1)));
+  }
+}
@@ -0,0 +1,163 @@
+package test.serviceb.service;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import test.serviceb.domain.Item;
+import test.serviceb.domain.Orders;
+import test.serviceb.domain.dto.OrderDto;
+import test.serviceb.domain.dto.OrderItemDto;
+import test.serviceb.repository.OrdersRepository;
+import test.serviceb.repository.PendingCompensationRepository;
+import test.serviceb.support.Await;
+import test.serviceb.support.StubInventoryServer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb-service-order-flight-recorder-integration",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "external.inventory.itemCache.maxSize=0"
+})
+@ActiveProfiles("test")
+class OrderFlightRecorderIntegrationTest {
+
+  private static final String CREATION = "test.serviceb.OrderCreation";
+  private static final String RESERVATION = "test.serviceb.ItemReservation";
+  private static final String PERSISTENCE = "test.serviceb.OrderPersistence";
+  private static final String RESTOCK = "test.serviceb.Restock";
+  private static final StubInventoryServer ALPHA = StubInventoryServer.start(false);
+
+  @Autowired
+  private OrderService orderService;
+
+  @Autowired
+  private OrdersRepository ordersRepository;
+
+  @Autowired
+  private PendingCompensationRepository compensationRepository;
+
+  @TempDir
+  private Path tempDir;
+
+  private Recording recording;
+
+  @DynamicPropertySource
+  static void externalInventories(DynamicPropertyRegistry registry) {
+    registry.add("external.inventory.externalInventory.alpha", () -> "alpha," + ALPHA.url());
+  }
+
+  @AfterAll
+  static void stopInventories() {
+    ALPHA.close();
+  }
+
+  @BeforeEach
+  void setUp() {
+    ordersRepository.deleteAll();
+    compensationRepository.deleteAll();
+    ALPHA.reset();
+    ALPHA.addItem(new Item(1, "alpha-widget", 10, 2.5, "widget"));
+    ALPHA.addItem(new Item(2, "alpha-gizmo", 10, 4.0, "gizmo"));
+    recording = new Recording();
+    List.of(CREATION, RESERVATION, PERSISTENCE, RESTOCK).forEach(recording::enable);
+    recording.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    recording.close();
+  }
+
+  @Test
+  @DisplayName("createOrder should emit the creation, every reservation and the persistence of the order")
+  void createOrder_emitsLifecycleEvents() throws IOException {
+    Orders created = orderService.createOrder(order(
+        new OrderItemDto(1, "alpha-widget", 2.5, 2), new OrderItemDto(2, "alpha-gizmo", 4.0, 1)), "key-1");
+
+    List<RecordedEvent> events = recordedEvents();
+
+    RecordedEvent creation = single(events, CREATION);
+    assertThat(creation.getInt("orderId")).isEqualTo(created.getId());
+    assertThat(creation.getInt("itemCount")).isEqualTo(2);
+    assertThat(creation.getBoolean("idempotent")).isTrue();
+    assertThat(creation.getString("failure")).isNull();
+    assertThat(creation.getDuration()).isPositive();
+    assertThat(events).filteredOn(event -> RESERVATION.equals(event.getEventType().getName()))
+        .hasSize(2)
+        .allSatisfy(reservation -> {
+          assertThat(reservation.getString("backend")).isEqualTo("alpha");
+          assertThat(reservation.getInt("itemCount")).isEqualTo(1);
+          assertThat(reservation.getBoolean("bulk")).isFalse();
+          assertThat(reservation.getDuration()).isLessThanOrEqualTo(creation.getDuration());
+        });
+    RecordedEvent persistence = single(events, PERSISTENCE);
+    assertThat(persistence.getInt("orderId")).isEqualTo(created.getId());
+    assertThat(persistence.getInt("orderCount")).isEqualTo(1);
+    assertThat(persistence.getInt("itemCount")).isEqualTo(2);
+  }
+
+  @Test
+  @DisplayName("A rejected order should emit its failure without persisting the order")
+  void createOrder_unknownItem_emitsFailure() throws IOException {
+    assertThatThrownBy(() -> orderService.createOrder(order(new OrderItemDto(7, "alpha-missing", 1.0, 1))))
+        .isInstanceOf(RuntimeException.class);
+
+    List<RecordedEvent> events = recordedEvents();
+
+    RecordedEvent creation = single(events, CREATION);
+    assertThat(creation.getInt("orderId")).isZero();
+    assertThat(creation.getString("failure")).isNotNull();
+    assertThat(single(events, RESERVATION).getString("failure")).isEqualTo(creation.getString("failure"));
+    assertThat(events).noneMatch(event -> PERSISTENCE.equals(event.getEventType().getName()));
+  }
+
+  @Test
+  @DisplayName("Cancelling an order should emit a restock per order item")
+  void cancelOrder_emitsRestocks() throws Exception {
+    Orders created = orderService.createOrder(order(
+        new OrderItemDto(1, "alpha-widget", 2.5, 2), new OrderItemDto(2, "alpha-gizmo", 4.0, 3)));
+
+    orderService.updateOrder(created.getId(), new OrderDto(0.0, "CANCELLED", List.of()));
+    Await.until(() -> compensationRepository.count() == 0 && ALPHA.item(2).getStock() == 10);
+
+    assertThat(recordedEvents()).filteredOn(event -> RESTOCK.equals(event.getEventType().getName()))
+        .extracting(event -> event.getString("backend") + " " + event.getString("itemName") + " "
+            + event.getInt("quantity") + " " + event.getString("failure"))
+        .containsExactlyInAnyOrder("alpha alpha-widget 2 null", "alpha alpha-gizmo 3 null");
+  }
+
+  private List<RecordedEvent> recordedEvents() throws IOException {
+    recording.stop();
+    Path file = tempDir.resolve("recording.jfr");
+    recording.dump(file);
+    return RecordingFile.readAllEvents(file);
+  }
+
+  private static RecordedEvent single(List<RecordedEvent> events, String name) {
+    List<RecordedEvent> matching = events.stream().filter(event -> name.equals(event.getEventType().getName())).toList();
+    assertThat(matching).hasSize(1);
+    return matching.getFirst();
+  }
+
+  private static OrderDto order(OrderItemDto... items) {
+    return new OrderDto(10.0, "CONFIRMED", List.of(items));
+  }
+}
@@ -0,0 +1,69 @@
+package test.serviceb.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import test.serviceb.domain.OrderItem;
+import test.serviceb.domain.Orders;
+import test.serviceb.domain.Status;
+import test.serviceb.repository.OrdersRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb-service-order-insert-batching-integration",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ActiveProfiles("test")
+class OrderInsertBatchingIntegrationTest {
+
+  private static final int ITEMS = 50;
+
+  @Autowired
+  private OrdersRepository ordersRepository;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private Statistics statistics;
+
+  @BeforeEach
+  void setUp() {
+    ordersRepository.deleteAll();
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+  }
+
+  @Test
+  @DisplayName("save should write an order with 50 items in a handful of statements instead of 51")
+  void save_batchesInserts() {
+    // Initialize both ID pools so that the measured save is not the first sequence call
+    ordersRepository.save(newOrder(1));
+
+    statistics.clear();
+    Orders saved = ordersRepository.save(newOrder(ITEMS));
+
+    // One batched insert per table plus at most one sequence call per table
+    assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+    assertThat(statistics.getEntityInsertCount()).isEqualTo(ITEMS + 1);
+    assertThat(saved.getOrderItems()).extracting(OrderItem::getId).doesNotContain(0).doesNotHaveDuplicates();
+    assertThat(ordersRepository.findWithItemsById(saved.getId()))
+        .hasValueSatisfying(order -> assertThat(order.getOrderItems()).hasSize(ITEMS));
+  }
+
+  private Orders newOrder(int items) {
+    Orders order = new Orders();
+    order.setTotalPrice(items * 2.0);
+    order.setStatus(Status.CONFIRMED);
+    for (int i = 1; i <= items; i++) {
+      order.addOrderItem(new OrderItem(i, "alpha-widget-" + i, 1, 2.0));
+    }
+    return order;
+  }
+}
@@ -0,0 +1,106 @@
+package test.serviceb.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import test.serviceb.ServiceBApplication;
+import test.serviceb.domain.OrderItem;
+import test.serviceb.domain.Orders;
+import test.serviceb.domain.Status;
+import test.serviceb.repository.OrdersRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures how many orders of {@link #ITEMS} items per second {@code ordersRepo.save} writes with
+ * JDBC batching enabled and disabled. It runs against H2 and against PostgreSQL: set
+ * {@code BENCHMARK_POSTGRES_URL}, {@code BENCHMARK_POSTGRES_USERNAME} and {@code BENCHMARK_POSTGRES_PASSWORD}
+ * to point it at a local PostgreSQL container, e.g. started with
+ * {@code docker run -p 5432:5432 -e POSTGRES_PASSWORD=postgres postgres:16}. Without them, H2 in
+ * PostgreSQL compatibility mode stands in for it.
+ * Run with {@code mvn -Pload-test test}.
+ */
+@Tag("load")
+class OrderInsertLoadTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(OrderInsertLoadTest.class);
+  private static final int ORDERS = 500;
+  private static final int ITEMS = 50;
+
+  @Test
+  @DisplayName("save should report the insert throughput with and without JDBC batching")
+  void save_batchedVersusUnbatched() {
+    String postgresUrl = System.getenv("BENCHMARK_POSTGRES_URL");
+    Database postgres = postgresUrl == null
+        ? new Database("PostgreSQL (H2 stand-in)", "jdbc:h2:mem:testdb-insert-load-pg;MODE=PostgreSQL",
+            "org.h2.Driver", "sa", "")
+        : new Database("PostgreSQL",
+            postgresUrl + (postgresUrl.contains("?") ? "&" : "?") + "reWriteBatchedInserts=true", "org.postgresql.Driver", System.getenv("BENCHMARK_POSTGRES_USERNAME"),
+            System.getenv("BENCHMARK_POSTGRES_PASSWORD"));
+    List<Database> databases = List.of(
+        new Database("H2", "jdbc:h2:mem:testdb-insert-load", "org.h2.Driver", "sa", ""), postgres);
+
+    for (Database database : databases) {
+      double unbatched = ordersPerSecond(database, 1);
+      double batched = ordersPerSecond(database, Orders.ID_BLOCK_SIZE);
+      if (LOG.isInfoEnabled()) {
+        LOG.info("{}: {} orders x {} items, unbatched {} orders/s ({} rows/s), batched {} orders/s ({} rows/s)",
+            database.name(), ORDERS, ITEMS, Math.round(unbatched), Math.round(unbatched * (ITEMS + 1)),
+            Math.round(batched), Math.round(batched * (ITEMS + 1)));
+      }
+    }
+  }
+
+  /**
+   * Starts the application against the given database and measures the throughput of saving
+   * {@link #ORDERS} orders one after another, each in its own transaction.
+   */
+  private double ordersPerSecond(Database database, int batchSize) {
+    try (ConfigurableApplicationContext app = new SpringApplicationBuilder(ServiceBApplication.class)
+        .profiles("test")
+        .properties(
+            "server.port=0",
+            "spring.datasource.url=" + database.url(),
+            "spring.datasource.driverClassName=" + database.driver(),
+            "spring.datasource.username=" + database.username(),
+            "spring.datasource.password=" + database.password(),
+            "spring.jpa.hibernate.ddl-auto=create-drop",
+            "spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize)
+        .run()) {
+      OrdersRepository ordersRepository = app.getBean(OrdersRepository.class);
+      List<Orders> orders = new ArrayList<>(ORDERS);
+      for (int i = 0; i < ORDERS; i++) {
+        orders.add(newOrder());
+      }
+      // Warm up the application before measuring
+      ordersRepository.save(newOrder());
+
+      long start = System.nanoTime();
+      orders.forEach(ordersRepository::save);
+      double seconds = (System.nanoTime() - start) / 1e9;
+
+      assertThat(ordersRepository.count()).isEqualTo(ORDERS + 1);
+      return ORDERS / seconds;
+    }
+  }
+
+  private Orders newOrder() {
+    Orders order = new Orders();
+    order.setTotalPrice(ITEMS);
+    order.setStatus(Status.CONFIRMED);
+    for (int i = 1; i <= ITEMS; i++) {
+      order.addOrderItem(new OrderItem(i, "shop-item-" + i, 1, 1.0));
+    }
+    return order;
+  }
+
+  private record Database(String name, String url, String driver, String username, String password) {
+  }
+}
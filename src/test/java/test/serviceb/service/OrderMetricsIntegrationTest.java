@@ -0,0 +1,134 @@
+package test.serviceb.service;
+
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import reactor.core.publisher.Mono;
+import test.serviceb.domain.Item;
+import test.serviceb.domain.Orders;
+import test.serviceb.domain.dto.OrderDto;
+import test.serviceb.domain.dto.OrderItemDto;
+import test.serviceb.repository.OrdersRepository;
+import test.serviceb.support.StubInventoryServer;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:testdb-service-order-metrics-integration",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "external.inventory.itemCache.maxSize=0"
+})
+@ActiveProfiles("test")
+class OrderMetricsIntegrationTest {
+
+  private static final StubInventoryServer ALPHA = StubInventoryServer.start(false);
+  private static final Set<String> RECORDED = Set.of("order.service", "inventory.requests", "inventory.requests.errors");
+
+  @Autowired
+  private OrderService orderService;
+
+  @Autowired
+  private OrdersRepository ordersRepository;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @DynamicPropertySource
+  static void externalInventories(DynamicPropertyRegistry registry) {
+    registry.add("external.inventory.externalInventory.alpha", () -> "alpha," + ALPHA.url());
+  }
+
+  @AfterAll
+  static void stopInventories() {
+    ALPHA.close();
+  }
+
+  @BeforeEach
+  void setUp() {
+    ordersRepository.deleteAll();
+    meterRegistry.getMeters().stream()
+        .filter(meter -> RECORDED.contains(meter.getId().getName()))
+        .forEach(meterRegistry::remove);
+    ALPHA.reset();
+    ALPHA.addItem(new Item(1, "alpha-widget", 10, 2.5, "widget"));
+  }
+
+  @Test
+  @DisplayName("createOrder should be timed together with the GET and PUT it sends to the inventory")
+  void createOrder_recordsServiceAndInventoryTimers() {
+    orderService.createOrder(order(new OrderItemDto(1, "alpha-widget", 2.5, 2)));
+
+    assertThat(serviceTimer("createOrder", "success").count()).isEqualTo(1);
+    assertThat(inventoryTimer("GET", "200").count()).isEqualTo(1);
+    assertThat(inventoryTimer("PUT", "200").count()).isEqualTo(1);
+    assertThat(meterRegistry.get("inventory.requests.active").tag("inventory", "alpha").gauge().value()).isZero();
+    assertThat(meterRegistry.get("order.service.active").tag("method", "createOrder").longTaskTimer()
+        .activeTasks()).isZero();
+    assertThat(meterRegistry.find("inventory.requests.errors").counters()).isEmpty();
+  }
+
+  @Test
+  @DisplayName("A failing order should be timed as an error and count the error answer of the inventory")
+  void createOrder_unknownItem_recordsErrors() {
+    assertThatThrownBy(() -> orderService.createOrder(order(new OrderItemDto(7, "alpha-missing", 1.0, 1))))
+        .isInstanceOf(RuntimeException.class);
+
+    Timer failed = meterRegistry.get("order.service").tags("method", "createOrder", "outcome", "error").timer();
+    assertThat(failed.count()).isEqualTo(1);
+    assertThat(failed.getId().getTag("exception")).isNotEqualTo("none");
+    assertThat(inventoryTimer("GET", "404").getId().getTag("outcome")).isEqualTo("CLIENT_ERROR");
+    assertThat(meterRegistry.get("inventory.requests.errors")
+        .tags("inventory", "alpha", "method", "GET", "error", "404").counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  @DisplayName("A reactive call should be timed while its result is subscribed to")
+  void createOrderReactive_timedOnSubscription() {
+    Mono<Orders> created = orderService.createOrderReactive(order(new OrderItemDto(1, "alpha-widget", 2.5, 1)));
+
+    assertThat(meterRegistry.find("order.service").tag("method", "createOrderReactive").timer()).isNull();
+    created.block();
+
+    assertThat(serviceTimer("createOrderReactive", "success").count()).isEqualTo(1);
+    assertThat(inventoryTimer("PUT", "200").count()).isEqualTo(1);
+    assertThat(ALPHA.item(1).getStock()).isEqualTo(9);
+  }
+
+  @Test
+  @DisplayName("Every OrderService method should be timed, including those that find nothing")
+  void getOrder_missingOrder_timedAsSuccess() {
+    assertThat(orderService.getOrder(123_456)).isNull();
+    assertThat(orderService.updateOrder(123_456, order(new OrderItemDto(1, "alpha-widget", 2.5, 1)))).isNull();
+
+    assertThat(serviceTimer("getOrder", "success").count()).isEqualTo(1);
+    assertThat(serviceTimer("updateOrder", "success").getId().getTag("exception")).isEqualTo("none");
+    LongTaskTimer active = meterRegistry.get("order.service.active").tag("method", "getOrder").longTaskTimer();
+    assertThat(active.activeTasks()).isZero();
+  }
+
+  private Timer serviceTimer(String method, String outcome) {
+    return meterRegistry.get("order.service").tags("method", method, "outcome", outcome).timer();
+  }
+
+  private Timer inventoryTimer(String method, String status) {
+    return meterRegistry.get("inventory.requests").tags("inventory", "alpha", "method", method, "status", status)
+        .timer();
+  }
+
+  private static OrderDto order(OrderItemDto... items) {
+    return new OrderDto(10.0, "CONFIRMED", List.of(items));
+  }
+}
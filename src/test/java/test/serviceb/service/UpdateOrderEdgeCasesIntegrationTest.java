@@ -26,7 +26,9 @@ import test.serviceb.domain.Status;
 import test.serviceb.domain.dto.OrderDto;
 import test.serviceb.domain.dto.OrderItemDto;
 import test.serviceb.repository.OrdersRepository;
+import test.serviceb.repository.PendingCompensationRepository;
 import test.serviceb.service.OrderService;
+import test.serviceb.support.Await;
 
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
@@ -58,9 +60,13 @@ class UpdateOrderEdgeCasesIntegrationTest {
   @Autowired
   private ObjectMapper objectMapper;
 
+  @Autowired
+  private PendingCompensationRepository compensationRepository;
+
   @BeforeEach
   void cleanDb() {
     ordersRepository.deleteAll();
+    compensationRepository.deleteAll();
   }
 
   @Test
@@ -124,9 +130,8 @@ class UpdateOrderEdgeCasesIntegrationTest {
   }
 
   @Test
-  @DisplayName("updateOrder: restock PUT returns empty body -> throws 'was not updated!' error")
-  @Transactional
-  void updateOrder_cancelled_putReturnsEmptyBody_throwsUpdatedNotFound() {
+  @DisplayName("updateOrder: restock PUT returns empty body -> order is cancelled, the failure is kept in the outbox")
+  void updateOrder_cancelled_putReturnsEmptyBody_keepsRestockInOutbox() throws InterruptedException {
     Orders existing = new Orders();
     existing.setStatus(Status.CONFIRMED);
     existing.setTotalPrice(40.0);
@@ -138,8 +143,15 @@ class UpdateOrderEdgeCasesIntegrationTest {
     dto.setStatus("CANCELLED");
     dto.setItems(List.of(new OrderItemDto(4, "alpha-widget", 10.0, 4)));
 
-    assertThatThrownBy(() -> orderService.updateOrder(saved.getId(), dto))
-        .hasMessageContaining("was not updated!");
+    assertThat(orderService.updateOrder(saved.getId(), dto).getStatus()).isEqualTo(Status.CANCELLED);
+
+    // The restock runs after the cancellation committed; its failure stays in the outbox for a later retry
+    Await.until(() -> compensationRepository.findAll().stream().anyMatch(c -> c.getAttempts() > 0));
+    assertThat(compensationRepository.findAll()).singleElement().satisfies(c -> {
+      assertThat(c.getOrderId()).isEqualTo(saved.getId());
+      assertThat(c.getQuantity()).isEqualTo(4);
+      assertThat(c.getLastError()).contains("was not updated!");
+    });
   }
 
   /**
@@ -0,0 +1,173 @@
+package test.serviceb.service.unittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import test.serviceb.service.converter.ConversionProperties.CircuitBreaker;
+import test.serviceb.service.inventory.Circuit;
+import test.serviceb.service.inventory.InventoryUnavailableException;
+
+/**
+ * Unit tests for {@link Circuit} covering its state transitions on a manual clock.
+ */
+class CircuitTest {
+
+  private final AtomicLong now = new AtomicLong();
+  private Circuit circuit;
+
+  @BeforeEach
+  void setUp() {
+    CircuitBreaker settings = new CircuitBreaker();
+    settings.setWindowSize(4);
+    settings.setMinimumCalls(4);
+    settings.setFailureRate(50);
+    settings.setSlowCallDuration(Duration.ofSeconds(1));
+    settings.setOpenDuration(Duration.ofSeconds(10));
+    settings.setProbeCalls(2);
+    circuit = new Circuit("alpha", settings, now::get);
+  }
+
+  @Test
+  @DisplayName("The circuit should open once half of the calls in the window failed")
+  void opensAtFailureRate() {
+    succeed();
+    succeed();
+    fail(new IllegalStateException("connection refused"));
+    assertEquals(Circuit.State.CLOSED, circuit.getState());
+
+    fail(WebClientResponseException.create(503, "Service Unavailable", HttpHeaders.EMPTY, null, null));
+
+    assertEquals(Circuit.State.OPEN, circuit.getState());
+    assertEquals(50.0, circuit.getFailureRate());
+  }
+
+  @Test
+  @DisplayName("Answers proving the inventory healthy should not open the circuit")
+  void clientErrorsCountAsSuccess() {
+    for (int i = 0; i < 8; i++) {
+      fail(WebClientResponseException.create(404, "Not Found", HttpHeaders.EMPTY, null, null));
+      fail(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Insufficient stock"));
+    }
+
+    assertEquals(Circuit.State.CLOSED, circuit.getState());
+    assertEquals(0.0, circuit.getFailureRate());
+  }
+
+  @Test
+  @DisplayName("Successful but slow calls should count as failures")
+  void slowCallsCountAsFailures() {
+    succeed();
+    succeed();
+    for (int i = 0; i < 2; i++) {
+      circuit.admit().run(() -> now.addAndGet(TimeUnit.SECONDS.toNanos(2)));
+    }
+
+    assertEquals(Circuit.State.OPEN, circuit.getState());
+  }
+
+  @Test
+  @DisplayName("An open circuit should reject calls with 503 and the remaining open time as Retry-After")
+  void openCircuitRejects() {
+    open();
+    now.addAndGet(TimeUnit.SECONDS.toNanos(3));
+
+    InventoryUnavailableException rejected = assertThrows(InventoryUnavailableException.class, circuit::admit);
+
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getStatusCode());
+    assertEquals("7", rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    assertEquals(1, circuit.getRejected());
+  }
+
+  @Test
+  @DisplayName("After the open duration the circuit should admit only the probe calls and close once they succeed")
+  void halfOpenProbesClose() {
+    open();
+    now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+    Circuit.Attempt first = circuit.admit();
+    Circuit.Attempt second = circuit.admit();
+    assertEquals(Circuit.State.HALF_OPEN, circuit.getState());
+    assertThrows(InventoryUnavailableException.class, circuit::admit);
+
+    first.run(() -> "ok");
+    assertEquals(Circuit.State.HALF_OPEN, circuit.getState());
+    assertEquals("ok", second.run(Mono.just("ok")).block());
+
+    assertEquals(Circuit.State.CLOSED, circuit.getState());
+    assertEquals(0.0, circuit.getFailureRate());
+  }
+
+  @Test
+  @DisplayName("A failing probe call should open the circuit again")
+  void failingProbeReopens() {
+    open();
+    now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+    fail(new IllegalStateException("connection refused"));
+
+    assertEquals(Circuit.State.OPEN, circuit.getState());
+    assertThrows(InventoryUnavailableException.class, circuit::admit);
+  }
+
+  @Test
+  @DisplayName("An abandoned probe call should free its slot for another probe")
+  void abandonedProbeFreesSlot() {
+    open();
+    now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+    circuit.admit();
+    Circuit.Attempt abandoned = circuit.admit();
+
+    abandoned.abandon();
+    abandoned.abandon();
+
+    circuit.admit();
+    assertThrows(InventoryUnavailableException.class, circuit::admit);
+  }
+
+  @Test
+  @DisplayName("Outcomes of calls admitted before the circuit opened should not affect the probes")
+  void staleOutcomesIgnored() {
+    Circuit.Attempt stale = circuit.admit();
+    open();
+    now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+    succeed();
+
+    assertThrows(IllegalStateException.class, () -> stale.run(() -> {
+      throw new IllegalStateException("connection reset");
+    }));
+    assertEquals(Circuit.State.HALF_OPEN, circuit.getState());
+
+    succeed();
+    assertEquals(Circuit.State.CLOSED, circuit.getState());
+  }
+
+  private void open() {
+    for (int i = 0; i < 4; i++) {
+      fail(new IllegalStateException("connection refused"));
+    }
+    assertEquals(Circuit.State.OPEN, circuit.getState());
+  }
+
+  private void succeed() {
+    circuit.admit().run(() -> "ok");
+  }
+
+  private void fail(RuntimeException failure) {
+    Circuit.Attempt attempt = circuit.admit();
+    assertThrows(RuntimeException.class, () -> attempt.run(() -> {
+      throw failure;
+    }));
+  }
+}
@@ -0,0 +1,126 @@
+package test.serviceb.service.unittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import test.serviceb.domain.OrderItem;
+import test.serviceb.domain.PendingCompensation;
+import test.serviceb.repository.PendingCompensationRepository;
+import test.serviceb.service.converter.ConversionProperties.Compensation;
+import test.serviceb.service.inventory.Compensator;
+
+/**
+ * Unit tests for {@link Compensator} covering the concurrency of the restocks per inventory and
+ * the failures reported for all items of a batch.
+ */
+class CompensatorTest {
+
+  private static final Duration ROUND_TRIP = Duration.ofMillis(200);
+
+  private final PendingCompensationRepository repository = mock(PendingCompensationRepository.class);
+  private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+  private final Map<String, AtomicInteger> maxInFlight = new ConcurrentHashMap<>();
+
+  @Test
+  @DisplayName("retryDue should restock the items of every inventory concurrently, up to the limit per inventory")
+  void retryDue_boundsConcurrencyPerInventory() {
+    Compensator compensator = compensator(3, (orderItem, key) -> timedRestock(orderItem));
+    due(Stream.concat(items("alpha", 9), items("beta", 3)).toList());
+
+    Compensator.Report report = compensator.retryDue();
+
+    assertEquals(12, report.restocked());
+    assertEquals(0, report.failed());
+    assertEquals(3, maxInFlight.get("alpha").get());
+    assertEquals(3, maxInFlight.get("beta").get());
+    assertEquals(9, compensator.getRestocked("alpha"));
+    verify(repository, times(12)).deleteById(anyLong());
+  }
+
+  @Test
+  @DisplayName("retryDue should restock all lines of an order in about one round trip")
+  void retryDue_manyLines_takesAboutOneRoundTrip() {
+    Compensator compensator = compensator(8, (orderItem, key) -> timedRestock(orderItem));
+    due(items("alpha", 8).toList());
+
+    long began = System.nanoTime();
+    Compensator.Report report = compensator.retryDue();
+    Duration elapsed = Duration.ofNanos(System.nanoTime() - began);
+
+    assertEquals(8, report.restocked());
+    assertTrue(elapsed.compareTo(ROUND_TRIP.multipliedBy(2)) < 0, "took " + elapsed);
+  }
+
+  @Test
+  @DisplayName("retryDue should attempt every item and report all failures per inventory")
+  void retryDue_failingItems_reportsEveryFailure() {
+    Compensator compensator = compensator(2, (orderItem, key) -> orderItem.getItemName().endsWith("-1")
+        || orderItem.getItemName().startsWith("beta")
+        ? Mono.error(new IllegalStateException("down"))
+        : Mono.just(orderItem));
+    due(Stream.concat(items("alpha", 4), items("beta", 2)).toList());
+
+    Compensator.Report report = compensator.retryDue();
+
+    assertEquals(3, report.restocked());
+    assertEquals(Map.of("alpha", 1, "beta", 2), report.failures());
+    assertEquals(3, report.failed());
+    assertEquals(2, compensator.getFailures("beta"));
+    verify(repository, times(3)).deleteById(anyLong());
+    verify(repository, times(3)).save(any(PendingCompensation.class));
+  }
+
+  private Compensator compensator(int concurrency, BiFunction<OrderItem, String, Mono<?>> restock) {
+    Compensation settings = new Compensation();
+    settings.setRetries(0);
+    settings.setConcurrency(concurrency);
+    return new Compensator(repository, settings, itemName -> itemName.substring(0, itemName.indexOf('-')), restock);
+  }
+
+  private void due(List<PendingCompensation> pending) {
+    List<Long> ids = idsOf(pending.size());
+    when(repository.findDueIds(any(), any())).thenReturn(ids);
+    when(repository.claim(anyCollection(), any(), any())).thenReturn(pending.size());
+    when(repository.findByIdInAndNextAttemptAt(anyCollection(), any())).thenReturn(pending);
+  }
+
+  private Mono<OrderItem> timedRestock(OrderItem orderItem) {
+    String inventory = orderItem.getItemName().substring(0, orderItem.getItemName().indexOf('-'));
+    AtomicInteger current = inFlight.computeIfAbsent(inventory, name -> new AtomicInteger());
+    AtomicInteger max = maxInFlight.computeIfAbsent(inventory, name -> new AtomicInteger());
+    return Mono.fromRunnable(() -> max.accumulateAndGet(current.incrementAndGet(), Math::max))
+        .then(Mono.delay(ROUND_TRIP))
+        .doOnTerminate(current::decrementAndGet)
+        .thenReturn(orderItem);
+  }
+
+  private static List<Long> idsOf(int count) {
+    return IntStream.range(0, count).mapToObj(Long::valueOf).toList();
+  }
+
+  private static Stream<PendingCompensation> items(String inventory, int count) {
+    Instant now = Instant.now();
+    return IntStream.rangeClosed(1, count)
+        .mapToObj(id -> new PendingCompensation(new OrderItem(id, inventory + "-item-" + id, 1, 0), null, now, now));
+  }
+}
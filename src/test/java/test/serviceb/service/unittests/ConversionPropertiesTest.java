@@ -0,0 +1,87 @@
+package test.serviceb.service.unittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import test.serviceb.service.converter.ConversionProperties;
+import test.serviceb.service.converter.ConversionProperties.ConnectionPool;
+import test.serviceb.service.converter.ConversionProperties.Timeout;
+
+/**
+ * Unit tests for {@link ConversionProperties} covering how the settings of single inventories are
+ * resolved against the settings of every inventory.
+ */
+class ConversionPropertiesTest {
+
+  @Test
+  @DisplayName("connectionPoolFor should keep the configured values of the properties an override does not set")
+  void connectionPoolFor_partialOverride_keepsConfiguredValues() {
+    ConversionProperties properties = bind(Map.of(
+        "external.inventory.connectionPool.maxPending", "8",
+        "external.inventory.connectionPool.acquireTimeout", "2s",
+        "external.inventory.connectionPool.http2", "true",
+        "external.inventory.connectionPools.alpha.maxConnections", "32"));
+
+    ConnectionPool alpha = properties.connectionPoolFor("alpha");
+
+    assertEquals(32, alpha.getMaxConnections());
+    assertEquals(8, alpha.getMaxPending());
+    assertEquals(Duration.ofSeconds(2), alpha.getAcquireTimeout());
+    assertEquals(new ConnectionPool().getMaxIdleTime(), alpha.getMaxIdleTime());
+    assertEquals(16, properties.connectionPoolFor("beta").getMaxConnections());
+  }
+
+  @Test
+  @DisplayName("timeoutFor should let an override set a property back to its default value")
+  void timeoutFor_overrideWithDefaultValue_replacesConfiguredValue() {
+    ConversionProperties properties = bind(Map.of(
+        "external.inventory.timeout.response", "3s",
+        "external.inventory.timeout.hedge", "true",
+        "external.inventory.timeouts.alpha.hedge", "false"));
+
+    Timeout alpha = properties.timeoutFor("alpha");
+
+    assertEquals(Duration.ofSeconds(3), alpha.getResponse());
+    assertFalse(alpha.isHedge());
+    assertTrue(properties.timeoutFor("beta").isHedge());
+  }
+
+  @Test
+  @DisplayName("the resolvers should return the settings of every inventory for an inventory without overrides")
+  void resolvers_noOverride_sharedSettings() {
+    ConversionProperties properties = bind(Map.of("external.inventory.itemCache.maxSize", "5"));
+
+    assertSame(properties.getItemCache(), properties.itemCacheFor("alpha"));
+    assertSame(properties.getConnectionPool(), properties.connectionPoolFor("alpha"));
+    assertSame(properties.getCircuitBreaker(), properties.circuitBreakerFor("alpha"));
+    assertSame(properties.getTimeout(), properties.timeoutFor("alpha"));
+  }
+
+  @Test
+  @DisplayName("itemCacheFor should not change the settings of every inventory")
+  void itemCacheFor_override_leavesDefaultsUntouched() {
+    ConversionProperties properties = bind(Map.of(
+        "external.inventory.itemCache.ttl", "1m",
+        "external.inventory.itemCaches.beta.maxSize", "0"));
+
+    assertEquals(0, properties.itemCacheFor("beta").getMaxSize());
+    assertEquals(Duration.ofMinutes(1), properties.itemCacheFor("beta").getTtl());
+    assertEquals(10_000, properties.getItemCache().getMaxSize());
+  }
+
+  private static ConversionProperties bind(Map<String, String> values) {
+    return new Binder(new MapConfigurationPropertySource(values))
+        .bind("external.inventory", Bindable.ofInstance(new ConversionProperties()))
+        .get();
+  }
+}
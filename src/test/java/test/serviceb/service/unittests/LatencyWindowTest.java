@@ -0,0 +1,68 @@
+package test.serviceb.service.unittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import test.serviceb.service.inventory.LatencyWindow;
+
+/**
+ * Unit tests for {@link LatencyWindow} covering the derived hedging delay.
+ */
+class LatencyWindowTest {
+
+  @Test
+  @DisplayName("hedgeDelay should be unknown until enough latencies were recorded")
+  void hedgeDelay_fewSamples_unknown() {
+    LatencyWindow window = new LatencyWindow(100, 0.95, Duration.ZERO);
+    recordMillis(window, 1, 19);
+
+    assertNull(window.hedgeDelay());
+
+    recordMillis(window, 20, 20);
+    assertEquals(Duration.ofMillis(19), window.hedgeDelay());
+  }
+
+  @Test
+  @DisplayName("hedgeDelay should be the configured percentile of the recorded latencies")
+  void hedgeDelay_percentileOfLatencies() {
+    LatencyWindow window = new LatencyWindow(100, 0.95, Duration.ZERO);
+
+    recordMillis(window, 1, 100);
+
+    assertEquals(Duration.ofMillis(95), window.hedgeDelay());
+  }
+
+  @Test
+  @DisplayName("hedgeDelay should not drop below the minimum delay")
+  void hedgeDelay_fastLatencies_minimumDelay() {
+    LatencyWindow window = new LatencyWindow(100, 0.95, Duration.ofMillis(50));
+
+    recordMillis(window, 1, 32);
+
+    assertEquals(Duration.ofMillis(50), window.hedgeDelay());
+  }
+
+  @Test
+  @DisplayName("hedgeDelay should follow the most recent latencies only")
+  void hedgeDelay_oldLatenciesForgotten() {
+    LatencyWindow window = new LatencyWindow(32, 0.5, Duration.ZERO);
+    recordMillis(window, 1000, 1031);
+
+    for (int i = 0; i < 32; i++) {
+      window.record(TimeUnit.MILLISECONDS.toNanos(10));
+    }
+
+    assertEquals(Duration.ofMillis(10), window.hedgeDelay());
+  }
+
+  private static void recordMillis(LatencyWindow window, int from, int to) {
+    for (int millis = from; millis <= to; millis++) {
+      window.record(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+  }
+}
@@ -5,11 +5,14 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -18,14 +21,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import jakarta.validation.Validation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionOperations;
 import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
 import test.serviceb.domain.Item;
 import test.serviceb.domain.OrderItem;
@@ -35,14 +39,23 @@ import test.serviceb.domain.dto.ExternalInventory;
 import test.serviceb.domain.dto.OrderDto;
 import test.serviceb.domain.dto.OrderItemDto;
 import test.serviceb.repository.OrdersRepository;
+import test.serviceb.repository.PendingCompensationRepository;
 import test.serviceb.service.converter.ConversionProperties;
+import test.serviceb.service.idempotency.IdempotencyStore;
 import test.serviceb.service.impl.OrderServiceImpl;
+import test.serviceb.service.inventory.InventoryBackend;
 
 public class OrderServiceImplEdgeCaseUnitTest {
 
   @Mock
   private OrdersRepository ordersRepository;
 
+  @Mock
+  private PendingCompensationRepository compensationRepository;
+
+  @Mock
+  private IdempotencyStore idempotencyStore;
+
   @Mock
   private WebClient.Builder webClientBuilder;
 
@@ -63,11 +76,16 @@ public class OrderServiceImplEdgeCaseUnitTest {
 
     // Deep-stub the web client to simplify GET/PUT chaining
     webClient = mock(WebClient.class, RETURNS_DEEP_STUBS);
+    // The backend names its inventory on every request and adds its request metrics filter to a copy of the client
+    when(webClient.mutate().defaultRequest(any()).filter(any()).build()).thenReturn(webClient);
 
     when(webClientBuilder.baseUrl(anyString())).thenReturn(webClientBuilder);
+    when(webClientBuilder.clientConnector(any())).thenReturn(webClientBuilder);
     when(webClientBuilder.build()).thenReturn(webClient);
 
-    orderService = new OrderServiceImpl(ordersRepository, conversionProperties, webClientBuilder);
+    orderService = new OrderServiceImpl(ordersRepository, compensationRepository, idempotencyStore,
+        TransactionOperations.withoutTransaction(), Validation.buildDefaultValidatorFactory().getValidator(),
+        conversionProperties, webClientBuilder);
   }
 
   @Test
@@ -167,13 +185,16 @@ public class OrderServiceImplEdgeCaseUnitTest {
   }
 
   @Test
-  @DisplayName("updateOrder to CANCELLED throws NOT_FOUND when restock GET returns null")
-  void updateOrder_cancel_restockGetNull_throwsNotFound() {
+  @DisplayName("updateOrder to CANCELLED reschedules the restock when the restock GET returns null")
+  void updateOrder_cancel_restockGetNull_reschedulesRestock() {
     // existing order with one item
     Orders existing = new Orders();
     existing.setStatus(Status.CONFIRMED);
     existing.addOrderItem(new OrderItem(301, "book-geometry", 2, 9.0));
-    when(ordersRepository.findById(11)).thenReturn(Optional.of(existing));
+    when(ordersRepository.findWithItemsById(11)).thenReturn(Optional.of(existing));
+    when(ordersRepository.lockCancellable(List.of(existing.getId()))).thenReturn(List.of(existing));
+    when(ordersRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+    when(compensationRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
 
     // GET returns null for restock path
     mockWebClientGetReturnsItem(null);
@@ -183,19 +204,24 @@ public class OrderServiceImplEdgeCaseUnitTest {
     dto.setTotalPrice(0.0);
     dto.setItems(List.of());
 
-    ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> orderService.updateOrder(11, dto));
-    assertEquals(HttpStatus.NOT_FOUND, ex.getStatusCode());
+    // The cancellation does not wait for the restock, whose failure is recorded in the outbox instead
+    assertEquals(Status.CANCELLED, orderService.updateOrder(11, dto).getStatus());
+    verify(compensationRepository, timeout(5000)).save(argThat(compensation -> compensation.getAttempts() == 1
+        && compensation.getLastError().contains("was not found")));
     verify(webClient, never()).put();
   }
 
   @Test
-  @DisplayName("updateOrder to CANCELLED throws NOT_FOUND when restock PUT returns null")
-  void updateOrder_cancel_restockPutNull_throwsNotFound() {
+  @DisplayName("updateOrder to CANCELLED reschedules the restock when the restock PUT returns null")
+  void updateOrder_cancel_restockPutNull_reschedulesRestock() {
     // existing order with one item
     Orders existing = new Orders();
     existing.setStatus(Status.CONFIRMED);
     existing.addOrderItem(new OrderItem(302, "book-geometry", 2, 9.0));
-    when(ordersRepository.findById(12)).thenReturn(Optional.of(existing));
+    when(ordersRepository.findWithItemsById(12)).thenReturn(Optional.of(existing));
+    when(ordersRepository.lockCancellable(List.of(existing.getId()))).thenReturn(List.of(existing));
+    when(ordersRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+    when(compensationRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
 
     // GET returns item; PUT returns null
     Item fetched = new Item(302, "Geometry", 4, 9.0, "desc");
@@ -207,8 +233,9 @@ public class OrderServiceImplEdgeCaseUnitTest {
     dto.setTotalPrice(0.0);
     dto.setItems(List.of());
 
-    ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> orderService.updateOrder(12, dto));
-    assertEquals(HttpStatus.NOT_FOUND, ex.getStatusCode());
+    assertEquals(Status.CANCELLED, orderService.updateOrder(12, dto).getStatus());
+    verify(compensationRepository, timeout(5000)).save(argThat(compensation -> compensation.getAttempts() == 1
+        && compensation.getLastError().contains("was not updated")));
   }
 
   @Test
@@ -216,7 +243,7 @@ public class OrderServiceImplEdgeCaseUnitTest {
   void updateOrder_unknownStatus_defaultsToConfirmed() {
     Orders existing = new Orders();
     existing.setStatus(Status.SHIPPED);
-    when(ordersRepository.findById(13)).thenReturn(Optional.of(existing));
+    when(ordersRepository.findWithItemsById(13)).thenReturn(Optional.of(existing));
     when(ordersRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
     OrderDto dto = new OrderDto();
@@ -234,16 +261,16 @@ public class OrderServiceImplEdgeCaseUnitTest {
     when(webClient.get()
         .uri(anyString(), any(), any())
         .retrieve()
-        .bodyToMono(eq(Item.class)))
-        .thenReturn(Mono.justOrEmpty(item));
+        .toEntity(eq(Item.class)))
+        .thenReturn(Mono.justOrEmpty(item).map(ResponseEntity::ok));
   }
 
   private void mockWebClientPutAcceptsInventoryAndReturns() {
-    when(webClient.put()
-        .uri(anyString(), any(), any())
-        .bodyValue(any())
-        .retrieve()
-        .bodyToMono(eq(Item.class)))
-        .thenReturn(Mono.justOrEmpty((Item) null));
+    WebClient.RequestBodyUriSpec put = mock(WebClient.RequestBodyUriSpec.class, RETURNS_DEEP_STUBS);
+    when(webClient.put()).thenReturn(put);
+    when(put.uri(anyString(), any(), any())).thenReturn(put);
+    when(put.header(eq(InventoryBackend.IDEMPOTENCY_KEY), anyString())).thenReturn(put);
+    when(put.bodyValue(any()).retrieve().toEntity(eq(Item.class)))
+        .thenReturn(Mono.just(ResponseEntity.ok((Item) null)));
   }
 }
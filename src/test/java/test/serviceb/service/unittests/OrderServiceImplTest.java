@@ -7,7 +7,10 @@ import static org.mockito.Mockito.*;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import jakarta.validation.Validation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -15,6 +18,8 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionOperations;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -22,14 +27,18 @@ import reactor.core.publisher.Mono;
 import test.serviceb.domain.Item;
 import test.serviceb.domain.OrderItem;
 import test.serviceb.domain.Orders;
+import test.serviceb.domain.PendingCompensation;
 import test.serviceb.domain.Status;
 import test.serviceb.domain.dto.ExternalInventory;
 import test.serviceb.domain.dto.InventoryItemDto;
 import test.serviceb.domain.dto.OrderDto;
 import test.serviceb.domain.dto.OrderItemDto;
 import test.serviceb.repository.OrdersRepository;
+import test.serviceb.repository.PendingCompensationRepository;
 import test.serviceb.service.impl.OrderServiceImpl;
 import test.serviceb.service.converter.ConversionProperties;
+import test.serviceb.service.idempotency.IdempotencyStore;
+import test.serviceb.service.inventory.InventoryBackend;
 
 /**
  * Unit tests for {@link OrderServiceImpl}.
@@ -39,6 +48,12 @@ public class OrderServiceImplTest {
   @Mock
   private OrdersRepository ordersRepository;
 
+  @Mock
+  private PendingCompensationRepository compensationRepository;
+
+  @Mock
+  private IdempotencyStore idempotencyStore;
+
   @Mock
   private WebClient.Builder webClientBuilder;
 
@@ -59,11 +74,19 @@ public class OrderServiceImplTest {
 
     // Deep-stub the web client to simplify GET/PUT chaining
     webClient = mock(WebClient.class, RETURNS_DEEP_STUBS);
+    // The backend names its inventory on every request and adds its request metrics filter to a copy of the client
+    when(webClient.mutate().defaultRequest(any()).filter(any()).build()).thenReturn(webClient);
 
     when(webClientBuilder.baseUrl(anyString())).thenReturn(webClientBuilder);
+    when(webClientBuilder.clientConnector(any())).thenReturn(webClientBuilder);
     when(webClientBuilder.build()).thenReturn(webClient);
 
-    orderService = new OrderServiceImpl(ordersRepository, conversionProperties, webClientBuilder);
+    // Every idempotency key is new unless a test says otherwise
+    when(idempotencyStore.claim(anyString(), anyString())).thenReturn(null);
+
+    orderService = new OrderServiceImpl(ordersRepository, compensationRepository, idempotencyStore,
+        TransactionOperations.withoutTransaction(), Validation.buildDefaultValidatorFactory().getValidator(),
+        conversionProperties, webClientBuilder);
   }
 
   // Helper to prepare WebClient GET -> Item and PUT -> variant response
@@ -71,8 +94,8 @@ public class OrderServiceImplTest {
     when(webClient.get()
         .uri(anyString(), any(), any())
         .retrieve()
-        .bodyToMono(eq(Item.class)))
-        .thenReturn(Mono.just(item));
+        .toEntity(eq(Item.class)))
+        .thenReturn(Mono.just(ResponseEntity.ok(item)));
   }
 
   private void mockWebClientPutAcceptsInventoryAndReturns(Class<?> returnType, Object body) {
@@ -81,15 +104,16 @@ public class OrderServiceImplTest {
           .uri(anyString(), any(), any())
           .bodyValue(any())
           .retrieve()
-          .bodyToMono(eq(InventoryItemDto.class)))
-          .thenReturn(Mono.just((InventoryItemDto) body));
+          .toEntity(eq(InventoryItemDto.class)))
+          .thenReturn(Mono.just(ResponseEntity.ok((InventoryItemDto) body)));
     } else if (returnType == Item.class) {
-      when(webClient.put()
-          .uri(anyString(), any(), any())
-          .bodyValue(any())
-          .retrieve()
-          .bodyToMono(eq(Item.class)))
-          .thenReturn(Mono.just((Item) body));
+      // Restocks identify themselves with an idempotency key
+      WebClient.RequestBodyUriSpec put = mock(WebClient.RequestBodyUriSpec.class, RETURNS_DEEP_STUBS);
+      when(webClient.put()).thenReturn(put);
+      when(put.uri(anyString(), any(), any())).thenReturn(put);
+      when(put.header(eq(InventoryBackend.IDEMPOTENCY_KEY), anyString())).thenReturn(put);
+      when(put.bodyValue(any()).retrieve().toEntity(eq(Item.class)))
+          .thenReturn(Mono.just(ResponseEntity.ok((Item) body)));
     }
   }
 
@@ -140,12 +164,42 @@ public class OrderServiceImplTest {
     assertEquals(2, oi.getQuantity());
   }
 
+  @Test
+  @DisplayName("createOrder should reserve line items concurrently and keep their order")
+  void createOrder_reservesItemsConcurrently() {
+    // Every GET waits until all three reservations are in flight, which only succeeds when they run concurrently
+    CountDownLatch allInFlight = new CountDownLatch(3);
+    when(webClient.get()
+        .uri(anyString(), any(), any())
+        .retrieve()
+        .toEntity(eq(Item.class)))
+        .thenAnswer(inv -> Mono.fromCallable(() -> {
+          allInFlight.countDown();
+          assertTrue(allInFlight.await(5, TimeUnit.SECONDS), "Reservations were not executed concurrently");
+          return ResponseEntity.ok(new Item(101, "Physics", 10, 12.5, "desc"));
+        }));
+    mockWebClientPutAcceptsInventoryAndReturns(InventoryItemDto.class, new InventoryItemDto());
+    when(ordersRepository.save(any(Orders.class))).thenAnswer(inv -> inv.getArgument(0));
+
+    OrderDto orderDto = new OrderDto();
+    orderDto.setStatus("confirmed");
+    orderDto.setTotalPrice(30.0);
+    orderDto.setItems(List.of(
+        new OrderItemDto(101, "book-physics", 5.0, 1),
+        new OrderItemDto(102, "book-math", 5.0, 2),
+        new OrderItemDto(103, "book-history", 5.0, 3)));
+
+    Orders saved = orderService.createOrder(orderDto);
+
+    assertEquals(List.of(1, 2, 3), saved.getOrderItems().stream().map(OrderItem::getQuantity).toList());
+  }
+
   @Test
   @DisplayName("getOrder should return order when found, null otherwise")
   void getOrder_foundAndNotFound() {
     Orders existing = new Orders();
-    when(ordersRepository.findById(1)).thenReturn(Optional.of(existing));
-    when(ordersRepository.findById(2)).thenReturn(Optional.empty());
+    when(ordersRepository.findWithItemsById(1)).thenReturn(Optional.of(existing));
+    when(ordersRepository.findWithItemsById(2)).thenReturn(Optional.empty());
 
     assertSame(existing, orderService.getOrder(1));
     assertNull(orderService.getOrder(2));
@@ -155,7 +209,7 @@ public class OrderServiceImplTest {
   @DisplayName("getAllOrders returns repository list or empty list")
   void getAllOrders_variants() {
     Orders a = new Orders();
-    when(ordersRepository.findAll()).thenReturn(List.of(a)).thenReturn(List.of());
+    when(ordersRepository.findAllWithItems()).thenReturn(List.of(a)).thenReturn(List.of());
 
     List<Orders> first = orderService.getAllOrders();
     assertEquals(1, first.size());
@@ -170,7 +224,7 @@ public class OrderServiceImplTest {
   void updateOrder_updatesFields() {
     Orders existing = new Orders();
     existing.setStatus(Status.CONFIRMED);
-    when(ordersRepository.findById(5)).thenReturn(Optional.of(existing));
+    when(ordersRepository.findWithItemsById(5)).thenReturn(Optional.of(existing));
     when(ordersRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
 
     OrderDto dto = new OrderDto();
@@ -189,7 +243,7 @@ public class OrderServiceImplTest {
   void updateOrder_throwsWhenAlreadyCancelled() {
     Orders existing = new Orders();
     existing.setStatus(Status.CANCELLED);
-    when(ordersRepository.findById(6)).thenReturn(Optional.of(existing));
+    when(ordersRepository.findWithItemsById(6)).thenReturn(Optional.of(existing));
 
     OrderDto dto = new OrderDto();
     dto.setStatus("confirmed");
@@ -203,7 +257,7 @@ public class OrderServiceImplTest {
   @Test
   @DisplayName("updateOrder returns null when order not found")
   void updateOrder_returnsNullWhenMissing() {
-    when(ordersRepository.findById(7)).thenReturn(Optional.empty());
+    when(ordersRepository.findWithItemsById(7)).thenReturn(Optional.empty());
     OrderDto dto = new OrderDto();
     dto.setStatus("confirmed");
     dto.setTotalPrice(10);
@@ -213,7 +267,7 @@ public class OrderServiceImplTest {
   }
 
   @Test
-  @DisplayName("updateOrder restocks items when transitioning to CANCELLED")
+  @DisplayName("updateOrder records the items of a cancelled order in the outbox and restocks them in the background")
   void updateOrder_triggersRestockOnCancel() {
     // existing order with one item
     Orders existing = new Orders();
@@ -221,8 +275,10 @@ public class OrderServiceImplTest {
     OrderItem orderItem = new OrderItem(201, "book-algebra", 3, 15.0);
     existing.addOrderItem(orderItem);
 
-    when(ordersRepository.findById(8)).thenReturn(Optional.of(existing));
+    when(ordersRepository.findWithItemsById(8)).thenReturn(Optional.of(existing));
+    when(ordersRepository.lockCancellable(List.of(existing.getId()))).thenReturn(List.of(existing));
     when(ordersRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+    when(compensationRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
 
     // For restock path, GET should return Item and PUT should return updated Item
     Item fetched = new Item(201, "Algebra", 5, 15.0, "desc");
@@ -240,8 +296,60 @@ public class OrderServiceImplTest {
     assertEquals(Status.CANCELLED, updated.getStatus());
     assertEquals(0.0, updated.getTotalPrice());
 
-    // Verify that web client interactions for GET and PUT were invoked
+    // The item is recorded in the outbox with the cancellation ...
+    ArgumentCaptor<List<PendingCompensation>> outbox = ArgumentCaptor.captor();
+    verify(compensationRepository).saveAll(outbox.capture());
+    assertEquals(1, outbox.getValue().size());
+    assertEquals(201, outbox.getValue().getFirst().getItemId());
+    assertEquals(3, outbox.getValue().getFirst().getQuantity());
+    assertNotNull(outbox.getValue().getFirst().getIdempotencyKey());
+
+    // ... and removed from it once the background restock went through
+    verify(compensationRepository, timeout(2000)).deleteById(anyLong());
     verify(webClient, atLeastOnce()).get();
     verify(webClient, atLeastOnce()).put();
   }
+
+  @Test
+  @DisplayName("createOrder with a completed idempotency key should return the earlier order without reserving")
+  void createOrder_repeatedIdempotencyKey_returnsEarlierOrder() {
+    OrderDto orderDto = new OrderDto(12.5, "CONFIRMED", List.of(new OrderItemDto(101, "book-physics", 12.5, 1)));
+    Orders earlier = new Orders(12.5, Status.CONFIRMED, List.of());
+    when(idempotencyStore.claim(eq("key-1"), anyString())).thenReturn(7);
+    when(ordersRepository.findWithItemsById(7)).thenReturn(Optional.of(earlier));
+
+    assertSame(earlier, orderService.createOrder(orderDto, "key-1"));
+    assertSame(earlier, orderService.createOrderReactive(orderDto, "key-1").block());
+
+    verify(webClient, never()).get();
+    verify(webClient, never()).put();
+    verify(ordersRepository, never()).save(any());
+  }
+
+  @Test
+  @DisplayName("createOrder should complete the claimed idempotency key with the saved order")
+  void createOrder_newIdempotencyKey_completesKey() {
+    OrderDto orderDto = new OrderDto(12.5, "CONFIRMED", List.of(new OrderItemDto(101, "book-physics", 12.5, 2)));
+    mockWebClientGetReturnsItem(new Item(101, "Physics", 10, 12.5, "desc"));
+    mockWebClientPutAcceptsInventoryAndReturns(InventoryItemDto.class, new InventoryItemDto());
+    when(ordersRepository.save(any(Orders.class))).thenAnswer(inv -> inv.getArgument(0));
+
+    Orders created = orderService.createOrder(orderDto, "key-2");
+
+    ArgumentCaptor<String> request = ArgumentCaptor.forClass(String.class);
+    verify(idempotencyStore).claim(eq("key-2"), request.capture());
+    verify(idempotencyStore).complete("key-2", request.getValue(), created.getId());
+    verify(idempotencyStore, never()).release(anyString());
+  }
+
+  @Test
+  @DisplayName("createOrder should release the claimed idempotency key if the order cannot be created")
+  void createOrder_failingOrder_releasesIdempotencyKey() {
+    OrderDto orderDto = new OrderDto(1.0, "CONFIRMED", List.of(new OrderItemDto(1, "gadget-1", 1.0, 1)));
+
+    assertThrows(RuntimeException.class, () -> orderService.createOrder(orderDto, "key-3"));
+
+    verify(idempotencyStore).release("key-3");
+    verify(idempotencyStore, never()).complete(anyString(), anyString(), anyInt());
+  }
 }
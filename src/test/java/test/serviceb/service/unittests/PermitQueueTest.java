@@ -0,0 +1,109 @@
+package test.serviceb.service.unittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import test.serviceb.service.inventory.InventoryUnavailableException;
+import test.serviceb.service.inventory.PermitQueue;
+
+/**
+ * Unit tests for {@link PermitQueue} covering blocking and reactive callers sharing one limit and
+ * callers turned away when the queue is full or their wait times out.
+ */
+class PermitQueueTest {
+
+  @Test
+  @DisplayName("Reactive callers should wait without blocking until a blocking caller returns its permit")
+  void reactiveCallerWaitsForBlockingCaller() throws Exception {
+    PermitQueue permits = new PermitQueue(1);
+    CountDownLatch holding = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(1);
+    Thread blocking = Thread.ofVirtual().start(() -> permits.call(() -> {
+      holding.countDown();
+      try {
+        return done.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }));
+    assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+    AtomicBoolean ran = new AtomicBoolean();
+    Mono<String> reactive = permits.call(Mono.fromCallable(() -> {
+      ran.set(true);
+      return "reserved";
+    }));
+    Disposable subscription = reactive.subscribe();
+    assertFalse(ran.get(), "Reactive call must wait for the permit");
+    subscription.dispose();
+
+    done.countDown();
+    blocking.join();
+    assertEquals("reserved", reactive.block(Duration.ofSeconds(5)));
+    assertTrue(ran.get());
+  }
+
+  @Test
+  @DisplayName("Cancelling a call that holds a permit should pass the permit on")
+  void cancelledCallReturnsPermit() {
+    PermitQueue permits = new PermitQueue(1);
+    Sinks.One<String> never = Sinks.one();
+    Disposable holder = permits.call(never.asMono()).subscribe();
+
+    Mono<String> waiting = permits.call(Mono.just("next"));
+    holder.dispose();
+
+    assertEquals("next", waiting.block(Duration.ofSeconds(5)));
+  }
+
+  @Test
+  @DisplayName("Callers beyond the queue limit should be rejected at once")
+  void fullQueueRejects() {
+    PermitQueue permits = new PermitQueue("alpha", 1, 1, Duration.ZERO);
+    Sinks.One<String> never = Sinks.one();
+    Disposable holder = permits.call(never.asMono()).subscribe();
+    Disposable waiting = permits.call(Mono.just("queued")).subscribe();
+    assertEquals(1, permits.getQueued());
+
+    assertThrows(InventoryUnavailableException.class, () -> permits.call(() -> "blocking"));
+    assertThrows(InventoryUnavailableException.class,
+        () -> permits.call(Mono.just("reactive")).block(Duration.ofSeconds(5)));
+    assertEquals(2, permits.getRejected());
+
+    waiting.dispose();
+    assertEquals(0, permits.getQueued());
+    holder.dispose();
+    assertEquals("next", permits.call(Mono.just("next")).block(Duration.ofSeconds(5)));
+  }
+
+  @Test
+  @DisplayName("Callers waiting longer than the queue timeout should be rejected and leave the queue")
+  void waitTimesOut() {
+    PermitQueue permits = new PermitQueue("alpha", 1, 8, Duration.ofMillis(50));
+    Sinks.One<String> never = Sinks.one();
+    Disposable holder = permits.call(never.asMono()).subscribe();
+
+    assertThrows(InventoryUnavailableException.class, () -> permits.call(() -> "blocking"));
+    assertThrows(InventoryUnavailableException.class,
+        () -> permits.call(Mono.just("reactive")).block(Duration.ofSeconds(5)));
+    assertEquals(0, permits.getQueued());
+    assertEquals(0, permits.getAvailable());
+
+    holder.dispose();
+    assertEquals(1, permits.getAvailable());
+    assertEquals("next", permits.call(() -> "next"));
+  }
+}
@@ -0,0 +1,122 @@
+package test.serviceb.service.unittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import test.serviceb.service.inventory.ReservationScope;
+
+/**
+ * Unit tests for {@link ReservationScope} covering result collection, fail-fast cancellation,
+ * draining after an interruption and waiting for subtasks on close.
+ */
+class ReservationScopeTest {
+
+  private ExecutorService executor;
+
+  @BeforeEach
+  void setUp() {
+    executor = Executors.newVirtualThreadPerTaskExecutor();
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  @DisplayName("join should return the results of all subtasks")
+  void join_returnsResults() throws Exception {
+    int sum = 0;
+    try (ReservationScope<Integer> scope = new ReservationScope<>(executor)) {
+      for (int i = 1; i <= 3; i++) {
+        int value = i;
+        scope.fork(() -> value);
+      }
+      while (scope.unjoined() > 0) {
+        sum += scope.join();
+      }
+    }
+    assertEquals(6, sum);
+  }
+
+  @Test
+  @DisplayName("A failing subtask should cancel its siblings, and close should wait until they stopped")
+  void join_failure_cancelsSiblings() throws Exception {
+    CountDownLatch siblingStarted = new CountDownLatch(1);
+    AtomicBoolean siblingInterrupted = new AtomicBoolean();
+    AtomicBoolean siblingFinished = new AtomicBoolean();
+
+    try (ReservationScope<String> scope = new ReservationScope<>(executor)) {
+      scope.fork(() -> {
+        siblingStarted.countDown();
+        try {
+          Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+          siblingInterrupted.set(true);
+        }
+        siblingFinished.set(true);
+        return "slow";
+      });
+      assertTrue(siblingStarted.await(5, TimeUnit.SECONDS));
+      scope.fork(() -> {
+        throw new IllegalArgumentException("Insufficient stock");
+      });
+
+      IllegalArgumentException failure = assertThrows(IllegalArgumentException.class, scope::join);
+      assertEquals("Insufficient stock", failure.getMessage());
+    }
+
+    // close() returned, so the cancelled sibling must have stopped already
+    assertTrue(siblingInterrupted.get());
+    assertTrue(siblingFinished.get());
+  }
+
+  @Test
+  @DisplayName("drain should collect the results of running subtasks without cancelling them, even when interrupted")
+  void drain_interrupted_collectsResultsOfRunningSubtasks() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    List<String> drained;
+
+    try (ReservationScope<String> scope = new ReservationScope<>(executor)) {
+      scope.fork(() -> {
+        started.countDown();
+        release.await();
+        return "reserved";
+      });
+      scope.fork(() -> "done");
+      scope.fork(() -> {
+        throw new IllegalArgumentException("Insufficient stock");
+      });
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+      executor.execute(() -> {
+        try {
+          Thread.sleep(100);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        release.countDown();
+      });
+
+      Thread.currentThread().interrupt();
+      drained = scope.drain();
+
+      assertTrue(Thread.interrupted());
+      assertEquals(0, scope.unjoined());
+    }
+    assertEquals(Set.of("reserved", "done"), Set.copyOf(drained));
+  }
+}
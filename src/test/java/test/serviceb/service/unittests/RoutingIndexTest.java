@@ -0,0 +1,101 @@
+package test.serviceb.service.unittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import test.serviceb.service.inventory.RoutingIndex;
+
+/**
+ * Unit tests for {@link RoutingIndex} covering overlapping keys and agreement with a naive scan.
+ */
+class RoutingIndexTest {
+
+  @Test
+  @DisplayName("find should return the route whose key occurs anywhere in the item name")
+  void find_keyOccursInName() {
+    RoutingIndex<String> index = new RoutingIndex<>(Map.of("book", "books", "toy", "toys"));
+
+    assertEquals("books", index.find("red-book-42"));
+    assertEquals("toys", index.find("toy"));
+    assertNull(index.find("garden-hose"));
+    assertNull(index.find(""));
+    assertNull(index.find(null));
+  }
+
+  @Test
+  @DisplayName("find should prefer the longest key regardless of the configuration order")
+  void find_overlappingKeys_longestWins() {
+    Map<String, String> shortFirst = new LinkedHashMap<>();
+    shortFirst.put("book", "books");
+    shortFirst.put("bookstore", "stores");
+    Map<String, String> longFirst = new LinkedHashMap<>();
+    longFirst.put("bookstore", "stores");
+    longFirst.put("book", "books");
+
+    assertEquals("stores", new RoutingIndex<>(shortFirst).find("old-bookstore-shelf"));
+    assertEquals("stores", new RoutingIndex<>(longFirst).find("old-bookstore-shelf"));
+    assertEquals("books", new RoutingIndex<>(longFirst).find("old-books-shelf"));
+  }
+
+  @Test
+  @DisplayName("find should detect keys that start inside a partial match of another key")
+  void find_keyInsidePartialMatch() {
+    RoutingIndex<String> index = new RoutingIndex<>(Map.of("abx", "first", "bcd", "second", "c", "third"));
+
+    assertEquals("second", index.find("abcd"));
+    assertEquals("third", index.find("abc"));
+  }
+
+  @Test
+  @DisplayName("find should prefer the first of equally long keys")
+  void find_equallyLongKeys_firstOccurrenceWins() {
+    RoutingIndex<String> index = new RoutingIndex<>(Map.of("pen", "pens", "ink", "inks"));
+
+    assertEquals("inks", index.find("ink-pen"));
+    assertEquals("pens", index.find("pen-ink"));
+  }
+
+  @Test
+  @DisplayName("find should agree with a scan for the longest, then leftmost key")
+  void find_randomNames_agreeWithScan() {
+    Random random = new Random(42);
+    Map<String, Integer> routes = new LinkedHashMap<>();
+    for (int i = 0; i < 40; i++) {
+      routes.put(randomText(random, 1 + random.nextInt(4)), i);
+    }
+    RoutingIndex<Integer> index = new RoutingIndex<>(routes);
+
+    for (int i = 0; i < 2000; i++) {
+      String itemName = randomText(random, random.nextInt(12));
+      assertEquals(scan(routes, itemName), index.find(itemName), itemName);
+    }
+  }
+
+  private static Integer scan(Map<String, Integer> routes, String itemName) {
+    String best = null;
+    int bestStart = Integer.MAX_VALUE;
+    for (String key : routes.keySet()) {
+      int start = itemName.indexOf(key);
+      if (start >= 0 && (best == null || key.length() > best.length()
+          || key.length() == best.length() && start < bestStart)) {
+        best = key;
+        bestStart = start;
+      }
+    }
+    return best == null ? null : routes.get(best);
+  }
+
+  private static String randomText(Random random, int length) {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      text.append((char) ('a' + random.nextInt(3)));
+    }
+    return text.toString();
+  }
+}
@@ -0,0 +1,134 @@
+package test.serviceb.service.unittests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import test.serviceb.config.ServerTimingFilter;
+import test.serviceb.service.timing.ServerTiming;
+
+/**
+ * Unit tests for {@link ServerTiming} covering the header format, how a timing follows the work
+ * of a request to other threads and how {@link ServerTimingFilter} bounds the body it buffers.
+ */
+class ServerTimingTest {
+
+  @AfterEach
+  void tearDown() {
+    ServerTiming current = ServerTiming.current();
+    if (current != null) {
+      current.stop();
+    }
+  }
+
+  @Test
+  @DisplayName("header should render every phase in milliseconds, followed by the total once stopped")
+  void header_rendersPhasesAndTotal() {
+    ServerTiming timing = ServerTiming.start();
+    timing.record("routing", null, 412_000);
+    timing.record("inventory", "alpha \"GET\" 200", TimeUnit.MILLISECONDS.toNanos(5));
+
+    assertEquals("routing;dur=0.412, inventory;desc=\"alpha 'GET' 200\";dur=5.000", timing.header());
+
+    timing.stop();
+    assertTrue(timing.header().matches(".*, total;dur=\\d+\\.\\d{3}"));
+    assertNull(ServerTiming.current());
+  }
+
+  @Test
+  @DisplayName("time should measure a phase only while a timing is bound to the thread")
+  void time_recordsOnlyWhenBound() {
+    assertEquals("unbound", ServerTiming.time("routing", () -> "unbound"));
+
+    ServerTiming timing = ServerTiming.start();
+    assertEquals("bound", ServerTiming.time("routing", () -> "bound"));
+
+    List<ServerTiming.Phase> phases = timing.getPhases();
+    assertEquals(1, phases.size());
+    assertEquals("routing", phases.get(0).name());
+  }
+
+  @Test
+  @DisplayName("stop should end the phases begun and record them once")
+  void stop_endsBegunPhases() {
+    ServerTiming timing = ServerTiming.start();
+    timing.begin("serialization");
+
+    timing.stop();
+    timing.stop();
+
+    assertEquals(List.of("serialization"), timing.getPhases().stream().map(ServerTiming.Phase::name).toList());
+  }
+
+  @Test
+  @DisplayName("propagate should bind the timing while the task runs on another thread")
+  void propagate_bindsTimingOnOtherThread() throws Exception {
+    ServerTiming timing = ServerTiming.start();
+    Callable<ServerTiming> task = ServerTiming.propagate(() -> {
+      ServerTiming.time("routing", () -> null);
+      return ServerTiming.current();
+    });
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      assertSame(timing, executor.submit(task).get());
+      assertNull(executor.submit(ServerTiming::current).get());
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(1, timing.getPhases().size());
+  }
+
+  @Test
+  @DisplayName("inherit should carry the timing to subscriptions on other threads")
+  void inherit_carriesTimingInContext() {
+    ServerTiming timing = ServerTiming.start();
+    Mono<ServerTiming> request = Mono.deferContextual(context -> Mono.justOrEmpty(ServerTiming.from(context)))
+        .subscribeOn(Schedulers.parallel());
+
+    assertSame(timing, ServerTiming.inherit(request).block());
+    timing.stop();
+    assertNull(ServerTiming.inherit(request).block());
+  }
+
+  @Test
+  @DisplayName("the filter should send the header and stop buffering once a body written as text outgrows the limit")
+  void filter_largeBodyThroughWriter_streamsAfterLimit() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/order");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    String chunk = "x".repeat(1024);
+    int chunks = 2 * ServerTimingFilter.BUFFER_LIMIT / chunk.length();
+
+    new ServerTimingFilter().doFilter(request, response, (req, res) -> {
+      ServerTiming.current().record("routing", null, 412_000);
+      ContentCachingResponseWrapper buffered = WebUtils.getNativeResponse(res, ContentCachingResponseWrapper.class);
+      PrintWriter writer = res.getWriter();
+      for (int i = 0; i < chunks; i++) {
+        writer.write(chunk);
+        assertTrue(buffered.getContentSize() <= ServerTimingFilter.BUFFER_LIMIT);
+      }
+      assertNotNull(response.getHeader(ServerTimingFilter.HEADER));
+      assertTrue(response.getContentAsByteArray().length > ServerTimingFilter.BUFFER_LIMIT);
+    });
+
+    assertTrue(response.getHeader(ServerTimingFilter.HEADER).startsWith("routing;dur=0.412"));
+    assertEquals(chunks * chunk.length(), response.getContentAsByteArray().length);
+  }
+}
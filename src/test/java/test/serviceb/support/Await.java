@@ -0,0 +1,46 @@
+package test.serviceb.support;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Waits in a test for work the application finishes in the background, such as the compensation
+ * of failed orders or the restock of cancelled ones, by polling a condition until it holds:
+ *
+ * <pre>{@code
+ * Await.until(() -> compensationRepository.count() == 0);
+ * }</pre>
+ *
+ * The test fails when the condition does not hold within {@link #TIMEOUT}.
+ */
+public final class Await {
+
+  /**
+   * The time a condition is given to hold.
+   */
+  public static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+  private static final Duration POLL_INTERVAL = Duration.ofMillis(20);
+
+  /**
+   * Constructs an instance of Await.
+   */
+  private Await() {
+  }
+
+  /**
+   * Polls a condition until it holds and fails if it does not within {@link #TIMEOUT}.
+   *
+   * @param condition the condition
+   * @throws InterruptedException if the test is interrupted while waiting
+   */
+  public static void until(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TIMEOUT.toNanos();
+    while (!condition.getAsBoolean()) {
+      assertThat(System.nanoTime()).as("condition met within %s", TIMEOUT).isLessThan(deadline);
+      Thread.sleep(POLL_INTERVAL);
+    }
+  }
+}
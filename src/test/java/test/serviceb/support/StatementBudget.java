@@ -0,0 +1,115 @@
+package test.serviceb.support;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+
+/**
+ * Fails a test when an action runs more SQL statements than it is allowed to, so that a query-count
+ * regression such as an N+1 select over the items of orders is caught by the test exercising the
+ * endpoint. Statements are counted with the Hibernate statistics of the entity manager factory,
+ * which are enabled when the budget is created, so a test needs no extra properties:
+ *
+ * <pre>{@code
+ * StatementBudget budget = StatementBudget.of(entityManagerFactory);
+ * budget.atMost(1, () -> mockMvc.perform(get("/api/order/" + id)).andExpect(status().isOk()));
+ * }</pre>
+ *
+ * The statistics are shared by the whole factory: statements run at the same time by other
+ * threads, such as the scheduled compensation of failed orders, are counted as well.
+ */
+public final class StatementBudget {
+
+  private final Statistics statistics;
+
+  /**
+   * Constructs an instance of StatementBudget.
+   *
+   * @param statistics the statistics of the entity manager factory whose statements are counted
+   */
+  private StatementBudget(Statistics statistics) {
+    this.statistics = statistics;
+  }
+
+  /**
+   * Creates a budget counting the statements of the given entity manager factory.
+   *
+   * @param entityManagerFactory the factory whose statements are counted
+   * @return the budget
+   */
+  public static StatementBudget of(EntityManagerFactory entityManagerFactory) {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.setStatisticsEnabled(true);
+    return new StatementBudget(statistics);
+  }
+
+  /**
+   * Runs an action and fails if it prepared more than {@code budget} statements.
+   *
+   * @param budget the maximum number of statements
+   * @param action the action, e.g. a MockMvc request and its expectations
+   * @param <T>    the result type of the action
+   * @return the result of the action
+   * @throws Exception if the action fails
+   */
+  public <T> T atMost(long budget, Callable<T> action) throws Exception {
+    statistics.clear();
+    T result = action.call();
+    long prepared = statistics.getPrepareStatementCount();
+    if (prepared > budget) {
+      throw new AssertionError("Expected at most " + budget + " SQL statements but " + prepared
+          + " were prepared: " + describe());
+    }
+    return result;
+  }
+
+  /**
+   * Runs an action and fails unless it prepared exactly {@code count} statements, for endpoints
+   * whose statement count is part of their contract.
+   *
+   * @param count  the number of statements
+   * @param action the action, e.g. a MockMvc request and its expectations
+   * @param <T>    the result type of the action
+   * @return the result of the action
+   * @throws Exception if the action fails
+   */
+  public <T> T exactly(long count, Callable<T> action) throws Exception {
+    T result = atMost(count, action);
+    long prepared = statistics.getPrepareStatementCount();
+    if (prepared != count) {
+      throw new AssertionError("Expected exactly " + count + " SQL statements but " + prepared
+          + " were prepared: " + describe());
+    }
+    return result;
+  }
+
+  /**
+   * Runs an action and counts the statements it prepared, for comparing the statements of the
+   * same endpoint with different amounts of data.
+   *
+   * @param action the action, e.g. a MockMvc request and its expectations
+   * @return the number of statements
+   * @throws Exception if the action fails
+   */
+  public long count(Callable<?> action) throws Exception {
+    atMost(Long.MAX_VALUE, action);
+    return statistics.getPrepareStatementCount();
+  }
+
+  /**
+   * Describes what the statements counted since the statistics were last cleared did, for the
+   * message of a test exceeding its budget.
+   *
+   * @return the entity and collection loads and fetches, the flushes and the queries
+   */
+  private String describe() {
+    return statistics.getEntityLoadCount() + " entity loads, "
+        + statistics.getEntityFetchCount() + " entity fetches, "
+        + statistics.getCollectionLoadCount() + " collection loads, "
+        + statistics.getCollectionFetchCount() + " collection fetches, "
+        + statistics.getFlushCount() + " flushes, queries " + Arrays.toString(statistics.getQueries());
+  }
+}
@@ -0,0 +1,345 @@
+package test.serviceb.support;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import test.serviceb.domain.Item;
+import test.serviceb.domain.dto.InventoryCapabilitiesDto;
+import test.serviceb.domain.dto.InventoryItemDto;
+import test.serviceb.domain.dto.ItemReservationDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A minimal external inventory running on a local port, used by integration tests that need
+ * real HTTP round-trips instead of a stubbed {@code ExchangeFunction}.
+ * It serves the item endpoints used by the order service and, when enabled, the bulk
+ * reservation endpoint together with a capabilities document advertising it.
+ * Every item carries a version that is sent as {@code ETag}; a {@code PUT} whose
+ * {@code If-Match} header names an outdated version is rejected with {@code 412}. Versions are
+ * never reused, not even after a {@link #reset()}, just like the entity tags of a real inventory.
+ * A {@code PUT} carrying an {@code Idempotency-Key} that was applied before is answered with the
+ * earlier result and not applied again.
+ */
+public final class StubInventoryServer implements AutoCloseable {
+
+  public static final String ITEM = "item";
+  public static final String CAPABILITIES = "capabilities";
+  public static final String RESERVATIONS = "reservations";
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final Map<Integer, Item> items = new ConcurrentHashMap<>();
+  private final Map<Integer, Integer> versions = new ConcurrentHashMap<>();
+  private final AtomicInteger lastVersion = new AtomicInteger();
+  private final AtomicInteger rejectedUpdates = new AtomicInteger();
+  private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+  private final HttpServer server;
+  private final boolean bulkReservation;
+  private volatile Duration latency = Duration.ZERO;
+  private volatile int failureStatus;
+  private final AtomicReference<Duration> nextDelay = new AtomicReference<>();
+  private final Map<String, Item> appliedUpdates = new ConcurrentHashMap<>();
+  private final AtomicInteger replayedUpdates = new AtomicInteger();
+  private volatile boolean loseNextUpdateResponse;
+  private final List<String> traceParents = new CopyOnWriteArrayList<>();
+
+  private StubInventoryServer(boolean bulkReservation) throws IOException {
+    this.bulkReservation = bulkReservation;
+    this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    this.server.createContext("/", this::handle);
+    this.server.start();
+  }
+
+  /**
+   * Starts a stub inventory on a free local port.
+   *
+   * @param bulkReservation whether the stub advertises and serves bulk reservations
+   * @return the running stub inventory
+   */
+  public static StubInventoryServer start(boolean bulkReservation) {
+    try {
+      return new StubInventoryServer(bulkReservation);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public String url() {
+    return "http://localhost:" + server.getAddress().getPort();
+  }
+
+  /**
+   * Removes all items and resets the request counters.
+   */
+  public synchronized void reset() {
+    latency = Duration.ZERO;
+    failureStatus = 0;
+    nextDelay.set(null);
+    items.clear();
+    versions.clear();
+    requestCounts.clear();
+    rejectedUpdates.set(0);
+    appliedUpdates.clear();
+    replayedUpdates.set(0);
+    loseNextUpdateResponse = false;
+    traceParents.clear();
+  }
+
+  public synchronized void addItem(Item item) {
+    items.put(item.getId(), item);
+    versions.put(item.getId(), lastVersion.incrementAndGet());
+  }
+
+  public synchronized Item item(int id) {
+    return items.get(id);
+  }
+
+  /**
+   * Returns how many requests the stub received for an endpoint.
+   *
+   * @param method   the HTTP method, e.g. {@code GET}
+   * @param endpoint one of {@link #ITEM}, {@link #CAPABILITIES} or {@link #RESERVATIONS}
+   * @return the number of matching requests
+   */
+  public int requests(String method, String endpoint) {
+    AtomicInteger count = requestCounts.get(method + " " + endpoint);
+    return count == null ? 0 : count.get();
+  }
+
+  /**
+   * Delays every answer of the stub, simulating a remote inventory.
+   *
+   * @param latency the delay added to every request
+   */
+  public void setLatency(Duration latency) {
+    this.latency = latency;
+  }
+
+  /**
+   * Delays the answer to the next request only, simulating a single slow replica.
+   *
+   * @param delay the delay added to the next request
+   */
+  public void delayNext(Duration delay) {
+    nextDelay.set(delay);
+  }
+
+  /**
+   * Answers every request with the given status instead of serving it, simulating a failing inventory.
+   *
+   * @param status the status to answer with, or {@code 0} to serve requests again
+   */
+  public void setFailureStatus(int status) {
+    this.failureStatus = status;
+  }
+
+  /**
+   * Applies the next update but answers it with {@code 502}, as if the answer was lost on the way back.
+   */
+  public void loseNextUpdateResponse() {
+    this.loseNextUpdateResponse = true;
+  }
+
+  /**
+   * Returns the idempotency keys of all updates applied so far.
+   *
+   * @return the idempotency keys
+   */
+  public List<String> idempotencyKeys() {
+    return List.copyOf(appliedUpdates.keySet());
+  }
+
+  /**
+   * Returns how many updates were not applied because their idempotency key had been applied before.
+   *
+   * @return the number of replayed updates
+   */
+  public int replayedUpdates() {
+    return replayedUpdates.get();
+  }
+
+  /**
+   * Returns how many conditional updates were rejected because the item had changed.
+   *
+   * @return the number of {@code 412} answers
+   */
+  public int rejectedUpdates() {
+    return rejectedUpdates.get();
+  }
+
+  /**
+   * Returns the W3C {@code traceparent} headers of all requests received so far, in the order they arrived.
+   *
+   * @return the trace context sent with every request, or {@code none} for a request without one
+   */
+  public List<String> traceParents() {
+    return List.copyOf(traceParents);
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      String method = exchange.getRequestMethod();
+      String[] path = exchange.getRequestURI().getPath().split("/");
+      String endpoint = path.length == 2 ? path[1] : ITEM;
+      requestCounts.computeIfAbsent(method + " " + endpoint, key -> new AtomicInteger()).incrementAndGet();
+      String traceParent = exchange.getRequestHeaders().getFirst("traceparent");
+      traceParents.add(traceParent == null ? "none" : traceParent);
+      Duration once = nextDelay.getAndSet(null);
+      Duration delay = once == null ? latency : latency.plus(once);
+      if (!delay.isZero()) {
+        try {
+          Thread.sleep(delay);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+      if (failureStatus != 0) {
+        exchange.sendResponseHeaders(failureStatus, -1);
+        return;
+      }
+      switch (method + " " + endpoint) {
+        case "GET " + CAPABILITIES -> capabilities(exchange);
+        case "POST " + RESERVATIONS -> reserve(exchange);
+        case "GET " + ITEM -> getItem(exchange, Integer.parseInt(path[1]));
+        case "PUT " + ITEM -> putItem(exchange, Integer.parseInt(path[1]));
+        default -> exchange.sendResponseHeaders(405, -1);
+      }
+    }
+  }
+
+  private void capabilities(HttpExchange exchange) throws IOException {
+    if (!bulkReservation) {
+      exchange.sendResponseHeaders(404, -1);
+      return;
+    }
+    respond(exchange, 200, new InventoryCapabilitiesDto(true));
+  }
+
+  private void getItem(HttpExchange exchange, int id) throws IOException {
+    Item item;
+    String etag;
+    synchronized (this) {
+      item = items.get(id);
+      etag = etag(id);
+    }
+    if (item == null) {
+      exchange.sendResponseHeaders(404, -1);
+      return;
+    }
+    exchange.getResponseHeaders().add("ETag", etag);
+    respond(exchange, 200, item);
+  }
+
+  private void putItem(HttpExchange exchange, int id) throws IOException {
+    InventoryItemDto update = read(exchange.getRequestBody(), new TypeReference<>() { });
+    String idempotencyKey = exchange.getRequestHeaders().getFirst("Idempotency-Key");
+    Item updated;
+    String etag;
+    boolean lost;
+    synchronized (this) {
+      if (!items.containsKey(id)) {
+        exchange.sendResponseHeaders(404, -1);
+        return;
+      }
+      Item replayed = idempotencyKey == null ? null : appliedUpdates.get(idempotencyKey);
+      if (replayed != null) {
+        replayedUpdates.incrementAndGet();
+        exchange.getResponseHeaders().add("ETag", etag(id));
+        respond(exchange, 200, replayed);
+        return;
+      }
+      String ifMatch = exchange.getRequestHeaders().getFirst("If-Match");
+      if (ifMatch != null && !ifMatch.equals(etag(id))) {
+        rejectedUpdates.incrementAndGet();
+        exchange.sendResponseHeaders(412, -1);
+        return;
+      }
+      updated = new Item(id, update.getName(), update.getStock(), update.getPrice(), update.getDescription());
+      items.put(id, updated);
+      versions.put(id, lastVersion.incrementAndGet());
+      etag = etag(id);
+      if (idempotencyKey != null) {
+        appliedUpdates.put(idempotencyKey, updated);
+      }
+      lost = loseNextUpdateResponse;
+      loseNextUpdateResponse = false;
+    }
+    if (lost) {
+      exchange.sendResponseHeaders(502, -1);
+      return;
+    }
+    exchange.getResponseHeaders().add("ETag", etag);
+    respond(exchange, 200, updated);
+  }
+
+  private void reserve(HttpExchange exchange) throws IOException {
+    if (!bulkReservation) {
+      exchange.sendResponseHeaders(404, -1);
+      return;
+    }
+    List<ItemReservationDto> reservations = read(exchange.getRequestBody(), new TypeReference<>() { });
+    List<Item> reserved = new ArrayList<>();
+    synchronized (this) {
+      for (ItemReservationDto reservation : reservations) {
+        Item item = items.get(reservation.getItemId());
+        if (item == null) {
+          exchange.sendResponseHeaders(404, -1);
+          return;
+        }
+        if (item.getStock() < reservation.getQuantity()) {
+          exchange.sendResponseHeaders(409, -1);
+          return;
+        }
+      }
+      for (ItemReservationDto reservation : reservations) {
+        Item item = items.get(reservation.getItemId());
+        Item updated = new Item(item.getId(), item.getName(), item.getStock() - reservation.getQuantity(),
+            item.getPrice(), item.getDescription());
+        items.put(updated.getId(), updated);
+        versions.put(updated.getId(), lastVersion.incrementAndGet());
+        reserved.add(updated);
+      }
+    }
+    respond(exchange, 200, reserved);
+  }
+
+  private String etag(int id) {
+    return "\"" + versions.getOrDefault(id, 0) + "\"";
+  }
+
+  private <T> T read(InputStream body, TypeReference<T> type) throws IOException {
+    try (body) {
+      return mapper.readValue(body, type);
+    }
+  }
+
+  private void respond(HttpExchange exchange, int status, Object body) throws IOException {
+    byte[] json = mapper.writeValueAsBytes(body);
+    exchange.getResponseHeaders().add("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, json.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(json);
+    }
+  }
+}